@@ -48,7 +48,8 @@ public class ExpenseTrackerSwingAppSteps {
 	public void the_Expense_View_is_shown() {
 		// Launch the ExpenseTrackerSwingApp and wait for the UI to become idle
 		application("com.tdd.expensetracker.app.ExpenseTrackerSwingApp")
-				.withArgs("--mysql-DB_URL=" + dbURL, "--mysql-user=" + DB_USER, "--mysql-pass=" + DB_PASS).start();
+				.withArgs("--mysql-DB_URL=" + dbURL, "--mysql-user=" + DB_USER, "--mysql-pass=" + DB_PASS,
+						"--snapshot-size=0").start();
 		robot.waitForIdle();
 		// Find the "Expense" window and assign it to the expenseTrackerWindow fixture
 		expenseTrackerWindow = WindowFinder.findFrame(new GenericTypeMatcher<JFrame>(JFrame.class) {
@@ -1,5 +1,7 @@
 package com.tdd.expensetracker.repository.mysql;
 
+import static com.tdd.expensetracker.model.DeepEquality.CATEGORY_FIELDS;
+
 import java.util.List;
 
 import org.assertj.core.api.Assertions;
@@ -66,7 +68,8 @@ public class CategoryMysqlRepositoryTestContainerIT {
 		Category category2 = new Category("name2", "description2");
 		String id1 = addTestCategoryToDatabase(category);
 		String id2 = addTestCategoryToDatabase(category2);
-		Assertions.assertThat(categoryMySqlRepository.findAll()).containsExactlyInAnyOrder(
+		Assertions.assertThat(categoryMySqlRepository.findAll()).usingElementComparator(CATEGORY_FIELDS)
+				.containsExactlyInAnyOrder(
 				new Category(id1, "name1", "description1"), new Category(id2, "name2", "description2"));
 	}
 
@@ -87,7 +90,8 @@ public class CategoryMysqlRepositoryTestContainerIT {
 	public void testSave() {
 		Category category = new Category("name2", "description2");
 		categoryMySqlRepository.save(category);
-		Assertions.assertThat(readAllCategoryFromDatabase()).containsExactly(category);
+		Assertions.assertThat(readAllCategoryFromDatabase()).usingElementComparator(CATEGORY_FIELDS)
+				.containsExactly(category);
 	}
 
 	// Test that the repository deletes a category from the database
@@ -107,7 +111,8 @@ public class CategoryMysqlRepositoryTestContainerIT {
 		String id = addTestCategoryToDatabase(category);
 		Category updatedCategory = new Category(id, "nameUpdate2", "updated Desc");
 		categoryMySqlRepository.update(updatedCategory);
-		Assertions.assertThat(readAllCategoryFromDatabase()).containsExactly(updatedCategory);
+		Assertions.assertThat(readAllCategoryFromDatabase()).usingElementComparator(CATEGORY_FIELDS)
+				.containsExactly(updatedCategory);
 	}
 
 	// Utility method to retrieve all categories from the database
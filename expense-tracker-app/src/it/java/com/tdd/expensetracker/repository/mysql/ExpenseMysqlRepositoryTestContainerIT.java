@@ -1,5 +1,7 @@
 package com.tdd.expensetracker.repository.mysql;
 
+import static com.tdd.expensetracker.model.DeepEquality.EXPENSE_FIELDS;
+
 import java.time.LocalDate;
 import java.util.List;
 
@@ -69,7 +71,8 @@ public class ExpenseMysqlRepositoryTestContainerIT {
 	public void testFindAll() {
 		String id1 = addTestExpenseToDatabase(new Expense(50.0, "test1", LocalDate.now(), category));
 		String id2 = addTestExpenseToDatabase(new Expense(50.0, "test2", LocalDate.now(), category));
-		Assertions.assertThat(expenseMysqlRepository.findAll()).containsExactlyInAnyOrder(
+		Assertions.assertThat(expenseMysqlRepository.findAll()).usingElementComparator(EXPENSE_FIELDS)
+				.containsExactlyInAnyOrder(
 				new Expense(id1, 50d, "test1", LocalDate.now(), category),
 				new Expense(id2, 50d, "test2", LocalDate.now(), category));
 	}
@@ -89,7 +92,8 @@ public class ExpenseMysqlRepositoryTestContainerIT {
 	public void testSave() {
 		Expense expense = new Expense(50.0, "test2", LocalDate.now(), category);
 		expenseMysqlRepository.save(expense);
-		Assertions.assertThat(readAllExpenseFromDatabase()).containsExactly(expense);
+		Assertions.assertThat(readAllExpenseFromDatabase()).usingElementComparator(EXPENSE_FIELDS)
+				.containsExactly(expense);
 	}
 
 	// Test that the repository deletes an expense from the database
@@ -108,7 +112,8 @@ public class ExpenseMysqlRepositoryTestContainerIT {
 		Expense updatedExpense = new Expense(expenseToUpdate, 60.0, "updated name", LocalDate.now().plusDays(5),
 				category);
 		expenseMysqlRepository.update(updatedExpense);
-		Assertions.assertThat(readAllExpenseFromDatabase()).containsExactly(updatedExpense);
+		Assertions.assertThat(readAllExpenseFromDatabase()).usingElementComparator(EXPENSE_FIELDS)
+				.containsExactly(updatedExpense);
 	}
 
 	// Utility method to retrieve all expenses from the database
@@ -1,5 +1,6 @@
 package com.tdd.expensetracker.view.swing;
 
+import static com.tdd.expensetracker.model.DeepEquality.CATEGORY_FIELDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Awaitility.await;
 
@@ -83,7 +84,7 @@ public class CategoryModelViewControllerIT extends AssertJSwingJUnitTestCase {
 		// Wait and verify that the category is added to the repository
 		await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> assertThat(categoryRepository.findAll()).isNotEmpty());
 		Category createdCategory = categoryRepository.findAll().get(0);
-		assertThat(categoryRepository.findById(createdCategory.getId()))
+		assertThat(categoryRepository.findById(createdCategory.getId())).usingComparator(CATEGORY_FIELDS)
 				.isEqualTo(new Category(createdCategory.getId(), "bills", "other"));
 	}
 
@@ -125,7 +126,8 @@ public class CategoryModelViewControllerIT extends AssertJSwingJUnitTestCase {
 
 		// Wait and verify that the category is updated in the repository
 		await().atMost(5, TimeUnit.SECONDS).untilAsserted(
-				() -> assertThat(categoryRepository.findById(category.getId())).isEqualTo(updatedCategory));
+				() -> assertThat(categoryRepository.findById(category.getId())).usingComparator(CATEGORY_FIELDS)
+						.isEqualTo(updatedCategory));
 	}
 
 	// Helper method to set values in the category fields
@@ -1,5 +1,6 @@
 package com.tdd.expensetracker.view.swing;
 
+import static com.tdd.expensetracker.model.DeepEquality.EXPENSE_FIELDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Awaitility.await;
 
@@ -101,7 +102,7 @@ public class ExpenseModelViewControllerIT extends AssertJSwingJUnitTestCase {
 		await().atMost(15, TimeUnit.SECONDS).untilAsserted(() -> assertThat(expenseRepository.findAll()).isNotEmpty());
 
 		Expense createdExpense = expenseRepository.findAll().get(0);
-		assertThat(expenseRepository.findById(createdExpense.getId()))
+		assertThat(expenseRepository.findById(createdExpense.getId())).usingComparator(EXPENSE_FIELDS)
 				.isEqualTo(new Expense(createdExpense.getId(), 5000d, "testExpense", LocalDate.now(), category));
 	}
 
@@ -122,7 +123,8 @@ public class ExpenseModelViewControllerIT extends AssertJSwingJUnitTestCase {
 		window.button(JButtonMatcher.withText("Update Expense")).click();
 
 		await().atMost(5, TimeUnit.SECONDS).untilAsserted(
-				() -> assertThat(assertThat(expenseRepository.findById(expense.getId())).isEqualTo(updatedExpense)));
+				() -> assertThat(expenseRepository.findById(expense.getId())).usingComparator(EXPENSE_FIELDS)
+						.isEqualTo(updatedExpense));
 	}
 
 	// Test the ability to delete an existing expense
@@ -0,0 +1,124 @@
+package com.tdd.expensetracker.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.utils.IdAllocator;
+import com.tdd.expensetracker.utils.JsonUtils;
+
+// Encoding and decoding throughput of a batch of expenses with ExpenseCodec and
+// with flat JSON objects written and parsed by JsonUtils, as the HTTP API does.
+// The encoded sizes of the batch in both forms are printed during setup.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpenseCodecBenchmark {
+
+	private static final int BATCH = 1000;
+
+	private final List<Expense> expenses = new ArrayList<>();
+	private ByteBuffer binary;
+	private final List<byte[]> json = new ArrayList<>();
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		Category[] categories = { new Category(IdAllocator.nextId(), "food", "groceries and restaurants"),
+				new Category(IdAllocator.nextId(), "travel", "trains, buses and flights") };
+		String[] descriptions = { "lunch", "weekly groceries", "train ticket to the airport", "coffee" };
+		int binarySize = 0;
+		for (int i = 0; i < BATCH; i++) {
+			expenses.add(new Expense(IdAllocator.nextId(), (1 + random.nextInt(20_000)) / 100d,
+					descriptions[random.nextInt(descriptions.length)], LocalDate.of(2024, 1, 1).plusDays(i % 366),
+					categories[random.nextInt(categories.length)]));
+			binarySize += ExpenseCodec.maxEncodedSize(expenses.get(i));
+		}
+		binary = ByteBuffer.allocate(binarySize);
+		int jsonSize = 0;
+		for (Expense expense : expenses) {
+			ExpenseCodec.write(binary, expense);
+			byte[] bytes = toJson(expense);
+			json.add(bytes);
+			jsonSize += bytes.length;
+		}
+		binary.flip();
+		System.out.println();
+		System.out.println("Bytes per expense: binary " + binary.limit() / BATCH + ", JSON " + jsonSize / BATCH);
+	}
+
+	@Benchmark
+	public ByteBuffer encodeBinary() {
+		binary.clear();
+		for (Expense expense : expenses) {
+			ExpenseCodec.write(binary, expense);
+		}
+		binary.flip();
+		return binary;
+	}
+
+	@Benchmark
+	public void decodeBinary(Blackhole blackhole) {
+		ByteBuffer records = binary.duplicate();
+		while (records.hasRemaining()) {
+			blackhole.consume(ExpenseCodec.readExpense(records));
+		}
+	}
+
+	@Benchmark
+	public void encodeJson(Blackhole blackhole) {
+		for (Expense expense : expenses) {
+			blackhole.consume(toJson(expense));
+		}
+	}
+
+	@Benchmark
+	public void decodeJson(Blackhole blackhole) {
+		for (byte[] bytes : json) {
+			Map<String, Object> object = JsonUtils.parseObject(new String(bytes, StandardCharsets.UTF_8));
+			String date = (String) object.get("date");
+			blackhole.consume(new Expense((String) object.get("id"), (Double) object.get("amount"),
+					(String) object.get("description"), date == null ? null : LocalDate.parse(date),
+					new Category((String) object.get("categoryId"), (String) object.get("categoryName"),
+							(String) object.get("categoryDescription"))));
+		}
+	}
+
+	private static byte[] toJson(Expense expense) {
+		StringBuilder text = new StringBuilder("{\"id\":");
+		JsonUtils.appendString(text, expense.getId());
+		text.append(",\"amount\":").append(expense.getAmount()).append(",\"description\":");
+		JsonUtils.appendString(text, expense.getDescription());
+		text.append(",\"date\":");
+		JsonUtils.appendString(text, expense.getDate().toString());
+		text.append(",\"categoryId\":");
+		JsonUtils.appendString(text, expense.getCategory().getId());
+		text.append(",\"categoryName\":");
+		JsonUtils.appendString(text, expense.getCategory().getName());
+		text.append(",\"categoryDescription\":");
+		JsonUtils.appendString(text, expense.getCategory().getDescription());
+		return text.append('}').toString().getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,115 @@
+package com.tdd.expensetracker.report;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.DefaultListModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+
+// Totals and filtered aggregations over the same expenses held as objects in a
+// Swing list model, as ExpenseSwingView.setTotalAmountLabel walks them, and as
+// columns scanned by AmountKernels. Random dates and categories make the
+// filters unpredictable for the branching loops.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AmountKernelsBenchmark {
+
+	private static final LocalDate START = LocalDate.of(2020, 1, 1);
+
+	@Param({ "10000", "1000000" })
+	private int size;
+
+	private final Category food = new Category("1", "food", "groceries");
+	private final List<Expense> expenses = new ArrayList<>();
+	private final DefaultListModel<Expense> listModel = new DefaultListModel<>();
+	private final ExpenseColumns columns = new ExpenseColumns();
+	private final LocalDate from = START.plusDays(365);
+	private final LocalDate to = START.plusDays(730);
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		Category[] categories = { food, new Category("2", "travel", "trips"), new Category("3", "rent", "flat") };
+		for (int i = 0; i < size; i++) {
+			expenses.add(new Expense(Integer.toString(i), (1 + random.nextInt(50_000)) / 100d, "e" + i % 100,
+					START.plusDays(random.nextInt(1460)), categories[random.nextInt(categories.length)]));
+		}
+		expenses.forEach(listModel::addElement);
+		columns.rebuild(expenses::forEach);
+	}
+
+	// The loop of ExpenseSwingView.setTotalAmountLabel
+	@Benchmark
+	public long totalFromListModel() {
+		long cents = 0;
+		Enumeration<Expense> elements = listModel.elements();
+		while (elements.hasMoreElements()) {
+			Expense expense = elements.nextElement();
+			cents += expense.getAmountCents();
+		}
+		return cents;
+	}
+
+	@Benchmark
+	public SpendingStats totalFromColumns() {
+		return columns.aggregate(null, null, null);
+	}
+
+	@Benchmark
+	public long filteredTotalFromExpenses() {
+		long cents = 0;
+		for (Expense expense : expenses) {
+			if (expense.getCategory().getId().equals(food.getId()) && !expense.getDate().isBefore(from)
+					&& !expense.getDate().isAfter(to)) {
+				cents += expense.getAmountCents();
+			}
+		}
+		return cents;
+	}
+
+	// The same scan of the columns as the kernel, but deciding on each row with
+	// branches
+	@Benchmark
+	public long filteredTotalFromColumnsWithBranches() {
+		int category = 0;
+		int fromDay = (int) from.toEpochDay();
+		int toDay = (int) to.toEpochDay();
+		return columns.read(table -> {
+			long cents = 0;
+			for (int row = 0; row < table.size; row++) {
+				if (table.categoryOrdinals[row] == category && table.epochDays[row] >= fromDay
+						&& table.epochDays[row] <= toDay) {
+					cents += table.cents[row];
+				}
+			}
+			return cents;
+		});
+	}
+
+	@Benchmark
+	public SpendingStats filteredTotalFromColumns() {
+		return columns.aggregate(food.getId(), from, to);
+	}
+}
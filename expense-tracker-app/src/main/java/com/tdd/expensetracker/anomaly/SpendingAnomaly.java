@@ -0,0 +1,49 @@
+package com.tdd.expensetracker.anomaly;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+
+// Raised when a new expense is far above the usual spending of its category
+public class SpendingAnomaly {
+
+	private final Expense expense;
+	private final double mean;
+	private final double deviation;
+
+	public SpendingAnomaly(Expense expense, double mean, double deviation) {
+		this.expense = expense;
+		this.mean = mean;
+		this.deviation = deviation;
+	}
+
+	public Expense getExpense() {
+		return expense;
+	}
+
+	// Usual amount of the category before this expense
+	public double getMean() {
+		return mean;
+	}
+
+	// Usual spread of the amounts of the category before this expense
+	public double getDeviation() {
+		return deviation;
+	}
+
+	// How many deviations the amount lies above the mean
+	public double getScore() {
+		return (expense.getAmount() - mean) / deviation;
+	}
+
+	public String getMessage() {
+		Category category = expense.getCategory();
+		String name = category.getName() != null ? category.getName() : category.getId();
+		return String.format("Unusual expense %s for %s: %.2f where %.2f is usual", expense.getDescription(), name,
+				expense.getAmount(), mean);
+	}
+
+	@Override
+	public String toString() {
+		return "SpendingAnomaly [" + getMessage() + "]";
+	}
+}
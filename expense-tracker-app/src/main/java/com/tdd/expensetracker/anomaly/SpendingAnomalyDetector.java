@@ -0,0 +1,114 @@
+package com.tdd.expensetracker.anomaly;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.tdd.expensetracker.controller.ExpenseListener;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.model.SpendingMoments;
+
+// Keeps an exponentially weighted mean and variance of the amounts of every
+// category and flags a new expense lying more than THRESHOLD deviations above
+// its category's mean. Each expense updates two numbers, so detection costs
+// O(1) and history is only read once, as per-category aggregates at startup.
+public class SpendingAnomalyDetector implements ExpenseListener {
+
+	private static final Logger LOGGER = LogManager.getLogger(SpendingAnomalyDetector.class);
+
+	// Weight of the newest amount; recent habits matter more than old ones
+	static final double ALPHA = 0.05;
+	static final double THRESHOLD = 3;
+	// Fewer amounts say too little about what is usual
+	static final long MIN_COUNT = 5;
+	// Deviation used at least, in fraction of the mean, so that a category of
+	// identical amounts does not flag every small change
+	static final double MIN_RELATIVE_DEVIATION = 0.1;
+
+	private final Consumer<SpendingAnomaly> anomalies;
+	private final Map<String, Moments> momentsByCategory = new HashMap<>();
+
+	// Constructor to initialize the detector with the stored statistics of every
+	// category and the receiver of the anomalies
+	public SpendingAnomalyDetector(List<SpendingMoments> storedMoments, Consumer<SpendingAnomaly> anomalies) {
+		this.anomalies = anomalies;
+		for (SpendingMoments categoryMoments : storedMoments) {
+			Moments moments = new Moments();
+			moments.count = categoryMoments.getCount();
+			moments.mean = categoryMoments.getMean();
+			moments.variance = categoryMoments.getVariance();
+			momentsByCategory.put(categoryMoments.getCategoryId(), moments);
+		}
+	}
+
+	// Checks an expense entered by the user before learning its amount
+	@Override
+	public synchronized void expenseAdded(Expense expense) {
+		Moments moments = moments(expense);
+		if (moments == null) {
+			return;
+		}
+		double deviation = Math.max(Math.sqrt(moments.variance), moments.mean * MIN_RELATIVE_DEVIATION);
+		if (moments.count >= MIN_COUNT && deviation > 0
+				&& expense.getAmount() - moments.mean > THRESHOLD * deviation) {
+			SpendingAnomaly anomaly = new SpendingAnomaly(expense, moments.mean, deviation);
+			LOGGER.info("{}", anomaly);
+			anomalies.accept(anomaly);
+		}
+		moments.add(expense.getAmount());
+	}
+
+	// Batches are imports or generated recurring expenses, not amounts just typed
+	// in, so they are learned without being checked
+	@Override
+	public synchronized void expensesAdded(List<Expense> expenses) {
+		for (Expense expense : expenses) {
+			Moments moments = moments(expense);
+			if (moments != null) {
+				moments.add(expense.getAmount());
+			}
+		}
+	}
+
+	// The weighted moments cannot forget a single amount; corrections and deletes
+	// fade out with the old amounts instead
+	@Override
+	public void expenseUpdated(Expense previousExpense, Expense updatedExpense) {
+		// Nothing to update
+	}
+
+	@Override
+	public void expenseDeleted(Expense expense) {
+		// Nothing to update
+	}
+
+	private Moments moments(Expense expense) {
+		if (expense.getCategory() == null || expense.getCategory().getId() == null) {
+			return null;
+		}
+		return momentsByCategory.computeIfAbsent(expense.getCategory().getId(), id -> new Moments());
+	}
+
+	private static class Moments {
+		private long count;
+		private double mean;
+		private double variance;
+
+		// Incremental exponentially weighted update of the mean and variance; the
+		// first amount starts the mean
+		private void add(double amount) {
+			if (count++ == 0) {
+				mean = amount;
+				return;
+			}
+			double difference = amount - mean;
+			double increment = ALPHA * difference;
+			mean += increment;
+			variance = (1 - ALPHA) * (variance + difference * increment);
+		}
+	}
+}
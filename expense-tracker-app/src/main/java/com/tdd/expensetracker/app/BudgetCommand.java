@@ -0,0 +1,71 @@
+package com.tdd.expensetracker.app;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.hibernate.SessionFactory;
+
+import com.tdd.expensetracker.model.Budget;
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.repository.mysql.BudgetMysqlRepository;
+import com.tdd.expensetracker.repository.mysql.CategoryMySqlRepository;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParentCommand;
+
+// Headless command that lists, sets and removes the monthly budgets of
+// categories, identified by name
+@Command(name = "budget", mixinStandardHelpOptions = true, description = "Manage monthly category budgets")
+public class BudgetCommand implements Callable<Integer> {
+
+	@ParentCommand
+	private ExpenseTrackerSwingApp app;
+
+	@Option(names = { "--set" }, description = "set the monthly limit of a category, as name=amount")
+	private Map<String, Double> budgetsToSet = new HashMap<>();
+
+	@Option(names = { "--remove" }, description = "remove the budget of the category with this name")
+	private String[] budgetsToRemove = new String[0];
+
+	@Override
+	public Integer call() throws Exception {
+		SessionFactory sessionFactory = app.buildSessionFactory(false);
+		try {
+			CategoryMySqlRepository categoryRepository = new CategoryMySqlRepository(sessionFactory);
+			BudgetMysqlRepository budgetRepository = new BudgetMysqlRepository(sessionFactory);
+			for (Map.Entry<String, Double> entry : budgetsToSet.entrySet()) {
+				Category category = findCategory(categoryRepository, entry.getKey());
+				if (category == null) {
+					return 1;
+				}
+				budgetRepository.save(new Budget(category.getId(), entry.getValue()));
+			}
+			for (String name : budgetsToRemove) {
+				Category category = findCategory(categoryRepository, name);
+				if (category == null) {
+					return 1;
+				}
+				budgetRepository.delete(category.getId());
+			}
+
+			Map<String, String> namesById = new HashMap<>();
+			categoryRepository.findAll().forEach(category -> namesById.put(category.getId(), category.getName()));
+			for (Budget budget : budgetRepository.findAll()) {
+				System.out.println(namesById.getOrDefault(budget.getCategoryId(), budget.getCategoryId()) + " | "
+						+ budget.getMonthlyLimit());
+			}
+		} finally {
+			sessionFactory.close();
+		}
+		return 0;
+	}
+
+	private static Category findCategory(CategoryMySqlRepository categoryRepository, String name) {
+		Category category = categoryRepository.findByName(name);
+		if (category == null) {
+			System.err.println("Category does not exist with name " + name);
+		}
+		return category;
+	}
+}
@@ -1,6 +1,8 @@
 package com.tdd.expensetracker.app;
 
 import java.awt.EventQueue;
+import java.nio.file.Paths;
+import java.time.LocalDate;
 import java.util.concurrent.Callable;
 
 import javax.swing.UIManager;
@@ -13,18 +15,33 @@ import org.hibernate.boot.MetadataSources;
 import org.hibernate.boot.registry.StandardServiceRegistry;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
 
+import com.tdd.expensetracker.anomaly.SpendingAnomalyDetector;
+import com.tdd.expensetracker.budget.BudgetEvaluator;
+import com.tdd.expensetracker.classifier.CategoryClassifier;
 import com.tdd.expensetracker.controller.CategoryController;
 import com.tdd.expensetracker.controller.ExpenseController;
+import com.tdd.expensetracker.controller.ExpenseIdFilter;
+import com.tdd.expensetracker.recurring.RecurringExpenseScheduler;
+import com.tdd.expensetracker.repository.mysql.BudgetMysqlRepository;
 import com.tdd.expensetracker.repository.mysql.CategoryMySqlRepository;
 import com.tdd.expensetracker.repository.mysql.ExpenseMysqlRepository;
+import com.tdd.expensetracker.repository.mysql.RecurringExpenseMysqlRepository;
+import com.tdd.expensetracker.repository.mysql.SchemaMigrator;
+import com.tdd.expensetracker.search.DescriptionSuggester;
+import com.tdd.expensetracker.search.ExpenseSearchIndex;
+import com.tdd.expensetracker.snapshot.Snapshot;
+import com.tdd.expensetracker.snapshot.SnapshotStore;
 import com.tdd.expensetracker.view.swing.CategorySwingView;
 import com.tdd.expensetracker.view.swing.ExpenseSwingView;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 
-// Main class for the Expense Tracker Swing Application
-@Command(mixinStandardHelpOptions = true)
+// Main class for the Expense Tracker Swing Application. Without a subcommand it
+// starts the Swing UI; the subcommands run headless batch jobs.
+@Command(mixinStandardHelpOptions = true, subcommands = { ImportCommand.class, ExportCommand.class,
+		ReportCommand.class, RecomputeCommand.class, ServeCommand.class, BudgetCommand.class,
+		RecurringCommand.class, SearchCommand.class })
 public class ExpenseTrackerSwingApp implements Callable<Void> {
 
 	/**
@@ -48,13 +65,54 @@ public class ExpenseTrackerSwingApp implements Callable<Void> {
 	@Option(names = { "--mysql-pass" }, description = "mysql pass")
 	private String pass = "test";
 
+	/**
+	 * Skips the schema version check and any Hibernate schema validation at
+	 * startup. This is set via the command line option "--fast-start".
+	 */
+	@Option(names = { "--fast-start" }, description = "skip schema migration and validation at startup")
+	private boolean fastStart = false;
+
+	/**
+	 * The file holding the warm-start snapshot of categories and recent expenses.
+	 * This is set via the command line option "--snapshot-file".
+	 */
+	@Option(names = { "--snapshot-file" }, description = "warm-start snapshot file")
+	private String snapshotFile = Paths.get(System.getProperty("user.home"), ".expense-tracker", "snapshot.bin")
+			.toString();
+
+	/**
+	 * The number of most recent expenses kept in the snapshot, 0 disables the
+	 * snapshot. This is set via the command line option "--snapshot-size".
+	 */
+	@Option(names = { "--snapshot-size" }, description = "recent expenses kept in the snapshot, 0 to disable")
+	private int snapshotSize = 500;
+
 	// Logger for logging errors and information.
 	private static final Logger LOGGER = LogManager.getLogger(ExpenseTrackerSwingApp.class);
 
 	// Hibernate service registry for database configuration.
 	private StandardServiceRegistry registry;
 
+	// Swing views, created on the EventQueue thread.
+	private ExpenseSwingView expenseView;
+	private CategorySwingView categoryView;
+
 	public static void main(String[] args) {
+		// Initializes the application using picocli's CommandLine to parse command-line
+		// arguments.
+		CommandLine commandLine = new CommandLine(new ExpenseTrackerSwingApp());
+		int exitCode = commandLine.execute(args);
+
+		// Headless subcommands end the process with their exit code, the Swing
+		// application keeps running on the EventQueue thread.
+		if (commandLine.getParseResult() != null && commandLine.getParseResult().hasSubcommand()) {
+			System.exit(exitCode);
+		}
+	}
+
+	// Method invoked when the application is called.
+	@Override
+	public Void call() throws Exception {
 		try {
 			// Sets the look and feel of the UI to GTK, if available.
 			UIManager.setLookAndFeel("com.sun.java.swing.plaf.gtk.GTKLookAndFeel");
@@ -62,70 +120,204 @@ public class ExpenseTrackerSwingApp implements Callable<Void> {
 				| UnsupportedLookAndFeelException e) {
 			LOGGER.error("context", e);
 		}
-		// Initializes the application using picocli's CommandLine to parse command-line
-		// arguments.
-		new CommandLine(new ExpenseTrackerSwingApp()).execute(args);
-	}
 
-	// Method invoked when the application is called.
-	@Override
-	public Void call() throws Exception {
-		// Runs the UI-related code on the EventQueue thread to ensure thread safety in
-		// Swing.
-		EventQueue.invokeLater(() -> {
-			try {
-				// Fetch the current environment property to determine which configuration to
-				// load.
-				String environment = System.getProperty("ENVIRONMENT");
-
-				// If the environment is set to "testWithEclipes", load the testing
-				// configuration.
-				if ("testWithEclipes".equals(environment)) {
-					registry = new StandardServiceRegistryBuilder().configure("hibernate-IT.cfg.xml")
-							.applySetting("hibernate.connection.url", url)
-							.applySetting("hibernate.connection.username", user)
-							.applySetting("hibernate.hbm2ddl.auto", "validate")
-							.applySetting("hibernate.connection.password", pass).build();
-				} else {
-					// For other environments, load the default configuration.
-					registry = new StandardServiceRegistryBuilder().configure().build();
-				}
+		// Read the warm-start snapshot before touching the database so the views can
+		// render it straight away.
+		SnapshotStore snapshotStore = snapshotSize > 0 ? new SnapshotStore(Paths.get(snapshotFile)) : null;
+		Snapshot snapshot = snapshotStore != null ? snapshotStore.read() : null;
 
-				// Sets up Hibernate's SessionFactory for managing database connections.
-				MetadataSources metadataSources = new MetadataSources(registry);
-				SessionFactory sessionFactory = metadataSources.buildMetadata().buildSessionFactory();
+		// Creates the Swing views on the EventQueue thread and shows the snapshot, if
+		// any, while the database connection is still being set up.
+		EventQueue.invokeAndWait(() -> {
+			expenseView = new ExpenseSwingView();
+			categoryView = new CategorySwingView();
+			if (snapshot != null) {
+				expenseView.showAllCategory(snapshot.getCategories());
+				expenseView.showAllExpense(snapshot.getExpenses());
+				categoryView.showAllCategory(snapshot.getCategories());
+				expenseView.setVisible(true);
+			}
+		});
+
+		try {
+			// Sets up Hibernate's SessionFactory for managing database connections.
+			SessionFactory sessionFactory = buildSessionFactory(true);
 
-				// Initialize the Swing views for expenses and categories.
-				ExpenseSwingView expenseView = new ExpenseSwingView();
-				CategorySwingView categoryView = new CategorySwingView();
+			// Initialize the repositories for interacting with the MySQL database.
+			ExpenseMysqlRepository expenseRepository = new ExpenseMysqlRepository(sessionFactory);
+			CategoryMySqlRepository categoryRepository = new CategoryMySqlRepository(sessionFactory);
 
-				// Initialize the repositories for interacting with the MySQL database.
-				ExpenseMysqlRepository expenseRepository = new ExpenseMysqlRepository(sessionFactory);
-				CategoryMySqlRepository categoryRepository = new CategoryMySqlRepository(sessionFactory);
+			// Create controllers to handle user interactions and business logic.
+			ExpenseController expenseController = new ExpenseController(expenseView, expenseRepository,
+					categoryRepository);
+			CategoryController categoryController = new CategoryController(categoryView, categoryRepository);
 
-				// Create controllers to handle user interactions and business logic.
-				ExpenseController expenseController = new ExpenseController(expenseView, expenseRepository,
-						categoryRepository);
-				CategoryController categoryController = new CategoryController(categoryView, categoryRepository);
+			// Answer most existence checks of new expense ids and category names from
+			// memory; the filters are filled from key-only scans. The expense ids are
+			// scanned in the background, every id being looked up until it is done.
+			ExpenseIdFilter expenseIdFilter = new ExpenseIdFilter(expenseRepository.countAll());
+			expenseController.setExpenseIdFilter(expenseIdFilter);
+			new Thread(() -> loadExpenseIds(expenseIdFilter, expenseRepository), "expense-id-filter").start();
+			categoryController.loadCategoryNames(categoryRepository.findNames());
 
+			// Warn in the expense view when a write crosses a category's monthly budget.
+			BudgetEvaluator budgetEvaluator = new BudgetEvaluator(new BudgetMysqlRepository(sessionFactory).findAll(),
+					expenseRepository::findTotals, expenseView::showBudgetAlert);
+			expenseController.addExpenseListener(budgetEvaluator);
+			// Flag expenses far above the usual spending of their category.
+			expenseController.addExpenseListener(new SpendingAnomalyDetector(expenseRepository.findSpendingMoments(),
+					expenseView::showSpendingAnomaly));
+
+			// Keep a full-text index of the expenses up to date with every write; it is
+			// filled from a streaming scan in the background.
+			ExpenseSearchIndex searchIndex = new ExpenseSearchIndex();
+			expenseController.setSearchIndex(searchIndex);
+			DescriptionSuggester descriptionSuggester = new DescriptionSuggester();
+			expenseController.setDescriptionSuggester(descriptionSuggester);
+			CategoryClassifier categoryClassifier = new CategoryClassifier();
+
+			// Catch up on the recurring expenses that fell due while the application
+			// was not running, before the expenses are loaded.
+			generateRecurringExpenses(sessionFactory, budgetEvaluator, searchIndex, expenseIdFilter);
+			new Thread(() -> buildSearchIndex(searchIndex, descriptionSuggester, categoryClassifier, expenseController,
+					expenseRepository), "search-index").start();
+
+			// Write a fresh snapshot for the next launch when the application exits.
+			if (snapshotStore != null) {
+				Runtime.getRuntime().addShutdownHook(new Thread(() -> writeSnapshot(snapshotStore,
+						categoryRepository, expenseRepository)));
+			}
+
+			// Runs the UI-related code on the EventQueue thread to ensure thread safety
+			// in Swing.
+			EventQueue.invokeLater(() -> {
 				// Link views with their respective controllers.
 				expenseView.setExpenseController(expenseController);
 				expenseView.setCategoryView(categoryView);
 
-				// Load all expenses and make the view visible to the user.
-				expenseController.allExpense();
-				expenseView.setVisible(true);
+				if (snapshot == null) {
+					// Load all expenses and make the view visible to the user.
+					expenseController.allExpense();
+					expenseView.setVisible(true);
+				}
 
 				// Link category view to category controller and load all categories.
 				categoryView.setCategoryController(categoryController);
-				categoryController.allCategory();
+				if (snapshot == null) {
+					categoryController.allCategory();
+				}
 				categoryView.setExpenseView(expenseView);
+			});
 
-			} catch (Exception e) {
-				// Logs any exceptions that occur during initialization.
-				LOGGER.error("context", e);
+			// Reconcile the snapshot shown on screen with the database in the
+			// background; the views only apply the differences.
+			if (snapshot != null) {
+				new Thread(() -> {
+					expenseController.allExpense();
+					categoryController.allCategory();
+				}).start();
 			}
-		});
+		} catch (Exception e) {
+			// Logs any exceptions that occur during initialization.
+			LOGGER.error("context", e);
+		}
 		return null;
 	}
+
+	// Generates the due recurring expenses; a failure is logged and does not
+	// prevent the application from starting.
+	private void generateRecurringExpenses(SessionFactory sessionFactory, BudgetEvaluator budgetEvaluator,
+			ExpenseSearchIndex searchIndex, ExpenseIdFilter expenseIdFilter) {
+		try {
+			RecurringExpenseScheduler scheduler = new RecurringExpenseScheduler(
+					new RecurringExpenseMysqlRepository(sessionFactory));
+			scheduler.addExpenseListener(budgetEvaluator);
+			scheduler.addExpenseListener(searchIndex);
+			scheduler.addExpenseListener(expenseIdFilter);
+			scheduler.run(LocalDate.now());
+		} catch (Exception e) {
+			LOGGER.error("Could not generate recurring expenses", e);
+		}
+	}
+
+	// Fills the expense id filter from a key-only scan; until it is done, and if
+	// it fails, new ids are looked up in the database.
+	private void loadExpenseIds(ExpenseIdFilter expenseIdFilter, ExpenseMysqlRepository expenseRepository) {
+		try {
+			expenseIdFilter.load(expenseRepository::streamIds);
+		} catch (Exception e) {
+			LOGGER.error("Could not load expense ids", e);
+		}
+	}
+
+	// Fills the description suggestions, the search index and the category
+	// classifier from the stored expenses; one streaming scan feeds the last two.
+	// The classifier counts every expense it learns, so unlike the index it cannot
+	// replay the changes made during the scan without counting some twice: it
+	// only follows the changes once trained.
+	private void buildSearchIndex(ExpenseSearchIndex searchIndex, DescriptionSuggester descriptionSuggester,
+			CategoryClassifier categoryClassifier, ExpenseController expenseController,
+			ExpenseMysqlRepository expenseRepository) {
+		try {
+			descriptionSuggester.load(expenseRepository.findDescriptionUsage());
+			searchIndex.rebuild(indexer -> expenseRepository.streamAll(expense -> {
+				indexer.accept(expense);
+				categoryClassifier.expenseAdded(expense);
+			}));
+			expenseController.setCategoryClassifier(categoryClassifier);
+		} catch (Exception e) {
+			LOGGER.error("Could not build search index", e);
+		}
+	}
+
+	// Saves the categories and the most recent expenses for the next warm start.
+	private void writeSnapshot(SnapshotStore snapshotStore, CategoryMySqlRepository categoryRepository,
+			ExpenseMysqlRepository expenseRepository) {
+		try {
+			snapshotStore.write(categoryRepository.findAllWithoutExpenses(),
+					expenseRepository.findRecent(snapshotSize));
+		} catch (Exception e) {
+			LOGGER.error("Could not write snapshot", e);
+		}
+	}
+
+	// Builds the SessionFactory for the current environment and, unless fast start
+	// is requested, brings the schema up to date. Batch commands turn SQL logging
+	// off as it would print every row they touch.
+	SessionFactory buildSessionFactory(boolean showSql) {
+		// Fetch the current environment property to determine which configuration to
+		// load.
+		String environment = System.getProperty("ENVIRONMENT");
+
+		// If the environment is set to "testWithEclipes", load the testing
+		// configuration.
+		if ("testWithEclipes".equals(environment)) {
+			registry = new StandardServiceRegistryBuilder().configure("hibernate-IT.cfg.xml")
+					.applySetting("hibernate.connection.url", url).applySetting("hibernate.connection.username", user)
+					.applySetting("hibernate.hbm2ddl.auto", fastStart ? "none" : "validate")
+					.applySetting("hibernate.connection.password", pass)
+					.applySetting("hibernate.show_sql", showSql).build();
+		} else {
+			// For other environments, load the default configuration.
+			registry = new StandardServiceRegistryBuilder().configure().applySetting("hibernate.show_sql", showSql)
+					.build();
+		}
+
+		MetadataSources metadataSources = new MetadataSources(registry);
+		SessionFactory sessionFactory = metadataSources.buildMetadata().buildSessionFactory();
+
+		// Apply pending schema migrations; a no-op when the schema is current.
+		if (!fastStart) {
+			new SchemaMigrator(sessionFactory).migrate();
+		}
+		return sessionFactory;
+	}
+
+	String getSnapshotFile() {
+		return snapshotFile;
+	}
+
+	int getSnapshotSize() {
+		return snapshotSize;
+	}
 }
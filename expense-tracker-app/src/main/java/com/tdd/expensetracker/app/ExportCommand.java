@@ -0,0 +1,97 @@
+package com.tdd.expensetracker.app;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.zip.GZIPOutputStream;
+
+import org.hibernate.SessionFactory;
+
+import com.tdd.expensetracker.export.ExpenseExporter;
+import com.tdd.expensetracker.export.ExportColumn;
+import com.tdd.expensetracker.export.ExportFormat;
+import com.tdd.expensetracker.repository.mysql.ExpenseMysqlRepository;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+import picocli.CommandLine.ParentCommand;
+
+// Headless command that streams expenses to a CSV or JSON file, by default in
+// the CSV format read by the import command
+@Command(name = "export", mixinStandardHelpOptions = true, description = "Export expenses to a CSV or JSON file")
+public class ExportCommand implements Callable<Integer> {
+
+	private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+	@ParentCommand
+	private ExpenseTrackerSwingApp app;
+
+	@Parameters(index = "0", arity = "0..1", description = "target file, standard output when omitted")
+	private Path file;
+
+	@Option(names = { "--format" }, description = "csv or json, guessed from the file name when omitted")
+	private String format;
+
+	@Option(names = { "--gzip" }, description = "compress the output, implied by a .gz file name")
+	private boolean gzip = false;
+
+	@Option(names = { "--from" }, description = "first date to export (yyyy-MM-dd)")
+	private LocalDate from;
+
+	@Option(names = { "--to" }, description = "last date to export (yyyy-MM-dd)")
+	private LocalDate to;
+
+	@Option(names = { "--category" }, description = "only export expenses of the category with this name")
+	private String category;
+
+	@Option(names = { "--columns" }, split = ",", description = "columns to export among id,date,amount,description,category")
+	private List<String> columns = Arrays.asList("date", "amount", "description", "category");
+
+	@Override
+	public Integer call() throws Exception {
+		String fileName = file == null ? "" : file.getFileName().toString().toLowerCase(Locale.ROOT);
+		boolean compress = gzip || fileName.endsWith(".gz");
+		ExportFormat exportFormat = format != null ? ExportFormat.valueOf(format.toUpperCase(Locale.ROOT))
+				: fileName.endsWith(".json") || fileName.endsWith(".json.gz") ? ExportFormat.JSON : ExportFormat.CSV;
+		List<ExportColumn> exportColumns = new ArrayList<>(columns.size());
+		for (String column : columns) {
+			exportColumns.add(ExportColumn.valueOf(column.trim().toUpperCase(Locale.ROOT)));
+		}
+
+		SessionFactory sessionFactory = app.buildSessionFactory(false);
+		long count;
+		try (OutputStream out = openTarget(compress)) {
+			count = new ExpenseExporter(new ExpenseMysqlRepository(sessionFactory), exportFormat, exportColumns)
+					.export(from, to, category, out);
+		} finally {
+			sessionFactory.close();
+		}
+		System.err.println("Exported " + count + " expenses");
+		return 0;
+	}
+
+	private OutputStream openTarget(boolean compress) throws IOException {
+		OutputStream target = file == null ? new FilterOutputStream(System.out) {
+			@Override
+			public void write(byte[] bytes, int offset, int length) throws IOException {
+				out.write(bytes, offset, length);
+			}
+
+			@Override
+			public void close() throws IOException {
+				// Leave stdout open for the rest of the command
+				flush();
+			}
+		} : new BufferedOutputStream(Files.newOutputStream(file), GZIP_BUFFER_SIZE);
+		return compress ? new GZIPOutputStream(target, GZIP_BUFFER_SIZE) : target;
+	}
+}
@@ -0,0 +1,125 @@
+package com.tdd.expensetracker.app;
+
+import java.io.BufferedReader;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.SessionFactory;
+
+import com.tdd.expensetracker.budget.BudgetEvaluator;
+import com.tdd.expensetracker.controller.CategoryController;
+import com.tdd.expensetracker.controller.ExpenseController;
+import com.tdd.expensetracker.importer.CsvImportPipeline;
+import com.tdd.expensetracker.importer.ImportProgress;
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.repository.mysql.BudgetMysqlRepository;
+import com.tdd.expensetracker.repository.mysql.CategoryMySqlRepository;
+import com.tdd.expensetracker.repository.mysql.ExpenseMysqlRepository;
+import com.tdd.expensetracker.view.console.CategoryConsoleView;
+import com.tdd.expensetracker.view.console.ExpenseConsoleView;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+import picocli.CommandLine.ParentCommand;
+
+// Headless command that imports expenses from a CSV file with the header
+// "date,amount,description,category" through the streaming import pipeline and
+// the batched controller path
+@Command(name = "import", mixinStandardHelpOptions = true, description = "Import expenses from a CSV file")
+public class ImportCommand implements Callable<Integer> {
+
+	private static final Logger LOGGER = LogManager.getLogger(ImportCommand.class);
+
+	@ParentCommand
+	private ExpenseTrackerSwingApp app;
+
+	@Parameters(index = "0", description = "CSV file with the columns date,amount,description,category")
+	private Path file;
+
+	@Option(names = { "--batch-size" }, description = "expenses saved per transaction")
+	private int batchSize = 1000;
+
+	@Option(names = { "--create-categories" }, description = "create categories that do not exist yet")
+	private boolean createCategories = false;
+
+	@Option(names = { "--threads" }, description = "parser threads")
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	@Option(names = { "--reject-file" }, description = "CSV file receiving the rejected rows, stderr by default")
+	private Path rejectFile;
+
+	@Option(names = { "--progress-interval" }, description = "seconds between progress reports")
+	private int progressInterval = 5;
+
+	private CategoryMySqlRepository categoryRepository;
+	private CategoryController categoryController;
+
+	@Override
+	public Integer call() throws Exception {
+		SessionFactory sessionFactory = app.buildSessionFactory(false);
+		try {
+			ExpenseConsoleView expenseView = new ExpenseConsoleView(System.out, System.err);
+			ExpenseMysqlRepository expenseRepository = new ExpenseMysqlRepository(sessionFactory);
+			categoryRepository = new CategoryMySqlRepository(sessionFactory);
+			ExpenseController expenseController = new ExpenseController(expenseView, expenseRepository,
+					categoryRepository);
+			categoryController = new CategoryController(new CategoryConsoleView(System.out, System.err),
+					categoryRepository);
+			expenseController.addExpenseListener(new BudgetEvaluator(new BudgetMysqlRepository(sessionFactory).findAll(),
+					expenseRepository::findTotals, expenseView::showBudgetAlert));
+
+			CsvImportPipeline pipeline = new CsvImportPipeline(this::resolveCategory, expenseController::newExpenses,
+					threads, batchSize);
+			pipeline.setProgressListener(progress -> System.err.println("Progress: " + progress),
+					progressInterval * 1000L);
+
+			ImportProgress result;
+			try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+					Writer rejects = openRejects()) {
+				result = pipeline.run(reader, rejects);
+			}
+
+			long rejected = result.getRowsRejected() + expenseView.getErrorCount();
+			System.out.println("Imported " + expenseView.getAddedCount() + " expenses, rejected " + rejected
+					+ " rows in " + result.getElapsedMillis() + " ms ("
+					+ String.format("%.0f", result.getRowsPerSecond()) + " rows/s)");
+			LOGGER.info("Imported {} expenses from {}, rejected {}", expenseView.getAddedCount(), file, rejected);
+			return rejected == 0 ? 0 : 1;
+		} finally {
+			sessionFactory.close();
+		}
+	}
+
+	// Rejected rows go to the reject file when one is given, to stderr otherwise
+	private Writer openRejects() throws IOException {
+		if (rejectFile != null) {
+			return Files.newBufferedWriter(rejectFile, StandardCharsets.UTF_8);
+		}
+		return new FilterWriter(new OutputStreamWriter(System.err, StandardCharsets.UTF_8)) {
+			@Override
+			public void close() throws IOException {
+				// Leave stderr open for the rest of the command
+				flush();
+			}
+		};
+	}
+
+	// Resolves a category by name, creating it when requested; the pipeline
+	// caches the result so each name is resolved once per import
+	private Category resolveCategory(String name) {
+		Category category = categoryRepository.findByName(name);
+		if (category == null && createCategories) {
+			categoryController.newCategory(new Category(name, name));
+			category = categoryRepository.findByName(name);
+		}
+		return category;
+	}
+}
@@ -0,0 +1,39 @@
+package com.tdd.expensetracker.app;
+
+import java.nio.file.Paths;
+import java.util.concurrent.Callable;
+
+import org.hibernate.SessionFactory;
+
+import com.tdd.expensetracker.repository.mysql.CategoryMySqlRepository;
+import com.tdd.expensetracker.repository.mysql.ExpenseMysqlRepository;
+import com.tdd.expensetracker.snapshot.SnapshotStore;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.ParentCommand;
+
+// Headless command that rebuilds the data derived from the expense table: the
+// expense_totals table, repairing any drift, and the warm-start snapshot
+@Command(name = "recompute", mixinStandardHelpOptions = true, description = "Rebuild derived data from the database")
+public class RecomputeCommand implements Callable<Integer> {
+
+	@ParentCommand
+	private ExpenseTrackerSwingApp app;
+
+	@Override
+	public Integer call() throws Exception {
+		SessionFactory sessionFactory = app.buildSessionFactory(false);
+		try {
+			new ExpenseMysqlRepository(sessionFactory).rebuildTotals();
+			System.out.println("Rebuilt expense totals");
+			if (app.getSnapshotSize() > 0) {
+				new SnapshotStore(Paths.get(app.getSnapshotFile())).write(
+						new CategoryMySqlRepository(sessionFactory).findAllWithoutExpenses(),
+						new ExpenseMysqlRepository(sessionFactory).findRecent(app.getSnapshotSize()));
+				System.out.println("Rebuilt snapshot " + app.getSnapshotFile());
+			}
+		} finally {
+			sessionFactory.close();
+		}
+		return 0;
+	}
+}
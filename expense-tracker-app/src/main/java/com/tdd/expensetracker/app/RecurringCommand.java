@@ -0,0 +1,118 @@
+package com.tdd.expensetracker.app;
+
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+
+import org.hibernate.SessionFactory;
+
+import com.tdd.expensetracker.budget.BudgetEvaluator;
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Frequency;
+import com.tdd.expensetracker.model.RecurringExpense;
+import com.tdd.expensetracker.recurring.RecurringExpenseScheduler;
+import com.tdd.expensetracker.repository.mysql.BudgetMysqlRepository;
+import com.tdd.expensetracker.repository.mysql.CategoryMySqlRepository;
+import com.tdd.expensetracker.repository.mysql.ExpenseMysqlRepository;
+import com.tdd.expensetracker.repository.mysql.RecurringExpenseMysqlRepository;
+import com.tdd.expensetracker.utils.ValidateUtils;
+import com.tdd.expensetracker.utils.ValidationException;
+import com.tdd.expensetracker.view.console.ExpenseConsoleView;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParentCommand;
+
+// Headless command that adds, removes and lists recurring expenses and
+// generates their due occurrences; meant to be run from cron as well
+@Command(name = "recurring", mixinStandardHelpOptions = true, description = "Manage and generate recurring expenses")
+public class RecurringCommand implements Callable<Integer> {
+
+	@ParentCommand
+	private ExpenseTrackerSwingApp app;
+
+	@Option(names = { "--add" }, description = "add a recurring expense with this description")
+	private String description;
+
+	@Option(names = { "--amount" }, description = "amount of the recurring expense to add")
+	private Double amount;
+
+	@Option(names = { "--category" }, description = "category name of the recurring expense to add")
+	private String categoryName;
+
+	@Option(names = { "--frequency" }, description = "daily, weekly, monthly or yearly")
+	private String frequency = "monthly";
+
+	@Option(names = { "--start" }, description = "first occurrence (yyyy-MM-dd), today when omitted")
+	private LocalDate start;
+
+	@Option(names = { "--end" }, description = "last possible occurrence (yyyy-MM-dd)")
+	private LocalDate end;
+
+	@Option(names = { "--remove" }, description = "remove the recurring expense with this id")
+	private String[] idsToRemove = new String[0];
+
+	@Option(names = { "--run" }, description = "generate the occurrences due by the --as-of date")
+	private boolean run = false;
+
+	@Option(names = { "--as-of" }, description = "last date to generate occurrences for (yyyy-MM-dd), today by default")
+	private LocalDate asOf;
+
+	@Override
+	public Integer call() throws Exception {
+		SessionFactory sessionFactory = app.buildSessionFactory(false);
+		try {
+			RecurringExpenseMysqlRepository recurringRepository = new RecurringExpenseMysqlRepository(sessionFactory);
+			if (description != null) {
+				Category category = new CategoryMySqlRepository(sessionFactory).findByName(categoryName);
+				if (category == null) {
+					System.err.println("Category does not exist with name " + categoryName);
+					return 1;
+				}
+				try {
+					recurringRepository.save(newDefinition(category));
+				} catch (ValidationException e) {
+					System.err.println(e.getMessage());
+					return 1;
+				}
+			}
+			for (String id : idsToRemove) {
+				recurringRepository.delete(id);
+			}
+
+			if (run) {
+				LocalDate runDate = asOf != null ? asOf : LocalDate.now();
+				ValidateUtils.validateDate(runDate);
+				ExpenseMysqlRepository expenseRepository = new ExpenseMysqlRepository(sessionFactory);
+				RecurringExpenseScheduler scheduler = new RecurringExpenseScheduler(recurringRepository);
+				scheduler.addExpenseListener(new BudgetEvaluator(new BudgetMysqlRepository(sessionFactory).findAll(),
+						expenseRepository::findTotals, new ExpenseConsoleView(System.out, System.err)::showBudgetAlert));
+				System.out.println("Generated " + scheduler.run(runDate) + " expenses due by " + runDate);
+			}
+
+			for (RecurringExpense definition : recurringRepository.findAll()) {
+				System.out.println(definition.getId() + " | " + definition.getDescription() + " | "
+						+ definition.getAmount() + " | " + definition.getCategory().getName() + " | "
+						+ definition.getFrequency() + " | next " + definition.getNextDate());
+			}
+		} finally {
+			sessionFactory.close();
+		}
+		return 0;
+	}
+
+	private RecurringExpense newDefinition(Category category) {
+		LocalDate startDate = start != null ? start : LocalDate.now();
+		ValidateUtils.validateRequiredString(description, "Description");
+		ValidateUtils.validateAmount(amount == null ? 0d : amount);
+		if (end != null && end.isBefore(startDate)) {
+			throw new ValidationException("End date cannot be before the start date");
+		}
+		Frequency recurrence;
+		try {
+			recurrence = Frequency.valueOf(frequency.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new ValidationException("Unknown frequency " + frequency);
+		}
+		return new RecurringExpense(amount, description, category, recurrence, startDate, end);
+	}
+}
@@ -0,0 +1,101 @@
+package com.tdd.expensetracker.app;
+
+import java.nio.file.Paths;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import org.hibernate.SessionFactory;
+
+import com.tdd.expensetracker.report.QuantileSketch;
+import com.tdd.expensetracker.report.ReportEngine;
+import com.tdd.expensetracker.report.SpendingReport;
+import com.tdd.expensetracker.report.SpendingStats;
+import com.tdd.expensetracker.repository.mysql.CategoryMySqlRepository;
+import com.tdd.expensetracker.repository.mysql.ExpenseMysqlRepository;
+import com.tdd.expensetracker.snapshot.Snapshot;
+import com.tdd.expensetracker.snapshot.SnapshotStore;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParentCommand;
+
+// Headless command that prints spending statistics per year, month and category
+// computed in parallel over the streamed expenses or the local snapshot, or
+// the distribution of expense sizes per category read from the stored sketches
+@Command(name = "report", mixinStandardHelpOptions = true, description = "Print spending statistics")
+public class ReportCommand implements Callable<Integer> {
+
+	@ParentCommand
+	private ExpenseTrackerSwingApp app;
+
+	@Option(names = { "--from-snapshot" }, description = "summarize the local snapshot instead of the database")
+	private boolean fromSnapshot = false;
+
+	@Option(names = { "--percentiles" }, description = "print the median and 90th percentile expense per category")
+	private boolean percentiles = false;
+
+	@Option(names = { "--from-month" }, description = "first month of the percentiles (yyyy-MM), this month when omitted")
+	private YearMonth fromMonth;
+
+	@Option(names = { "--to-month" }, description = "last month of the percentiles (yyyy-MM), the first one when omitted")
+	private YearMonth toMonth;
+
+	@Override
+	public Integer call() throws Exception {
+		if (percentiles) {
+			printPercentiles();
+			return 0;
+		}
+		// A single report is computed while the expenses stream by; copying them into
+		// columns first only pays off for the server, which answers many
+		ReportEngine engine = new ReportEngine();
+		SpendingReport report;
+		if (fromSnapshot) {
+			Snapshot snapshot = new SnapshotStore(Paths.get(app.getSnapshotFile())).read();
+			if (snapshot == null) {
+				System.err.println("No snapshot found at " + app.getSnapshotFile());
+				return 1;
+			}
+			report = engine.summarize(snapshot.getExpenses());
+		} else {
+			SessionFactory sessionFactory = app.buildSessionFactory(false);
+			try {
+				report = engine.summarize(new ExpenseMysqlRepository(sessionFactory)::streamAll);
+			} finally {
+				sessionFactory.close();
+			}
+		}
+
+		System.out.println("Overall | " + report.getOverall());
+		print("By year", report.getByYear());
+		print("By month", report.getByMonth());
+		print("By category", report.getByCategory());
+		return 0;
+	}
+
+	// Answers from a few kilobytes of sketch per category and month instead of
+	// sorting the expenses
+	private void printPercentiles() {
+		YearMonth from = fromMonth != null ? fromMonth : YearMonth.now();
+		YearMonth to = toMonth != null ? toMonth : from;
+		SessionFactory sessionFactory = app.buildSessionFactory(false);
+		try {
+			Map<String, QuantileSketch> sketches = new ExpenseMysqlRepository(sessionFactory).findSketches(from, to);
+			Map<String, String> namesById = new HashMap<>();
+			new CategoryMySqlRepository(sessionFactory).findAllWithoutExpenses()
+					.forEach(category -> namesById.put(category.getId(), category.getName()));
+			System.out.println("Percentiles from " + from + " to " + to);
+			sketches.forEach((categoryId, sketch) -> System.out.println(
+					String.format("%s | count %d | median %.2f | p90 %.2f", namesById.getOrDefault(categoryId, categoryId),
+							sketch.getCount(), sketch.median(), sketch.quantile(0.9))));
+		} finally {
+			sessionFactory.close();
+		}
+	}
+
+	private static void print(String title, Map<?, SpendingStats> groups) {
+		System.out.println(title);
+		groups.forEach((key, stats) -> System.out.println(key + " | " + stats));
+	}
+}
@@ -0,0 +1,51 @@
+package com.tdd.expensetracker.app;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.hibernate.SessionFactory;
+
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.repository.mysql.ExpenseMysqlRepository;
+import com.tdd.expensetracker.search.ExpenseSearchIndex;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+import picocli.CommandLine.ParentCommand;
+
+// Headless command that indexes all expenses and prints the best matches of a
+// full-text query on their descriptions and category names
+@Command(name = "search", mixinStandardHelpOptions = true, description = "Search expenses by description and category")
+public class SearchCommand implements Callable<Integer> {
+
+	@ParentCommand
+	private ExpenseTrackerSwingApp app;
+
+	@Parameters(index = "0", description = "words or word prefixes that must all match")
+	private String query;
+
+	@Option(names = { "--limit" }, description = "maximum number of matches to print")
+	private int limit = 20;
+
+	@Override
+	public Integer call() throws Exception {
+		SessionFactory sessionFactory = app.buildSessionFactory(false);
+		try {
+			ExpenseMysqlRepository expenseRepository = new ExpenseMysqlRepository(sessionFactory);
+			ExpenseSearchIndex searchIndex = new ExpenseSearchIndex();
+			searchIndex.rebuild(expenseRepository::streamAll);
+
+			long start = System.nanoTime();
+			List<String> ids = searchIndex.search(query, limit);
+			long micros = (System.nanoTime() - start) / 1000;
+			for (Expense expense : expenseRepository.findByIds(ids)) {
+				System.out.println(expense.getDate() + " | " + expense.getAmount() + " | " + expense.getDescription()
+						+ " | " + expense.getCategory().getName());
+			}
+			System.err.println(ids.size() + " matches among " + searchIndex.size() + " expenses in " + micros + " us");
+		} finally {
+			sessionFactory.close();
+		}
+		return 0;
+	}
+}
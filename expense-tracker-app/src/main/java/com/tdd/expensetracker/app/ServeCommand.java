@@ -0,0 +1,99 @@
+package com.tdd.expensetracker.app;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+
+import org.hibernate.SessionFactory;
+
+import com.tdd.expensetracker.repository.CategoryRepository;
+import com.tdd.expensetracker.repository.ExpenseRepository;
+import com.tdd.expensetracker.repository.cache.CachingExpenseRepository;
+import com.tdd.expensetracker.repository.cache.OffHeapExpenseCache;
+import com.tdd.expensetracker.repository.log.CategoryLogRepository;
+import com.tdd.expensetracker.repository.log.ExpenseLogRepository;
+import com.tdd.expensetracker.repository.log.ExpenseLogStore;
+import com.tdd.expensetracker.repository.mysql.CategoryMySqlRepository;
+import com.tdd.expensetracker.repository.mysql.ExpenseMysqlRepository;
+import com.tdd.expensetracker.server.ExpenseHttpServer;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.ParentCommand;
+
+// Headless command that serves the expense and category API over HTTP until the
+// process is stopped
+@Command(name = "serve", mixinStandardHelpOptions = true, description = "Serve the JSON HTTP API")
+public class ServeCommand implements Callable<Integer> {
+
+	@ParentCommand
+	private ExpenseTrackerSwingApp app;
+
+	/**
+	 * Port to listen on
+	 */
+	@Option(names = { "--port" }, description = "Port to listen on")
+	private int port = 8080;
+
+	/**
+	 * Worker threads handling requests
+	 */
+	@Option(names = { "--threads" }, description = "Worker threads handling requests")
+	private int threads = Runtime.getRuntime().availableProcessors() * 4;
+
+	/**
+	 * Off-heap memory caching expenses read by id, 0 to disable the cache
+	 */
+	@Option(names = { "--expense-cache-mb" }, description = "Off-heap memory caching expenses read by id, 0 to disable")
+	private int expenseCacheMegabytes = 64;
+
+	/**
+	 * Embedded log file storing expenses and categories instead of MySQL
+	 */
+	@Option(names = { "--log-store" }, description = "Store expenses and categories in this log file instead of MySQL")
+	private Path logStoreFile;
+
+	@Override
+	public Integer call() throws Exception {
+		Closeable storage;
+		ExpenseRepository expenseRepository;
+		CategoryRepository categoryRepository;
+		if (logStoreFile != null) {
+			ExpenseLogStore store = ExpenseLogStore.open(logStoreFile);
+			storage = store;
+			expenseRepository = new ExpenseLogRepository(store);
+			categoryRepository = new CategoryLogRepository(store);
+		} else {
+			SessionFactory sessionFactory = app.buildSessionFactory(false);
+			storage = sessionFactory;
+			expenseRepository = new ExpenseMysqlRepository(sessionFactory);
+			categoryRepository = new CategoryMySqlRepository(sessionFactory);
+		}
+		if (expenseCacheMegabytes > 0) {
+			CachingExpenseRepository cachingRepository = new CachingExpenseRepository(expenseRepository,
+					new OffHeapExpenseCache(expenseCacheMegabytes * 1024L * 1024L));
+			expenseRepository = cachingRepository;
+			categoryRepository = cachingRepository.evictingOnCategoryWrites(categoryRepository);
+		}
+		ExpenseHttpServer server = new ExpenseHttpServer(new InetSocketAddress(port), threads, expenseRepository,
+				categoryRepository);
+		server.loadExistenceFilters();
+		server.loadReportColumns();
+		CountDownLatch stopped = new CountDownLatch(1);
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+			server.stop();
+			try {
+				storage.close();
+			} catch (IOException e) {
+				System.err.println("Could not close the storage: " + e.getMessage());
+			}
+			stopped.countDown();
+		}));
+		server.start();
+		System.out.println("Serving on " + server.getAddress());
+		stopped.await();
+		return 0;
+	}
+}
@@ -0,0 +1,59 @@
+package com.tdd.expensetracker.budget;
+
+import java.time.YearMonth;
+
+import com.tdd.expensetracker.model.Category;
+
+// Raised when the spending of a category in a month crosses a budget threshold
+public class BudgetAlert {
+
+	private final Category category;
+	private final YearMonth month;
+	private final double spent;
+	private final double limit;
+	private final int thresholdPercent;
+
+	public BudgetAlert(Category category, YearMonth month, double spent, double limit, int thresholdPercent) {
+		this.category = category;
+		this.month = month;
+		this.spent = spent;
+		this.limit = limit;
+		this.thresholdPercent = thresholdPercent;
+	}
+
+	public Category getCategory() {
+		return category;
+	}
+
+	public YearMonth getMonth() {
+		return month;
+	}
+
+	public double getSpent() {
+		return spent;
+	}
+
+	public double getLimit() {
+		return limit;
+	}
+
+	// Threshold that was crossed, in percent of the limit
+	public int getThresholdPercent() {
+		return thresholdPercent;
+	}
+
+	public boolean isExceeded() {
+		return thresholdPercent >= 100;
+	}
+
+	public String getMessage() {
+		String name = category.getName() != null ? category.getName() : category.getId();
+		return String.format("Budget %s for %s in %s: %.2f spent of %.2f", isExceeded() ? "exceeded" : "warning",
+				name, month, spent, limit);
+	}
+
+	@Override
+	public String toString() {
+		return "BudgetAlert [" + getMessage() + "]";
+	}
+}
@@ -0,0 +1,158 @@
+package com.tdd.expensetracker.budget;
+
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.tdd.expensetracker.controller.ExpenseListener;
+import com.tdd.expensetracker.model.Budget;
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.model.ExpenseTotal;
+import com.tdd.expensetracker.model.Money;
+
+// Keeps the running total of every category per month in memory and raises an
+// alert when a write makes a budgeted category cross 80% or 100% of its limit.
+// Each write only applies its amount delta, so evaluation costs O(1); the
+// totals of a month are read once, from the expense_totals table, the first
+// time the month is touched.
+public class BudgetEvaluator implements ExpenseListener {
+
+	private static final Logger LOGGER = LogManager.getLogger(BudgetEvaluator.class);
+
+	// Thresholds in percent of the limit, highest first
+	static final int[] THRESHOLDS = { 100, 80 };
+
+	private final Function<YearMonth, List<ExpenseTotal>> monthTotals;
+	private final Consumer<BudgetAlert> alerts;
+	private final Map<String, Budget> budgets = new HashMap<>();
+	private final Map<YearMonth, Map<String, Long>> spentByMonth = new HashMap<>();
+
+	// Constructor to initialize the evaluator with the budgets, the source of the
+	// stored totals of a month and the receiver of the alerts
+	public BudgetEvaluator(List<Budget> budgets, Function<YearMonth, List<ExpenseTotal>> monthTotals,
+			Consumer<BudgetAlert> alerts) {
+		this.monthTotals = monthTotals;
+		this.alerts = alerts;
+		budgets.forEach(this::setBudget);
+	}
+
+	public synchronized void setBudget(Budget budget) {
+		budgets.put(budget.getCategoryId(), budget);
+	}
+
+	public synchronized void removeBudget(String categoryId) {
+		budgets.remove(categoryId);
+	}
+
+	// Running total of a category in a month
+	public synchronized double getSpent(String categoryId, YearMonth month) {
+		return Money.toDouble(month(month).getOrDefault(categoryId, 0L));
+	}
+
+	@Override
+	public synchronized void expenseAdded(Expense expense) {
+		applyChanges(Arrays.asList(expense), new long[] { expense.getAmountCents() });
+	}
+
+	@Override
+	public synchronized void expensesAdded(List<Expense> expenses) {
+		long[] deltas = new long[expenses.size()];
+		for (int i = 0; i < deltas.length; i++) {
+			deltas[i] = expenses.get(i).getAmountCents();
+		}
+		applyChanges(expenses, deltas);
+	}
+
+	@Override
+	public synchronized void expenseUpdated(Expense previousExpense, Expense updatedExpense) {
+		applyChanges(Arrays.asList(previousExpense, updatedExpense),
+				new long[] { -previousExpense.getAmountCents(), updatedExpense.getAmountCents() });
+	}
+
+	@Override
+	public synchronized void expenseDeleted(Expense expense) {
+		applyChanges(Arrays.asList(expense), new long[] { -expense.getAmountCents() });
+	}
+
+	// Applies the deltas in cents of one saved write to the running totals. A month
+	// read from the stored totals during the write already contains it, so the
+	// write's own deltas are taken out first to get the totals as they were
+	// before, and thresholds are then evaluated as for any other write.
+	private void applyChanges(List<Expense> expenses, long[] deltas) {
+		Set<YearMonth> readNow = new HashSet<>();
+		for (Expense expense : expenses) {
+			if (isTracked(expense) && !spentByMonth.containsKey(YearMonth.from(expense.getDate()))) {
+				YearMonth month = YearMonth.from(expense.getDate());
+				spentByMonth.put(month, readMonth(month));
+				readNow.add(month);
+			}
+		}
+		for (int i = 0; i < deltas.length; i++) {
+			Expense expense = expenses.get(i);
+			if (isTracked(expense) && readNow.contains(YearMonth.from(expense.getDate()))) {
+				spentByMonth.get(YearMonth.from(expense.getDate())).merge(expense.getCategory().getId(), -deltas[i],
+						Long::sum);
+			}
+		}
+		for (int i = 0; i < deltas.length; i++) {
+			apply(expenses.get(i), deltas[i]);
+		}
+	}
+
+	private void apply(Expense expense, long delta) {
+		if (!isTracked(expense) || delta == 0) {
+			return;
+		}
+		String categoryId = expense.getCategory().getId();
+		YearMonth month = YearMonth.from(expense.getDate());
+		Map<String, Long> spent = spentByMonth.get(month);
+		long before = spent.getOrDefault(categoryId, 0L);
+		long after = before + delta;
+		spent.put(categoryId, after);
+
+		Budget budget = budgets.get(categoryId);
+		if (budget != null && delta > 0) {
+			checkThresholds(expense.getCategory(), month, budget.getMonthlyLimit(), before, after);
+		}
+	}
+
+	// Alerts only for the highest threshold crossed by this write
+	private void checkThresholds(Category category, YearMonth month, double limit, long before, long after) {
+		long limitCents = Money.toCents(limit);
+		for (int threshold : THRESHOLDS) {
+			double level = limitCents * threshold / 100d;
+			if (before < level && after >= level) {
+				BudgetAlert alert = new BudgetAlert(category, month, Money.toDouble(after), limit, threshold);
+				LOGGER.info("{}", alert);
+				alerts.accept(alert);
+				return;
+			}
+		}
+	}
+
+	private Map<String, Long> month(YearMonth month) {
+		return spentByMonth.computeIfAbsent(month, this::readMonth);
+	}
+
+	private Map<String, Long> readMonth(YearMonth month) {
+		Map<String, Long> spent = new HashMap<>();
+		for (ExpenseTotal total : monthTotals.apply(month)) {
+			spent.put(total.getCategoryId(), total.getTotal().getCents());
+		}
+		return spent;
+	}
+
+	private static boolean isTracked(Expense expense) {
+		return expense.getCategory() != null && expense.getDate() != null;
+	}
+}
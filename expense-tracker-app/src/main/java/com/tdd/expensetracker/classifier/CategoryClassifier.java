@@ -0,0 +1,112 @@
+package com.tdd.expensetracker.classifier;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.tdd.expensetracker.controller.ExpenseListener;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.utils.TextUtils;
+
+// Multinomial naive Bayes classifier guessing the category of an expense from
+// the words of its description. The model is nothing but word counts per
+// category, so learning or forgetting an expense is a handful of counter
+// updates: it is trained by a streaming scan at startup and then follows every
+// saved change without ever retraining.
+public class CategoryClassifier implements ExpenseListener {
+
+	private final Map<String, CategoryCounts> countsByCategory = new HashMap<>();
+	// Number of categories using each word, so the vocabulary size is its size
+	private final Map<String, Integer> categoriesByWord = new HashMap<>();
+	private long documents;
+
+	// Returns the id of the most likely category for a description, or null when
+	// none of its words has been seen yet
+	public synchronized String classify(String description) {
+		List<String> words = TextUtils.tokenize(description);
+		words.removeIf(word -> !categoriesByWord.containsKey(word));
+		if (words.isEmpty()) {
+			return null;
+		}
+		int vocabulary = categoriesByWord.size();
+		String best = null;
+		double bestScore = Double.NEGATIVE_INFINITY;
+		for (Map.Entry<String, CategoryCounts> entry : countsByCategory.entrySet()) {
+			CategoryCounts counts = entry.getValue();
+			// Log of prior times likelihood, with add-one smoothing of word counts
+			double score = Math.log((double) counts.documents / documents);
+			double denominator = Math.log(counts.words + (double) vocabulary);
+			for (String word : words) {
+				score += Math.log(counts.wordCounts.getOrDefault(word, 0) + 1d) - denominator;
+			}
+			if (score > bestScore) {
+				bestScore = score;
+				best = entry.getKey();
+			}
+		}
+		return best;
+	}
+
+	@Override
+	public synchronized void expenseAdded(Expense expense) {
+		learn(expense, 1);
+	}
+
+	@Override
+	public synchronized void expensesAdded(List<Expense> expenses) {
+		expenses.forEach(expense -> learn(expense, 1));
+	}
+
+	@Override
+	public synchronized void expenseUpdated(Expense previousExpense, Expense updatedExpense) {
+		learn(previousExpense, -1);
+		learn(updatedExpense, 1);
+	}
+
+	@Override
+	public synchronized void expenseDeleted(Expense expense) {
+		learn(expense, -1);
+	}
+
+	// Adds (sign 1) or removes (sign -1) the expense's words from its category
+	private void learn(Expense expense, int sign) {
+		if (expense.getCategory() == null || expense.getCategory().getId() == null) {
+			return;
+		}
+		String categoryId = expense.getCategory().getId();
+		CategoryCounts counts = sign > 0 ? countsByCategory.computeIfAbsent(categoryId, id -> new CategoryCounts())
+				: countsByCategory.get(categoryId);
+		if (counts == null) {
+			return;
+		}
+		counts.documents += sign;
+		documents += sign;
+		for (String word : TextUtils.tokenize(expense.getDescription())) {
+			int before = counts.wordCounts.getOrDefault(word, 0);
+			if (before == 0 && sign < 0) {
+				continue;
+			}
+			int after = before + sign;
+			counts.words += sign;
+			if (after > 0) {
+				counts.wordCounts.put(word, after);
+			} else {
+				counts.wordCounts.remove(word);
+			}
+			if (before == 0 && after > 0) {
+				categoriesByWord.merge(word, 1, Integer::sum);
+			} else if (before > 0 && after == 0) {
+				categoriesByWord.computeIfPresent(word, (key, categories) -> categories > 1 ? categories - 1 : null);
+			}
+		}
+		if (counts.documents <= 0) {
+			countsByCategory.remove(categoryId);
+		}
+	}
+
+	private static class CategoryCounts {
+		private long documents;
+		private long words;
+		private final Map<String, Integer> wordCounts = new HashMap<>();
+	}
+}
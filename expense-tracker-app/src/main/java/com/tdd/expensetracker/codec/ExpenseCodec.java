@@ -0,0 +1,270 @@
+package com.tdd.expensetracker.codec;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.model.Money;
+
+// Compact, versioned binary encoding of expenses and categories.
+//
+// A record starts with the format version and a byte of flags telling which
+// optional fields follow. Ids are written in the smallest of three forms: the
+// 16 bytes of a canonical UUID such as IdAllocator hands out, a varint for a
+// plain decimal number, or length-prefixed UTF-8 for anything else. Amounts are
+// cents and dates epoch days, both as zigzag varints, so a typical expense
+// costs a few bytes besides its id and text. An expense embeds its category.
+//
+// Decoding reads straight from the given buffer, heap or direct, starting at
+// its position and leaving it after the record.
+public final class ExpenseCodec {
+
+	static final byte FORMAT_VERSION = 1;
+
+	private static final int HAS_DESCRIPTION = 1;
+	private static final int HAS_DATE = 1 << 1;
+	private static final int HAS_CATEGORY = 1 << 2;
+	private static final int HAS_NAME = 1 << 3;
+
+	private static final byte NULL_ID = 0;
+	private static final byte UUID_ID = 1;
+	private static final byte NUMBER_ID = 2;
+	private static final byte TEXT_ID = 3;
+
+	private ExpenseCodec() {
+	}
+
+	public static byte[] encode(Expense expense) {
+		ByteBuffer out = ByteBuffer.allocate(maxEncodedSize(expense));
+		write(out, expense);
+		return toArray(out);
+	}
+
+	public static byte[] encode(Category category) {
+		ByteBuffer out = ByteBuffer.allocate(maxEncodedSize(category));
+		write(out, category);
+		return toArray(out);
+	}
+
+	// Upper bound of the encoded size, to size the buffer of write
+	public static int maxEncodedSize(Expense expense) {
+		int size = 2 + maxIdSize(expense.getId()) + 10 + 5 + maxStringSize(expense.getDescription());
+		return expense.getCategory() == null ? size : size + maxEncodedSize(expense.getCategory());
+	}
+
+	public static int maxEncodedSize(Category category) {
+		return 2 + maxIdSize(category.getId()) + maxStringSize(category.getName())
+				+ maxStringSize(category.getDescription());
+	}
+
+	// Writes the expense at the buffer's position, which must leave room for
+	// maxEncodedSize bytes
+	public static void write(ByteBuffer out, Expense expense) {
+		int flags = (expense.getDescription() != null ? HAS_DESCRIPTION : 0)
+				| (expense.getDate() != null ? HAS_DATE : 0) | (expense.getCategory() != null ? HAS_CATEGORY : 0);
+		out.put(FORMAT_VERSION);
+		out.put((byte) flags);
+		writeId(out, expense.getId());
+		writeVarLong(out, zigzag(expense.getAmountCents()));
+		if (expense.getDate() != null) {
+			writeVarLong(out, zigzag(expense.getDate().toEpochDay()));
+		}
+		if (expense.getDescription() != null) {
+			writeString(out, expense.getDescription());
+		}
+		if (expense.getCategory() != null) {
+			write(out, expense.getCategory());
+		}
+	}
+
+	public static void write(ByteBuffer out, Category category) {
+		int flags = (category.getDescription() != null ? HAS_DESCRIPTION : 0)
+				| (category.getName() != null ? HAS_NAME : 0);
+		out.put(FORMAT_VERSION);
+		out.put((byte) flags);
+		writeId(out, category.getId());
+		if (category.getName() != null) {
+			writeString(out, category.getName());
+		}
+		if (category.getDescription() != null) {
+			writeString(out, category.getDescription());
+		}
+	}
+
+	public static Expense readExpense(ByteBuffer in) {
+		int flags = readHeader(in);
+		String id = readId(in);
+		Money amount = Money.ofCents(unzigzag(readVarLong(in)));
+		LocalDate date = (flags & HAS_DATE) != 0 ? LocalDate.ofEpochDay(unzigzag(readVarLong(in))) : null;
+		String description = (flags & HAS_DESCRIPTION) != 0 ? readString(in) : null;
+		Category category = (flags & HAS_CATEGORY) != 0 ? readCategory(in) : null;
+		return new Expense(id, amount, description, date, category);
+	}
+
+	public static Category readCategory(ByteBuffer in) {
+		int flags = readHeader(in);
+		String id = readId(in);
+		String name = (flags & HAS_NAME) != 0 ? readString(in) : null;
+		String description = (flags & HAS_DESCRIPTION) != 0 ? readString(in) : null;
+		return new Category(id, name, description);
+	}
+
+	// Reads only the id of the expense or category record at the buffer's
+	// position, without moving it
+	public static String peekId(ByteBuffer in) {
+		ByteBuffer record = in.duplicate();
+		readHeader(record);
+		return readId(record);
+	}
+
+	private static int readHeader(ByteBuffer in) {
+		byte version = in.get();
+		if (version != FORMAT_VERSION) {
+			throw new IllegalArgumentException("Unsupported expense codec format " + version);
+		}
+		return in.get();
+	}
+
+	private static void writeId(ByteBuffer out, String id) {
+		if (id == null) {
+			out.put(NULL_ID);
+		} else if (isCanonicalUuid(id)) {
+			out.put(UUID_ID);
+			out.putLong(parseHex(id, 0, 8) << 32 | parseHex(id, 9, 13) << 16 | parseHex(id, 14, 18));
+			out.putLong(parseHex(id, 19, 23) << 48 | parseHex(id, 24, 36));
+		} else if (isCanonicalNumber(id)) {
+			out.put(NUMBER_ID);
+			writeVarLong(out, Long.parseLong(id));
+		} else {
+			out.put(TEXT_ID);
+			writeString(out, id);
+		}
+	}
+
+	private static String readId(ByteBuffer in) {
+		byte form = in.get();
+		switch (form) {
+		case NULL_ID:
+			return null;
+		case UUID_ID:
+			return new UUID(in.getLong(), in.getLong()).toString();
+		case NUMBER_ID:
+			return Long.toString(readVarLong(in));
+		case TEXT_ID:
+			return readString(in);
+		default:
+			throw new IllegalArgumentException("Unknown id form " + form);
+		}
+	}
+
+	private static int maxIdSize(String id) {
+		return 1 + (id == null ? 0 : Math.max(16, maxStringSize(id)));
+	}
+
+	// Lower-case UUIDs in the 8-4-4-4-12 form, which UUID.toString gives back
+	private static boolean isCanonicalUuid(String id) {
+		if (id.length() != 36) {
+			return false;
+		}
+		for (int i = 0; i < 36; i++) {
+			char c = id.charAt(i);
+			boolean dash = i == 8 || i == 13 || i == 18 || i == 23;
+			if (dash ? c != '-' : !((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Hex digits already checked by isCanonicalUuid
+	private static long parseHex(String id, int from, int to) {
+		long value = 0;
+		for (int i = from; i < to; i++) {
+			char c = id.charAt(i);
+			value = value << 4 | (c <= '9' ? c - '0' : c - 'a' + 10);
+		}
+		return value;
+	}
+
+	// Non-negative decimal numbers without leading zeros that fit in a long
+	private static boolean isCanonicalNumber(String id) {
+		int length = id.length();
+		if (length == 0 || length > 18 || (length > 1 && id.charAt(0) == '0')) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			char c = id.charAt(i);
+			if (c < '0' || c > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int maxStringSize(String value) {
+		// A char takes at most 3 bytes in UTF-8, a surrogate pair 4 for 2 chars
+		return value == null ? 0 : 5 + value.length() * 3;
+	}
+
+	private static void writeString(ByteBuffer out, String value) {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarLong(out, bytes.length);
+		out.put(bytes);
+	}
+
+	// Decodes the bytes in place when the buffer is backed by an array
+	private static String readString(ByteBuffer in) {
+		int length = (int) readVarLong(in);
+		if (length > in.remaining()) {
+			throw new BufferUnderflowException();
+		}
+		String value;
+		if (in.hasArray()) {
+			value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+			in.position(in.position() + length);
+		} else {
+			byte[] bytes = new byte[length];
+			in.get(bytes);
+			value = new String(bytes, StandardCharsets.UTF_8);
+		}
+		return value;
+	}
+
+	private static long zigzag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static long unzigzag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static void writeVarLong(ByteBuffer out, long value) {
+		while ((value & ~0x7FL) != 0) {
+			out.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.put((byte) value);
+	}
+
+	private static long readVarLong(ByteBuffer in) {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = in.get();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IllegalArgumentException("Malformed varint");
+	}
+
+	private static byte[] toArray(ByteBuffer out) {
+		byte[] bytes = new byte[out.position()];
+		System.arraycopy(out.array(), 0, bytes, 0, bytes.length);
+		return bytes;
+	}
+}
@@ -1,5 +1,6 @@
 package com.tdd.expensetracker.controller;
 
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.logging.log4j.LogManager;
@@ -8,6 +9,8 @@ import org.apache.logging.log4j.Logger;
 import com.tdd.expensetracker.model.Category;
 import com.tdd.expensetracker.model.Expense;
 import com.tdd.expensetracker.repository.CategoryRepository;
+import com.tdd.expensetracker.utils.BloomFilter;
+import com.tdd.expensetracker.utils.TextUtils;
 import com.tdd.expensetracker.utils.ValidateUtils;
 import com.tdd.expensetracker.utils.ValidationException;
 import com.tdd.expensetracker.view.CategoryView;
@@ -16,8 +19,13 @@ public class CategoryController {
 
 	private static final Logger LOGGER = LogManager.getLogger(CategoryController.class);
 
+	// Room left for the categories created after the filter is loaded
+	static final long MIN_NAME_CAPACITY = 1024;
+	static final double NAME_FALSE_POSITIVE_RATE = 0.01;
+
 	private CategoryView categoryView;
 	private CategoryRepository categoryRepository;
+	private BloomFilter categoryNames;
 
 	// Constructor to initialize CategoryController with CategoryView and
 	// CategoryRepository
@@ -27,10 +35,21 @@ public class CategoryController {
 		LOGGER.info("CategoryController initialized with CategoryView and CategoryRepository");
 	}
 
-	// Fetches and displays all categories from the repository
+	// Builds the filter used to skip the lookup of names that no stored category
+	// has, from the names of the stored categories. Names are keyed at least as
+	// loosely as the database compares them, ignoring case and accents, so the
+	// filter never answers that a name the database would match is absent.
+	public synchronized void loadCategoryNames(List<String> names) {
+		BloomFilter filter = new BloomFilter(Math.max(MIN_NAME_CAPACITY, names.size() * 2L), NAME_FALSE_POSITIVE_RATE);
+		names.forEach(name -> filter.put(nameKey(name)));
+		categoryNames = filter;
+	}
+
+	// Fetches and displays all categories from the repository, without their
+	// expenses, which are read from the stored category when needed
 	public void allCategory() {
 		LOGGER.info("Getting all categories");
-		categoryView.showAllCategory(categoryRepository.findAll());
+		categoryView.showAllCategory(categoryRepository.findAllWithoutExpenses());
 	}
 
 	// Adds a new category if validation passes and category doesn't already exist
@@ -52,7 +71,7 @@ public class CategoryController {
 		}
 
 		// Check if a category with the same name exists
-		existingCategory = categoryRepository.findByName(category.getName());
+		existingCategory = findExistingCategory(category.getName());
 		if (existingCategory != null) {
 			LOGGER.warn("Category with name {} already exists", category.getName());
 			categoryView.showError("Already existing category with name " + category.getName(), existingCategory);
@@ -61,6 +80,7 @@ public class CategoryController {
 
 		// Save the new category and notify the view
 		categoryRepository.save(category);
+		rememberName(category.getName());
 		categoryView.categoryAdded(category);
 		LOGGER.info("New category created successfully: {}", category);
 	}
@@ -79,7 +99,7 @@ public class CategoryController {
 		}
 
 		// Check if the category has associated expenses, which would prevent deletion
-		if (!categoryToDelete.getExpenses().isEmpty()) {
+		if (!existingCategory.getExpenses().isEmpty()) {
 			LOGGER.warn("Category with id {} cannot be deleted because it has associated expenses",
 					categoryToDelete.getId());
 			categoryView.showError("Category cannot be deleted. Expenses are associated with it", categoryToDelete);
@@ -112,7 +132,7 @@ public class CategoryController {
 		}
 
 		// Check if a different category with the same name exists
-		existingCategory = categoryRepository.findByName(categoryToUpdate.getName());
+		existingCategory = findExistingCategory(categoryToUpdate.getName());
 		if (existingCategory != null && !existingCategory.getId().equals(categoryToUpdate.getId())) {
 			LOGGER.warn("Category with name {} already exists", categoryToUpdate.getName());
 			categoryView.showError("Already existing category with name " + categoryToUpdate.getName(),
@@ -122,6 +142,7 @@ public class CategoryController {
 
 		// Update the category and notify the view
 		categoryRepository.update(categoryToUpdate);
+		rememberName(categoryToUpdate.getName());
 		categoryView.categoryUpdated(categoryToUpdate);
 		LOGGER.info("Category updated successfully: {}", categoryToUpdate);
 	}
@@ -130,8 +151,10 @@ public class CategoryController {
 	public void getAllExpenses(Category category) {
 		LOGGER.info("Getting all expenses for category: {}", category);
 
-		// Retrieve the list of expenses associated with the category
-		List<Expense> expenses = category.getExpenses();
+		// Retrieve the list of expenses associated with the stored category, since
+		// the listed one is read without them
+		Category storedCategory = categoryRepository.findById(category.getId());
+		List<Expense> expenses = storedCategory != null ? storedCategory.getExpenses() : Collections.emptyList();
 		if (expenses.isEmpty()) {
 			LOGGER.warn("No expenses found for category: {}", category);
 			categoryView.showError("No Expense created for this category", category);
@@ -143,6 +166,25 @@ public class CategoryController {
 		LOGGER.info("Expenses fetched successfully for category: {}", category);
 	}
 
+	// Looks up the stored category with the name of a new or renamed one. Most
+	// names are new, and the filter answers those without a database round trip.
+	private Category findExistingCategory(String name) {
+		if (categoryNames != null && !categoryNames.mightContain(nameKey(name))) {
+			return null;
+		}
+		return categoryRepository.findByName(name);
+	}
+
+	private void rememberName(String name) {
+		if (categoryNames != null) {
+			categoryNames.put(nameKey(name));
+		}
+	}
+
+	private static String nameKey(String name) {
+		return TextUtils.collationKey(name);
+	}
+
 	// Validates category data before any save/update operation
 	private boolean validateCategory(Category categoryToUpdate) {
 		LOGGER.debug("Validating category: {}", categoryToUpdate);
@@ -1,12 +1,24 @@
 package com.tdd.expensetracker.controller;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.tdd.expensetracker.classifier.CategoryClassifier;
 import com.tdd.expensetracker.model.Category;
 import com.tdd.expensetracker.model.Expense;
 import com.tdd.expensetracker.repository.CategoryRepository;
 import com.tdd.expensetracker.repository.ExpenseRepository;
+import com.tdd.expensetracker.search.DescriptionSuggester;
+import com.tdd.expensetracker.search.ExpenseSearchIndex;
 import com.tdd.expensetracker.utils.ValidateUtils;
 import com.tdd.expensetracker.utils.ValidationException;
 import com.tdd.expensetracker.view.ExpenseView;
@@ -18,6 +30,15 @@ public class ExpenseController {
 	private ExpenseView expenseView;
 	private ExpenseRepository expenseRepository;
 	private CategoryRepository categoryRepository;
+	private final List<ExpenseListener> listeners = new CopyOnWriteArrayList<>();
+	private ExpenseSearchIndex searchIndex;
+	private DescriptionSuggester descriptionSuggester;
+	// Set from the thread training it, once trained
+	private volatile CategoryClassifier categoryClassifier;
+	private ExpenseIdFilter expenseIdFilter;
+	// Categories that batches were saved into, by id. The category controller
+	// refuses to delete a category with expenses, so they stay valid.
+	private final Map<String, Category> batchCategories = new HashMap<>();
 
 	// Constructor to initialize ExpenseController with view, expense repository,
 	// and category repository
@@ -29,12 +50,51 @@ public class ExpenseController {
 		LOGGER.info("ExpenseController initialized with ExpenseView, ExpenseRepository, and CategoryRepository");
 	}
 
+	// Registers a listener notified of every saved change
+	public void addExpenseListener(ExpenseListener listener) {
+		listeners.add(listener);
+	}
+
+	// Sets the index used by searchExpenses and keeps it up to date with every
+	// saved change
+	public void setSearchIndex(ExpenseSearchIndex searchIndex) {
+		this.searchIndex = searchIndex;
+		addExpenseListener(searchIndex);
+	}
+
+	// Sets the past descriptions used by suggestDescriptions and keeps them up to
+	// date with every saved change
+	public void setDescriptionSuggester(DescriptionSuggester descriptionSuggester) {
+		this.descriptionSuggester = descriptionSuggester;
+		addExpenseListener(descriptionSuggester);
+	}
+
+	// Sets the classifier used by suggestCategory and keeps it trained with every
+	// saved change
+	public void setCategoryClassifier(CategoryClassifier categoryClassifier) {
+		this.categoryClassifier = categoryClassifier;
+		addExpenseListener(categoryClassifier);
+	}
+
+	// Sets the filter used to skip the lookup of ids that were never stored and
+	// keeps it up to date with every saved expense
+	public void setExpenseIdFilter(ExpenseIdFilter expenseIdFilter) {
+		this.expenseIdFilter = expenseIdFilter;
+		addExpenseListener(expenseIdFilter);
+	}
+
 	// Fetches and displays all expenses from the repository
 	public void allExpense() {
 		LOGGER.info("Getting all expenses");
 		expenseView.showAllExpense(expenseRepository.findAll());
 	}
 
+	// Fetches and displays one page of expenses, newest first
+	public void expensePage(int page, int size) {
+		LOGGER.info("Getting page {} of expenses with size {}", page, size);
+		expenseView.showAllExpense(expenseRepository.findPage(page, size));
+	}
+
 	// Adds a new expense after validation and checks for existing expense or
 	// category
 	public synchronized void newExpense(Expense expense) {
@@ -48,7 +108,7 @@ public class ExpenseController {
 		}
 
 		// Check if the expense with the same ID already exists
-		Expense existingExpense = expenseRepository.findById(expense.getId());
+		Expense existingExpense = findExistingExpense(expense.getId());
 		if (existingExpense != null) {
 			LOGGER.warn("Expense with id {} already exists", expense.getId());
 			expenseView.showError("Already existing expense with id " + expense.getId(), existingExpense);
@@ -64,13 +124,78 @@ public class ExpenseController {
 			return;
 		}
 
-		// Save the expense and associate it with the category
+		// Save the expense with the stored category, whose name the listeners see,
+		// and associate it with the category
+		expense.setCategory(existingCategory);
 		expenseRepository.save(expense);
 		existingCategory.getExpenses().add(expense);
 		expenseView.expenseAdded(expense);
+		listeners.forEach(listener -> listener.expenseAdded(expense));
 		LOGGER.info("New expense created successfully: {}", expense);
 	}
 
+	// Adds a batch of new expenses with a single repository write. Each expense is
+	// validated like in newExpense; invalid ones are reported to the view and
+	// skipped while the rest of the batch is saved.
+	public synchronized void newExpenses(List<Expense> expenses) {
+		LOGGER.info("Attempting to create {} new expenses", expenses.size());
+
+		List<Expense> candidates = new ArrayList<>(expenses.size());
+		Set<String> unresolvedIds = new HashSet<>();
+		for (Expense expense : expenses) {
+			if (!validateExpense(expense)) {
+				LOGGER.warn("Expense validation failed: {}", expense);
+				continue;
+			}
+
+			// Only expenses with an id given elsewhere can clash with an existing one
+			if (expense.getId() != null && !expense.getId().isEmpty()) {
+				Expense existingExpense = findExistingExpense(expense.getId());
+				if (existingExpense != null) {
+					LOGGER.warn("Expense with id {} already exists", expense.getId());
+					expenseView.showError("Already existing expense with id " + expense.getId(), existingExpense);
+					continue;
+				}
+			}
+
+			candidates.add(expense);
+			if (!batchCategories.containsKey(expense.getCategory().getId())) {
+				unresolvedIds.add(expense.getCategory().getId());
+			}
+		}
+
+		// Categories not seen in an earlier batch are looked up in one query that
+		// does not load their expenses
+		Map<String, Category> categories = new HashMap<>(batchCategories);
+		if (!unresolvedIds.isEmpty()) {
+			categoryRepository.findByIdsWithoutExpenses(unresolvedIds)
+					.forEach(category -> categories.put(category.getId(), category));
+		}
+		List<Expense> validExpenses = new ArrayList<>(candidates.size());
+		for (Expense expense : candidates) {
+			String categoryId = expense.getCategory().getId();
+			Category existingCategory = categories.get(categoryId);
+			if (existingCategory == null) {
+				LOGGER.warn("Category with id {} does not exist", categoryId);
+				expenseView.showError("Category does not exist with id " + categoryId, expense);
+				continue;
+			}
+			expense.setCategory(existingCategory);
+			validExpenses.add(expense);
+		}
+
+		if (validExpenses.isEmpty()) {
+			return;
+		}
+
+		// Save the whole batch and notify the view
+		expenseRepository.saveAll(validExpenses);
+		validExpenses.forEach(expense -> batchCategories.put(expense.getCategory().getId(), expense.getCategory()));
+		validExpenses.forEach(expenseView::expenseAdded);
+		listeners.forEach(listener -> listener.expensesAdded(validExpenses));
+		LOGGER.info("{} new expenses created successfully", validExpenses.size());
+	}
+
 	// Deletes an expense if it exists in the repository
 	public synchronized void deleteExpense(Expense expenseToDelete) {
 		LOGGER.info("Attempting to delete expense: {}", expenseToDelete);
@@ -87,6 +212,7 @@ public class ExpenseController {
 		// Delete the expense and notify the view
 		expenseRepository.delete(expenseToDelete);
 		expenseView.expenseDeleted(expenseToDelete);
+		listeners.forEach(listener -> listener.expenseDeleted(existingExpense));
 		LOGGER.info("Expense deleted successfully: {}", expenseToDelete);
 	}
 
@@ -118,16 +244,59 @@ public class ExpenseController {
 			return;
 		}
 
-		// Update the expense in the repository and notify the view
+		// Update the expense with the stored category in the repository and notify
+		// the view
+		updatedExpense.setCategory(existingCategory);
 		expenseRepository.update(updatedExpense);
 		expenseView.expenseUpdated(updatedExpense);
+		listeners.forEach(listener -> listener.expenseUpdated(existingExpense, updatedExpense));
 		LOGGER.info("Expense updated successfully: {}", updatedExpense);
 	}
 
+	// Displays the expenses best matching a full-text query. Matches come from
+	// the search index and only those rows are read from the repository.
+	public void searchExpenses(String query, int limit) {
+		LOGGER.info("Searching expenses for '{}'", query);
+		if (searchIndex == null) {
+			LOGGER.warn("No search index available");
+			expenseView.showSearchResults(query, Collections.emptyList());
+			return;
+		}
+		List<String> ids = searchIndex.search(query, limit);
+		expenseView.showSearchResults(query, ids.isEmpty() ? Collections.emptyList() : expenseRepository.findByIds(ids));
+	}
+
+	// Displays the past descriptions starting with a typed prefix. Suggestions are
+	// served from memory, so this is cheap enough to call on every keystroke.
+	public void suggestDescriptions(String prefix, int limit) {
+		List<String> suggestions = descriptionSuggester == null ? Collections.emptyList()
+				: descriptionSuggester.suggest(prefix, limit);
+		expenseView.showDescriptionSuggestions(prefix, suggestions);
+	}
+
+	// Displays the most likely category of a new expense with this description,
+	// if the classifier has a guess
+	public void suggestCategory(String description) {
+		String categoryId = categoryClassifier == null ? null : categoryClassifier.classify(description);
+		if (categoryId != null) {
+			expenseView.showSuggestedCategory(description, categoryId);
+		}
+	}
+
 	// Fetches and displays all categories from the repository
 	public void allCategory() {
 		LOGGER.info("Getting all categories");
-		expenseView.showAllCategory(categoryRepository.findAll());
+		expenseView.showAllCategory(categoryRepository.findAllWithoutExpenses());
+	}
+
+	// Looks up the stored expense with the id of a new one. The filter answers
+	// most new ids without a database round trip; an id allocated by this process
+	// is only skipped until it is first saved, so resubmitting it is caught.
+	private Expense findExistingExpense(String id) {
+		if (expenseIdFilter != null && !expenseIdFilter.mightExist(id)) {
+			return null;
+		}
+		return expenseRepository.findById(id);
 	}
 
 	// Validates the expense before saving or updating it
@@ -136,7 +305,7 @@ public class ExpenseController {
 
 		try {
 			// Validate the amount, date, and description of the expense
-			ValidateUtils.validateAmount(expense.getAmount());
+			ValidateUtils.validateAmount(expense.getMoney());
 			ValidateUtils.validateDate(expense.getDate());
 			ValidateUtils.validateRequiredString(expense.getDescription(), "Description");
 		} catch (ValidationException exception) {
@@ -0,0 +1,63 @@
+package com.tdd.expensetracker.controller;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.utils.BloomFilter;
+import com.tdd.expensetracker.utils.IdAllocator;
+
+// Bloom filter of the ids of the stored expenses, filled by a key-only scan
+// and kept up to date with every saved expense. Deleted ids are not removed,
+// which only makes them possible hits. Until the scan is done every id might
+// exist, so the filter can be linked before a background scan starts without
+// missing the expenses saved meanwhile.
+public class ExpenseIdFilter implements ExpenseListener {
+
+	static final double FALSE_POSITIVE_RATE = 0.01;
+	// Room left for the expenses saved after the scan
+	static final long MIN_CAPACITY = 100_000;
+
+	private final BloomFilter ids;
+	private volatile boolean loaded;
+
+	// Constructor sizing the filter for the stored expenses and as many new ones
+	public ExpenseIdFilter(long storedExpenses) {
+		this.ids = new BloomFilter(Math.max(MIN_CAPACITY, storedExpenses * 2), FALSE_POSITIVE_RATE);
+	}
+
+	// Adds every id supplied by a key-only scan such as ExpenseRepository.streamIds
+	public void load(Consumer<Consumer<String>> source) {
+		source.accept(ids::put);
+		loaded = true;
+	}
+
+	// False means no expense with this id was ever stored. An id allocated by this
+	// process can only have been stored by it, which the listener records, so it
+	// is answered from the filter even before the scan is done.
+	public boolean mightExist(String id) {
+		return id != null && ((!loaded && !IdAllocator.isAllocatedHere(id)) || ids.mightContain(id));
+	}
+
+	@Override
+	public void expenseAdded(Expense expense) {
+		if (expense.getId() != null) {
+			ids.put(expense.getId());
+		}
+	}
+
+	@Override
+	public void expensesAdded(List<Expense> expenses) {
+		expenses.forEach(this::expenseAdded);
+	}
+
+	@Override
+	public void expenseUpdated(Expense previousExpense, Expense updatedExpense) {
+		// Ids never change
+	}
+
+	@Override
+	public void expenseDeleted(Expense expense) {
+		// Bloom filters cannot forget a key
+	}
+}
@@ -0,0 +1,25 @@
+package com.tdd.expensetracker.controller;
+
+import java.util.List;
+
+import com.tdd.expensetracker.model.Expense;
+
+// Receives the changes made through ExpenseController once they are saved, in
+// addition to the view. Called while the controller holds its lock, so
+// implementations must be quick and must not call back into the controller.
+public interface ExpenseListener {
+
+	void expenseAdded(Expense expense);
+
+	// Called once for the expenses saved together by a batch
+	default void expensesAdded(List<Expense> expenses) {
+		expenses.forEach(this::expenseAdded);
+	}
+
+	// The previous expense is the one stored before the update
+	void expenseUpdated(Expense previousExpense, Expense updatedExpense);
+
+	// The expense is the one stored before the deletion
+	void expenseDeleted(Expense expense);
+
+}
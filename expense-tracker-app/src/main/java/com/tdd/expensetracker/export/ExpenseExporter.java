@@ -0,0 +1,71 @@
+package com.tdd.expensetracker.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.tdd.expensetracker.repository.ExpenseRepository;
+
+// Streams expenses from the repository straight to an output stream. Rows are
+// formatted into one reused buffer and written as they arrive from the
+// database cursor, so memory use does not grow with the number of expenses.
+public class ExpenseExporter {
+
+	private static final Logger LOGGER = LogManager.getLogger(ExpenseExporter.class);
+
+	static final int BUFFER_SIZE = 64 * 1024;
+
+	private final ExpenseRepository expenseRepository;
+	private final ExportFormat format;
+	private final List<ExportColumn> columns;
+
+	// Constructor to initialize the exporter with the repository to read from,
+	// the output format and the columns to write
+	public ExpenseExporter(ExpenseRepository expenseRepository, ExportFormat format, List<ExportColumn> columns) {
+		this.expenseRepository = expenseRepository;
+		this.format = format;
+		this.columns = columns;
+	}
+
+	// Writes the expenses dated within the optional bounds and belonging to the
+	// optional category name, returning how many were written. The stream is
+	// flushed but not closed.
+	public long export(LocalDate from, LocalDate to, String categoryName, OutputStream out) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+		StringBuilder text = new StringBuilder(256);
+		format.appendHeader(text, columns);
+		writer.append(text);
+
+		long[] count = new long[1];
+		try {
+			expenseRepository.streamAll(from, to, categoryName, expense -> {
+				text.setLength(0);
+				format.appendRow(text, columns, expense, count[0] == 0);
+				try {
+					writer.append(text);
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				count[0]++;
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		text.setLength(0);
+		format.appendFooter(text);
+		writer.append(text);
+		writer.flush();
+		LOGGER.info("Exported {} expenses as {}", count[0], format);
+		return count[0];
+	}
+}
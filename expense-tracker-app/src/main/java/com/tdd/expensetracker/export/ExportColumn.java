@@ -0,0 +1,40 @@
+package com.tdd.expensetracker.export;
+
+import java.util.function.Function;
+
+import com.tdd.expensetracker.model.Expense;
+
+// Expense fields that can be selected for an export, in the order given by the
+// caller
+public enum ExportColumn {
+
+	ID("id", false, Expense::getId),
+	DATE("date", false, expense -> expense.getDate() == null ? null : expense.getDate().toString()),
+	AMOUNT("amount", true, expense -> Double.toString(expense.getAmount())),
+	DESCRIPTION("description", false, Expense::getDescription),
+	CATEGORY("category", false, expense -> expense.getCategory() == null ? null : expense.getCategory().getName());
+
+	private final String header;
+	private final boolean numeric;
+	private final Function<Expense, String> value;
+
+	ExportColumn(String header, boolean numeric, Function<Expense, String> value) {
+		this.header = header;
+		this.numeric = numeric;
+		this.value = value;
+	}
+
+	// Column name used in the CSV header and as the JSON key
+	public String getHeader() {
+		return header;
+	}
+
+	// Whether the value is written as a JSON number rather than a string
+	public boolean isNumeric() {
+		return numeric;
+	}
+
+	public String valueOf(Expense expense) {
+		return value.apply(expense);
+	}
+}
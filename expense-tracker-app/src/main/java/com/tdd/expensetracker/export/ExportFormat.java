@@ -0,0 +1,78 @@
+package com.tdd.expensetracker.export;
+
+import java.util.List;
+
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.utils.CsvUtils;
+import com.tdd.expensetracker.utils.JsonUtils;
+
+// Output formats of the exporter. Each format appends text to a reused buffer so
+// that writing a row allocates nothing but the field values.
+public enum ExportFormat {
+
+	// One header line followed by one line per expense, readable by the import
+	// command when the default columns are exported
+	CSV {
+		@Override
+		void appendHeader(StringBuilder text, List<ExportColumn> columns) {
+			String[] headers = new String[columns.size()];
+			for (int i = 0; i < headers.length; i++) {
+				headers[i] = columns.get(i).getHeader();
+			}
+			CsvUtils.appendLine(text, headers);
+			text.append('\n');
+		}
+
+		@Override
+		void appendRow(StringBuilder text, List<ExportColumn> columns, Expense expense, boolean first) {
+			String[] values = new String[columns.size()];
+			for (int i = 0; i < values.length; i++) {
+				values[i] = columns.get(i).valueOf(expense);
+			}
+			CsvUtils.appendLine(text, values);
+			text.append('\n');
+		}
+
+		@Override
+		void appendFooter(StringBuilder text) {
+			// CSV has no footer
+		}
+	},
+
+	// A JSON array with one object per expense on its own line
+	JSON {
+		@Override
+		void appendHeader(StringBuilder text, List<ExportColumn> columns) {
+			text.append('[');
+		}
+
+		@Override
+		void appendRow(StringBuilder text, List<ExportColumn> columns, Expense expense, boolean first) {
+			text.append(first ? "\n{" : ",\n{");
+			for (int i = 0; i < columns.size(); i++) {
+				ExportColumn column = columns.get(i);
+				if (i > 0) {
+					text.append(',');
+				}
+				text.append('"').append(column.getHeader()).append("\":");
+				if (column.isNumeric()) {
+					text.append(column.valueOf(expense));
+				} else {
+					JsonUtils.appendString(text, column.valueOf(expense));
+				}
+			}
+			text.append('}');
+		}
+
+		@Override
+		void appendFooter(StringBuilder text) {
+			text.append("\n]\n");
+		}
+	};
+
+	abstract void appendHeader(StringBuilder text, List<ExportColumn> columns);
+
+	abstract void appendRow(StringBuilder text, List<ExportColumn> columns, Expense expense, boolean first);
+
+	abstract void appendFooter(StringBuilder text);
+}
@@ -0,0 +1,278 @@
+package com.tdd.expensetracker.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.model.Money;
+import com.tdd.expensetracker.utils.CsvUtils;
+import com.tdd.expensetracker.utils.ValidateUtils;
+import com.tdd.expensetracker.utils.ValidationException;
+
+// Streams a CSV file with the header "date,amount,description,category" into
+// expense batches. A reader thread cuts the input into chunks of lines, a pool
+// of parser threads turns them into validated expenses, and the calling thread
+// hands full batches to the batch writer and writes bad rows to the reject
+// output. The stages are connected by bounded queues, so a slow database slows
+// the reader down instead of filling the heap.
+public class CsvImportPipeline {
+
+	private static final Logger LOGGER = LogManager.getLogger(CsvImportPipeline.class);
+
+	static final int CHUNK_SIZE = 256;
+	private static final int QUEUED_CHUNKS_PER_PARSER = 4;
+	private static final int EXPECTED_FIELDS = 4;
+
+	// Marks the end of a queue; compared by identity
+	private static final LineChunk END_OF_LINES = new LineChunk(0, new ArrayList<>());
+	private static final ParsedChunk END_OF_PARSED = new ParsedChunk(new ArrayList<>(), new ArrayList<>());
+
+	private final Function<String, Category> categoryResolver;
+	private final Consumer<List<Expense>> batchWriter;
+	private final int parserThreads;
+	private final int batchSize;
+	private final ConcurrentMap<String, Optional<Category>> categoriesByName = new ConcurrentHashMap<>();
+
+	private Consumer<ImportProgress> progressListener = progress -> {
+	};
+	private long progressIntervalNanos = Long.MAX_VALUE;
+
+	// Constructor to initialize the pipeline with the category lookup by name
+	// (null when there is no such category) and the consumer of expense batches
+	public CsvImportPipeline(Function<String, Category> categoryResolver, Consumer<List<Expense>> batchWriter,
+			int parserThreads, int batchSize) {
+		this.categoryResolver = categoryResolver;
+		this.batchWriter = batchWriter;
+		this.parserThreads = Math.max(1, parserThreads);
+		this.batchSize = Math.max(1, batchSize);
+	}
+
+	// Registers a listener called from the writing thread at most once per
+	// interval while the import runs
+	public void setProgressListener(Consumer<ImportProgress> progressListener, long intervalMillis) {
+		this.progressListener = progressListener;
+		this.progressIntervalNanos = intervalMillis * 1_000_000;
+	}
+
+	// Imports all rows of the input, skipping its header line. Rejected rows are
+	// written to the reject output as "line,error,row" CSV lines.
+	public ImportProgress run(BufferedReader input, Writer rejects) throws IOException, InterruptedException {
+		long start = System.nanoTime();
+		BlockingQueue<LineChunk> lineQueue = new ArrayBlockingQueue<>(parserThreads * QUEUED_CHUNKS_PER_PARSER);
+		BlockingQueue<ParsedChunk> parsedQueue = new ArrayBlockingQueue<>(parserThreads * QUEUED_CHUNKS_PER_PARSER);
+		AtomicReference<Exception> failure = new AtomicReference<>();
+		AtomicLong rowsRead = new AtomicLong();
+
+		ExecutorService executor = Executors.newFixedThreadPool(parserThreads + 1);
+		try {
+			executor.execute(() -> readLines(input, lineQueue, rowsRead, failure));
+			for (int i = 0; i < parserThreads; i++) {
+				executor.execute(() -> parseLines(lineQueue, parsedQueue, failure));
+			}
+
+			rejects.write(CsvUtils.formatLine("line", "error", "row") + System.lineSeparator());
+			long rowsWritten = 0;
+			long rowsRejected = 0;
+			long nextProgress = start + progressIntervalNanos;
+			List<Expense> batch = new ArrayList<>(batchSize);
+			int finishedParsers = 0;
+			while (finishedParsers < parserThreads) {
+				ParsedChunk chunk = parsedQueue.take();
+				if (chunk == END_OF_PARSED) {
+					finishedParsers++;
+					continue;
+				}
+				throwIfFailed(failure);
+				for (String reject : chunk.rejects) {
+					rejects.write(reject);
+				}
+				rowsRejected += chunk.rejects.size();
+				for (Expense expense : chunk.expenses) {
+					batch.add(expense);
+					if (batch.size() == batchSize) {
+						batchWriter.accept(batch);
+						rowsWritten += batch.size();
+						batch = new ArrayList<>(batchSize);
+					}
+				}
+				long now = System.nanoTime();
+				if (now - nextProgress >= 0) {
+					progressListener.accept(new ImportProgress(rowsRead.get(), rowsWritten, rowsRejected, now - start));
+					nextProgress = now + progressIntervalNanos;
+				}
+			}
+			throwIfFailed(failure);
+			if (!batch.isEmpty()) {
+				batchWriter.accept(batch);
+				rowsWritten += batch.size();
+			}
+			rejects.flush();
+
+			ImportProgress result = new ImportProgress(rowsRead.get(), rowsWritten, rowsRejected,
+					System.nanoTime() - start);
+			LOGGER.info("CSV import finished: {}", result);
+			return result;
+		} finally {
+			// Unblocks the other stages when the writing stage stopped early
+			executor.shutdownNow();
+		}
+	}
+
+	// Reader stage: groups numbered lines into chunks and always ends the queue
+	// with one end marker per parser
+	private void readLines(BufferedReader input, BlockingQueue<LineChunk> lineQueue, AtomicLong rowsRead,
+			AtomicReference<Exception> failure) {
+		try {
+			// The first line is the header
+			String line = input.readLine();
+			long lineNumber = 1;
+			List<String> lines = new ArrayList<>(CHUNK_SIZE);
+			long firstLineNumber = 2;
+			while ((line = input.readLine()) != null && failure.get() == null) {
+				lineNumber++;
+				if (!line.trim().isEmpty()) {
+					rowsRead.incrementAndGet();
+				}
+				if (lines.isEmpty()) {
+					firstLineNumber = lineNumber;
+				}
+				lines.add(line);
+				if (lines.size() == CHUNK_SIZE) {
+					lineQueue.put(new LineChunk(firstLineNumber, lines));
+					lines = new ArrayList<>(CHUNK_SIZE);
+				}
+			}
+			if (!lines.isEmpty()) {
+				lineQueue.put(new LineChunk(firstLineNumber, lines));
+			}
+		} catch (IOException e) {
+			failure.compareAndSet(null, e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return;
+		}
+		try {
+			for (int i = 0; i < parserThreads; i++) {
+				lineQueue.put(END_OF_LINES);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		LOGGER.debug("CSV reader finished");
+	}
+
+	// Parser stage: turns each chunk of lines into expenses and reject lines
+	private void parseLines(BlockingQueue<LineChunk> lineQueue, BlockingQueue<ParsedChunk> parsedQueue,
+			AtomicReference<Exception> failure) {
+		try {
+			try {
+				LineChunk chunk;
+				while ((chunk = lineQueue.take()) != END_OF_LINES) {
+					if (failure.get() == null) {
+						parsedQueue.put(parseChunk(chunk));
+					}
+				}
+			} catch (RuntimeException e) {
+				failure.compareAndSet(null, e);
+			}
+			parsedQueue.put(END_OF_PARSED);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private ParsedChunk parseChunk(LineChunk chunk) {
+		List<Expense> expenses = new ArrayList<>(chunk.lines.size());
+		List<String> rejects = new ArrayList<>();
+		long lineNumber = chunk.firstLineNumber;
+		for (String line : chunk.lines) {
+			if (!line.trim().isEmpty()) {
+				try {
+					expenses.add(parseExpense(line));
+				} catch (ValidationException | DateTimeParseException | NumberFormatException e) {
+					rejects.add(CsvUtils.formatLine(Long.toString(lineNumber), e.getMessage(), line)
+							+ System.lineSeparator());
+				}
+			}
+			lineNumber++;
+		}
+		return new ParsedChunk(expenses, rejects);
+	}
+
+	// Parses and validates one row the same way the controller validates an
+	// expense, so that rows rejected here never reach the database
+	Expense parseExpense(String line) {
+		List<String> fields = CsvUtils.parseLine(line);
+		if (fields.size() != EXPECTED_FIELDS) {
+			throw new ValidationException("Expected " + EXPECTED_FIELDS + " fields but found " + fields.size());
+		}
+		LocalDate date = LocalDate.parse(fields.get(0).trim());
+		Money amount = Money.parse(fields.get(1));
+		String description = fields.get(2);
+		ValidateUtils.validateAmount(amount);
+		ValidateUtils.validateDate(date);
+		ValidateUtils.validateRequiredString(description, "Description");
+		return new Expense(amount, description, date, resolveCategory(fields.get(3).trim()));
+	}
+
+	// Resolves a category by name, asking the resolver only once per name even
+	// when several parsers meet the name at the same time
+	private Category resolveCategory(String name) {
+		Optional<Category> category = categoriesByName.computeIfAbsent(name,
+				key -> Optional.ofNullable(categoryResolver.apply(key)));
+		if (!category.isPresent()) {
+			throw new ValidationException("Category does not exist with name " + name);
+		}
+		return category.get();
+	}
+
+	private static void throwIfFailed(AtomicReference<Exception> failure) throws IOException {
+		Exception exception = failure.get();
+		if (exception instanceof IOException) {
+			throw (IOException) exception;
+		}
+		if (exception != null) {
+			throw (RuntimeException) exception;
+		}
+	}
+
+	private static class LineChunk {
+		private final long firstLineNumber;
+		private final List<String> lines;
+
+		LineChunk(long firstLineNumber, List<String> lines) {
+			this.firstLineNumber = firstLineNumber;
+			this.lines = lines;
+		}
+	}
+
+	private static class ParsedChunk {
+		private final List<Expense> expenses;
+		private final List<String> rejects;
+
+		ParsedChunk(List<Expense> expenses, List<String> rejects) {
+			this.expenses = expenses;
+			this.rejects = rejects;
+		}
+	}
+}
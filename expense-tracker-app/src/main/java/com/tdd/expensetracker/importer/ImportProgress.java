@@ -0,0 +1,47 @@
+package com.tdd.expensetracker.importer;
+
+// Counters of a running or finished CSV import
+public class ImportProgress {
+
+	private final long rowsRead;
+	private final long rowsWritten;
+	private final long rowsRejected;
+	private final long elapsedNanos;
+
+	public ImportProgress(long rowsRead, long rowsWritten, long rowsRejected, long elapsedNanos) {
+		this.rowsRead = rowsRead;
+		this.rowsWritten = rowsWritten;
+		this.rowsRejected = rowsRejected;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	// Data rows read from the input, blank lines and the header excluded
+	public long getRowsRead() {
+		return rowsRead;
+	}
+
+	// Rows parsed, validated and handed to the batch writer
+	public long getRowsWritten() {
+		return rowsWritten;
+	}
+
+	// Rows written to the reject output
+	public long getRowsRejected() {
+		return rowsRejected;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedNanos / 1_000_000;
+	}
+
+	// Rows handed to the batch writer per second since the import started
+	public double getRowsPerSecond() {
+		return elapsedNanos == 0 ? 0 : rowsWritten * 1e9 / elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d rows read, %d written, %d rejected in %d ms (%.0f rows/s)", rowsRead, rowsWritten,
+				rowsRejected, getElapsedMillis(), getRowsPerSecond());
+	}
+}
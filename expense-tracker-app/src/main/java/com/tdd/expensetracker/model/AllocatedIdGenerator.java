@@ -0,0 +1,19 @@
+package com.tdd.expensetracker.model;
+
+import java.io.Serializable;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+import com.tdd.expensetracker.utils.IdAllocator;
+
+// Keeps the id allocated when the entity was created, and allocates one at
+// flush time for entities created without an id
+public class AllocatedIdGenerator implements IdentifierGenerator {
+
+	@Override
+	public Serializable generate(SharedSessionContractImplementor session, Object entity) {
+		Serializable id = session.getEntityPersister(null, entity).getIdentifier(entity, session);
+		return id instanceof String && !((String) id).isEmpty() ? id : IdAllocator.nextId();
+	}
+}
@@ -0,0 +1,61 @@
+package com.tdd.expensetracker.model;
+
+import java.util.Objects;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+// Monthly spending limit of one category
+@Entity
+@Table(name = "budgets")
+public class Budget {
+
+	@Id
+	@Column(name = "category_id", nullable = false)
+	private String categoryId;
+
+	@Column(name = "monthly_limit", nullable = false)
+	private double monthlyLimit;
+
+	// Constructor
+	public Budget(String categoryId, double monthlyLimit) {
+		this.categoryId = categoryId;
+		this.monthlyLimit = monthlyLimit;
+	}
+
+	public Budget() {
+	}
+
+	public String getCategoryId() {
+		return categoryId;
+	}
+
+	public double getMonthlyLimit() {
+		return monthlyLimit;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(categoryId, monthlyLimit);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		Budget other = (Budget) obj;
+		return Objects.equals(categoryId, other.categoryId)
+				&& Double.doubleToLongBits(monthlyLimit) == Double.doubleToLongBits(other.monthlyLimit);
+	}
+
+	@Override
+	public String toString() {
+		return "Budget [categoryId=" + categoryId + ", monthlyLimit=" + monthlyLimit + "]";
+	}
+}
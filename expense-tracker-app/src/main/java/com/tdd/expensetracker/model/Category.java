@@ -2,7 +2,6 @@ package com.tdd.expensetracker.model;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
@@ -12,32 +11,40 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 
 import org.hibernate.annotations.GenericGenerator;
 
+import com.tdd.expensetracker.utils.IdAllocator;
+
 @Entity
 @Table(name = "Category")
 public class Category {
 
 	@Id
-	@GeneratedValue(generator = "uuid")
-	@GenericGenerator(name = "uuid", strategy = "uuid2")
+	@GeneratedValue(generator = "allocated")
+	@GenericGenerator(name = "allocated", strategy = "com.tdd.expensetracker.model.AllocatedIdGenerator")
 	@Column(name = "id", unique = true, nullable = false)
-	private String id; // Changed to use UUID generation
+	private String id; // Time-ordered, allocated when created
 	private String name;
 	private String description;
 
 	@OneToMany(mappedBy = "category", cascade = CascadeType.ALL, fetch = FetchType.EAGER)
 	private List<Expense> expenses = new ArrayList<>();
 
+	// Hash of the id, computed on first use
+	@Transient
+	private int hash;
+
 	public Category(String id, String name, String description) {
 		this.id = id;
 		this.name = name;
 		this.description = description;
 	}
 
+	// Constructor for a new category, whose id is allocated right away
 	public Category(String name, String description) {
-		this.id = "";
+		this.id = IdAllocator.nextId();
 		this.name = name;
 		this.description = description;
 	}
@@ -54,22 +61,26 @@ public class Category {
 		return id;
 	}
 
+	// Hashes and compares the id only, so categories are cheap keys whatever
+	// their expenses. A category without an id is only equal to itself.
 	@Override
 	public int hashCode() {
-		return Objects.hash(description, getExpenses(), id, name);
+		int h = hash;
+		if (h == 0 && id != null && !id.isEmpty()) {
+			h = id.hashCode();
+			hash = h;
+		}
+		return h;
 	}
 
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj)
 			return true;
-		if (obj == null)
-			return false;
-		if (getClass() != obj.getClass())
+		if (!(obj instanceof Category))
 			return false;
 		Category other = (Category) obj;
-		return Objects.equals(description, other.description) && Objects.equals(id, other.id)
-				&& Objects.equals(name, other.name);
+		return id != null && !id.isEmpty() && id.equals(other.getId());
 	}
 
 	public String getName() {
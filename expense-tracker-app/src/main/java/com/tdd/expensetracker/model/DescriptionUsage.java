@@ -0,0 +1,54 @@
+package com.tdd.expensetracker.model;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+// How many expenses share a description and when it was last used
+public class DescriptionUsage {
+
+	private final String description;
+	private final long count;
+	private final LocalDate lastUsed;
+
+	// Constructor
+	public DescriptionUsage(String description, long count, LocalDate lastUsed) {
+		this.description = description;
+		this.count = count;
+		this.lastUsed = lastUsed;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public LocalDate getLastUsed() {
+		return lastUsed;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(count, description, lastUsed);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		DescriptionUsage other = (DescriptionUsage) obj;
+		return count == other.count && Objects.equals(description, other.description)
+				&& Objects.equals(lastUsed, other.lastUsed);
+	}
+
+	@Override
+	public String toString() {
+		return "DescriptionUsage [description=" + description + ", count=" + count + ", lastUsed=" + lastUsed + "]";
+	}
+}
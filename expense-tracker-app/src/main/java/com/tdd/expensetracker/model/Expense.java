@@ -1,9 +1,9 @@
 package com.tdd.expensetracker.model;
 
 import java.time.LocalDate;
-import java.util.Objects;
 
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
@@ -11,21 +11,25 @@ import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 
 import org.hibernate.annotations.GenericGenerator;
 
+import com.tdd.expensetracker.utils.IdAllocator;
+
 @Entity
 @Table(name = "Expense")
 public class Expense {
 
 	@Id
-	@GeneratedValue(generator = "uuid")
-	@GenericGenerator(name = "uuid", strategy = "uuid2")
+	@GeneratedValue(generator = "allocated")
+	@GenericGenerator(name = "allocated", strategy = "com.tdd.expensetracker.model.AllocatedIdGenerator")
 	@Column(name = "id", unique = true, nullable = false)
 	private String id;
 
-	@Column(name = "amount")
-	private double amount;
+	@Column(name = "amount", nullable = false)
+	@Convert(converter = MoneyConverter.class)
+	private Money amount;
 
 	@Column(name = "description")
 	private String description;
@@ -37,8 +41,16 @@ public class Expense {
 	@JoinColumn(name = "category_id", nullable = false)
 	private Category category;
 
+	// Hash of the id, computed on first use
+	@Transient
+	private int hash;
+
 	// Constructor
 	public Expense(String id, Double amount, String description, LocalDate date, Category category) {
+		this(id, Money.of(amount), description, date, category);
+	}
+
+	public Expense(String id, Money amount, String description, LocalDate date, Category category) {
 		this.id = id;
 		this.amount = amount;
 		this.description = description;
@@ -46,17 +58,29 @@ public class Expense {
 		this.category = category;
 	}
 
+	// Constructor for a new expense, whose id is allocated right away
 	public Expense(Double amount, String description, LocalDate date, Category category) {
-		this.id = "";
+		this(Money.of(amount), description, date, category);
+	}
+
+	public Expense(Money amount, String description, LocalDate date, Category category) {
+		this.id = IdAllocator.nextId();
 		this.amount = amount;
 		this.description = description;
 		this.date = date;
 		this.category = category;
 	}
 
+	// Hashes and compares the id only, so expenses are cheap keys whatever their
+	// category. An expense without an id is only equal to itself.
 	@Override
 	public int hashCode() {
-		return Objects.hash(amount, category, date, description, id);
+		int h = hash;
+		if (h == 0 && id != null && !id.isEmpty()) {
+			h = id.hashCode();
+			hash = h;
+		}
+		return h;
 	}
 
 	@Override
@@ -69,22 +93,17 @@ public class Expense {
 	public boolean equals(Object obj) {
 		if (this == obj)
 			return true;
-		if (obj == null)
-			return false;
-		if (getClass() != obj.getClass())
+		if (!(obj instanceof Expense))
 			return false;
 		Expense other = (Expense) obj;
-		return Double.doubleToLongBits(amount) == Double.doubleToLongBits(other.amount)
-				&& Objects.equals(category, other.category) && Objects.equals(date, other.date)
-				&& Objects.equals(description, other.description) && Objects.equals(id, other.id);
-
+		return id != null && !id.isEmpty() && id.equals(other.getId());
 	}
 
 	public Expense() {
 	}
 
 	public void setAmount(Double amount) {
-		this.amount = amount;
+		this.amount = Money.of(amount);
 	}
 
 	public void setDescription(String description) {
@@ -100,9 +119,18 @@ public class Expense {
 	}
 
 	public double getAmount() {
+		return amount.toDouble();
+	}
+
+	public Money getMoney() {
 		return amount;
 	}
 
+	// Amount in cents, for exact sums without allocating
+	public long getAmountCents() {
+		return amount.getCents();
+	}
+
 	public String getDescription() {
 		return description;
 	}
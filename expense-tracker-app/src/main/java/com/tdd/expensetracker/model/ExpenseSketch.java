@@ -0,0 +1,46 @@
+package com.tdd.expensetracker.model;
+
+import javax.persistence.Column;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+// Encoded quantile sketch of the amounts of one category in one month. A row is
+// either missing or summarizes every expense of its key: writes that cannot
+// keep it exact remove it and the next read rebuilds it.
+@Entity
+@Table(name = "expense_sketches")
+public class ExpenseSketch {
+
+	@EmbeddedId
+	private ExpenseTotalId id;
+
+	@Column(name = "sketch", nullable = false, length = 65535)
+	private byte[] sketch;
+
+	// Constructor
+	public ExpenseSketch(ExpenseTotalId id, byte[] sketch) {
+		this.id = id;
+		this.sketch = sketch;
+	}
+
+	public ExpenseSketch() {
+	}
+
+	public ExpenseTotalId getId() {
+		return id;
+	}
+
+	public byte[] getSketch() {
+		return sketch;
+	}
+
+	public void setSketch(byte[] sketch) {
+		this.sketch = sketch;
+	}
+
+	@Override
+	public String toString() {
+		return "ExpenseSketch [id=" + id + ", bytes=" + sketch.length + "]";
+	}
+}
@@ -0,0 +1,66 @@
+package com.tdd.expensetracker.model;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import javax.persistence.Column;
+import javax.persistence.EmbeddedId;
+import javax.persistence.Entity;
+import javax.persistence.Table;
+
+// Materialized sum and count of the expenses of one category in one month,
+// maintained by the expense repository in the same transaction as each write
+@Entity
+@Table(name = "expense_totals")
+public class ExpenseTotal {
+
+	@EmbeddedId
+	private ExpenseTotalId id;
+
+	// In cents
+	@Column(name = "total", nullable = false)
+	private long total;
+
+	@Column(name = "expense_count", nullable = false)
+	private long count;
+
+	// Constructor
+	public ExpenseTotal(String categoryId, YearMonth month, Money total, long count) {
+		this.id = new ExpenseTotalId(categoryId, toPeriod(month));
+		this.total = total.getCents();
+		this.count = count;
+	}
+
+	public ExpenseTotal() {
+	}
+
+	// Encodes a month as the yyyyMM integer stored in the period column
+	public static int toPeriod(YearMonth month) {
+		return month.getYear() * 100 + month.getMonthValue();
+	}
+
+	public static int toPeriod(LocalDate date) {
+		return date.getYear() * 100 + date.getMonthValue();
+	}
+
+	public String getCategoryId() {
+		return id.getCategoryId();
+	}
+
+	public YearMonth getMonth() {
+		return YearMonth.of(id.getPeriod() / 100, id.getPeriod() % 100);
+	}
+
+	public Money getTotal() {
+		return Money.ofCents(total);
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	@Override
+	public String toString() {
+		return "ExpenseTotal [id=" + id + ", total=" + Money.format(total) + ", count=" + count + "]";
+	}
+}
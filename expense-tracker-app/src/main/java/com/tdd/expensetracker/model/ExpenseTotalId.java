@@ -0,0 +1,58 @@
+package com.tdd.expensetracker.model;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+
+// Key of an ExpenseTotal: a category and a month encoded as yyyyMM
+@Embeddable
+public class ExpenseTotalId implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	@Column(name = "category_id", nullable = false)
+	private String categoryId;
+
+	@Column(name = "period", nullable = false)
+	private int period;
+
+	public ExpenseTotalId(String categoryId, int period) {
+		this.categoryId = categoryId;
+		this.period = period;
+	}
+
+	public ExpenseTotalId() {
+	}
+
+	public String getCategoryId() {
+		return categoryId;
+	}
+
+	public int getPeriod() {
+		return period;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(categoryId, period);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		ExpenseTotalId other = (ExpenseTotalId) obj;
+		return Objects.equals(categoryId, other.categoryId) && period == other.period;
+	}
+
+	@Override
+	public String toString() {
+		return "ExpenseTotalId [categoryId=" + categoryId + ", period=" + period + "]";
+	}
+}
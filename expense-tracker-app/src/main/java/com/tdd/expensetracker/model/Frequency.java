@@ -0,0 +1,28 @@
+package com.tdd.expensetracker.model;
+
+import java.time.LocalDate;
+
+// How often a recurring expense falls due
+public enum Frequency {
+
+	DAILY, WEEKLY, MONTHLY, YEARLY;
+
+	// Date of the occurrence with the given index, the first occurrence being the
+	// start date. Every occurrence is counted from the start date, so a schedule
+	// starting on the 31st falls on the last day of shorter months and comes back
+	// to the 31st afterwards instead of drifting.
+	public LocalDate occurrence(LocalDate start, int index) {
+		switch (this) {
+		case DAILY:
+			return start.plusDays(index);
+		case WEEKLY:
+			return start.plusWeeks(index);
+		case MONTHLY:
+			return start.plusMonths(index);
+		case YEARLY:
+			return start.plusYears(index);
+		default:
+			throw new IllegalStateException("Unknown frequency " + this);
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package com.tdd.expensetracker.model;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Amount of money held as a whole number of cents, so sums are exact. Amounts
+// given as doubles or text are rounded half up to the nearest cent. Sums of
+// many amounts are best kept as a primitive long of cents, which the static
+// helpers convert and format without allocating a Money per step.
+public final class Money implements Comparable<Money>, Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final Money ZERO = new Money(0);
+
+	private static final int SCALE = 2;
+	private static final int CENTS_PER_UNIT = 100;
+
+	private final long cents;
+
+	private Money(long cents) {
+		this.cents = cents;
+	}
+
+	public static Money ofCents(long cents) {
+		return cents == 0 ? ZERO : new Money(cents);
+	}
+
+	public static Money of(double amount) {
+		return ofCents(toCents(amount));
+	}
+
+	// Parses a decimal amount such as "12.5"; throws NumberFormatException when
+	// the text is not a number or does not fit
+	public static Money parse(String amount) {
+		return ofCents(toCents(new BigDecimal(amount.trim())));
+	}
+
+	// Rounds an amount to whole cents, going through its shortest decimal form
+	// so that 1.005 gives 101 cents and not 100. Throws NumberFormatException
+	// for infinite, NaN or out of range amounts.
+	public static long toCents(double amount) {
+		return toCents(BigDecimal.valueOf(amount));
+	}
+
+	private static long toCents(BigDecimal amount) {
+		try {
+			return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+		} catch (ArithmeticException e) {
+			throw new NumberFormatException("Amount out of range: " + amount);
+		}
+	}
+
+	public static double toDouble(long cents) {
+		return (double) cents / CENTS_PER_UNIT;
+	}
+
+	// Formats cents with exactly two decimals, e.g. -1205 as "-12.05"
+	public static String format(long cents) {
+		long units = Math.abs(cents / CENTS_PER_UNIT);
+		long fraction = Math.abs(cents % CENTS_PER_UNIT);
+		return (cents < 0 ? "-" : "") + units + (fraction < 10 ? ".0" : ".") + fraction;
+	}
+
+	public long getCents() {
+		return cents;
+	}
+
+	public double toDouble() {
+		return toDouble(cents);
+	}
+
+	public Money plus(Money other) {
+		return ofCents(Math.addExact(cents, other.cents));
+	}
+
+	public Money minus(Money other) {
+		return ofCents(Math.subtractExact(cents, other.cents));
+	}
+
+	public boolean isPositive() {
+		return cents > 0;
+	}
+
+	@Override
+	public int compareTo(Money other) {
+		return Long.compare(cents, other.cents);
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(cents);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof Money))
+			return false;
+		return cents == ((Money) obj).cents;
+	}
+
+	@Override
+	public String toString() {
+		return format(cents);
+	}
+}
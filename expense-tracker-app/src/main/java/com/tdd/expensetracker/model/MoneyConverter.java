@@ -0,0 +1,19 @@
+package com.tdd.expensetracker.model;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+// Stores a Money attribute as its number of cents in a BIGINT column
+@Converter
+public class MoneyConverter implements AttributeConverter<Money, Long> {
+
+	@Override
+	public Long convertToDatabaseColumn(Money money) {
+		return money == null ? null : money.getCents();
+	}
+
+	@Override
+	public Money convertToEntityAttribute(Long cents) {
+		return cents == null ? null : Money.ofCents(cents);
+	}
+}
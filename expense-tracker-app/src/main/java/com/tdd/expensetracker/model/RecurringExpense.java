@@ -0,0 +1,152 @@
+package com.tdd.expensetracker.model;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.GenericGenerator;
+
+// Definition of an expense that repeats on a schedule, such as rent or a
+// subscription. The generated count and next date are the scheduler's
+// watermark: occurrences before the next date have already been written as
+// expenses. The next date is null once the end date has been passed.
+@Entity
+@Table(name = "recurring_expenses")
+public class RecurringExpense {
+
+	@Id
+	@GeneratedValue(generator = "uuid")
+	@GenericGenerator(name = "uuid", strategy = "uuid2")
+	@Column(name = "id", unique = true, nullable = false)
+	private String id;
+
+	@Column(name = "amount", nullable = false)
+	private double amount;
+
+	@Column(name = "description")
+	private String description;
+
+	@ManyToOne(fetch = FetchType.EAGER)
+	@JoinColumn(name = "category_id", nullable = false)
+	private Category category;
+
+	@Enumerated(EnumType.STRING)
+	@Column(name = "frequency", nullable = false, length = 16)
+	private Frequency frequency;
+
+	@Column(name = "start_date", nullable = false)
+	private LocalDate startDate;
+
+	@Column(name = "end_date")
+	private LocalDate endDate;
+
+	@Column(name = "generated_count", nullable = false)
+	private int generatedCount;
+
+	@Column(name = "next_date")
+	private LocalDate nextDate;
+
+	// Constructor
+	public RecurringExpense(String id, Double amount, String description, Category category, Frequency frequency,
+			LocalDate startDate, LocalDate endDate, int generatedCount, LocalDate nextDate) {
+		this.id = id;
+		this.amount = amount;
+		this.description = description;
+		this.category = category;
+		this.frequency = frequency;
+		this.startDate = startDate;
+		this.endDate = endDate;
+		this.generatedCount = generatedCount;
+		this.nextDate = nextDate;
+	}
+
+	// Constructor for a new definition, first due on its start date
+	public RecurringExpense(Double amount, String description, Category category, Frequency frequency,
+			LocalDate startDate, LocalDate endDate) {
+		this("", amount, description, category, frequency, startDate, endDate, 0, startDate);
+	}
+
+	public RecurringExpense() {
+	}
+
+	// Moves the watermark past the occurrences generated so far
+	public void advance(int generatedCount, LocalDate nextDate) {
+		this.generatedCount = generatedCount;
+		this.nextDate = nextDate;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public double getAmount() {
+		return amount;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public Category getCategory() {
+		return category;
+	}
+
+	public Frequency getFrequency() {
+		return frequency;
+	}
+
+	public LocalDate getStartDate() {
+		return startDate;
+	}
+
+	public LocalDate getEndDate() {
+		return endDate;
+	}
+
+	public int getGeneratedCount() {
+		return generatedCount;
+	}
+
+	public LocalDate getNextDate() {
+		return nextDate;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(amount, category, description, endDate, frequency, generatedCount, id, nextDate,
+				startDate);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		RecurringExpense other = (RecurringExpense) obj;
+		return Double.doubleToLongBits(amount) == Double.doubleToLongBits(other.amount)
+				&& Objects.equals(category, other.category) && Objects.equals(description, other.description)
+				&& Objects.equals(endDate, other.endDate) && frequency == other.frequency
+				&& generatedCount == other.generatedCount && Objects.equals(id, other.id)
+				&& Objects.equals(nextDate, other.nextDate) && Objects.equals(startDate, other.startDate);
+	}
+
+	@Override
+	public String toString() {
+		return "RecurringExpense [id=" + id + ", amount=" + amount + ", description=" + description + ", category="
+				+ category + ", frequency=" + frequency + ", startDate=" + startDate + ", endDate=" + endDate
+				+ ", generatedCount=" + generatedCount + ", nextDate=" + nextDate + "]";
+	}
+}
@@ -0,0 +1,61 @@
+package com.tdd.expensetracker.model;
+
+import java.util.Objects;
+
+// Number of expenses of a category with the mean and variance of their amounts
+public class SpendingMoments {
+
+	private final String categoryId;
+	private final long count;
+	private final double mean;
+	private final double variance;
+
+	// Constructor
+	public SpendingMoments(String categoryId, long count, double mean, double variance) {
+		this.categoryId = categoryId;
+		this.count = count;
+		this.mean = mean;
+		this.variance = variance;
+	}
+
+	public String getCategoryId() {
+		return categoryId;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getMean() {
+		return mean;
+	}
+
+	public double getVariance() {
+		return variance;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(categoryId, count, mean, variance);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		SpendingMoments other = (SpendingMoments) obj;
+		return Objects.equals(categoryId, other.categoryId) && count == other.count
+				&& Double.doubleToLongBits(mean) == Double.doubleToLongBits(other.mean)
+				&& Double.doubleToLongBits(variance) == Double.doubleToLongBits(other.variance);
+	}
+
+	@Override
+	public String toString() {
+		return "SpendingMoments [categoryId=" + categoryId + ", count=" + count + ", mean=" + mean + ", variance="
+				+ variance + "]";
+	}
+}
@@ -0,0 +1,95 @@
+package com.tdd.expensetracker.recurring;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.tdd.expensetracker.controller.ExpenseListener;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.model.RecurringExpense;
+import com.tdd.expensetracker.repository.RecurringExpenseRepository;
+
+// Generates the expenses of recurring definitions. Each run writes every
+// occurrence due since the previous run, so days or months of downtime are
+// caught up in one go. Occurrences are written in batches, each batch in one
+// transaction together with the watermarks of its definitions, instead of one
+// controller round trip per occurrence.
+public class RecurringExpenseScheduler {
+
+	private static final Logger LOGGER = LogManager.getLogger(RecurringExpenseScheduler.class);
+
+	static final int DEFAULT_BATCH_SIZE = 1000;
+
+	private final RecurringExpenseRepository repository;
+	private final int batchSize;
+	private final List<ExpenseListener> listeners = new CopyOnWriteArrayList<>();
+
+	// Constructor to initialize the scheduler with the default batch size
+	public RecurringExpenseScheduler(RecurringExpenseRepository repository) {
+		this(repository, DEFAULT_BATCH_SIZE);
+	}
+
+	// Constructor to initialize the scheduler with the number of occurrences after
+	// which a batch is written; a definition's occurrences always share a batch
+	public RecurringExpenseScheduler(RecurringExpenseRepository repository, int batchSize) {
+		this.repository = repository;
+		this.batchSize = Math.max(1, batchSize);
+	}
+
+	// Registers a listener notified of every batch of generated expenses once it
+	// has been saved
+	public void addExpenseListener(ExpenseListener listener) {
+		listeners.add(listener);
+	}
+
+	// Writes all occurrences due on or before the given date and returns how many
+	// expenses were generated
+	public int run(LocalDate asOf) {
+		List<Expense> expenses = new ArrayList<>();
+		List<RecurringExpense> advanced = new ArrayList<>();
+		int generated = 0;
+		for (RecurringExpense definition : repository.findDue(asOf)) {
+			generateOccurrences(definition, asOf, expenses);
+			advanced.add(definition);
+			if (expenses.size() >= batchSize) {
+				generated += saveBatch(expenses, advanced);
+				expenses = new ArrayList<>();
+				advanced = new ArrayList<>();
+			}
+		}
+		if (!advanced.isEmpty()) {
+			generated += saveBatch(expenses, advanced);
+		}
+		LOGGER.info("Generated {} recurring expenses due by {}", generated, asOf);
+		return generated;
+	}
+
+	// Adds the definition's occurrences due by the given date and advances its
+	// watermark past them
+	private static void generateOccurrences(RecurringExpense definition, LocalDate asOf, List<Expense> expenses) {
+		int index = definition.getGeneratedCount();
+		LocalDate date = definition.getNextDate();
+		while (date != null && !date.isAfter(asOf)) {
+			expenses.add(new Expense(definition.getAmount(), definition.getDescription(), date,
+					definition.getCategory()));
+			index++;
+			date = definition.getFrequency().occurrence(definition.getStartDate(), index);
+			if (definition.getEndDate() != null && date.isAfter(definition.getEndDate())) {
+				date = null;
+			}
+		}
+		definition.advance(index, date);
+	}
+
+	private int saveBatch(List<Expense> expenses, List<RecurringExpense> advanced) {
+		repository.saveOccurrences(expenses, advanced);
+		if (!expenses.isEmpty()) {
+			listeners.forEach(listener -> listener.expensesAdded(expenses));
+		}
+		return expenses.size();
+	}
+}
@@ -0,0 +1,50 @@
+package com.tdd.expensetracker.report;
+
+// Filtered aggregations over the amount, date and category columns of
+// ExpenseColumns. The loops are branch free: each row turns into an all-ones or
+// all-zeros mask that selects its amount or the neutral value of the sum, the
+// minimum and the maximum, so there is no branch to mispredict on rows that
+// change between passing and failing the filter and the JIT is free to unroll
+// and vectorize them.
+final class AmountKernels {
+
+	// Category filter that accepts every row
+	static final int ANY_CATEGORY = Integer.MIN_VALUE;
+
+	private AmountKernels() {
+	}
+
+	// Count, total, minimum and maximum in cents of the rows from included to
+	// excluded whose category ordinal matches and whose epoch day lies between
+	// fromDay and toDay included. Rows without a date hold NO_DATE, so they only
+	// pass when fromDay is NO_DATE.
+	static SpendingStats aggregate(long[] cents, int[] epochDays, int[] categoryOrdinals, int from, int to,
+			int category, int fromDay, int toDay) {
+		// All ones when rows must match the category, so that mismatches count
+		long categoryFilter = category == ANY_CATEGORY ? 0 : -1;
+		long count = 0;
+		long total = 0;
+		long min = Long.MAX_VALUE;
+		long max = Long.MIN_VALUE;
+		for (int row = from; row < to; row++) {
+			long amount = cents[row];
+			long day = epochDays[row];
+			// Sign bit set when the day is outside the range; long arithmetic cannot
+			// overflow for int days
+			long outside = ((day - fromDay) | (toDay - day)) >> 63;
+			int otherCategory = categoryOrdinals[row] ^ category;
+			// Sign bit set when the ordinals differ
+			long mismatch = (long) (otherCategory | -otherCategory) >> 63 & categoryFilter;
+			long keep = ~(outside | mismatch);
+			count += keep & 1;
+			total += amount & keep;
+			min = Math.min(min, amount & keep | Long.MAX_VALUE & ~keep);
+			max = Math.max(max, amount & keep | Long.MIN_VALUE & ~keep);
+		}
+		SpendingStats stats = new SpendingStats();
+		if (count > 0) {
+			stats.add(count, total, min, max);
+		}
+		return stats;
+	}
+}
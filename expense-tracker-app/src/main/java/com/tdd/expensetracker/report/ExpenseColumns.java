@@ -0,0 +1,264 @@
+package com.tdd.expensetracker.report;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.tdd.expensetracker.controller.ExpenseListener;
+import com.tdd.expensetracker.model.Expense;
+
+// Columnar in-memory copy of the expense table for analytics. Each expense is a
+// row across primitive arrays: the amount in cents, the date as an epoch day,
+// the category as an ordinal into a dictionary of categories and the
+// description as a code into a dictionary of distinct descriptions. Scanning a
+// column reads one contiguous array instead of chasing an Expense, a LocalDate,
+// a Category and a String per row.
+//
+// Filled by a streaming scan and kept current through the controller's listener
+// hook like the search index. A deleted row is replaced by the last row, so the
+// columns stay dense. Scans share a read lock, changes take the write lock.
+public class ExpenseColumns implements ExpenseListener {
+
+	private static final Logger LOGGER = LogManager.getLogger(ExpenseColumns.class);
+
+	// Epoch day of an expense without a date
+	static final int NO_DATE = Integer.MIN_VALUE;
+	// Ordinal or code of a missing category or description
+	static final int NONE = -1;
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private Table table = new Table();
+	// Changes seen while a rebuild scans the database, replayed on the new table
+	private List<Consumer<Table>> changesDuringRebuild;
+
+	// Replaces the columns with the expenses supplied by a streaming scan such as
+	// ExpenseRepository.streamAll. Scans keep using the previous columns until the
+	// scan is over; changes made meanwhile are applied to both.
+	public void rebuild(Consumer<Consumer<Expense>> source) {
+		long start = System.nanoTime();
+		lock.writeLock().lock();
+		try {
+			changesDuringRebuild = new ArrayList<>();
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		Table rebuilt = new Table();
+		try {
+			source.accept(rebuilt::put);
+		} finally {
+			lock.writeLock().lock();
+			try {
+				// Replaying is safe even when the scan already saw the change, as puts
+				// replace the row with the same id
+				changesDuringRebuild.forEach(change -> change.accept(rebuilt));
+				changesDuringRebuild = null;
+				table = rebuilt;
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+		LOGGER.info("Loaded {} expenses into columns in {} ms", rebuilt.size,
+				(System.nanoTime() - start) / 1_000_000);
+	}
+
+	// Number of expenses currently held
+	public int size() {
+		return read(current -> current.size);
+	}
+
+	// Statistics of the expenses of a category, or of all categories when the id
+	// is null, dated between two days included. A null day leaves that end open;
+	// expenses without a date are only counted when both ends are open.
+	public SpendingStats aggregate(String categoryId, LocalDate from, LocalDate to) {
+		int fromDay;
+		if (from != null) {
+			fromDay = (int) from.toEpochDay();
+		} else {
+			fromDay = to == null ? NO_DATE : NO_DATE + 1;
+		}
+		int toDay = to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+		return read(current -> {
+			int category = AmountKernels.ANY_CATEGORY;
+			if (categoryId != null) {
+				Integer ordinal = current.categoryOrdinalsById.get(categoryId);
+				if (ordinal == null) {
+					return new SpendingStats();
+				}
+				category = ordinal;
+			}
+			return AmountKernels.aggregate(current.cents, current.epochDays, current.categoryOrdinals, 0,
+					current.size, category, fromDay, toDay);
+		});
+	}
+
+	// Runs a scan of the columns while holding the read lock
+	<T> T read(Function<Table, T> scan) {
+		lock.readLock().lock();
+		try {
+			return scan.apply(table);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void expenseAdded(Expense expense) {
+		change(target -> target.put(expense));
+	}
+
+	@Override
+	public void expensesAdded(List<Expense> expenses) {
+		change(target -> expenses.forEach(target::put));
+	}
+
+	@Override
+	public void expenseUpdated(Expense previousExpense, Expense updatedExpense) {
+		change(target -> target.put(updatedExpense));
+	}
+
+	@Override
+	public void expenseDeleted(Expense expense) {
+		change(target -> target.remove(expense.getId()));
+	}
+
+	private void change(Consumer<Table> change) {
+		lock.writeLock().lock();
+		try {
+			change.accept(table);
+			if (changesDuringRebuild != null) {
+				changesDuringRebuild.add(change);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// Converts an epoch day to year * 12 + month - 1 with integer arithmetic only,
+	// so scans can group by month without building a LocalDate per row
+	static int monthIndex(int epochDay) {
+		// Days since 0000-03-01, counted in 400-year eras of 146097 days
+		int days = epochDay + 719468;
+		int era = (days >= 0 ? days : days - 146096) / 146097;
+		int dayOfEra = days - era * 146097;
+		int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+		int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+		// Months counted from March
+		int shiftedMonth = (5 * dayOfYear + 2) / 153;
+		int month = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+		int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+		return year * 12 + month - 1;
+	}
+
+	// The columns and their dictionaries; not thread safe on its own. Rows past
+	// size are unused capacity.
+	static class Table {
+
+		long[] cents = new long[INITIAL_CAPACITY];
+		int[] epochDays = new int[INITIAL_CAPACITY];
+		int[] categoryOrdinals = new int[INITIAL_CAPACITY];
+		int[] descriptionCodes = new int[INITIAL_CAPACITY];
+		int size;
+
+		// Category names by ordinal, kept up to date with the latest write
+		final List<String> categoryNames = new ArrayList<>();
+		final List<String> descriptions = new ArrayList<>();
+		// Range of the month indexes seen, which only ever widens
+		int minMonth = Integer.MAX_VALUE;
+		int maxMonth = Integer.MIN_VALUE;
+
+		private String[] ids = new String[INITIAL_CAPACITY];
+		private final Map<String, Integer> rowsById = new HashMap<>();
+		private final Map<String, Integer> categoryOrdinalsById = new HashMap<>();
+		private final Map<String, Integer> descriptionCodesByText = new HashMap<>();
+
+		// Stores an expense, replacing the row of an expense with the same id
+		void put(Expense expense) {
+			Integer existing = rowsById.get(expense.getId());
+			int row;
+			if (existing != null) {
+				row = existing;
+			} else {
+				if (size == cents.length) {
+					grow();
+				}
+				row = size++;
+				ids[row] = expense.getId();
+				rowsById.put(expense.getId(), row);
+			}
+			cents[row] = expense.getAmountCents();
+			if (expense.getDate() == null) {
+				epochDays[row] = NO_DATE;
+			} else {
+				epochDays[row] = (int) expense.getDate().toEpochDay();
+				int month = monthIndex(epochDays[row]);
+				minMonth = Math.min(minMonth, month);
+				maxMonth = Math.max(maxMonth, month);
+			}
+			categoryOrdinals[row] = expense.getCategory() == null ? NONE
+					: categoryOrdinal(expense.getCategory().getId(), expense.getCategory().getName());
+			descriptionCodes[row] = expense.getDescription() == null ? NONE
+					: descriptionCodesByText.computeIfAbsent(expense.getDescription(), text -> {
+						descriptions.add(text);
+						return descriptions.size() - 1;
+					});
+		}
+
+		// Removes the row of an expense by moving the last row into its place
+		void remove(String id) {
+			Integer row = rowsById.remove(id);
+			if (row == null) {
+				return;
+			}
+			int last = --size;
+			if (row != last) {
+				cents[row] = cents[last];
+				epochDays[row] = epochDays[last];
+				categoryOrdinals[row] = categoryOrdinals[last];
+				descriptionCodes[row] = descriptionCodes[last];
+				ids[row] = ids[last];
+				rowsById.put(ids[row], row);
+			}
+			ids[last] = null;
+		}
+
+		String description(int row) {
+			return descriptionCodes[row] == NONE ? null : descriptions.get(descriptionCodes[row]);
+		}
+
+		// A category first seen without its name is named by its id until a write
+		// carries the name
+		private int categoryOrdinal(String categoryId, String name) {
+			Integer ordinal = categoryOrdinalsById.get(categoryId);
+			if (ordinal == null) {
+				ordinal = categoryNames.size();
+				categoryOrdinalsById.put(categoryId, ordinal);
+				categoryNames.add(name != null ? name : categoryId);
+			} else if (name != null) {
+				// A renamed category shows under its new name from its next write on
+				categoryNames.set(ordinal, name);
+			}
+			return ordinal;
+		}
+
+		private void grow() {
+			int capacity = cents.length * 2;
+			cents = Arrays.copyOf(cents, capacity);
+			epochDays = Arrays.copyOf(epochDays, capacity);
+			categoryOrdinals = Arrays.copyOf(categoryOrdinals, capacity);
+			descriptionCodes = Arrays.copyOf(descriptionCodes, capacity);
+			ids = Arrays.copyOf(ids, capacity);
+		}
+	}
+}
@@ -0,0 +1,226 @@
+package com.tdd.expensetracker.report;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+
+// Mergeable t-digest sketch of a distribution of amounts. Amounts are grouped
+// into at most about COMPRESSION weighted centroids, small at both ends of the
+// distribution and larger in the middle, so quantiles are accurate to a
+// fraction of a percent while the sketch stays a few kilobytes whatever the
+// number of amounts. Sketches of disjoint sets of amounts merge into the sketch
+// of their union, e.g. months into a quarter.
+public class QuantileSketch {
+
+	static final int DEFAULT_COMPRESSION = 100;
+	private static final byte FORMAT_VERSION = 1;
+
+	private final int compression;
+	// Centroids sorted by mean
+	private double[] means = new double[0];
+	private long[] weights = new long[0];
+	// Amounts added since the centroids were last rebuilt
+	private final double[] buffer;
+	private int buffered;
+	private long count;
+	private double min = Double.POSITIVE_INFINITY;
+	private double max = Double.NEGATIVE_INFINITY;
+
+	public QuantileSketch() {
+		this(DEFAULT_COMPRESSION);
+	}
+
+	public QuantileSketch(int compression) {
+		this.compression = compression;
+		this.buffer = new double[compression * 5];
+	}
+
+	public void add(double amount) {
+		if (buffered == buffer.length) {
+			compress(new double[0], new long[0]);
+		}
+		buffer[buffered++] = amount;
+		count++;
+		min = Math.min(min, amount);
+		max = Math.max(max, amount);
+	}
+
+	// Adds all the amounts summarized by another sketch, which is left unchanged
+	public void merge(QuantileSketch other) {
+		if (other.count == 0) {
+			return;
+		}
+		double[] otherMeans = Arrays.copyOf(other.means, other.means.length + other.buffered);
+		long[] otherWeights = Arrays.copyOf(other.weights, otherMeans.length);
+		for (int i = 0; i < other.buffered; i++) {
+			otherMeans[other.means.length + i] = other.buffer[i];
+			otherWeights[other.means.length + i] = 1;
+		}
+		compress(otherMeans, otherWeights);
+		count += other.count;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	// Estimated amount below which the fraction q of the amounts lie, 0 when the
+	// sketch is empty
+	public double quantile(double q) {
+		if (q < 0 || q > 1) {
+			throw new IllegalArgumentException("Quantile must be between 0 and 1 but was " + q);
+		}
+		if (count == 0) {
+			return 0;
+		}
+		if (buffered > 0) {
+			compress(new double[0], new long[0]);
+		}
+		// Each centroid's weight is spread evenly around its mean, and the halves
+		// at both ends stretch to the smallest and largest amounts
+		double index = q * count;
+		int last = means.length - 1;
+		double firstHalf = weights[0] / 2d;
+		if (index <= firstHalf) {
+			return min + (means[0] - min) * index / firstHalf;
+		}
+		double weightSoFar = firstHalf;
+		for (int i = 0; i < last; i++) {
+			double step = (weights[i] + weights[i + 1]) / 2d;
+			if (weightSoFar + step >= index) {
+				return means[i] + (means[i + 1] - means[i]) * (index - weightSoFar) / step;
+			}
+			weightSoFar += step;
+		}
+		return means[last] + (max - means[last]) * Math.min(1, (index - weightSoFar) / (weights[last] / 2d));
+	}
+
+	public double median() {
+		return quantile(0.5);
+	}
+
+	// Encodes the sketch as a version byte, the compression, the smallest and
+	// largest amounts and the centroids as mean and variable-length weight pairs
+	public byte[] toBytes() {
+		if (buffered > 0) {
+			compress(new double[0], new long[0]);
+		}
+		ByteBuffer bytes = ByteBuffer.allocate(1 + 5 + 16 + 5 + means.length * (8 + 10));
+		bytes.put(FORMAT_VERSION);
+		putVarLong(bytes, compression);
+		bytes.putDouble(min);
+		bytes.putDouble(max);
+		putVarLong(bytes, means.length);
+		for (int i = 0; i < means.length; i++) {
+			bytes.putDouble(means[i]);
+			putVarLong(bytes, weights[i]);
+		}
+		return Arrays.copyOf(bytes.array(), bytes.position());
+	}
+
+	public static QuantileSketch fromBytes(byte[] data) {
+		ByteBuffer bytes = ByteBuffer.wrap(data);
+		byte version = bytes.get();
+		if (version != FORMAT_VERSION) {
+			throw new IllegalArgumentException("Unsupported quantile sketch format " + version);
+		}
+		QuantileSketch sketch = new QuantileSketch((int) getVarLong(bytes));
+		sketch.min = bytes.getDouble();
+		sketch.max = bytes.getDouble();
+		int centroids = (int) getVarLong(bytes);
+		sketch.means = new double[centroids];
+		sketch.weights = new long[centroids];
+		for (int i = 0; i < centroids; i++) {
+			sketch.means[i] = bytes.getDouble();
+			sketch.weights[i] = getVarLong(bytes);
+			sketch.count += sketch.weights[i];
+		}
+		return sketch;
+	}
+
+	// Rebuilds the centroids from the current ones, the buffered amounts and the
+	// given extra centroids. Sorted by mean, neighbours are merged as long as the
+	// merged centroid stays within one unit of the arcsine scale function, which
+	// keeps the centroids near both tails small.
+	private void compress(double[] extraMeans, long[] extraWeights) {
+		int size = means.length + buffered + extraMeans.length;
+		double[] allMeans = new double[size];
+		long[] allWeights = new long[size];
+		System.arraycopy(means, 0, allMeans, 0, means.length);
+		System.arraycopy(weights, 0, allWeights, 0, means.length);
+		for (int i = 0; i < buffered; i++) {
+			allMeans[means.length + i] = buffer[i];
+			allWeights[means.length + i] = 1;
+		}
+		System.arraycopy(extraMeans, 0, allMeans, means.length + buffered, extraMeans.length);
+		System.arraycopy(extraWeights, 0, allWeights, means.length + buffered, extraMeans.length);
+		buffered = 0;
+		if (size == 0) {
+			return;
+		}
+
+		Integer[] order = new Integer[size];
+		double total = 0;
+		for (int i = 0; i < size; i++) {
+			order[i] = i;
+			total += allWeights[i];
+		}
+		Arrays.sort(order, Comparator.comparingDouble(i -> allMeans[i]));
+
+		double[] mergedMeans = new double[size];
+		long[] mergedWeights = new long[size];
+		int merged = 0;
+		double mean = allMeans[order[0]];
+		long weight = allWeights[order[0]];
+		double weightSoFar = 0;
+		double limit = weightLimit(0, total);
+		for (int i = 1; i < size; i++) {
+			double nextMean = allMeans[order[i]];
+			long nextWeight = allWeights[order[i]];
+			if (weightSoFar + weight + nextWeight <= limit) {
+				weight += nextWeight;
+				mean += (nextMean - mean) * nextWeight / weight;
+			} else {
+				mergedMeans[merged] = mean;
+				mergedWeights[merged++] = weight;
+				weightSoFar += weight;
+				limit = weightLimit(weightSoFar, total);
+				mean = nextMean;
+				weight = nextWeight;
+			}
+		}
+		mergedMeans[merged] = mean;
+		mergedWeights[merged++] = weight;
+		means = Arrays.copyOf(mergedMeans, merged);
+		weights = Arrays.copyOf(mergedWeights, merged);
+	}
+
+	// Cumulative weight up to which the centroid starting after weightSoFar may
+	// grow
+	private double weightLimit(double weightSoFar, double total) {
+		double scale = compression / (2 * Math.PI);
+		double k = scale * Math.asin(2 * weightSoFar / total - 1) + 1;
+		return k >= compression / 4d ? total : total * (Math.sin(k / scale) + 1) / 2;
+	}
+
+	private static void putVarLong(ByteBuffer bytes, long value) {
+		while ((value & ~0x7FL) != 0) {
+			bytes.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		bytes.put((byte) value);
+	}
+
+	private static long getVarLong(ByteBuffer bytes) {
+		long value = 0;
+		for (int shift = 0;; shift += 7) {
+			byte b = bytes.get();
+			value |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+	}
+}
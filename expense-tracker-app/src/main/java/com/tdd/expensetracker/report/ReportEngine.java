@@ -0,0 +1,272 @@
+package com.tdd.expensetracker.report;
+
+import java.time.YearMonth;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.tdd.expensetracker.model.Expense;
+
+// Computes spending reports in parallel on a fork/join pool. Every task fills
+// its own partial report without any shared state and the partial reports are
+// merged when the tasks are joined.
+public class ReportEngine {
+
+	private static final Logger LOGGER = LogManager.getLogger(ReportEngine.class);
+
+	// Expenses summarized sequentially by one task; below this size splitting
+	// costs more than it saves
+	static final int SEQUENTIAL_THRESHOLD = 4096;
+
+	// Expenses collected from a stream before they are handed to the pool
+	static final int STREAM_CHUNK_SIZE = 16384;
+
+	// Rows summarized sequentially by one column task; a row costs a few array
+	// reads, so tasks can be much larger than for expense objects
+	static final int COLUMN_SEQUENTIAL_THRESHOLD = 65536;
+
+	private final ForkJoinPool pool;
+
+	// Constructor to initialize the engine on the common fork/join pool
+	public ReportEngine() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	public ReportEngine(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	// Summarizes an in-memory dataset such as a snapshot
+	public SpendingReport summarize(List<Expense> expenses) {
+		long start = System.nanoTime();
+		SpendingReport report = pool.invoke(new ReportTask(expenses, 0, expenses.size()));
+		LOGGER.info("Summarized {} expenses in {} ms", expenses.size(), (System.nanoTime() - start) / 1_000_000);
+		return report;
+	}
+
+	// Summarizes a streamed dataset, e.g. ExpenseRepository::streamAll. The
+	// stream is cut into chunks summarized in parallel while the next chunk is
+	// read; at most two chunks per worker are pending at any time so memory stays
+	// bounded for any dataset size.
+	public SpendingReport summarize(Consumer<Consumer<Expense>> source) {
+		long start = System.nanoTime();
+		ChunkSubmitter submitter = new ChunkSubmitter(pool.getParallelism() * 2);
+		source.accept(submitter);
+		SpendingReport report = submitter.finish();
+		LOGGER.info("Summarized {} streamed expenses in {} ms", submitter.count,
+				(System.nanoTime() - start) / 1_000_000);
+		return report;
+	}
+
+	// Summarizes the columnar copy of the expenses. The scan accumulates into
+	// primitive arrays indexed by category ordinal and month, and groups become
+	// SpendingStats only once, at the end.
+	public SpendingReport summarize(ExpenseColumns columns) {
+		long start = System.nanoTime();
+		SpendingReport report = columns.read(table -> {
+			ColumnTotals totals = pool.invoke(new ColumnTask(table, 0, table.size));
+			return totals.toReport(table);
+		});
+		LOGGER.info("Summarized {} expenses from columns in {} ms", report.getOverall().getCount(),
+				(System.nanoTime() - start) / 1_000_000);
+		return report;
+	}
+
+	// Collects streamed expenses into chunks and submits each full chunk to the
+	// pool, merging the oldest result whenever too many chunks are pending
+	private class ChunkSubmitter implements Consumer<Expense> {
+
+		private final int maxPending;
+		private final Deque<ForkJoinTask<SpendingReport>> pending = new ArrayDeque<>();
+		private final SpendingReport report = new SpendingReport();
+		private List<Expense> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+		private long count;
+
+		ChunkSubmitter(int maxPending) {
+			this.maxPending = maxPending;
+		}
+
+		@Override
+		public void accept(Expense expense) {
+			chunk.add(expense);
+			if (chunk.size() == STREAM_CHUNK_SIZE) {
+				submitChunk();
+				if (pending.size() > maxPending) {
+					report.merge(pending.poll().join());
+				}
+			}
+		}
+
+		SpendingReport finish() {
+			submitChunk();
+			while (!pending.isEmpty()) {
+				report.merge(pending.poll().join());
+			}
+			return report;
+		}
+
+		private void submitChunk() {
+			count += chunk.size();
+			pending.add(pool.submit(new ReportTask(chunk, 0, chunk.size())));
+			chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+		}
+	}
+
+	// Splits the range in halves until it is small enough to summarize directly
+	private static class ReportTask extends RecursiveTask<SpendingReport> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient List<Expense> expenses;
+		private final int from;
+		private final int to;
+
+		ReportTask(List<Expense> expenses, int from, int to) {
+			this.expenses = expenses;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected SpendingReport compute() {
+			if (to - from <= SEQUENTIAL_THRESHOLD) {
+				SpendingReport report = new SpendingReport();
+				for (int i = from; i < to; i++) {
+					report.add(expenses.get(i));
+				}
+				return report;
+			}
+			int middle = (from + to) >>> 1;
+			ReportTask left = new ReportTask(expenses, from, middle);
+			left.fork();
+			SpendingReport report = new ReportTask(expenses, middle, to).compute();
+			report.merge(left.join());
+			return report;
+		}
+	}
+
+	// Count, total, minimum and maximum in cents per group slot: slot 0 is the
+	// overall group, then one slot for expenses without a category and one per
+	// category ordinal, then one per month between the table's first and last
+	private static class ColumnTotals {
+
+		private final int firstCategorySlot = 1;
+		private final int firstMonthSlot;
+		private final int minMonth;
+		private final long[] counts;
+		private final long[] totals;
+		private final long[] mins;
+		private final long[] maxes;
+
+		ColumnTotals(ExpenseColumns.Table table) {
+			int months = table.maxMonth < table.minMonth ? 0 : table.maxMonth - table.minMonth + 1;
+			firstMonthSlot = firstCategorySlot + 1 + table.categoryNames.size();
+			minMonth = table.minMonth;
+			int slots = firstMonthSlot + months;
+			counts = new long[slots];
+			totals = new long[slots];
+			mins = new long[slots];
+			maxes = new long[slots];
+			Arrays.fill(mins, Long.MAX_VALUE);
+			Arrays.fill(maxes, Long.MIN_VALUE);
+		}
+
+		void add(ExpenseColumns.Table table, int from, int to) {
+			long[] cents = table.cents;
+			int[] epochDays = table.epochDays;
+			int[] categoryOrdinals = table.categoryOrdinals;
+			for (int row = from; row < to; row++) {
+				long amount = cents[row];
+				add(0, amount);
+				// NONE is -1, so expenses without a category land in the first slot
+				add(firstCategorySlot + 1 + categoryOrdinals[row], amount);
+				if (epochDays[row] != ExpenseColumns.NO_DATE) {
+					add(firstMonthSlot + ExpenseColumns.monthIndex(epochDays[row]) - minMonth, amount);
+				}
+			}
+		}
+
+		void merge(ColumnTotals other) {
+			for (int slot = 0; slot < counts.length; slot++) {
+				counts[slot] += other.counts[slot];
+				totals[slot] += other.totals[slot];
+				mins[slot] = Math.min(mins[slot], other.mins[slot]);
+				maxes[slot] = Math.max(maxes[slot], other.maxes[slot]);
+			}
+		}
+
+		SpendingReport toReport(ExpenseColumns.Table table) {
+			SpendingReport report = new SpendingReport();
+			if (counts[0] > 0) {
+				report.addOverall(counts[0], totals[0], mins[0], maxes[0]);
+			}
+			for (int slot = firstCategorySlot; slot < firstMonthSlot; slot++) {
+				if (counts[slot] > 0) {
+					int ordinal = slot - firstCategorySlot - 1;
+					// Categories sharing a name are reported together, as for expense objects
+					String name = ordinal == ExpenseColumns.NONE ? "" : table.categoryNames.get(ordinal);
+					report.addCategory(name, counts[slot], totals[slot], mins[slot], maxes[slot]);
+				}
+			}
+			for (int slot = firstMonthSlot; slot < counts.length; slot++) {
+				if (counts[slot] > 0) {
+					int month = minMonth + slot - firstMonthSlot;
+					report.addMonth(YearMonth.of(month / 12, month % 12 + 1), counts[slot], totals[slot], mins[slot],
+							maxes[slot]);
+				}
+			}
+			return report;
+		}
+
+		private void add(int slot, long amount) {
+			counts[slot]++;
+			totals[slot] += amount;
+			if (amount < mins[slot]) {
+				mins[slot] = amount;
+			}
+			if (amount > maxes[slot]) {
+				maxes[slot] = amount;
+			}
+		}
+	}
+
+	// Splits a range of rows in halves until it is small enough to scan directly
+	private static class ColumnTask extends RecursiveTask<ColumnTotals> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final transient ExpenseColumns.Table table;
+		private final int from;
+		private final int to;
+
+		ColumnTask(ExpenseColumns.Table table, int from, int to) {
+			this.table = table;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected ColumnTotals compute() {
+			if (to - from <= COLUMN_SEQUENTIAL_THRESHOLD) {
+				ColumnTotals totals = new ColumnTotals(table);
+				totals.add(table, from, to);
+				return totals;
+			}
+			int middle = (from + to) >>> 1;
+			ColumnTask left = new ColumnTask(table, from, middle);
+			left.fork();
+			ColumnTotals totals = new ColumnTask(table, middle, to).compute();
+			totals.merge(left.join());
+			return totals;
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package com.tdd.expensetracker.report;
+
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import com.tdd.expensetracker.model.Expense;
+
+// Spending statistics overall and grouped per year, per month and per category
+// name. A report is filled by a single thread; partial reports computed in
+// parallel are combined with merge.
+public class SpendingReport {
+
+	private final SpendingStats overall = new SpendingStats();
+	private final SortedMap<Integer, SpendingStats> byYear = new TreeMap<>();
+	private final SortedMap<YearMonth, SpendingStats> byMonth = new TreeMap<>();
+	private final SortedMap<String, SpendingStats> byCategory = new TreeMap<>();
+
+	// Cache of the last month seen: expenses usually arrive grouped by date, so
+	// this saves most of the YearMonth allocations and map lookups
+	private int lastYear;
+	private int lastMonthValue;
+	private SpendingStats lastMonth;
+	private SpendingStats lastYearStats;
+
+	void add(Expense expense) {
+		long cents = expense.getAmountCents();
+		overall.add(cents);
+		if (expense.getDate() != null) {
+			int year = expense.getDate().getYear();
+			int month = expense.getDate().getMonthValue();
+			if (lastMonth == null || year != lastYear || month != lastMonthValue) {
+				lastYear = year;
+				lastMonthValue = month;
+				lastYearStats = byYear.computeIfAbsent(year, key -> new SpendingStats());
+				lastMonth = byMonth.computeIfAbsent(YearMonth.of(year, month), key -> new SpendingStats());
+			}
+			lastYearStats.add(cents);
+			lastMonth.add(cents);
+		}
+		String category = expense.getCategory() == null ? "" : expense.getCategory().getName();
+		byCategory.computeIfAbsent(category, key -> new SpendingStats()).add(cents);
+	}
+
+	// Adds groups whose statistics were accumulated elsewhere, e.g. by a column
+	// scan; the statistics of a month also count towards its year
+	void addOverall(long count, long total, long min, long max) {
+		overall.add(count, total, min, max);
+	}
+
+	void addMonth(YearMonth month, long count, long total, long min, long max) {
+		byYear.computeIfAbsent(month.getYear(), key -> new SpendingStats()).add(count, total, min, max);
+		byMonth.computeIfAbsent(month, key -> new SpendingStats()).add(count, total, min, max);
+	}
+
+	void addCategory(String category, long count, long total, long min, long max) {
+		byCategory.computeIfAbsent(category, key -> new SpendingStats()).add(count, total, min, max);
+	}
+
+	void merge(SpendingReport other) {
+		overall.merge(other.overall);
+		mergeGroups(byYear, other.byYear);
+		mergeGroups(byMonth, other.byMonth);
+		mergeGroups(byCategory, other.byCategory);
+	}
+
+	public SpendingStats getOverall() {
+		return overall;
+	}
+
+	public SortedMap<Integer, SpendingStats> getByYear() {
+		return byYear;
+	}
+
+	public SortedMap<YearMonth, SpendingStats> getByMonth() {
+		return byMonth;
+	}
+
+	// Statistics per category name, expenses without a category under ""
+	public SortedMap<String, SpendingStats> getByCategory() {
+		return byCategory;
+	}
+
+	private static <K> void mergeGroups(Map<K, SpendingStats> target, Map<K, SpendingStats> source) {
+		source.forEach((key, stats) -> target.computeIfAbsent(key, k -> new SpendingStats()).merge(stats));
+	}
+}
@@ -0,0 +1,66 @@
+package com.tdd.expensetracker.report;
+
+import com.tdd.expensetracker.model.Money;
+
+// Count, total, average, minimum and maximum of a group of expense amounts,
+// kept in cents so that totals are exact. Instances are filled by a single
+// thread and merged afterwards.
+public class SpendingStats {
+
+	private long count;
+	private long total;
+	private long min = Long.MAX_VALUE;
+	private long max = Long.MIN_VALUE;
+
+	void add(long cents) {
+		count++;
+		total += cents;
+		min = Math.min(min, cents);
+		max = Math.max(max, cents);
+	}
+
+	// Adds a group whose statistics were accumulated elsewhere, e.g. in the
+	// primitive arrays of a column scan
+	void add(long count, long total, long min, long max) {
+		this.count += count;
+		this.total += total;
+		this.min = Math.min(this.min, min);
+		this.max = Math.max(this.max, max);
+	}
+
+	void merge(SpendingStats other) {
+		count += other.count;
+		total += other.total;
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public double getTotal() {
+		return Money.toDouble(total);
+	}
+
+	// Average amount, 0 when the group is empty
+	public double getAverage() {
+		return count == 0 ? 0 : Money.toDouble(total) / count;
+	}
+
+	// Smallest amount, 0 when the group is empty
+	public double getMin() {
+		return count == 0 ? 0 : Money.toDouble(min);
+	}
+
+	// Largest amount, 0 when the group is empty
+	public double getMax() {
+		return count == 0 ? 0 : Money.toDouble(max);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("count %d | total %.2f | average %.2f | min %.2f | max %.2f", count, getTotal(),
+				getAverage(), getMin(), getMax());
+	}
+}
@@ -0,0 +1,15 @@
+package com.tdd.expensetracker.repository;
+
+import java.util.List;
+
+import com.tdd.expensetracker.model.Budget;
+
+public interface BudgetRepository {
+
+	public List<Budget> findAll();
+
+	public void save(Budget budget);
+
+	public void delete(String categoryId);
+
+}
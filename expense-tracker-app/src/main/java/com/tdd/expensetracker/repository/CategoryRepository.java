@@ -1,5 +1,6 @@
 package com.tdd.expensetracker.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import com.tdd.expensetracker.model.Category;
@@ -8,10 +9,16 @@ public interface CategoryRepository {
 
 	public List<Category> findAll();
 
+	public List<Category> findAllWithoutExpenses();
+
 	public Category findById(String id);
 
+	public List<Category> findByIdsWithoutExpenses(Collection<String> ids);
+
 	public Category findByName(String name);
 
+	public List<String> findNames();
+
 	public void save(Category category);
 
 	public void delete(Category category);
@@ -1,8 +1,16 @@
 package com.tdd.expensetracker.repository;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import com.tdd.expensetracker.model.DescriptionUsage;
 import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.model.ExpenseTotal;
+import com.tdd.expensetracker.model.SpendingMoments;
+import com.tdd.expensetracker.report.QuantileSketch;
 
 public interface ExpenseRepository {
 
@@ -10,10 +18,36 @@ public interface ExpenseRepository {
 
 	public Expense findById(String id);
 
+	public List<Expense> findRecent(int limit);
+
+	public List<Expense> findPage(int page, int size);
+
+	public List<Expense> findByIds(List<String> ids);
+
+	public List<DescriptionUsage> findDescriptionUsage();
+
+	public List<SpendingMoments> findSpendingMoments();
+
 	public void save(Expense expense);
 
 	public void update(Expense updatedExpense);
 
 	void delete(Expense expense);
 
+	public void saveAll(List<Expense> expenses);
+
+	public void streamAll(Consumer<Expense> consumer);
+
+	public long countAll();
+
+	public void streamIds(Consumer<String> consumer);
+
+	public void streamAll(LocalDate from, LocalDate to, String categoryName, Consumer<Expense> consumer);
+
+	public List<ExpenseTotal> findTotals(YearMonth month);
+
+	public Map<String, QuantileSketch> findSketches(YearMonth from, YearMonth to);
+
+	public void rebuildTotals();
+
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.tdd.expensetracker.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.model.RecurringExpense;
+
+public interface RecurringExpenseRepository {
+
+	public List<RecurringExpense> findAll();
+
+	public List<RecurringExpense> findDue(LocalDate asOf);
+
+	public void save(RecurringExpense recurringExpense);
+
+	public void delete(String id);
+
+	public void saveOccurrences(List<Expense> expenses, List<RecurringExpense> advancedDefinitions);
+
+}
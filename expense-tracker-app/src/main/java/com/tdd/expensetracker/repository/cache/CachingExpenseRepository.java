@@ -0,0 +1,190 @@
+package com.tdd.expensetracker.repository.cache;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.DescriptionUsage;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.model.ExpenseTotal;
+import com.tdd.expensetracker.model.SpendingMoments;
+import com.tdd.expensetracker.report.QuantileSketch;
+import com.tdd.expensetracker.repository.CategoryRepository;
+import com.tdd.expensetracker.repository.ExpenseRepository;
+
+// Decorator serving findById from an off-heap cache filled on misses. Writes go
+// to the decorated repository and drop the cached copy, which is reloaded on
+// the next read, so the cache never holds a version that was not stored.
+// Everything else goes straight to the decorated repository.
+public class CachingExpenseRepository implements ExpenseRepository {
+
+	private final ExpenseRepository delegate;
+	private final OffHeapExpenseCache cache;
+
+	public CachingExpenseRepository(ExpenseRepository delegate, OffHeapExpenseCache cache) {
+		this.delegate = delegate;
+		this.cache = cache;
+	}
+
+	// Wraps the category repository so that renaming or deleting a category also
+	// drops the cached expenses, which embed a copy of their category
+	public CategoryRepository evictingOnCategoryWrites(CategoryRepository categoryRepository) {
+		return new CategoryRepository() {
+
+			@Override
+			public List<Category> findAll() {
+				return categoryRepository.findAll();
+			}
+
+			@Override
+			public List<Category> findAllWithoutExpenses() {
+				return categoryRepository.findAllWithoutExpenses();
+			}
+
+			@Override
+			public Category findById(String id) {
+				return categoryRepository.findById(id);
+			}
+
+			@Override
+			public List<Category> findByIdsWithoutExpenses(Collection<String> ids) {
+				return categoryRepository.findByIdsWithoutExpenses(ids);
+			}
+
+			@Override
+			public Category findByName(String name) {
+				return categoryRepository.findByName(name);
+			}
+
+			@Override
+			public List<String> findNames() {
+				return categoryRepository.findNames();
+			}
+
+			@Override
+			public void save(Category category) {
+				categoryRepository.save(category);
+			}
+
+			@Override
+			public void delete(Category category) {
+				categoryRepository.delete(category);
+				cache.clear();
+			}
+
+			@Override
+			public void update(Category updatedCategory) {
+				categoryRepository.update(updatedCategory);
+				cache.clear();
+			}
+		};
+	}
+
+	@Override
+	public Expense findById(String id) {
+		Expense expense = cache.get(id);
+		if (expense == null) {
+			// A write of this id between the read and the put may have made the loaded
+			// copy stale
+			long invalidations = cache.getInvalidationCount(id);
+			expense = delegate.findById(id);
+			if (expense != null) {
+				cache.put(expense, invalidations);
+			}
+		}
+		return expense;
+	}
+
+	@Override
+	public void save(Expense expense) {
+		delegate.save(expense);
+		cache.remove(expense.getId());
+	}
+
+	@Override
+	public void update(Expense updatedExpense) {
+		delegate.update(updatedExpense);
+		cache.remove(updatedExpense.getId());
+	}
+
+	@Override
+	public void delete(Expense expense) {
+		delegate.delete(expense);
+		cache.remove(expense.getId());
+	}
+
+	@Override
+	public void saveAll(List<Expense> expenses) {
+		delegate.saveAll(expenses);
+		expenses.forEach(expense -> cache.remove(expense.getId()));
+	}
+
+	@Override
+	public List<Expense> findAll() {
+		return delegate.findAll();
+	}
+
+	@Override
+	public List<Expense> findRecent(int limit) {
+		return delegate.findRecent(limit);
+	}
+
+	@Override
+	public List<Expense> findPage(int page, int size) {
+		return delegate.findPage(page, size);
+	}
+
+	@Override
+	public List<Expense> findByIds(List<String> ids) {
+		return delegate.findByIds(ids);
+	}
+
+	@Override
+	public List<DescriptionUsage> findDescriptionUsage() {
+		return delegate.findDescriptionUsage();
+	}
+
+	@Override
+	public List<SpendingMoments> findSpendingMoments() {
+		return delegate.findSpendingMoments();
+	}
+
+	@Override
+	public void streamAll(Consumer<Expense> consumer) {
+		delegate.streamAll(consumer);
+	}
+
+	@Override
+	public long countAll() {
+		return delegate.countAll();
+	}
+
+	@Override
+	public void streamIds(Consumer<String> consumer) {
+		delegate.streamIds(consumer);
+	}
+
+	@Override
+	public void streamAll(LocalDate from, LocalDate to, String categoryName, Consumer<Expense> consumer) {
+		delegate.streamAll(from, to, categoryName, consumer);
+	}
+
+	@Override
+	public List<ExpenseTotal> findTotals(YearMonth month) {
+		return delegate.findTotals(month);
+	}
+
+	@Override
+	public Map<String, QuantileSketch> findSketches(YearMonth from, YearMonth to) {
+		return delegate.findSketches(from, to);
+	}
+
+	@Override
+	public void rebuildTotals() {
+		delegate.rebuildTotals();
+	}
+}
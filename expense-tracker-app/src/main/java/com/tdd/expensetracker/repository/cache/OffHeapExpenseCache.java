@@ -0,0 +1,195 @@
+package com.tdd.expensetracker.repository.cache;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.tdd.expensetracker.codec.ExpenseCodec;
+import com.tdd.expensetracker.model.Expense;
+
+// Cache of expenses encoded with ExpenseCodec into direct ByteBuffer slabs
+// outside the Java heap, so that a large number of cached expenses costs the
+// garbage collector one index entry each instead of an Expense, a LocalDate, a
+// Category and their strings. Expenses are only decoded when they are read.
+//
+// Records are appended to the current slab. When every slab is full the oldest
+// one is evicted as a whole and reused, which makes eviction first in, first
+// out per slab and never fragments the memory. Replaced records stay in their
+// slab, unreachable, until it is reused.
+public class OffHeapExpenseCache {
+
+	static final int DEFAULT_SLAB_SIZE = 1 << 20;
+	// Invalidation counters, each shared by the ids hashing to it; a power of two
+	static final int INVALIDATION_STRIPES = 1024;
+	// Length prefix of a record
+	private static final int HEADER_SIZE = 4;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final ByteBuffer[] slabs;
+	private final int slabSize;
+	// End of the records written to each slab
+	private final int[] slabEnds;
+	private int currentSlab;
+	// Slab index in the high half and offset in the low half of each value
+	private final Map<String, Long> index = new HashMap<>();
+
+	// Incremented by every removal of an id of the stripe, under the write lock
+	private final AtomicLongArray invalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	// Constructor for a cache of about the given number of bytes in slabs of the
+	// default size
+	public OffHeapExpenseCache(long capacityBytes) {
+		this((int) Math.max(2, capacityBytes / DEFAULT_SLAB_SIZE), DEFAULT_SLAB_SIZE);
+	}
+
+	public OffHeapExpenseCache(int slabCount, int slabSize) {
+		if (slabCount < 2) {
+			throw new IllegalArgumentException("An off-heap cache needs at least 2 slabs");
+		}
+		this.slabs = new ByteBuffer[slabCount];
+		this.slabSize = slabSize;
+		this.slabEnds = new int[slabCount];
+	}
+
+	// Returns a fresh copy of the cached expense, or null when it is not cached
+	public Expense get(String id) {
+		lock.readLock().lock();
+		try {
+			Long location = index.get(id);
+			if (location == null) {
+				misses.increment();
+				return null;
+			}
+			hits.increment();
+			ByteBuffer record = slabs[(int) (location >>> 32)].duplicate();
+			record.position(location.intValue() + HEADER_SIZE);
+			return ExpenseCodec.readExpense(record);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Caches the expense, replacing any earlier version. Expenses too large for a
+	// slab are not cached.
+	public void put(Expense expense) {
+		put(expense, -1);
+	}
+
+	// Caches an expense loaded from the database unless it, or another expense of
+	// its stripe, was removed since getInvalidationCount returned the given count
+	// for its id, as the loaded version may then predate the removal
+	public void put(Expense expense, long invalidationCount) {
+		byte[] record = ExpenseCodec.encode(expense);
+		int length = HEADER_SIZE + record.length;
+		if (length > slabSize) {
+			remove(expense.getId());
+			return;
+		}
+		lock.writeLock().lock();
+		try {
+			if (invalidationCount >= 0 && invalidationCount != invalidations.get(stripe(expense.getId()))) {
+				return;
+			}
+			if (slabs[currentSlab] == null) {
+				slabs[currentSlab] = ByteBuffer.allocateDirect(slabSize);
+			}
+			if (slabEnds[currentSlab] + length > slabSize) {
+				currentSlab = (currentSlab + 1) % slabs.length;
+				evict(currentSlab);
+			}
+			ByteBuffer slab = slabs[currentSlab];
+			int offset = slabEnds[currentSlab];
+			slab.putInt(offset, record.length);
+			ByteBuffer target = slab.duplicate();
+			target.position(offset + HEADER_SIZE);
+			target.put(record);
+			slabEnds[currentSlab] = offset + length;
+			index.put(expense.getId(), (long) currentSlab << 32 | offset);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public void remove(String id) {
+		lock.writeLock().lock();
+		try {
+			index.remove(id);
+			invalidations.incrementAndGet(stripe(id));
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// Forgets every cached expense; the slabs are kept for reuse
+	public void clear() {
+		lock.writeLock().lock();
+		try {
+			index.clear();
+			for (int i = 0; i < INVALIDATION_STRIPES; i++) {
+				invalidations.incrementAndGet(i);
+			}
+			for (int i = 0; i < slabEnds.length; i++) {
+				slabEnds[i] = 0;
+			}
+			currentSlab = 0;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// Number of cached expenses
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return index.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Number of removals so far of the ids sharing the stripe of the given one
+	public long getInvalidationCount(String id) {
+		return invalidations.get(stripe(id));
+	}
+
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	private static int stripe(String id) {
+		int h = id.hashCode();
+		return (h ^ (h >>> 16)) & (INVALIDATION_STRIPES - 1);
+	}
+
+	// Empties a slab before it is reused, dropping the index entries of the
+	// records that are still current in it
+	private void evict(int slabNumber) {
+		ByteBuffer slab = slabs[slabNumber];
+		if (slab == null) {
+			slabs[slabNumber] = ByteBuffer.allocateDirect(slabSize);
+		} else {
+			ByteBuffer records = slab.duplicate();
+			int offset = 0;
+			while (offset < slabEnds[slabNumber]) {
+				records.position(offset + HEADER_SIZE);
+				String id = ExpenseCodec.peekId(records);
+				Long location = index.get(id);
+				if (location != null && location == ((long) slabNumber << 32 | offset)) {
+					index.remove(id);
+				}
+				offset += HEADER_SIZE + slab.getInt(offset);
+			}
+		}
+		slabEnds[slabNumber] = 0;
+	}
+}
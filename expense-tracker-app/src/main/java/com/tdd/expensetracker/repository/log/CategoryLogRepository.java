@@ -0,0 +1,103 @@
+package com.tdd.expensetracker.repository.log;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.repository.CategoryRepository;
+
+public class CategoryLogRepository implements CategoryRepository {
+
+	private final ExpenseLogStore store;
+
+	// Constructor to initialize the repository with the shared log store
+	public CategoryLogRepository(ExpenseLogStore store) {
+		this.store = store;
+	}
+
+	// Retrieves all categories, each with its expenses loaded on first access
+	@Override
+	public List<Category> findAll() {
+		List<Category> categories = store.findCategories();
+		categories.forEach(this::attachExpenses);
+		return categories;
+	}
+
+	// Retrieves all categories from the index, without their expenses
+	@Override
+	public List<Category> findAllWithoutExpenses() {
+		return store.findCategories();
+	}
+
+	// Finds a Category by its unique ID, with its expenses loaded on first access
+	@Override
+	public Category findById(String id) {
+		Category category = store.findCategory(id);
+		return category == null ? null : attachExpenses(category);
+	}
+
+	// Finds the given categories from the index, without their expenses
+	@Override
+	public List<Category> findByIdsWithoutExpenses(Collection<String> ids) {
+		List<Category> categories = new ArrayList<>(ids.size());
+		for (String id : ids) {
+			Category category = store.findCategory(id);
+			if (category != null) {
+				categories.add(category);
+			}
+		}
+		return categories;
+	}
+
+	// Finds a Category by its name, with its expenses loaded on first access
+	@Override
+	public Category findByName(String name) {
+		Category category = store.findCategoryByName(name);
+		return category == null ? null : attachExpenses(category);
+	}
+
+	// Reads only the names of all categories from the index
+	@Override
+	public List<String> findNames() {
+		List<String> names = new ArrayList<>();
+		for (Category category : store.findCategories()) {
+			if (category.getName() != null) {
+				names.add(category.getName());
+			}
+		}
+		return names;
+	}
+
+	// Saves a new Category with a single append
+	@Override
+	public void save(Category category) {
+		store.putCategory(category, "save category");
+	}
+
+	// Deletes a Category together with its expenses
+	@Override
+	public void delete(Category category) {
+		store.deleteCategory(category.getId());
+	}
+
+	// Updates an existing Category by appending its new version. Its expenses
+	// refer to it by id and need no rewrite.
+	@Override
+	public void update(Category updatedCategory) {
+		store.putCategory(updatedCategory, "update category");
+	}
+
+	private Category attachExpenses(Category category) {
+		category.setExpenses(new LazyExpenseList(store.countExpenses(category.getId()), () -> {
+			List<Expense> expenses = new ArrayList<>();
+			store.scanExpenses(entry -> category.getId().equals(entry.categoryId), expense -> {
+				expense.setCategory(category);
+				expenses.add(expense);
+			});
+			return expenses;
+		}));
+		return category;
+	}
+}
@@ -0,0 +1,201 @@
+package com.tdd.expensetracker.repository.log;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.DescriptionUsage;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.model.ExpenseTotal;
+import com.tdd.expensetracker.model.Money;
+import com.tdd.expensetracker.model.SpendingMoments;
+import com.tdd.expensetracker.report.QuantileSketch;
+import com.tdd.expensetracker.repository.ExpenseRepository;
+
+public class ExpenseLogRepository implements ExpenseRepository {
+
+	private final ExpenseLogStore store;
+
+	// Constructor to initialize the repository with the shared log store
+	public ExpenseLogRepository(ExpenseLogStore store) {
+		this.store = store;
+	}
+
+	// Retrieves all Expenses, read in the order of the log
+	@Override
+	public List<Expense> findAll() {
+		List<Expense> expenses = new ArrayList<>();
+		streamAll(expenses::add);
+		return expenses;
+	}
+
+	// Finds an Expense by its unique ID with a single read from the log
+	@Override
+	public Expense findById(String id) {
+		return store.findExpense(id);
+	}
+
+	// Retrieves the most recent Expenses, newest first
+	@Override
+	public List<Expense> findRecent(int limit) {
+		return store.findExpenses(store.findNewestIds(0, limit));
+	}
+
+	// Retrieves one page of Expenses, newest first, in the order kept by the index
+	@Override
+	public List<Expense> findPage(int page, int size) {
+		return store.findExpenses(store.findNewestIds(page * size, size));
+	}
+
+	// Retrieves the Expenses with the given ids in the order of the ids, skipping
+	// ids that no longer exist
+	@Override
+	public List<Expense> findByIds(List<String> ids) {
+		return store.findExpenses(ids);
+	}
+
+	// Counts the expenses of every distinct description in a single scan, for
+	// the description suggestions
+	@Override
+	public List<DescriptionUsage> findDescriptionUsage() {
+		Map<String, long[]> counts = new HashMap<>();
+		Map<String, LocalDate> lastUsed = new HashMap<>();
+		streamAll(expense -> {
+			if (expense.getDescription() != null) {
+				counts.computeIfAbsent(expense.getDescription(), description -> new long[1])[0]++;
+				if (expense.getDate() != null) {
+					lastUsed.merge(expense.getDescription(), expense.getDate(),
+							(first, second) -> first.isAfter(second) ? first : second);
+				}
+			}
+		});
+		List<DescriptionUsage> usages = new ArrayList<>(counts.size());
+		counts.forEach((description, count) -> usages
+				.add(new DescriptionUsage(description, count[0], lastUsed.get(description))));
+		return usages;
+	}
+
+	// Computes the count, mean and variance of the amounts of every category from
+	// the index, without reading the log
+	@Override
+	public List<SpendingMoments> findSpendingMoments() {
+		// Count, sum and sum of squares of the amounts
+		Map<String, double[]> sums = new HashMap<>();
+		store.forEachEntry(entry -> {
+			if (entry.categoryId != null) {
+				double amount = Money.toDouble(entry.cents);
+				double[] sum = sums.computeIfAbsent(entry.categoryId, id -> new double[3]);
+				sum[0]++;
+				sum[1] += amount;
+				sum[2] += amount * amount;
+			}
+		});
+		List<SpendingMoments> moments = new ArrayList<>(sums.size());
+		sums.forEach((categoryId, sum) -> {
+			double mean = sum[1] / sum[0];
+			// Clamped since rounding can make the difference slightly negative
+			double variance = Math.max(0, sum[2] / sum[0] - mean * mean);
+			moments.add(new SpendingMoments(categoryId, (long) sum[0], mean, variance));
+		});
+		return moments;
+	}
+
+	// Saves a new Expense with a single append
+	@Override
+	public void save(Expense expense) {
+		store.putExpenses(Collections.singletonList(expense), "save expense");
+	}
+
+	// Updates an existing Expense by appending its new version
+	@Override
+	public void update(Expense updatedExpense) {
+		store.putExpenses(Collections.singletonList(updatedExpense), "update expense");
+	}
+
+	// Deletes an existing Expense by appending a tombstone
+	@Override
+	public void delete(Expense expense) {
+		store.deleteExpense(expense.getId());
+	}
+
+	// Saves a batch of new Expenses with a single append and a single fsync
+	@Override
+	public void saveAll(List<Expense> expenses) {
+		store.putExpenses(expenses, "save expenses");
+	}
+
+	// Streams every Expense to the consumer, a chunk at a time
+	@Override
+	public void streamAll(Consumer<Expense> consumer) {
+		store.scanExpenses(entry -> true, consumer);
+	}
+
+	@Override
+	public long countAll() {
+		return store.countExpenses();
+	}
+
+	// Streams the ids of all Expenses from the index, for the existence filter
+	@Override
+	public void streamIds(Consumer<String> consumer) {
+		store.findExpenseIds().forEach(consumer);
+	}
+
+	// Streams the Expenses dated within the optional bounds (both inclusive) and
+	// belonging to the optional category name. The filter runs on the index, so
+	// only the matching expenses are read.
+	@Override
+	public void streamAll(LocalDate from, LocalDate to, String categoryName, Consumer<Expense> consumer) {
+		String categoryId = null;
+		if (categoryName != null) {
+			Category category = store.findCategoryByName(categoryName);
+			if (category == null) {
+				return;
+			}
+			categoryId = category.getId();
+		}
+		int fromDay = from == null ? Integer.MIN_VALUE : (int) from.toEpochDay();
+		int toDay = to == null ? Integer.MAX_VALUE : (int) to.toEpochDay();
+		boolean dated = from != null || to != null;
+		String matchingCategoryId = categoryId;
+		store.scanExpenses(entry -> (matchingCategoryId == null || matchingCategoryId.equals(entry.categoryId))
+				&& (!dated || (entry.epochDay != ExpenseLogStore.NO_DATE && entry.epochDay >= fromDay
+						&& entry.epochDay <= toDay)),
+				consumer);
+	}
+
+	// Reads the totals of every category for one month, kept up to date in
+	// memory by every write
+	@Override
+	public List<ExpenseTotal> findTotals(YearMonth month) {
+		return store.findTotals(month);
+	}
+
+	// Sketches the amounts of every category over a range of months, both
+	// inclusive, from the index. Nothing is stored since no read is needed.
+	@Override
+	public Map<String, QuantileSketch> findSketches(YearMonth from, YearMonth to) {
+		int fromDay = (int) from.atDay(1).toEpochDay();
+		int toDay = (int) to.atEndOfMonth().toEpochDay();
+		Map<String, QuantileSketch> sketches = new HashMap<>();
+		store.forEachEntry(entry -> {
+			if (entry.categoryId != null && entry.epochDay != ExpenseLogStore.NO_DATE && entry.epochDay >= fromDay
+					&& entry.epochDay <= toDay) {
+				sketches.computeIfAbsent(entry.categoryId, id -> new QuantileSketch()).add(Money.toDouble(entry.cents));
+			}
+		});
+		return sketches;
+	}
+
+	// Recomputes the totals from the index, repairing any drift
+	@Override
+	public void rebuildTotals() {
+		store.rebuildTotals();
+	}
+}
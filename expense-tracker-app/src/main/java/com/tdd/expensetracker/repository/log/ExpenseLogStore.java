@@ -0,0 +1,665 @@
+package com.tdd.expensetracker.repository.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.Collator;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.tdd.expensetracker.codec.ExpenseCodec;
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.model.ExpenseTotal;
+import com.tdd.expensetracker.model.Money;
+
+// Embedded storage of expenses and categories in one append-only record log,
+// for single-node installs without a database server.
+//
+// Every write appends the new version of a record, or a tombstone for a
+// delete, and waits for a group-committed fsync; nothing is updated in place.
+// An in-memory index maps each live expense and category to the offset of its
+// latest record, together with the amount, date and category of the expenses,
+// so lookups cost one positional read and totals, counts and paging need no
+// disk access at all. The index is rebuilt by scanning the log on open.
+//
+// Once superseded records and tombstones outweigh the live ones, a background
+// thread copies the live records to a new log and swaps it in, holding the
+// write lock only to copy the records appended meanwhile.
+public class ExpenseLogStore implements Closeable {
+
+	private static final Logger LOGGER = LogManager.getLogger(ExpenseLogStore.class);
+
+	static final byte EXPENSE_PUT = 1;
+	static final byte EXPENSE_DELETE = 2;
+	static final byte CATEGORY_PUT = 3;
+	static final byte CATEGORY_DELETE = 4;
+
+	// Smallest amount of superseded records worth a compaction
+	public static final long DEFAULT_MIN_COMPACTION_BYTES = 16L * 1024 * 1024;
+	// Records read per acquisition of the read lock while scanning
+	static final int SCAN_CHUNK = 1000;
+	static final int NO_DATE = Integer.MIN_VALUE;
+
+	// Newest first with undated expenses last, then by id, like findPage of the
+	// MySQL repository
+	private static final Comparator<ExpenseEntry> NEWEST_FIRST = Comparator
+			.comparingInt((ExpenseEntry entry) -> entry.epochDay).reversed().thenComparing(entry -> entry.id);
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Map<String, ExpenseEntry> expenses = new HashMap<>();
+	private final NavigableSet<ExpenseEntry> newestFirst = new TreeSet<>(NEWEST_FIRST);
+	private final Map<String, CategoryEntry> categories = new LinkedHashMap<>();
+	// Number of expenses of each category
+	private final Map<String, Integer> expenseCounts = new HashMap<>();
+	// Cents and number of the dated expenses of each category by period
+	private final Map<Integer, Map<String, long[]>> totals = new HashMap<>();
+	// Bytes of the log taken by the latest records of live expenses and categories
+	private long liveBytes;
+
+	private final RecordLog log;
+	private final long minCompactionBytes;
+	private final AtomicBoolean compacting = new AtomicBoolean();
+	private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "expense-log-compactor");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// Index entry of a live expense. The offset and size change when the log
+	// is compacted.
+	static final class ExpenseEntry {
+
+		final String id;
+		final String categoryId;
+		final int epochDay;
+		final long cents;
+		long offset;
+		int size;
+
+		ExpenseEntry(Expense expense, long offset, int size) {
+			this.id = expense.getId();
+			this.categoryId = expense.getCategory() == null ? null : expense.getCategory().getId();
+			this.epochDay = expense.getDate() == null ? NO_DATE : (int) expense.getDate().toEpochDay();
+			this.cents = expense.getAmountCents();
+			this.offset = offset;
+			this.size = size;
+		}
+	}
+
+	// Index entry of a live category, whose few fields are kept in memory
+	private static final class CategoryEntry {
+
+		final Category category;
+		long offset;
+		int size;
+
+		CategoryEntry(Category category, long offset, int size) {
+			this.category = category;
+			this.offset = offset;
+			this.size = size;
+		}
+	}
+
+	// Writes done while holding the write lock
+	private interface LogWrite {
+		void run() throws IOException;
+	}
+
+	private ExpenseLogStore(Path file, long minCompactionBytes) throws IOException {
+		this.minCompactionBytes = minCompactionBytes;
+		this.log = RecordLog.open(file, this::replay);
+	}
+
+	// Opens the log at the given path, creating it when it does not exist
+	public static ExpenseLogStore open(Path file) {
+		return open(file, DEFAULT_MIN_COMPACTION_BYTES);
+	}
+
+	public static ExpenseLogStore open(Path file, long minCompactionBytes) {
+		try {
+			ExpenseLogStore store = new ExpenseLogStore(file, minCompactionBytes);
+			LOGGER.info("Opened expense log {} with {} expenses and {} categories", file, store.expenses.size(),
+					store.categories.size());
+			return store;
+		} catch (IOException e) {
+			LOGGER.error("Failed to open expense log", e);
+			throw new UncheckedIOException("Could not open expense log.", e);
+		}
+	}
+
+	private void replay(byte type, long offset, int size, ByteBuffer payload) {
+		switch (type) {
+		case EXPENSE_PUT:
+			putEntry(new ExpenseEntry(ExpenseCodec.readExpense(payload), offset, size));
+			break;
+		case EXPENSE_DELETE:
+			removeEntry(readId(payload));
+			break;
+		case CATEGORY_PUT:
+			putCategoryEntry(new CategoryEntry(ExpenseCodec.readCategory(payload), offset, size));
+			break;
+		case CATEGORY_DELETE:
+			removeCategoryEntry(readId(payload));
+			break;
+		default:
+			throw new IllegalStateException("Unknown record type " + type + " at offset " + offset);
+		}
+	}
+
+	// Appends the expenses in one batch, replacing earlier versions with the
+	// same ids
+	void putExpenses(List<Expense> batch, String what) {
+		RecordLog.Batch records = new RecordLog.Batch();
+		int[] offsets = new int[batch.size()];
+		int[] sizes = new int[batch.size()];
+		for (int i = 0; i < batch.size(); i++) {
+			byte[] payload = ExpenseCodec.encode(withCategoryId(batch.get(i)));
+			offsets[i] = records.add(EXPENSE_PUT, payload);
+			sizes[i] = RecordLog.RECORD_HEADER_SIZE + payload.length;
+		}
+		write(what, () -> {
+			if (!records.isEmpty()) {
+				long start = log.append(records);
+				for (int i = 0; i < batch.size(); i++) {
+					putEntry(new ExpenseEntry(batch.get(i), start + offsets[i], sizes[i]));
+				}
+			}
+		});
+	}
+
+	void deleteExpense(String id) {
+		write("delete expense", () -> {
+			if (expenses.containsKey(id)) {
+				RecordLog.Batch records = new RecordLog.Batch();
+				records.add(EXPENSE_DELETE, id.getBytes(StandardCharsets.UTF_8));
+				log.append(records);
+				removeEntry(id);
+			}
+		});
+	}
+
+	void putCategory(Category category, String what) {
+		if (category.getId() == null) {
+			throw new IllegalArgumentException("Cannot store a category without id");
+		}
+		Category stored = new Category(category.getId(), category.getName(), category.getDescription());
+		byte[] payload = ExpenseCodec.encode(stored);
+		RecordLog.Batch records = new RecordLog.Batch();
+		records.add(CATEGORY_PUT, payload);
+		write(what, () -> {
+			long offset = log.append(records);
+			putCategoryEntry(new CategoryEntry(stored, offset, RecordLog.RECORD_HEADER_SIZE + payload.length));
+		});
+	}
+
+	// Deletes the category and its expenses, as the cascade of the MySQL schema
+	// does. The tombstones of the expenses come first, so a crash in the middle
+	// of the batch never leaves expenses without their category.
+	void deleteCategory(String id) {
+		write("delete category", () -> {
+			if (!categories.containsKey(id)) {
+				return;
+			}
+			List<String> expenseIds = new ArrayList<>();
+			for (ExpenseEntry entry : expenses.values()) {
+				if (id.equals(entry.categoryId)) {
+					expenseIds.add(entry.id);
+				}
+			}
+			RecordLog.Batch records = new RecordLog.Batch();
+			expenseIds.forEach(expenseId -> records.add(EXPENSE_DELETE, expenseId.getBytes(StandardCharsets.UTF_8)));
+			records.add(CATEGORY_DELETE, id.getBytes(StandardCharsets.UTF_8));
+			log.append(records);
+			expenseIds.forEach(this::removeEntry);
+			removeCategoryEntry(id);
+		});
+	}
+
+	// Appends and indexes under the write lock, then waits outside it until the
+	// records are on disk, so that writers arriving during an fsync share the
+	// next one
+	private void write(String what, LogWrite logWrite) {
+		long sequence;
+		boolean worthCompacting;
+		lock.writeLock().lock();
+		try {
+			logWrite.run();
+			sequence = log.lastSequence();
+			worthCompacting = isWorthCompacting();
+		} catch (IOException e) {
+			LOGGER.error("Failed to " + what, e);
+			throw new UncheckedIOException("Could not " + what + ".", e);
+		} finally {
+			lock.writeLock().unlock();
+		}
+		try {
+			log.sync(sequence);
+		} catch (IOException e) {
+			LOGGER.error("Failed to " + what, e);
+			throw new UncheckedIOException("Could not " + what + ".", e);
+		}
+		if (worthCompacting && compacting.compareAndSet(false, true)) {
+			compactor.execute(() -> {
+				try {
+					compactLog();
+				} catch (UncheckedIOException e) {
+					// Already logged, the current log stays in use
+				} finally {
+					compacting.set(false);
+				}
+			});
+		}
+	}
+
+	Expense findExpense(String id) {
+		lock.readLock().lock();
+		try {
+			ExpenseEntry entry = expenses.get(id);
+			return entry == null ? null : readExpense(entry, new HashMap<>());
+		} catch (IOException e) {
+			LOGGER.error("Failed to read expense", e);
+			throw new UncheckedIOException("Could not read expense.", e);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Reads the expenses with the given ids in the order of the ids, skipping ids
+	// that do not exist
+	List<Expense> findExpenses(List<String> ids) {
+		List<Expense> found = new ArrayList<>(ids.size());
+		readExpenses(ids, found::add);
+		return found;
+	}
+
+	// Streams the expenses whose index entries match, in the order of their
+	// records in the log so that the reads are sequential
+	void scanExpenses(Predicate<ExpenseEntry> filter, Consumer<Expense> consumer) {
+		List<ExpenseEntry> selected = new ArrayList<>();
+		lock.readLock().lock();
+		try {
+			for (ExpenseEntry entry : expenses.values()) {
+				if (filter.test(entry)) {
+					selected.add(entry);
+				}
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+		selected.sort(Comparator.comparingLong(entry -> entry.offset));
+		List<String> ids = new ArrayList<>(selected.size());
+		selected.forEach(entry -> ids.add(entry.id));
+		readExpenses(ids, consumer);
+	}
+
+	// Reads the expenses in chunks, holding the read lock for one chunk at a time
+	// and calling the consumer outside it, so a long scan does not hold up
+	// writers. Expenses deleted in between are skipped.
+	private void readExpenses(List<String> ids, Consumer<Expense> consumer) {
+		Map<String, Category> categoryCopies = new HashMap<>();
+		for (int from = 0; from < ids.size(); from += SCAN_CHUNK) {
+			List<Expense> chunk = new ArrayList<>(Math.min(SCAN_CHUNK, ids.size() - from));
+			lock.readLock().lock();
+			try {
+				for (String id : ids.subList(from, Math.min(ids.size(), from + SCAN_CHUNK))) {
+					ExpenseEntry entry = expenses.get(id);
+					if (entry != null) {
+						chunk.add(readExpense(entry, categoryCopies));
+					}
+				}
+			} catch (IOException e) {
+				LOGGER.error("Failed to read expenses", e);
+				throw new UncheckedIOException("Could not read expenses.", e);
+			} finally {
+				lock.readLock().unlock();
+			}
+			chunk.forEach(consumer);
+		}
+	}
+
+	// Records only hold the id of the category, which is attached from the
+	// index so that renaming a category does not rewrite its expenses
+	private Expense readExpense(ExpenseEntry entry, Map<String, Category> categoryCopies) throws IOException {
+		Expense expense = ExpenseCodec.readExpense(log.read(entry.offset, entry.size));
+		if (entry.categoryId != null) {
+			expense.setCategory(categoryCopies.computeIfAbsent(entry.categoryId, this::copyCategory));
+		}
+		return expense;
+	}
+
+	// Ids of the expenses of one page of the newest first order
+	List<String> findNewestIds(int skip, int limit) {
+		List<String> ids = new ArrayList<>(limit);
+		lock.readLock().lock();
+		try {
+			Iterator<ExpenseEntry> entries = newestFirst.iterator();
+			for (int i = 0; i < skip && entries.hasNext(); i++) {
+				entries.next();
+			}
+			while (ids.size() < limit && entries.hasNext()) {
+				ids.add(entries.next().id);
+			}
+			return ids;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Passes the index entry of every expense to the consumer under the read
+	// lock, for aggregates that need no more than amounts, dates and categories
+	void forEachEntry(Consumer<ExpenseEntry> consumer) {
+		lock.readLock().lock();
+		try {
+			expenses.values().forEach(consumer);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	List<String> findExpenseIds() {
+		lock.readLock().lock();
+		try {
+			return new ArrayList<>(expenses.keySet());
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	long countExpenses() {
+		lock.readLock().lock();
+		try {
+			return expenses.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	int countExpenses(String categoryId) {
+		lock.readLock().lock();
+		try {
+			return expenseCounts.getOrDefault(categoryId, 0);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	List<ExpenseTotal> findTotals(YearMonth month) {
+		lock.readLock().lock();
+		try {
+			List<ExpenseTotal> found = new ArrayList<>();
+			totals.getOrDefault(ExpenseTotal.toPeriod(month), new HashMap<>()).forEach((categoryId,
+					total) -> found.add(new ExpenseTotal(categoryId, month, Money.ofCents(total[0]), total[1])));
+			return found;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Recomputes the totals and counts from the index, repairing any drift
+	void rebuildTotals() {
+		lock.writeLock().lock();
+		try {
+			totals.clear();
+			expenseCounts.clear();
+			expenses.values().forEach(entry -> count(entry, 1));
+			LOGGER.info("Rebuilt {} expense totals", totals.values().stream().mapToInt(Map::size).sum());
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// Copies of the stored categories without their expenses
+	List<Category> findCategories() {
+		lock.readLock().lock();
+		try {
+			List<Category> found = new ArrayList<>(categories.size());
+			categories.keySet().forEach(id -> found.add(copyCategory(id)));
+			return found;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	Category findCategory(String id) {
+		lock.readLock().lock();
+		try {
+			return categories.containsKey(id) ? copyCategory(id) : null;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Names are compared ignoring case and accents, as MySQL's default collation
+	// does
+	Category findCategoryByName(String name) {
+		Collator collator = Collator.getInstance(Locale.ROOT);
+		collator.setStrength(Collator.PRIMARY);
+		lock.readLock().lock();
+		try {
+			for (CategoryEntry entry : categories.values()) {
+				if (entry.category.getName() != null && collator.equals(name, entry.category.getName())) {
+					return copyCategory(entry.category.getId());
+				}
+			}
+			return null;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// A category missing from the index, which only a damaged log can cause,
+	// is returned with its id alone
+	private Category copyCategory(String id) {
+		CategoryEntry entry = categories.get(id);
+		return entry == null ? new Category(id, null, null)
+				: new Category(id, entry.category.getName(), entry.category.getDescription());
+	}
+
+	// Rewrites the log without superseded records and tombstones. Returns false
+	// when a background compaction is already running.
+	public boolean compact() {
+		if (!compacting.compareAndSet(false, true)) {
+			return false;
+		}
+		try {
+			compactLog();
+			return true;
+		} finally {
+			compacting.set(false);
+		}
+	}
+
+	// Copies the live records to a new log without holding any lock, then, under
+	// the write lock, copies the records appended meanwhile, swaps the logs and
+	// moves the index to the new offsets. Records older than the copy that are
+	// still live were necessarily live when it started.
+	private void compactLog() {
+		long started = System.nanoTime();
+		long upTo;
+		List<long[]> live = new ArrayList<>();
+		lock.readLock().lock();
+		try {
+			upTo = log.size();
+			expenses.values().forEach(entry -> live.add(new long[] { entry.offset, entry.size }));
+			categories.values().forEach(entry -> live.add(new long[] { entry.offset, entry.size }));
+		} finally {
+			lock.readLock().unlock();
+		}
+		live.sort(Comparator.comparingLong(record -> record[0]));
+
+		RecordLog.Copy copy = null;
+		boolean replaced = false;
+		long before = upTo;
+		long after;
+		try {
+			copy = log.startCopy();
+			Map<Long, Long> moved = new HashMap<>(live.size() * 2);
+			for (long[] record : live) {
+				moved.put(record[0], copy.copy(record[0], (int) record[1]));
+			}
+			lock.writeLock().lock();
+			try {
+				before = log.size();
+				long shift = log.copyTail(copy, upTo);
+				log.replaceWith(copy);
+				replaced = true;
+				for (ExpenseEntry entry : expenses.values()) {
+					entry.offset = entry.offset >= upTo ? entry.offset + shift : moved.get(entry.offset);
+				}
+				for (CategoryEntry entry : categories.values()) {
+					entry.offset = entry.offset >= upTo ? entry.offset + shift : moved.get(entry.offset);
+				}
+				after = log.size();
+			} finally {
+				lock.writeLock().unlock();
+			}
+		} catch (IOException e) {
+			if (copy != null && !replaced) {
+				try {
+					copy.close();
+				} catch (IOException closeFailure) {
+					e.addSuppressed(closeFailure);
+				}
+			}
+			LOGGER.error("Failed to compact expense log", e);
+			throw new UncheckedIOException("Could not compact expense log.", e);
+		}
+		LOGGER.info("Compacted expense log from {} to {} bytes in {} ms", before, after,
+				TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+	}
+
+	private boolean isWorthCompacting() {
+		long garbage = log.size() - RecordLog.FILE_HEADER_SIZE - liveBytes;
+		return garbage >= minCompactionBytes && garbage >= liveBytes;
+	}
+
+	// Size of the log file in bytes
+	long logSize() {
+		lock.readLock().lock();
+		try {
+			return log.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Waits for a running compaction and closes the log
+	@Override
+	public void close() {
+		compactor.shutdown();
+		try {
+			compactor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		lock.writeLock().lock();
+		try {
+			log.close();
+		} catch (IOException e) {
+			LOGGER.error("Failed to close expense log", e);
+			throw new UncheckedIOException("Could not close expense log.", e);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void putEntry(ExpenseEntry entry) {
+		removeEntry(entry.id);
+		expenses.put(entry.id, entry);
+		newestFirst.add(entry);
+		liveBytes += entry.size;
+		count(entry, 1);
+	}
+
+	private void removeEntry(String id) {
+		ExpenseEntry entry = expenses.remove(id);
+		if (entry != null) {
+			newestFirst.remove(entry);
+			liveBytes -= entry.size;
+			count(entry, -1);
+		}
+	}
+
+	private void putCategoryEntry(CategoryEntry entry) {
+		CategoryEntry previous = categories.put(entry.category.getId(), entry);
+		if (previous != null) {
+			liveBytes -= previous.size;
+		}
+		liveBytes += entry.size;
+	}
+
+	private void removeCategoryEntry(String id) {
+		CategoryEntry entry = categories.remove(id);
+		if (entry != null) {
+			liveBytes -= entry.size;
+		}
+	}
+
+	// Adds the expense to, or with a negative sign removes it from, the count of
+	// its category and the totals of its month
+	private void count(ExpenseEntry entry, int sign) {
+		if (entry.categoryId == null) {
+			return;
+		}
+		int count = expenseCounts.getOrDefault(entry.categoryId, 0) + sign;
+		if (count == 0) {
+			expenseCounts.remove(entry.categoryId);
+		} else {
+			expenseCounts.put(entry.categoryId, count);
+		}
+		if (entry.epochDay != NO_DATE) {
+			int period = ExpenseTotal.toPeriod(LocalDate.ofEpochDay(entry.epochDay));
+			Map<String, long[]> periodTotals = totals.computeIfAbsent(period, key -> new HashMap<>());
+			long[] total = periodTotals.computeIfAbsent(entry.categoryId, key -> new long[2]);
+			total[0] += sign * entry.cents;
+			total[1] += sign;
+			if (total[1] == 0) {
+				periodTotals.remove(entry.categoryId);
+				if (periodTotals.isEmpty()) {
+					totals.remove(period);
+				}
+			}
+		}
+	}
+
+	// The record of an expense refers to its category by id only
+	private static Expense withCategoryId(Expense expense) {
+		if (expense.getId() == null) {
+			throw new IllegalArgumentException("Cannot store an expense without id");
+		}
+		Category category = expense.getCategory() == null ? null : new Category(expense.getCategory().getId(), null,
+				null);
+		return new Expense(expense.getId(), expense.getMoney(), expense.getDescription(), expense.getDate(),
+				category);
+	}
+
+	private static String readId(ByteBuffer payload) {
+		return new String(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining(),
+				StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,90 @@
+package com.tdd.expensetracker.repository.log;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import com.tdd.expensetracker.model.Expense;
+
+// Expenses of a category, read from the log the first time their content or
+// size is needed. Only the emptiness check guarding a category delete is
+// answered from the count taken with the category, so it costs no read; any
+// other access sees the expenses as they are when first loaded. Expenses added
+// before then, such as a new expense the controller links to its category, are
+// kept aside and merged into the loaded ones unless the read already found them.
+final class LazyExpenseList extends AbstractList<Expense> {
+
+	private final boolean initiallyEmpty;
+	private final Supplier<List<Expense>> loader;
+	private List<Expense> loaded;
+	private final List<Expense> addedBeforeLoad = new ArrayList<>();
+
+	LazyExpenseList(int initialSize, Supplier<List<Expense>> loader) {
+		this.initiallyEmpty = initialSize == 0;
+		this.loader = loader;
+	}
+
+	private List<Expense> load() {
+		if (loaded == null) {
+			loaded = loader.get();
+			Set<String> ids = new HashSet<>();
+			loaded.forEach(expense -> ids.add(expense.getId()));
+			for (Expense expense : addedBeforeLoad) {
+				if (!ids.contains(expense.getId())) {
+					loaded.add(expense);
+				}
+			}
+			addedBeforeLoad.clear();
+		}
+		return loaded;
+	}
+
+	boolean isLoaded() {
+		return loaded != null;
+	}
+
+	@Override
+	public Expense get(int index) {
+		return load().get(index);
+	}
+
+	@Override
+	public int size() {
+		return load().size();
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return loaded == null ? initiallyEmpty && addedBeforeLoad.isEmpty() : loaded.isEmpty();
+	}
+
+	// Appends without reading the log when the expenses are not loaded yet
+	@Override
+	public boolean add(Expense expense) {
+		modCount++;
+		if (loaded == null) {
+			return addedBeforeLoad.add(expense);
+		}
+		return loaded.add(expense);
+	}
+
+	@Override
+	public Expense set(int index, Expense expense) {
+		return load().set(index, expense);
+	}
+
+	@Override
+	public void add(int index, Expense expense) {
+		load().add(index, expense);
+		modCount++;
+	}
+
+	@Override
+	public Expense remove(int index) {
+		modCount++;
+		return load().remove(index);
+	}
+}
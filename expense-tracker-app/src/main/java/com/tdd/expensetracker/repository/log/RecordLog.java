@@ -0,0 +1,365 @@
+package com.tdd.expensetracker.repository.log;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+// Append-only file of checksummed records. Each record is its payload length,
+// the CRC32 of its type and payload, a type byte and the payload. Appends are
+// serialized by the caller; sync makes them durable with group commit, one
+// fsync covering every record appended before it started, so concurrent
+// writers share the cost of a disk flush.
+final class RecordLog implements Closeable {
+
+	private static final Logger LOGGER = LogManager.getLogger(RecordLog.class);
+
+	private static final int MAGIC = 0x45544C47; // "ETLG"
+	private static final byte FORMAT_VERSION = 1;
+	static final int FILE_HEADER_SIZE = 5;
+	static final int RECORD_HEADER_SIZE = 9;
+	// Upper bound of a payload, far above any expense or category, so that a
+	// damaged length is not mistaken for a record cut short by a crash
+	static final int MAX_RECORD_SIZE = 1 << 20;
+
+	private final Path file;
+	private volatile FileChannel channel;
+	// Position of the next append, guarded by the caller's lock
+	private long end;
+	// Sequence numbers of the last appended batch and of the last one on disk
+	private volatile long appended;
+	private volatile long synced;
+	private final Object syncLock = new Object();
+
+	// Receives the intact records of the log in order while it is opened
+	interface Visitor {
+		void record(byte type, long offset, int size, ByteBuffer payload);
+	}
+
+	// Records written with a single append, so that an I/O error leaves none of
+	// them in the log
+	static final class Batch {
+
+		private final List<byte[]> records = new ArrayList<>();
+		private int size;
+
+		// Adds a record and returns its offset from the start of the batch
+		int add(byte type, byte[] payload) {
+			if (payload.length > MAX_RECORD_SIZE) {
+				throw new IllegalArgumentException("Record of " + payload.length + " bytes is too large");
+			}
+			byte[] record = new byte[RECORD_HEADER_SIZE + payload.length];
+			ByteBuffer buffer = ByteBuffer.wrap(record);
+			buffer.putInt(payload.length);
+			buffer.putInt(checksum(type, payload, 0, payload.length));
+			buffer.put(type);
+			buffer.put(payload);
+			records.add(record);
+			int offset = size;
+			size += record.length;
+			return offset;
+		}
+
+		boolean isEmpty() {
+			return records.isEmpty();
+		}
+	}
+
+	private RecordLog(Path file, FileChannel channel, long end) {
+		this.file = file;
+		this.channel = channel;
+		this.end = end;
+	}
+
+	// Opens or creates the log and passes every record to the visitor. A torn
+	// tail, left by a crash in the middle of an append, is cut off; a corrupt
+	// record followed by more data fails the open and leaves the file untouched.
+	static RecordLog open(Path file, Visitor visitor) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			long end;
+			if (channel.size() == 0) {
+				end = writeHeader(channel);
+				channel.force(true);
+			} else {
+				end = replay(file, channel, visitor);
+			}
+			return new RecordLog(file, channel, end);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	// Appends the batch at the end of the log and returns its offset. The batch
+	// is not durable before sync is called with the returned sequence.
+	long append(Batch batch) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(batch.size);
+		batch.records.forEach(buffer::put);
+		buffer.flip();
+		long offset = end;
+		try {
+			writeFully(channel, buffer, offset);
+		} catch (IOException e) {
+			channel.truncate(offset);
+			throw e;
+		}
+		end += batch.size;
+		appended++;
+		return offset;
+	}
+
+	// Sequence number of the last append, to pass to sync
+	long lastSequence() {
+		return appended;
+	}
+
+	// Returns once the append with the given sequence number is on disk. The
+	// first waiting writer flushes everything appended so far; writers that
+	// queued behind it usually find their records already flushed.
+	void sync(long sequence) throws IOException {
+		if (synced >= sequence) {
+			return;
+		}
+		synchronized (syncLock) {
+			if (synced >= sequence) {
+				return;
+			}
+			long target = appended;
+			channel.force(false);
+			synced = target;
+		}
+	}
+
+	// Reads the payload of the record of the given size at the offset, checking
+	// its checksum. The buffer is positioned at the payload.
+	ByteBuffer read(long offset, int size) throws IOException {
+		ByteBuffer record = ByteBuffer.allocate(size);
+		readFully(channel, record, offset);
+		int length = record.getInt(0);
+		if (length != size - RECORD_HEADER_SIZE
+				|| record.getInt(4) != checksum(record.get(8), record.array(), RECORD_HEADER_SIZE, length)) {
+			throw new IOException("Corrupt record at offset " + offset + " of " + file);
+		}
+		record.position(RECORD_HEADER_SIZE);
+		return record;
+	}
+
+	long size() {
+		return end;
+	}
+
+	// Starts a compacted copy of the log in a file next to it
+	Copy startCopy() throws IOException {
+		Path target = file.resolveSibling(file.getFileName() + ".compact");
+		Files.deleteIfExists(target);
+		FileChannel targetChannel = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		return new Copy(target, targetChannel, writeHeader(targetChannel));
+	}
+
+	// Copies the records appended from the given offset on, which the copy did not
+	// see, and returns by how much their offsets move
+	long copyTail(Copy copy, long from) throws IOException {
+		long shift = copy.end - from;
+		copy.transfer(channel, from, end - from);
+		return shift;
+	}
+
+	// Makes the copy the log. It replaces the file in one rename, so a crash
+	// leaves either the old log or the complete copy.
+	void replaceWith(Copy copy) throws IOException {
+		copy.channel.force(true);
+		try {
+			Files.move(copy.path, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(copy.path, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+		syncDirectory();
+		FileChannel previous;
+		synchronized (syncLock) {
+			previous = channel;
+			channel = copy.channel;
+			end = copy.end;
+			synced = appended;
+		}
+		previous.close();
+	}
+
+	// Makes the rename durable where the platform allows syncing a directory
+	private void syncDirectory() {
+		try (FileChannel directory = FileChannel.open(file.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+			directory.force(true);
+		} catch (IOException e) {
+			LOGGER.debug("Could not sync the directory of {}", file, e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		synchronized (syncLock) {
+			channel.force(true);
+			channel.close();
+		}
+	}
+
+	// A compacted copy of the log being written
+	final class Copy implements Closeable {
+
+		private final Path path;
+		private final FileChannel channel;
+		private long end;
+
+		private Copy(Path path, FileChannel channel, long end) {
+			this.path = path;
+			this.channel = channel;
+			this.end = end;
+		}
+
+		// Copies the record of the given size at the offset of the log and returns
+		// its offset in the copy
+		long copy(long offset, int size) throws IOException {
+			long copied = end;
+			transfer(RecordLog.this.channel, offset, size);
+			return copied;
+		}
+
+		private void transfer(FileChannel source, long offset, long count) throws IOException {
+			long done = 0;
+			while (done < count) {
+				done += source.transferTo(offset + done, count - done, channel.position(end + done));
+			}
+			end += count;
+		}
+
+		// Abandons the copy
+		@Override
+		public void close() throws IOException {
+			channel.close();
+			Files.deleteIfExists(path);
+		}
+	}
+
+	private static long writeHeader(FileChannel channel) throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+		header.putInt(MAGIC);
+		header.put(FORMAT_VERSION);
+		header.flip();
+		writeFully(channel, header, 0);
+		return FILE_HEADER_SIZE;
+	}
+
+	private static long replay(Path file, FileChannel channel, Visitor visitor) throws IOException {
+		channel.position(0);
+		DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+		if (in.readInt() != MAGIC || in.readByte() != FORMAT_VERSION) {
+			throw new IOException(file + " is not an expense log of a supported format");
+		}
+		long offset = FILE_HEADER_SIZE;
+		long size = channel.size();
+		int records = 0;
+		while (offset < size) {
+			long remaining = size - offset - RECORD_HEADER_SIZE;
+			if (remaining < 0) {
+				break;
+			}
+			int length = in.readInt();
+			int crc = in.readInt();
+			byte type = in.readByte();
+			if (length < 0 || length > MAX_RECORD_SIZE) {
+				break;
+			}
+			if (length > remaining) {
+				// An append of plausible size cut short by the end of the file
+				break;
+			}
+			byte[] payload = new byte[length];
+			in.readFully(payload);
+			if (crc != checksum(type, payload, 0, length)) {
+				break;
+			}
+			visitor.record(type, offset, RECORD_HEADER_SIZE + length, ByteBuffer.wrap(payload));
+			offset += RECORD_HEADER_SIZE + length;
+			records++;
+		}
+		if (offset < size) {
+			if (!isTornTail(channel, offset, size)) {
+				throw new IOException("Corrupt record at offset " + offset + " of " + file
+						+ " followed by more data, refusing to open it");
+			}
+			LOGGER.warn("Cutting off {} bytes of a torn append at the end of {}", size - offset, file);
+			channel.truncate(offset);
+			channel.force(true);
+		}
+		LOGGER.info("Replayed {} records from {}", records, file);
+		return offset;
+	}
+
+	// Whether the bad record at the offset is what a crash during the last append
+	// leaves: an incomplete header, a record of plausible size running into or
+	// ending at the end of the file, or a tail of zeros the file system allocated
+	// but never wrote. Anything else is corruption of records that may be
+	// followed by intact ones, which must not be cut off.
+	private static boolean isTornTail(FileChannel channel, long offset, long size) throws IOException {
+		if (size - offset < RECORD_HEADER_SIZE) {
+			return true;
+		}
+		ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+		readFully(channel, header, offset);
+		int length = header.getInt(0);
+		if (length >= 0 && length <= MAX_RECORD_SIZE && offset + RECORD_HEADER_SIZE + length >= size) {
+			return true;
+		}
+		ByteBuffer rest = ByteBuffer.allocate(1 << 16);
+		for (long position = offset; position < size; position += rest.limit()) {
+			rest.clear();
+			rest.limit((int) Math.min(rest.capacity(), size - position));
+			readFully(channel, rest, position);
+			for (int i = 0; i < rest.limit(); i++) {
+				if (rest.get(i) != 0) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static int checksum(byte type, byte[] payload, int from, int length) {
+		CRC32 crc = new CRC32();
+		crc.update(type);
+		crc.update(payload, from, length);
+		return (int) crc.getValue();
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			position += channel.write(buffer, position);
+		}
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				throw new EOFException("Unexpected end of " + channel);
+			}
+			position += read;
+		}
+	}
+}
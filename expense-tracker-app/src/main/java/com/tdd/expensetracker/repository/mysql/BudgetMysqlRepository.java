@@ -0,0 +1,70 @@
+package com.tdd.expensetracker.repository.mysql;
+
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+
+import com.tdd.expensetracker.model.Budget;
+import com.tdd.expensetracker.repository.BudgetRepository;
+
+public class BudgetMysqlRepository implements BudgetRepository {
+
+	private SessionFactory sessionFactory;
+	private static final Logger LOGGER = LogManager.getLogger(BudgetMysqlRepository.class);
+
+	// Constructor to initialize the repository with a session factory
+	public BudgetMysqlRepository(SessionFactory sessionFactory) {
+		this.sessionFactory = sessionFactory;
+	}
+
+	// Retrieves all budgets from the database
+	@Override
+	public List<Budget> findAll() {
+		Session session = sessionFactory.openSession();
+		try {
+			return session.createQuery("from Budget", Budget.class).list();
+		} finally {
+			session.close();
+		}
+	}
+
+	// Saves a budget, replacing the existing budget of the same category
+	@Override
+	public void save(Budget budget) {
+		Session session = sessionFactory.openSession();
+		Transaction transaction = session.beginTransaction();
+		try {
+			session.merge(budget);
+			transaction.commit();
+		} catch (Exception e) {
+			transaction.rollback();
+			LOGGER.error("Failed to save budget", e);
+			throw new HibernateException("Could not save budget.", e);
+		} finally {
+			session.close();
+		}
+	}
+
+	// Deletes the budget of a category, if any
+	@Override
+	public void delete(String categoryId) {
+		Session session = sessionFactory.openSession();
+		Transaction transaction = session.beginTransaction();
+		try {
+			session.createQuery("delete from Budget b where b.categoryId = :categoryId")
+					.setParameter("categoryId", categoryId).executeUpdate();
+			transaction.commit();
+		} catch (Exception e) {
+			transaction.rollback();
+			LOGGER.error("Failed to delete budget", e);
+			throw new HibernateException("Could not delete budget.", e);
+		} finally {
+			session.close();
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package com.tdd.expensetracker.repository.mysql;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.apache.logging.log4j.LogManager;
@@ -7,6 +8,7 @@ import org.apache.logging.log4j.Logger;
 import org.hibernate.HibernateException;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
 import org.hibernate.Transaction;
 
 import com.tdd.expensetracker.model.Category;
@@ -34,6 +36,19 @@ public class CategoryMySqlRepository implements CategoryRepository {
 		}
 	}
 
+	// Retrieves the id, name and description of all categories with a single
+	// JOIN-free query. Their expenses are not loaded and their lists stay empty.
+	@Override
+	public List<Category> findAllWithoutExpenses() {
+		StatelessSession session = sessionFactory.openStatelessSession();
+		try {
+			return session.createQuery("select new Category(c.id, c.name, c.description) from Category c",
+					Category.class).list();
+		} finally {
+			session.close();
+		}
+	}
+
 	// Finds a Category by its unique ID from the database
 	@Override
 	public Category findById(String id) {
@@ -46,6 +61,20 @@ public class CategoryMySqlRepository implements CategoryRepository {
 		}
 	}
 
+	// Retrieves the id, name and description of the given categories with a
+	// single JOIN-free query, leaving out the ids that do not exist
+	@Override
+	public List<Category> findByIdsWithoutExpenses(Collection<String> ids) {
+		StatelessSession session = sessionFactory.openStatelessSession();
+		try {
+			return session.createQuery(
+					"select new Category(c.id, c.name, c.description) from Category c where c.id in (:ids)",
+					Category.class).setParameterList("ids", ids).list();
+		} finally {
+			session.close();
+		}
+	}
+
 	// Saves a new Category to the database
 	@Override
 	public void save(Category category) {
@@ -100,6 +129,17 @@ public class CategoryMySqlRepository implements CategoryRepository {
 		}
 	}
 
+	// Reads only the names of all categories, without loading their expenses
+	@Override
+	public List<String> findNames() {
+		StatelessSession session = sessionFactory.openStatelessSession();
+		try {
+			return session.createQuery("select c.name from Category c where c.name is not null", String.class).list();
+		} finally {
+			session.close();
+		}
+	}
+
 	// Finds a Category by its name from the database
 	@Override
 	public Category findByName(String name) {
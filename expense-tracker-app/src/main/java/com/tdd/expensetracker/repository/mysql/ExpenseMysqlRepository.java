@@ -1,15 +1,34 @@
 package com.tdd.expensetracker.repository.mysql;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.hibernate.HibernateException;
+import org.hibernate.LockMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
 import org.hibernate.Transaction;
+import org.hibernate.query.Query;
 
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.DescriptionUsage;
 import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.model.ExpenseSketch;
+import com.tdd.expensetracker.model.ExpenseTotal;
+import com.tdd.expensetracker.model.ExpenseTotalId;
+import com.tdd.expensetracker.model.Money;
+import com.tdd.expensetracker.model.SpendingMoments;
+import com.tdd.expensetracker.report.QuantileSketch;
 import com.tdd.expensetracker.repository.ExpenseRepository;
 
 public class ExpenseMysqlRepository implements ExpenseRepository {
@@ -17,6 +36,17 @@ public class ExpenseMysqlRepository implements ExpenseRepository {
 	private SessionFactory sessionFactory;
 	private static final Logger LOGGER = LogManager.getLogger(ExpenseMysqlRepository.class);
 
+	// Number of inserts flushed together, matches hibernate.jdbc.batch_size
+	static final int BATCH_SIZE = 50;
+	// Number of rows fetched per round trip when streaming
+	static final int FETCH_SIZE = 1000;
+
+	// Recomputes expense_totals from the Expense table, used by migrations and
+	// rebuildTotals
+	static final String REBUILD_TOTALS_SQL = "INSERT INTO expense_totals (category_id, period, total, expense_count) "
+			+ "SELECT category_id, YEAR(date) * 100 + MONTH(date), SUM(amount), COUNT(*) FROM Expense "
+			+ "WHERE date IS NOT NULL GROUP BY category_id, YEAR(date) * 100 + MONTH(date)";
+
 	// Constructor to initialize the repository with a session factory
 	public ExpenseMysqlRepository(SessionFactory sessionFactory) {
 		this.sessionFactory = sessionFactory;
@@ -33,6 +63,119 @@ public class ExpenseMysqlRepository implements ExpenseRepository {
 		}
 	}
 
+	// Retrieves the most recent Expense records, newest first. Reads scalar
+	// columns like findPage.
+	@Override
+	public List<Expense> findRecent(int limit) {
+		StatelessSession session = sessionFactory.openStatelessSession();
+		try {
+			List<Object[]> rows = session.createQuery(
+					"select e.id, e.amount, e.description, e.date, c.id, c.name, c.description "
+							+ "from Expense e join e.category c order by e.date desc, e.id",
+					Object[].class).setMaxResults(limit).list();
+			return toExpenses(rows);
+		} finally {
+			session.close();
+		}
+	}
+
+	// Retrieves one page of Expenses, newest first. Like streamAll it reads scalar
+	// columns so serving a page does not load the categories' expense collections.
+	@Override
+	public List<Expense> findPage(int page, int size) {
+		StatelessSession session = sessionFactory.openStatelessSession();
+		try {
+			List<Object[]> rows = session.createQuery(
+					"select e.id, e.amount, e.description, e.date, c.id, c.name, c.description "
+							+ "from Expense e join e.category c order by e.date desc, e.id",
+					Object[].class).setFirstResult(page * size).setMaxResults(size).list();
+			return toExpenses(rows);
+		} finally {
+			session.close();
+		}
+	}
+
+	// Retrieves the Expenses with the given ids in the order of the ids, skipping
+	// ids that no longer exist. Reads scalar columns like findPage.
+	@Override
+	public List<Expense> findByIds(List<String> ids) {
+		StatelessSession session = sessionFactory.openStatelessSession();
+		try {
+			Map<String, Expense> expensesById = new HashMap<>(ids.size() * 2);
+			for (int from = 0; from < ids.size(); from += FETCH_SIZE) {
+				List<Object[]> rows = session.createQuery(
+						"select e.id, e.amount, e.description, e.date, c.id, c.name, c.description "
+								+ "from Expense e join e.category c where e.id in (:ids)",
+						Object[].class).setParameterList("ids", ids.subList(from, Math.min(ids.size(), from + FETCH_SIZE)))
+						.list();
+				toExpenses(rows).forEach(expense -> expensesById.put(expense.getId(), expense));
+			}
+			List<Expense> expenses = new ArrayList<>(expensesById.size());
+			for (String id : ids) {
+				Expense expense = expensesById.get(id);
+				if (expense != null) {
+					expenses.add(expense);
+				}
+			}
+			return expenses;
+		} finally {
+			session.close();
+		}
+	}
+
+	// Counts the expenses of every distinct description with a single aggregate
+	// query, for the description suggestions
+	@Override
+	public List<DescriptionUsage> findDescriptionUsage() {
+		StatelessSession session = sessionFactory.openStatelessSession();
+		try {
+			List<Object[]> rows = session.createQuery("select e.description, count(e), max(e.date) from Expense e "
+					+ "where e.description is not null group by e.description", Object[].class).list();
+			List<DescriptionUsage> usages = new ArrayList<>(rows.size());
+			for (Object[] row : rows) {
+				usages.add(new DescriptionUsage((String) row[0], (Long) row[1], (LocalDate) row[2]));
+			}
+			return usages;
+		} finally {
+			session.close();
+		}
+	}
+
+	// Reads the count, mean and variance of the amounts of every category with a
+	// single aggregate query, for the anomaly detection
+	@Override
+	public List<SpendingMoments> findSpendingMoments() {
+		StatelessSession session = sessionFactory.openStatelessSession();
+		try {
+			List<Object[]> rows = session.createQuery("select e.category.id, count(e), avg(e.amount), "
+					+ "avg(e.amount * e.amount) from Expense e group by e.category.id", Object[].class).list();
+			List<SpendingMoments> moments = new ArrayList<>(rows.size());
+			for (Object[] row : rows) {
+				// Amounts are stored in cents
+				double mean = (Double) row[2] / 100;
+				// Clamped since rounding can make the difference slightly negative
+				double variance = Math.max(0, (Double) row[3] / 10_000 - mean * mean);
+				moments.add(new SpendingMoments((String) row[0], (Long) row[1], mean, variance));
+			}
+			return moments;
+		} finally {
+			session.close();
+		}
+	}
+
+	// Builds Expenses from "id, amount, description, date, category id, category
+	// name, category description" rows, sharing one Category per id
+	private static List<Expense> toExpenses(List<Object[]> rows) {
+		Map<String, Category> categories = new HashMap<>();
+		List<Expense> expenses = new ArrayList<>(rows.size());
+		for (Object[] row : rows) {
+			Category category = categories.computeIfAbsent((String) row[4],
+					id -> new Category(id, (String) row[5], (String) row[6]));
+			expenses.add(new Expense((String) row[0], (Money) row[1], (String) row[2], (LocalDate) row[3], category));
+		}
+		return expenses;
+	}
+
 	// Finds an Expense by its unique ID from the database
 	@Override
 	public Expense findById(String id) {
@@ -51,6 +194,11 @@ public class ExpenseMysqlRepository implements ExpenseRepository {
 		Transaction transaction = session.beginTransaction();
 		try {
 			session.save(expense);
+			applyToTotals(session, expense.getCategory().getId(), expense.getDate(), expense.getAmountCents(), 1);
+			if (expense.getDate() != null) {
+				addToSketch(session, totalsKey(expense.getCategory().getId(), expense.getDate()),
+						new double[] { expense.getAmount() });
+			}
 			transaction.commit();
 		} catch (Exception e) {
 			transaction.rollback();
@@ -67,7 +215,12 @@ public class ExpenseMysqlRepository implements ExpenseRepository {
 		Session session = sessionFactory.openSession();
 		Transaction transaction = session.beginTransaction();
 		try {
+			Object[] stored = findStoredTotalsKey(session, expense.getId());
 			session.delete(expense);
+			if (stored != null) {
+				applyToTotals(session, (String) stored[2], (LocalDate) stored[1], -((Money) stored[0]).getCents(), -1);
+				removeSketch(session, (String) stored[2], (LocalDate) stored[1]);
+			}
 			transaction.commit();
 		} catch (Exception e) {
 			transaction.rollback();
@@ -84,7 +237,29 @@ public class ExpenseMysqlRepository implements ExpenseRepository {
 		Session session = sessionFactory.openSession();
 		Transaction transaction = session.beginTransaction();
 		try {
+			Object[] stored = findStoredTotalsKey(session, updatedExpense.getId());
 			session.update(updatedExpense);
+			String categoryId = updatedExpense.getCategory().getId();
+			LocalDate date = updatedExpense.getDate();
+			if (stored != null && categoryId.equals(stored[2]) && date != null && stored[1] != null
+					&& ExpenseTotal.toPeriod(date) == ExpenseTotal.toPeriod((LocalDate) stored[1])) {
+				// Same category and month, only the amount can have changed
+				long storedCents = ((Money) stored[0]).getCents();
+				applyToTotals(session, categoryId, date, updatedExpense.getAmountCents() - storedCents, 0);
+				if (updatedExpense.getAmountCents() != storedCents) {
+					removeSketch(session, categoryId, date);
+				}
+			} else {
+				if (stored != null) {
+					applyToTotals(session, (String) stored[2], (LocalDate) stored[1], -((Money) stored[0]).getCents(),
+							-1);
+					removeSketch(session, (String) stored[2], (LocalDate) stored[1]);
+				}
+				applyToTotals(session, categoryId, date, updatedExpense.getAmountCents(), 1);
+				if (date != null) {
+					addToSketch(session, totalsKey(categoryId, date), new double[] { updatedExpense.getAmount() });
+				}
+			}
 			transaction.commit();
 		} catch (Exception e) {
 			transaction.rollback();
@@ -94,4 +269,308 @@ public class ExpenseMysqlRepository implements ExpenseRepository {
 			session.close();
 		}
 	}
+
+	// Saves a batch of new Expenses in a single transaction, flushing them to the
+	// database in JDBC batches
+	@Override
+	public void saveAll(List<Expense> expenses) {
+		Session session = sessionFactory.openSession();
+		Transaction transaction = session.beginTransaction();
+		try {
+			saveAll(session, expenses);
+			transaction.commit();
+		} catch (Exception e) {
+			transaction.rollback();
+			LOGGER.error("Failed to save expenses", e);
+			throw new HibernateException("Could not save expenses.", e);
+		} finally {
+			session.close();
+		}
+	}
+
+	// Saves a batch of new Expenses and their totals in the caller's transaction,
+	// so that other repositories can commit them together with their own writes
+	void saveAll(Session session, List<Expense> expenses) {
+		// Totals and sketch amounts are grouped per category and month first so
+		// that a batch costs one totals and one sketch update per key rather than
+		// one per expense
+		Map<ExpenseTotalId, long[]> deltas = new HashMap<>();
+		Map<ExpenseTotalId, List<Double>> amounts = new HashMap<>();
+		for (int i = 0; i < expenses.size(); i++) {
+			Expense expense = expenses.get(i);
+			session.save(expense);
+			if (expense.getDate() != null) {
+				ExpenseTotalId key = totalsKey(expense.getCategory().getId(), expense.getDate());
+				long[] delta = deltas.computeIfAbsent(key, id -> new long[2]);
+				delta[0] += expense.getAmountCents();
+				delta[1]++;
+				amounts.computeIfAbsent(key, id -> new ArrayList<>()).add(expense.getAmount());
+			}
+			if ((i + 1) % BATCH_SIZE == 0) {
+				session.flush();
+				session.clear();
+			}
+		}
+		for (Map.Entry<ExpenseTotalId, long[]> delta : deltas.entrySet()) {
+			applyToTotals(session, delta.getKey(), delta.getValue()[0], delta.getValue()[1]);
+		}
+		for (Map.Entry<ExpenseTotalId, List<Double>> keyAmounts : amounts.entrySet()) {
+			addToSketch(session, keyAmounts.getKey(),
+					keyAmounts.getValue().stream().mapToDouble(Double::doubleValue).toArray());
+		}
+	}
+
+	// Returns the quantile sketch of the amounts of every category over a range of
+	// months, both inclusive, merged from the stored sketch of each month. Months
+	// with expenses but no stored sketch, because they were never read or lost
+	// their sketch to a delete or update, are sketched from their expenses and
+	// stored for the next read.
+	@Override
+	public Map<String, QuantileSketch> findSketches(YearMonth from, YearMonth to) {
+		Session session = sessionFactory.openSession();
+		try {
+			int fromPeriod = ExpenseTotal.toPeriod(from);
+			int toPeriod = ExpenseTotal.toPeriod(to);
+			Map<ExpenseTotalId, byte[]> stored = new HashMap<>();
+			for (ExpenseSketch sketch : session
+					.createQuery("from ExpenseSketch s where s.id.period between :from and :to", ExpenseSketch.class)
+					.setParameter("from", fromPeriod).setParameter("to", toPeriod).list()) {
+				stored.put(sketch.getId(), sketch.getSketch());
+			}
+			List<ExpenseTotalId> keys = session.createQuery(
+					"select t.id from ExpenseTotal t where t.id.period between :from and :to and t.count > 0",
+					ExpenseTotalId.class).setParameter("from", fromPeriod).setParameter("to", toPeriod).list();
+
+			Map<String, QuantileSketch> sketches = new HashMap<>();
+			List<ExpenseSketch> rebuilt = new ArrayList<>();
+			for (ExpenseTotalId key : keys) {
+				QuantileSketch sketch;
+				if (stored.containsKey(key)) {
+					sketch = QuantileSketch.fromBytes(stored.get(key));
+				} else {
+					sketch = sketchExpenses(session, key);
+					rebuilt.add(new ExpenseSketch(key, sketch.toBytes()));
+				}
+				sketches.computeIfAbsent(key.getCategoryId(), id -> new QuantileSketch()).merge(sketch);
+			}
+			if (!rebuilt.isEmpty()) {
+				storeSketches(session, rebuilt);
+			}
+			return sketches;
+		} finally {
+			session.close();
+		}
+	}
+
+	// Reads the totals of every category for one month. The lookup is a range
+	// scan on the primary key, so its cost depends on the number of categories
+	// and not on the number of expenses.
+	@Override
+	public List<ExpenseTotal> findTotals(YearMonth month) {
+		Session session = sessionFactory.openSession();
+		try {
+			return session.createQuery("from ExpenseTotal t where t.id.period = :period", ExpenseTotal.class)
+					.setParameter("period", ExpenseTotal.toPeriod(month)).list();
+		} finally {
+			session.close();
+		}
+	}
+
+	// Recomputes the whole totals table from the expenses, repairing any drift
+	@Override
+	public void rebuildTotals() {
+		Session session = sessionFactory.openSession();
+		Transaction transaction = session.beginTransaction();
+		try {
+			session.createNativeQuery("DELETE FROM expense_totals").executeUpdate();
+			int rows = session.createNativeQuery(REBUILD_TOTALS_SQL).executeUpdate();
+			// Sketches may have drifted the same way and are rebuilt on next read
+			session.createNativeQuery("DELETE FROM expense_sketches").executeUpdate();
+			transaction.commit();
+			LOGGER.info("Rebuilt {} expense totals", rows);
+		} catch (Exception e) {
+			transaction.rollback();
+			LOGGER.error("Failed to rebuild expense totals", e);
+			throw new HibernateException("Could not rebuild expense totals.", e);
+		} finally {
+			session.close();
+		}
+	}
+
+	// Streams every Expense to the consumer without loading them all in memory.
+	// Rows are read as scalar projections through a forward-only cursor, so
+	// neither the persistence context nor the eager category collections are
+	// populated; each Expense references a shared Category without expenses.
+	@Override
+	public void streamAll(Consumer<Expense> consumer) {
+		streamAll(null, null, null, consumer);
+	}
+
+	@Override
+	public long countAll() {
+		StatelessSession session = sessionFactory.openStatelessSession();
+		try {
+			return session.createQuery("select count(e) from Expense e", Long.class).uniqueResult();
+		} finally {
+			session.close();
+		}
+	}
+
+	// Streams only the ids of all Expenses through a forward-only cursor, for
+	// the existence filter
+	@Override
+	public void streamIds(Consumer<String> consumer) {
+		StatelessSession session = sessionFactory.openStatelessSession();
+		try {
+			ScrollableResults results = session.createQuery("select e.id from Expense e", String.class)
+					.setFetchSize(FETCH_SIZE).setReadOnly(true).scroll(ScrollMode.FORWARD_ONLY);
+			try {
+				while (results.next()) {
+					consumer.accept((String) results.get(0));
+				}
+			} finally {
+				results.close();
+			}
+		} finally {
+			session.close();
+		}
+	}
+
+	// Streams the Expenses dated within the optional bounds (both inclusive) and
+	// belonging to the optional category name, in the same way as streamAll
+	@Override
+	public void streamAll(LocalDate from, LocalDate to, String categoryName, Consumer<Expense> consumer) {
+		StatelessSession session = sessionFactory.openStatelessSession();
+		try {
+			Map<String, Category> categories = new HashMap<>();
+			for (Object[] row : session
+					.createQuery("select c.id, c.name, c.description from Category c", Object[].class).list()) {
+				categories.put((String) row[0], new Category((String) row[0], (String) row[1], (String) row[2]));
+			}
+
+			StringBuilder hql = new StringBuilder(
+					"select e.id, e.amount, e.description, e.date, e.category.id from Expense e where 1 = 1");
+			if (from != null) {
+				hql.append(" and e.date >= :from");
+			}
+			if (to != null) {
+				hql.append(" and e.date <= :to");
+			}
+			if (categoryName != null) {
+				hql.append(" and e.category.name = :categoryName");
+			}
+			Query<Object[]> query = session.createQuery(hql.toString(), Object[].class);
+			if (from != null) {
+				query.setParameter("from", from);
+			}
+			if (to != null) {
+				query.setParameter("to", to);
+			}
+			if (categoryName != null) {
+				query.setParameter("categoryName", categoryName);
+			}
+
+			ScrollableResults results = query.setFetchSize(FETCH_SIZE).setReadOnly(true)
+					.scroll(ScrollMode.FORWARD_ONLY);
+			try {
+				while (results.next()) {
+					Object[] row = results.get();
+					consumer.accept(new Expense((String) row[0], (Money) row[1], (String) row[2], (LocalDate) row[3],
+							categories.get((String) row[4])));
+				}
+			} finally {
+				results.close();
+			}
+		} finally {
+			session.close();
+		}
+	}
+
+
+	// Reads the amount, date and category id currently stored for an expense,
+	// without loading the entity and its category's expense collection
+	private Object[] findStoredTotalsKey(Session session, String id) {
+		return session
+				.createQuery("select e.amount, e.date, e.category.id from Expense e where e.id = :id", Object[].class)
+				.setParameter("id", id).uniqueResult();
+	}
+
+	private static ExpenseTotalId totalsKey(String categoryId, LocalDate date) {
+		return new ExpenseTotalId(categoryId, ExpenseTotal.toPeriod(date));
+	}
+
+	// Adds amounts to the stored sketch of the key. A missing sketch is left
+	// missing, since the new amounts alone would not describe the whole month.
+	private void addToSketch(Session session, ExpenseTotalId id, double[] amounts) {
+		ExpenseSketch stored = session.get(ExpenseSketch.class, id, LockMode.PESSIMISTIC_WRITE);
+		if (stored == null) {
+			return;
+		}
+		QuantileSketch sketch = QuantileSketch.fromBytes(stored.getSketch());
+		for (double amount : amounts) {
+			sketch.add(amount);
+		}
+		stored.setSketch(sketch.toBytes());
+	}
+
+	// Sketches cannot forget an amount, so a removed or changed one drops the
+	// sketch of its key until the next read rebuilds it
+	private void removeSketch(Session session, String categoryId, LocalDate date) {
+		if (date != null) {
+			session.createQuery(
+					"delete from ExpenseSketch s where s.id.categoryId = :categoryId and s.id.period = :period")
+					.setParameter("categoryId", categoryId).setParameter("period", ExpenseTotal.toPeriod(date))
+					.executeUpdate();
+		}
+	}
+
+	private QuantileSketch sketchExpenses(Session session, ExpenseTotalId key) {
+		YearMonth month = YearMonth.of(key.getPeriod() / 100, key.getPeriod() % 100);
+		QuantileSketch sketch = new QuantileSketch();
+		session.createQuery("select e.amount from Expense e where e.category.id = :categoryId "
+				+ "and e.date between :from and :to", Money.class).setParameter("categoryId", key.getCategoryId())
+				.setParameter("from", month.atDay(1)).setParameter("to", month.atEndOfMonth()).list()
+				.forEach(amount -> sketch.add(amount.toDouble()));
+		return sketch;
+	}
+
+	// Stores rebuilt sketches. Failing to store them, e.g. because another reader
+	// stored the same ones first, only costs the next read another rebuild.
+	private void storeSketches(Session session, List<ExpenseSketch> sketches) {
+		Transaction transaction = session.beginTransaction();
+		try {
+			sketches.forEach(session::save);
+			transaction.commit();
+			LOGGER.debug("Stored {} rebuilt expense sketches", sketches.size());
+		} catch (Exception e) {
+			transaction.rollback();
+			LOGGER.warn("Could not store rebuilt expense sketches", e);
+		}
+	}
+
+	private void applyToTotals(Session session, String categoryId, LocalDate date, long cents, long count) {
+		if (date != null) {
+			applyToTotals(session, new ExpenseTotalId(categoryId, ExpenseTotal.toPeriod(date)), cents, count);
+		}
+	}
+
+	// Adds the cents and count to the totals row of the key, creating the row
+	// when it does not exist and removing it once it has no expenses left
+	private void applyToTotals(Session session, ExpenseTotalId id, long cents, long count) {
+		int updated = session
+				.createQuery("update ExpenseTotal t set t.total = t.total + :cents, t.count = t.count + :count "
+						+ "where t.id.categoryId = :categoryId and t.id.period = :period")
+				.setParameter("cents", cents).setParameter("count", count)
+				.setParameter("categoryId", id.getCategoryId()).setParameter("period", id.getPeriod())
+				.executeUpdate();
+		if (updated == 0 && count > 0) {
+			ExpenseTotal total = new ExpenseTotal(id.getCategoryId(),
+					YearMonth.of(id.getPeriod() / 100, id.getPeriod() % 100), Money.ofCents(cents), count);
+			session.save(total);
+		} else if (updated > 0 && count < 0) {
+			session.createQuery("delete from ExpenseTotal t where t.id.categoryId = :categoryId "
+					+ "and t.id.period = :period and t.count <= 0").setParameter("categoryId", id.getCategoryId())
+					.setParameter("period", id.getPeriod()).executeUpdate();
+		}
+	}
 }
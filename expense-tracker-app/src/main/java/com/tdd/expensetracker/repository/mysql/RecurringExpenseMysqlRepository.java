@@ -0,0 +1,139 @@
+package com.tdd.expensetracker.repository.mysql;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.query.Query;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.model.Frequency;
+import com.tdd.expensetracker.model.RecurringExpense;
+import com.tdd.expensetracker.repository.RecurringExpenseRepository;
+
+public class RecurringExpenseMysqlRepository implements RecurringExpenseRepository {
+
+	private SessionFactory sessionFactory;
+	private ExpenseMysqlRepository expenseRepository;
+	private static final Logger LOGGER = LogManager.getLogger(RecurringExpenseMysqlRepository.class);
+
+	// Definitions are read as scalars so that their categories come without the
+	// eagerly fetched expense collections
+	private static final String SELECT_DEFINITIONS = "select r.id, r.amount, r.description, c.id, c.name, "
+			+ "c.description, r.frequency, r.startDate, r.endDate, r.generatedCount, r.nextDate "
+			+ "from RecurringExpense r join r.category c ";
+
+	// Constructor to initialize the repository with a session factory
+	public RecurringExpenseMysqlRepository(SessionFactory sessionFactory) {
+		this.sessionFactory = sessionFactory;
+		this.expenseRepository = new ExpenseMysqlRepository(sessionFactory);
+	}
+
+	// Retrieves all recurring expense definitions
+	@Override
+	public List<RecurringExpense> findAll() {
+		return findDefinitions(SELECT_DEFINITIONS + "order by r.startDate, r.id", null);
+	}
+
+	// Retrieves the definitions with at least one occurrence due on or before the
+	// given date, using the index on next_date
+	@Override
+	public List<RecurringExpense> findDue(LocalDate asOf) {
+		return findDefinitions(SELECT_DEFINITIONS + "where r.nextDate <= :asOf order by r.nextDate, r.id", asOf);
+	}
+
+	// Saves a new recurring expense definition
+	@Override
+	public void save(RecurringExpense recurringExpense) {
+		Session session = sessionFactory.openSession();
+		Transaction transaction = session.beginTransaction();
+		try {
+			session.save(recurringExpense);
+			transaction.commit();
+		} catch (Exception e) {
+			transaction.rollback();
+			LOGGER.error("Failed to save recurring expense", e);
+			throw new HibernateException("Could not save recurring expense.", e);
+		} finally {
+			session.close();
+		}
+	}
+
+	// Deletes a recurring expense definition; the expenses it generated are kept
+	@Override
+	public void delete(String id) {
+		Session session = sessionFactory.openSession();
+		Transaction transaction = session.beginTransaction();
+		try {
+			session.createQuery("delete from RecurringExpense r where r.id = :id").setParameter("id", id)
+					.executeUpdate();
+			transaction.commit();
+		} catch (Exception e) {
+			transaction.rollback();
+			LOGGER.error("Failed to delete recurring expense", e);
+			throw new HibernateException("Could not delete recurring expense.", e);
+		} finally {
+			session.close();
+		}
+	}
+
+	// Saves generated occurrences and moves the watermarks of their definitions in
+	// one transaction, so a crash never leaves occurrences without their
+	// watermark or the other way round. A watermark may only move forward: when
+	// another run already advanced a definition this far, the whole batch is
+	// rolled back rather than written twice.
+	@Override
+	public void saveOccurrences(List<Expense> expenses, List<RecurringExpense> advancedDefinitions) {
+		Session session = sessionFactory.openSession();
+		Transaction transaction = session.beginTransaction();
+		try {
+			expenseRepository.saveAll(session, expenses);
+			for (RecurringExpense definition : advancedDefinitions) {
+				int updated = session
+						.createQuery("update RecurringExpense r set r.generatedCount = :generatedCount, "
+								+ "r.nextDate = :nextDate where r.id = :id and r.generatedCount < :generatedCount")
+						.setParameter("generatedCount", definition.getGeneratedCount())
+						.setParameter("nextDate", definition.getNextDate()).setParameter("id", definition.getId())
+						.executeUpdate();
+				if (updated == 0) {
+					throw new IllegalStateException("Recurring expense " + definition.getId()
+							+ " was already generated up to occurrence " + definition.getGeneratedCount());
+				}
+			}
+			transaction.commit();
+		} catch (Exception e) {
+			transaction.rollback();
+			LOGGER.error("Failed to save recurring expense occurrences", e);
+			throw new HibernateException("Could not save recurring expense occurrences.", e);
+		} finally {
+			session.close();
+		}
+	}
+
+	private List<RecurringExpense> findDefinitions(String hql, LocalDate asOf) {
+		StatelessSession session = sessionFactory.openStatelessSession();
+		try {
+			Query<Object[]> query = session.createQuery(hql, Object[].class);
+			if (asOf != null) {
+				query.setParameter("asOf", asOf);
+			}
+			List<RecurringExpense> definitions = new ArrayList<>();
+			for (Object[] row : query.list()) {
+				definitions.add(new RecurringExpense((String) row[0], (Double) row[1], (String) row[2],
+						new Category((String) row[3], (String) row[4], (String) row[5]), (Frequency) row[6],
+						(LocalDate) row[7], (LocalDate) row[8], (Integer) row[9], (LocalDate) row[10]));
+			}
+			return definitions;
+		} finally {
+			session.close();
+		}
+	}
+}
@@ -0,0 +1,234 @@
+package com.tdd.expensetracker.repository.mysql;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+
+// Applies versioned schema migrations and records the applied version in the
+// schema_version table. When the database is already current the only work
+// done is a single SELECT, so startup no longer pays for hbm2ddl's full
+// metadata diff.
+public class SchemaMigrator {
+
+	private static final Logger LOGGER = LogManager.getLogger(SchemaMigrator.class);
+
+	static final String VERSION_TABLE = "schema_version";
+
+	// Ordered list of all migrations; append new ones, never edit applied ones
+	static final List<Migration> MIGRATIONS = Collections.unmodifiableList(Arrays.asList(
+			new Migration(1, "Create Category and Expense tables",
+					"CREATE TABLE IF NOT EXISTS Category (id VARCHAR(255) NOT NULL, description VARCHAR(255), "
+							+ "name VARCHAR(255), PRIMARY KEY (id))",
+					"CREATE TABLE IF NOT EXISTS Expense (id VARCHAR(255) NOT NULL, amount DOUBLE NOT NULL, "
+							+ "date DATE, description VARCHAR(255), category_id VARCHAR(255) NOT NULL, "
+							+ "PRIMARY KEY (id), CONSTRAINT FK_Expense_Category FOREIGN KEY (category_id) "
+							+ "REFERENCES Category (id))"),
+			// The table is emptied before it is filled so that a rerun after a failure
+			// does not insert duplicate keys
+			new Migration(2, "Create expense_totals table",
+					"CREATE TABLE IF NOT EXISTS expense_totals (category_id VARCHAR(255) NOT NULL, period INT NOT NULL, "
+							+ "total DOUBLE NOT NULL, expense_count BIGINT NOT NULL, PRIMARY KEY (period, category_id))",
+					"DELETE FROM expense_totals", ExpenseMysqlRepository.REBUILD_TOTALS_SQL),
+			new Migration(3, "Create budgets table",
+					"CREATE TABLE IF NOT EXISTS budgets (category_id VARCHAR(255) NOT NULL, "
+							+ "monthly_limit DOUBLE NOT NULL, PRIMARY KEY (category_id))"),
+			new Migration(4, "Create recurring_expenses table",
+					"CREATE TABLE IF NOT EXISTS recurring_expenses (id VARCHAR(255) NOT NULL, amount DOUBLE NOT NULL, "
+							+ "description VARCHAR(255), category_id VARCHAR(255) NOT NULL, frequency VARCHAR(16) NOT NULL, "
+							+ "start_date DATE NOT NULL, end_date DATE, generated_count INT NOT NULL, next_date DATE, "
+							+ "PRIMARY KEY (id), CONSTRAINT FK_RecurringExpense_Category FOREIGN KEY (category_id) "
+							+ "REFERENCES Category (id))",
+					"CREATE INDEX idx_recurring_expenses_next_date ON recurring_expenses (next_date)"),
+			// Sketches are built from the expenses on first read
+			new Migration(5, "Create expense_sketches table",
+					"CREATE TABLE IF NOT EXISTS expense_sketches (category_id VARCHAR(255) NOT NULL, period INT NOT NULL, "
+							+ "sketch BLOB NOT NULL, PRIMARY KEY (period, category_id))"),
+			// Amounts are rounded half up to cents like Money does. The scaling is a
+			// migration of its own: MySQL commits implicitly before DDL, so sharing a
+			// migration with the ALTERs would let a rerun after a failure scale the
+			// amounts twice. A schema created from the entities already stores cents
+			// in a BIGINT column, so the scaling only runs while the column still
+			// holds floating point amounts.
+			new Migration(6, "Scale expense amounts to cents",
+					connection -> isFloatingPoint(connection, "Expense", "amount"),
+					"UPDATE Expense SET amount = ROUND(CAST(amount AS DECIMAL(20, 4)), 2) * 100"),
+			// Safe to rerun, the totals are recomputed from the converted amounts so
+			// they stay exact sums
+			new Migration(7, "Store expense amounts and totals as cents",
+					"ALTER TABLE Expense MODIFY COLUMN amount BIGINT NOT NULL", "DELETE FROM expense_totals",
+					"ALTER TABLE expense_totals MODIFY COLUMN total BIGINT NOT NULL",
+					ExpenseMysqlRepository.REBUILD_TOTALS_SQL)));
+
+	private SessionFactory sessionFactory;
+	private List<Migration> migrations;
+
+	// Constructor to initialize the migrator with the built-in migrations
+	public SchemaMigrator(SessionFactory sessionFactory) {
+		this(sessionFactory, MIGRATIONS);
+	}
+
+	SchemaMigrator(SessionFactory sessionFactory, List<Migration> migrations) {
+		this.sessionFactory = sessionFactory;
+		this.migrations = migrations;
+	}
+
+	// Brings the schema up to the latest version and returns how many migrations
+	// were applied
+	public int migrate() {
+		Session session = sessionFactory.openSession();
+		try {
+			return session.doReturningWork(this::migrate);
+		} catch (Exception e) {
+			LOGGER.error("Failed to migrate schema", e);
+			throw new HibernateException("Could not migrate schema.", e);
+		} finally {
+			session.close();
+		}
+	}
+
+	private int migrate(Connection connection) throws SQLException {
+		int currentVersion = readCurrentVersion(connection);
+		List<Migration> pending = new ArrayList<>();
+		for (Migration migration : migrations) {
+			if (migration.getVersion() > currentVersion) {
+				pending.add(migration);
+			}
+		}
+
+		if (pending.isEmpty()) {
+			LOGGER.info("Schema is up to date at version {}", currentVersion);
+			return 0;
+		}
+
+		boolean autoCommit = connection.getAutoCommit();
+		connection.setAutoCommit(false);
+		try {
+			for (Migration migration : pending) {
+				apply(connection, migration);
+			}
+		} finally {
+			connection.setAutoCommit(autoCommit);
+		}
+		return pending.size();
+	}
+
+	// Reads the applied version, creating the version table on first run
+	private int readCurrentVersion(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement();
+				ResultSet resultSet = statement.executeQuery("SELECT MAX(version) FROM " + VERSION_TABLE)) {
+			return resultSet.next() ? resultSet.getInt(1) : 0;
+		} catch (SQLException e) {
+			LOGGER.info("No {} table found, creating it", VERSION_TABLE);
+			if (!connection.getAutoCommit()) {
+				connection.rollback();
+			}
+			try (Statement statement = connection.createStatement()) {
+				statement.executeUpdate("CREATE TABLE IF NOT EXISTS " + VERSION_TABLE
+						+ " (version INT NOT NULL, description VARCHAR(255), PRIMARY KEY (version))");
+			}
+			return 0;
+		}
+	}
+
+	private void apply(Connection connection, Migration migration) throws SQLException {
+		LOGGER.info("Applying schema migration {}: {}", migration.getVersion(), migration.getDescription());
+		try (Statement statement = connection.createStatement();
+				PreparedStatement record = connection
+						.prepareStatement("INSERT INTO " + VERSION_TABLE + " (version, description) VALUES (?, ?)")) {
+			if (migration.getPrecondition().holds(connection)) {
+				for (String sql : migration.getStatements()) {
+					statement.executeUpdate(sql);
+				}
+			} else {
+				LOGGER.info("Schema already matches migration {}, recording it only", migration.getVersion());
+			}
+			record.setInt(1, migration.getVersion());
+			record.setString(2, migration.getDescription());
+			record.executeUpdate();
+			connection.commit();
+		} catch (SQLException e) {
+			connection.rollback();
+			throw e;
+		}
+	}
+
+	// Whether the column holds floating point values, looked up in the JDBC
+	// metadata with the identifier case the database stores
+	private static boolean isFloatingPoint(Connection connection, String table, String column) throws SQLException {
+		DatabaseMetaData metaData = connection.getMetaData();
+		if (metaData.storesUpperCaseIdentifiers()) {
+			table = table.toUpperCase();
+			column = column.toUpperCase();
+		} else if (metaData.storesLowerCaseIdentifiers()) {
+			table = table.toLowerCase();
+			column = column.toLowerCase();
+		}
+		try (ResultSet columns = metaData.getColumns(connection.getCatalog(), null, table, column)) {
+			while (columns.next()) {
+				int type = columns.getInt("DATA_TYPE");
+				if (type == Types.DOUBLE || type == Types.FLOAT || type == Types.REAL) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	// Check run before a migration's statements; when it does not hold the
+	// schema already has the change and the version is only recorded
+	@FunctionalInterface
+	interface Precondition {
+
+		boolean holds(Connection connection) throws SQLException;
+	}
+
+	// A single numbered schema change made of one or more SQL statements
+	static class Migration {
+
+		private final int version;
+		private final String description;
+		private final Precondition precondition;
+		private final List<String> statements;
+
+		Migration(int version, String description, String... statements) {
+			this(version, description, connection -> true, statements);
+		}
+
+		Migration(int version, String description, Precondition precondition, String... statements) {
+			this.version = version;
+			this.description = description;
+			this.precondition = precondition;
+			this.statements = Arrays.asList(statements);
+		}
+
+		int getVersion() {
+			return version;
+		}
+
+		String getDescription() {
+			return description;
+		}
+
+		Precondition getPrecondition() {
+			return precondition;
+		}
+
+		List<String> getStatements() {
+			return statements;
+		}
+	}
+}
@@ -0,0 +1,137 @@
+package com.tdd.expensetracker.search;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.tdd.expensetracker.controller.ExpenseListener;
+import com.tdd.expensetracker.model.DescriptionUsage;
+import com.tdd.expensetracker.model.Expense;
+
+// Suggests past descriptions starting with a typed prefix, the most used first.
+// Descriptions live in a trie in which every node caches its best entries, so
+// a suggestion is a walk down the prefix and a copy of that node's list.
+//
+// Each use of a description adds a weight that doubles every HALF_LIFE_DAYS of
+// expense date ("forward decay"): recent uses outweigh old ones, yet scores
+// only ever grow, so the cached best entries stay exact without rescoring.
+public class DescriptionSuggester implements ExpenseListener {
+
+	// Entries cached per trie node, the most suggestions a lookup can return
+	static final int MAX_SUGGESTIONS = 8;
+	static final int HALF_LIFE_DAYS = 90;
+
+	private final Node root = new Node();
+	private final Map<String, Entry> entries = new HashMap<>();
+
+	// Adds the usage of past descriptions, as read with one aggregate query. All
+	// uses of a description are weighted as if made on its last use.
+	public synchronized void load(List<DescriptionUsage> usages) {
+		for (DescriptionUsage usage : usages) {
+			record(usage.getDescription(), usage.getLastUsed(), usage.getCount());
+		}
+	}
+
+	// Returns at most limit past descriptions starting with the prefix, ignoring
+	// case, best first
+	public synchronized List<String> suggest(String prefix, int limit) {
+		String key = normalize(prefix);
+		List<String> suggestions = new ArrayList<>();
+		if (key.isEmpty()) {
+			return suggestions;
+		}
+		Node node = root;
+		for (int i = 0; i < key.length() && node != null; i++) {
+			node = node.children.get(key.charAt(i));
+		}
+		if (node != null) {
+			for (int i = 0; i < node.best.size() && suggestions.size() < limit; i++) {
+				suggestions.add(node.best.get(i).description);
+			}
+		}
+		return suggestions;
+	}
+
+	@Override
+	public synchronized void expenseAdded(Expense expense) {
+		record(expense.getDescription(), expense.getDate(), 1);
+	}
+
+	@Override
+	public synchronized void expensesAdded(List<Expense> expenses) {
+		expenses.forEach(expense -> record(expense.getDescription(), expense.getDate(), 1));
+	}
+
+	@Override
+	public synchronized void expenseUpdated(Expense previousExpense, Expense updatedExpense) {
+		if (!normalize(updatedExpense.getDescription()).equals(normalize(previousExpense.getDescription()))) {
+			record(updatedExpense.getDescription(), updatedExpense.getDate(), 1);
+		}
+	}
+
+	// Past uses keep counting after a deletion; only additions change the ranking
+	@Override
+	public void expenseDeleted(Expense expense) {
+		// Nothing to update
+	}
+
+	private void record(String description, LocalDate date, long uses) {
+		String key = normalize(description);
+		if (key.isEmpty()) {
+			return;
+		}
+		Entry entry = entries.computeIfAbsent(key, k -> new Entry());
+		// The latest spelling is the one suggested
+		entry.description = description.trim();
+		entry.score += uses * weight(date);
+
+		Node node = root;
+		for (int i = 0; i < key.length(); i++) {
+			node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+			node.offer(entry);
+		}
+	}
+
+	private static double weight(LocalDate date) {
+		long day = date != null ? date.toEpochDay() : LocalDate.now().toEpochDay();
+		return Math.pow(2, (double) day / HALF_LIFE_DAYS);
+	}
+
+	private static String normalize(String text) {
+		return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+	}
+
+	private static class Entry {
+		private String description;
+		private double score;
+	}
+
+	private static class Node {
+		private final Map<Character, Node> children = new HashMap<>();
+		// Best entries below this node, highest score first
+		private final List<Entry> best = new ArrayList<>(MAX_SUGGESTIONS + 1);
+
+		// Moves an entry whose score grew to its place among the best entries
+		void offer(Entry entry) {
+			int index = best.indexOf(entry);
+			if (index < 0) {
+				if (best.size() == MAX_SUGGESTIONS && best.get(MAX_SUGGESTIONS - 1).score >= entry.score) {
+					return;
+				}
+				best.add(entry);
+				index = best.size() - 1;
+			}
+			while (index > 0 && best.get(index - 1).score < entry.score) {
+				best.set(index, best.get(index - 1));
+				index--;
+			}
+			best.set(index, entry);
+			if (best.size() > MAX_SUGGESTIONS) {
+				best.remove(MAX_SUGGESTIONS);
+			}
+		}
+	}
+}
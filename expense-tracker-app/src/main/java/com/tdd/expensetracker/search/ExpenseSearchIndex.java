@@ -0,0 +1,369 @@
+package com.tdd.expensetracker.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.tdd.expensetracker.controller.ExpenseListener;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.utils.TextUtils;
+
+// In-memory inverted index over expense descriptions and category names. Every
+// indexed expense gets an increasing document number and each term keeps the
+// sorted list of the documents containing it, so a query only touches the
+// posting lists of its terms instead of scanning all expenses.
+//
+// Changes arrive through the controller's listener hook. A deleted or updated
+// expense leaves a tombstone that queries skip, and the documents are
+// renumbered without them once tombstones make up a quarter of the documents.
+// Searches share a read lock, changes take the write lock.
+public class ExpenseSearchIndex implements ExpenseListener {
+
+	private static final Logger LOGGER = LogManager.getLogger(ExpenseSearchIndex.class);
+
+	// Most terms a query term is expanded to when used as a prefix
+	static final int MAX_PREFIX_TERMS = 64;
+	static final int MIN_TOMBSTONES_TO_COMPACT = 1024;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+	private Postings postings = new Postings();
+	// Changes seen while a rebuild scans the database, replayed on the new postings
+	private List<Consumer<Postings>> changesDuringRebuild;
+
+	// Replaces the index with the expenses supplied by a streaming scan such as
+	// ExpenseRepository.streamAll. Searches keep using the previous postings until
+	// the scan is over; changes made meanwhile are applied to both.
+	public void rebuild(Consumer<Consumer<Expense>> source) {
+		long start = System.nanoTime();
+		lock.writeLock().lock();
+		try {
+			changesDuringRebuild = new ArrayList<>();
+		} finally {
+			lock.writeLock().unlock();
+		}
+
+		Postings rebuilt = new Postings();
+		try {
+			source.accept(rebuilt::put);
+		} finally {
+			lock.writeLock().lock();
+			try {
+				// Replaying is safe even when the scan already saw the change, as adds
+				// and updates replace the document with the same id
+				changesDuringRebuild.forEach(change -> change.accept(rebuilt));
+				changesDuringRebuild = null;
+				postings = rebuilt;
+			} finally {
+				lock.writeLock().unlock();
+			}
+		}
+		LOGGER.info("Indexed {} expenses in {} ms", rebuilt.liveDocuments(), (System.nanoTime() - start) / 1_000_000);
+	}
+
+	// Returns the ids of at most limit expenses matching every term of the query,
+	// best matches first. Each query term matches the indexed terms it is a prefix
+	// of; a whole-word match and a rarer term weigh more, and ties go to the most
+	// recently indexed expense.
+	public List<String> search(String query, int limit) {
+		List<String> terms = TextUtils.tokenize(query);
+		if (terms.isEmpty() || limit <= 0) {
+			return Collections.emptyList();
+		}
+		lock.readLock().lock();
+		try {
+			return postings.search(terms, limit);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Number of expenses currently indexed
+	public int size() {
+		lock.readLock().lock();
+		try {
+			return postings.liveDocuments();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Number of document numbers in use, tombstones included
+	int documentCount() {
+		lock.readLock().lock();
+		try {
+			return postings.idsByDocument.size();
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void expenseAdded(Expense expense) {
+		change(target -> target.put(expense));
+	}
+
+	@Override
+	public void expensesAdded(List<Expense> expenses) {
+		change(target -> expenses.forEach(target::put));
+	}
+
+	@Override
+	public void expenseUpdated(Expense previousExpense, Expense updatedExpense) {
+		change(target -> target.put(updatedExpense));
+	}
+
+	@Override
+	public void expenseDeleted(Expense expense) {
+		change(target -> target.remove(expense.getId()));
+	}
+
+	private void change(Consumer<Postings> change) {
+		lock.writeLock().lock();
+		try {
+			change.accept(postings);
+			if (changesDuringRebuild != null) {
+				changesDuringRebuild.add(change);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// The documents and posting lists; not thread safe on its own
+	private static class Postings {
+
+		private final NavigableMap<String, IntList> postingsByTerm = new TreeMap<>();
+		private final Map<String, Integer> documentsById = new HashMap<>();
+		private final List<String> idsByDocument = new ArrayList<>();
+		private final BitSet tombstones = new BitSet();
+		private int tombstoneCount;
+
+		// Indexes an expense, replacing the document of an expense with the same id
+		void put(Expense expense) {
+			remove(expense.getId());
+			int document = idsByDocument.size();
+			idsByDocument.add(expense.getId());
+			documentsById.put(expense.getId(), document);
+
+			List<String> terms = TextUtils.tokenize(expense.getDescription());
+			if (expense.getCategory() != null) {
+				terms.addAll(TextUtils.tokenize(expense.getCategory().getName()));
+			}
+			for (String term : terms) {
+				// Documents are numbered in increasing order, so appending keeps each
+				// posting list sorted; a term repeated in one expense is kept once
+				IntList list = postingsByTerm.computeIfAbsent(term, key -> new IntList());
+				if (list.size == 0 || list.values[list.size - 1] != document) {
+					list.add(document);
+				}
+			}
+		}
+
+		void remove(String id) {
+			Integer document = documentsById.remove(id);
+			if (document == null) {
+				return;
+			}
+			idsByDocument.set(document, null);
+			tombstones.set(document);
+			tombstoneCount++;
+			if (tombstoneCount >= MIN_TOMBSTONES_TO_COMPACT && tombstoneCount * 4 >= idsByDocument.size()) {
+				compact();
+			}
+		}
+
+		int liveDocuments() {
+			return documentsById.size();
+		}
+
+		List<String> search(List<String> queryTerms, int limit) {
+			// Expand every query term and start from the one with the fewest postings
+			List<List<Match>> expansions = new ArrayList<>(queryTerms.size());
+			for (String queryTerm : queryTerms) {
+				List<Match> matches = expand(queryTerm);
+				if (matches.isEmpty()) {
+					return Collections.emptyList();
+				}
+				expansions.add(matches);
+			}
+			expansions.sort((a, b) -> Long.compare(postingCount(a), postingCount(b)));
+
+			int[] candidates = union(expansions.get(0));
+			double[] scores = new double[candidates.length];
+			int live = candidates.length;
+			for (List<Match> matches : expansions) {
+				boolean[] matched = new boolean[live];
+				for (Match match : matches) {
+					score(match, candidates, live, scores, matched);
+				}
+				// Keep only the candidates matching this query term, in their order
+				int kept = 0;
+				for (int i = 0; i < live; i++) {
+					if (matched[i]) {
+						candidates[kept] = candidates[i];
+						scores[kept++] = scores[i];
+					}
+				}
+				live = kept;
+			}
+
+			// Select the best candidates with a bounded heap whose head is the worst
+			Comparator<Integer> worstFirst = (a, b) -> scores[a] != scores[b] ? Double.compare(scores[a], scores[b])
+					: Integer.compare(candidates[a], candidates[b]);
+			PriorityQueue<Integer> best = new PriorityQueue<>(Math.min(limit, live) + 1, worstFirst);
+			for (int i = 0; i < live; i++) {
+				best.add(i);
+				if (best.size() > limit) {
+					best.poll();
+				}
+			}
+			String[] ids = new String[best.size()];
+			for (int i = ids.length - 1; i >= 0; i--) {
+				ids[i] = idsByDocument.get(candidates[best.poll()]);
+			}
+			return Arrays.asList(ids);
+		}
+
+		// Adds the match's weight to the candidates it contains. Both arrays are
+		// sorted, so the shorter one is walked and looked up in the longer one.
+		private static void score(Match match, int[] candidates, int live, double[] scores, boolean[] matched) {
+			if (match.postings.size < live) {
+				for (int i = 0; i < match.postings.size; i++) {
+					int candidate = Arrays.binarySearch(candidates, 0, live, match.postings.values[i]);
+					if (candidate >= 0) {
+						scores[candidate] += match.weight;
+						matched[candidate] = true;
+					}
+				}
+			} else {
+				for (int i = 0; i < live; i++) {
+					if (match.postings.contains(candidates[i])) {
+						scores[i] += match.weight;
+						matched[i] = true;
+					}
+				}
+			}
+		}
+
+		// The indexed terms starting with the query term, the exact term first and
+		// then the most frequent ones, each weighted by its rarity
+		private List<Match> expand(String queryTerm) {
+			List<Match> matches = new ArrayList<>();
+			for (Map.Entry<String, IntList> entry : postingsByTerm
+					.subMap(queryTerm, true, queryTerm + Character.MAX_VALUE, false).entrySet()) {
+				matches.add(new Match(entry.getValue(), entry.getKey().equals(queryTerm)));
+			}
+			matches.sort((a, b) -> a.exact != b.exact ? Boolean.compare(b.exact, a.exact)
+					: Integer.compare(b.postings.size, a.postings.size));
+			if (matches.size() > MAX_PREFIX_TERMS) {
+				matches = new ArrayList<>(matches.subList(0, MAX_PREFIX_TERMS));
+			}
+			// Tombstoned documents still appear in the posting lists but are not counted
+			double documents = Math.max(1, liveDocuments());
+			for (Match match : matches) {
+				match.weight = Math.log(1 + documents / match.postings.size) * (match.exact ? 2 : 1);
+			}
+			return matches;
+		}
+
+		// Sorted live documents of all the matches
+		private int[] union(List<Match> matches) {
+			BitSet documents = new BitSet();
+			for (Match match : matches) {
+				for (int i = 0; i < match.postings.size; i++) {
+					documents.set(match.postings.values[i]);
+				}
+			}
+			documents.andNot(tombstones);
+			return documents.stream().toArray();
+		}
+
+		private static long postingCount(List<Match> matches) {
+			long count = 0;
+			for (Match match : matches) {
+				count += match.postings.size;
+			}
+			return count;
+		}
+
+		// Renumbers the live documents from zero, keeping their order, and drops the
+		// tombstoned ones from every posting list. The new numbers grow with the old
+		// ones, so the lists remain sorted.
+		private void compact() {
+			long start = System.nanoTime();
+			int[] renumbered = new int[idsByDocument.size()];
+			int live = 0;
+			for (int document = 0; document < renumbered.length; document++) {
+				String id = idsByDocument.get(document);
+				if (id == null) {
+					renumbered[document] = -1;
+				} else {
+					renumbered[document] = live;
+					idsByDocument.set(live, id);
+					documentsById.put(id, live++);
+				}
+			}
+			idsByDocument.subList(live, idsByDocument.size()).clear();
+			postingsByTerm.values().removeIf(list -> list.renumber(renumbered) == 0);
+			LOGGER.debug("Compacted {} tombstones in {} ms", tombstoneCount, (System.nanoTime() - start) / 1_000_000);
+			tombstones.clear();
+			tombstoneCount = 0;
+		}
+	}
+
+	private static class Match {
+		private final IntList postings;
+		private final boolean exact;
+		private double weight;
+
+		Match(IntList postings, boolean exact) {
+			this.postings = postings;
+			this.exact = exact;
+		}
+	}
+
+	// Growable sorted array of document numbers
+	private static class IntList {
+		private int[] values = new int[4];
+		private int size;
+
+		void add(int value) {
+			if (size == values.length) {
+				values = Arrays.copyOf(values, size * 2);
+			}
+			values[size++] = value;
+		}
+
+		boolean contains(int value) {
+			return Arrays.binarySearch(values, 0, size, value) >= 0;
+		}
+
+		// Replaces every value with its new number, dropping those renumbered to -1,
+		// and returns the new size
+		int renumber(int[] renumbered) {
+			int kept = 0;
+			for (int i = 0; i < size; i++) {
+				int value = renumbered[values[i]];
+				if (value >= 0) {
+					values[kept++] = value;
+				}
+			}
+			size = kept;
+			return size;
+		}
+	}
+}
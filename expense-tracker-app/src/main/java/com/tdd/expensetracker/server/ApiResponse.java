@@ -0,0 +1,30 @@
+package com.tdd.expensetracker.server;
+
+import com.tdd.expensetracker.utils.JsonUtils;
+
+// Status code and JSON body produced for one HTTP request
+final class ApiResponse {
+
+	private final int status;
+	private final String body;
+
+	ApiResponse(int status, String body) {
+		this.status = status;
+		this.body = body;
+	}
+
+	static ApiResponse error(int status, String message) {
+		StringBuilder json = new StringBuilder("{\"error\":");
+		JsonUtils.appendString(json, message);
+		return new ApiResponse(status, json.append('}').toString());
+	}
+
+	int getStatus() {
+		return status;
+	}
+
+	// JSON body, null when the response has no content
+	String getBody() {
+		return body;
+	}
+}
@@ -0,0 +1,303 @@
+package com.tdd.expensetracker.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.tdd.expensetracker.controller.CategoryController;
+import com.tdd.expensetracker.controller.ExpenseController;
+import com.tdd.expensetracker.controller.ExpenseIdFilter;
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.report.ExpenseColumns;
+import com.tdd.expensetracker.report.ReportEngine;
+import com.tdd.expensetracker.repository.CategoryRepository;
+import com.tdd.expensetracker.repository.ExpenseRepository;
+import com.tdd.expensetracker.utils.IdAllocator;
+import com.tdd.expensetracker.utils.JsonUtils;
+import com.tdd.expensetracker.utils.ValidationException;
+
+// JSON over HTTP API on top of ExpenseController and CategoryController, served
+// by the JDK's built-in HTTP server on a fixed pool of worker threads.
+//
+// GET /expenses?page=0&size=50, POST /expenses, PUT /expenses/{id},
+// DELETE /expenses/{id}, GET /categories, POST /categories,
+// PUT /categories/{id}, DELETE /categories/{id},
+// GET /reports/spending?categoryId=&from=yyyy-MM-dd&to=yyyy-MM-dd,
+// GET /reports/summary
+//
+// Reports are answered from a columnar copy of the expenses kept current by
+// every write the API makes.
+public class ExpenseHttpServer {
+
+	private static final Logger LOGGER = LogManager.getLogger(ExpenseHttpServer.class);
+
+	static final int DEFAULT_PAGE_SIZE = 50;
+	static final int MAX_PAGE_SIZE = 1000;
+
+	private static final String EXPENSES_PATH = "/expenses";
+	private static final String CATEGORIES_PATH = "/categories";
+	private static final String REPORTS_PATH = "/reports";
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+
+	private final ExpenseRepository expenseRepository;
+	private final CategoryRepository categoryRepository;
+	private final ResponseCollectingExpenseView expenseView = new ResponseCollectingExpenseView();
+	private final ResponseCollectingCategoryView categoryView = new ResponseCollectingCategoryView();
+	private final ExpenseController expenseController;
+	private final CategoryController categoryController;
+	private final ExpenseColumns columns = new ExpenseColumns();
+	private final ReportEngine reportEngine = new ReportEngine();
+
+	// Constructor to create the server on the given address with the given number
+	// of worker threads; the server is started with start()
+	public ExpenseHttpServer(InetSocketAddress address, int threads, ExpenseRepository expenseRepository,
+			CategoryRepository categoryRepository) throws IOException {
+		this.expenseRepository = expenseRepository;
+		this.categoryRepository = categoryRepository;
+		this.expenseController = new ExpenseController(expenseView, expenseRepository, categoryRepository);
+		this.categoryController = new CategoryController(categoryView, categoryRepository);
+		expenseController.addExpenseListener(columns);
+
+		executor = Executors.newFixedThreadPool(threads);
+		server = HttpServer.create(address, 0);
+		server.setExecutor(executor);
+		server.createContext(EXPENSES_PATH, exchange -> handle(exchange, this::handleExpenses));
+		server.createContext(CATEGORIES_PATH, exchange -> handle(exchange, this::handleCategories));
+		server.createContext(REPORTS_PATH, exchange -> handle(exchange, this::handleReports));
+	}
+
+	// Fills the in-memory filters that let the controllers skip the existence
+	// lookups of new expense ids and category names; call before start()
+	public void loadExistenceFilters() {
+		ExpenseIdFilter expenseIdFilter = new ExpenseIdFilter(expenseRepository.countAll());
+		expenseIdFilter.load(expenseRepository::streamIds);
+		expenseController.setExpenseIdFilter(expenseIdFilter);
+		categoryController.loadCategoryNames(categoryRepository.findNames());
+	}
+
+	// Fills the columnar copy of the expenses the reports are computed from with a
+	// streaming scan; call before start()
+	public void loadReportColumns() {
+		columns.rebuild(expenseRepository::streamAll);
+	}
+
+	public void start() {
+		server.start();
+		LOGGER.info("HTTP API listening on {}", server.getAddress());
+	}
+
+	// Stops accepting requests, lets running ones finish and releases the threads
+	public void stop() {
+		server.stop(1);
+		executor.shutdown();
+		try {
+			executor.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		LOGGER.info("HTTP API stopped");
+	}
+
+	// Actual address, useful when the server was created on port 0
+	public InetSocketAddress getAddress() {
+		return server.getAddress();
+	}
+
+	private ApiResponse handleExpenses(HttpExchange exchange) throws IOException {
+		String id = pathId(exchange, EXPENSES_PATH);
+		String method = exchange.getRequestMethod();
+		if ("GET".equals(method) && id == null) {
+			Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+			int page = Math.max(0, intParameter(query, "page", 0));
+			int size = Math.min(MAX_PAGE_SIZE, Math.max(1, intParameter(query, "size", DEFAULT_PAGE_SIZE)));
+			expenseController.expensePage(page, size);
+			return expenseView.takeResponse();
+		}
+		if ("POST".equals(method) && id == null) {
+			expenseController.newExpense(readExpense(IdAllocator.nextId(), readBody(exchange)));
+			return expenseView.takeResponse();
+		}
+		if ("PUT".equals(method) && id != null) {
+			expenseController.updateExpense(readExpense(id, readBody(exchange)));
+			return expenseView.takeResponse();
+		}
+		if ("DELETE".equals(method) && id != null) {
+			// The controller deletes the instance it is given, so pass the stored one
+			Expense existingExpense = expenseRepository.findById(id);
+			expenseController.deleteExpense(existingExpense != null ? existingExpense : new Expense(id, 0d, null, null, null));
+			return expenseView.takeResponse();
+		}
+		return ApiResponse.error(405, "Method not allowed");
+	}
+
+	private ApiResponse handleCategories(HttpExchange exchange) throws IOException {
+		String id = pathId(exchange, CATEGORIES_PATH);
+		String method = exchange.getRequestMethod();
+		if ("GET".equals(method) && id == null) {
+			categoryController.allCategory();
+			return categoryView.takeResponse();
+		}
+		if ("POST".equals(method) && id == null) {
+			Map<String, Object> body = JsonUtils.parseObject(readBody(exchange));
+			categoryController.newCategory(new Category(stringValue(body, "name"), stringValue(body, "description")));
+			return categoryView.takeResponse();
+		}
+		if ("PUT".equals(method) && id != null) {
+			Map<String, Object> body = JsonUtils.parseObject(readBody(exchange));
+			categoryController.updateCategory(
+					new Category(id, stringValue(body, "name"), stringValue(body, "description")));
+			return categoryView.takeResponse();
+		}
+		if ("DELETE".equals(method) && id != null) {
+			// The controller checks the stored category's expenses before deleting
+			Category existingCategory = categoryRepository.findById(id);
+			categoryController.deleteCategory(existingCategory != null ? existingCategory : new Category(id, null, null));
+			return categoryView.takeResponse();
+		}
+		return ApiResponse.error(405, "Method not allowed");
+	}
+
+	private ApiResponse handleReports(HttpExchange exchange) throws IOException {
+		if (!"GET".equals(exchange.getRequestMethod())) {
+			return ApiResponse.error(405, "Method not allowed");
+		}
+		String report = pathId(exchange, REPORTS_PATH);
+		if ("spending".equals(report)) {
+			Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+			return new ApiResponse(200, ReportJson.toJson(columns.aggregate(query.get("categoryId"),
+					dateParameter(query, "from"), dateParameter(query, "to"))));
+		}
+		if ("summary".equals(report)) {
+			return new ApiResponse(200, ReportJson.toJson(reportEngine.summarize(columns)));
+		}
+		return ApiResponse.error(404, "Unknown report " + report);
+	}
+
+	// Runs the handler and writes its response, mapping malformed requests to 400
+	// and unexpected failures to 500
+	private void handle(HttpExchange exchange, RequestHandler handler) throws IOException {
+		ApiResponse response;
+		try {
+			response = handler.handle(exchange);
+		} catch (ValidationException | DateTimeParseException | NumberFormatException | ClassCastException e) {
+			response = ApiResponse.error(400, "Malformed request: " + e.getMessage());
+		} catch (Exception e) {
+			LOGGER.error("Failed to handle {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+			response = ApiResponse.error(500, "Internal server error");
+		}
+		writeResponse(exchange, response);
+	}
+
+	private static void writeResponse(HttpExchange exchange, ApiResponse response) throws IOException {
+		try {
+			if (response.getBody() == null) {
+				exchange.sendResponseHeaders(response.getStatus(), -1);
+				return;
+			}
+			byte[] bytes = response.getBody().getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+			exchange.sendResponseHeaders(response.getStatus(), bytes.length);
+			try (OutputStream body = exchange.getResponseBody()) {
+				body.write(bytes);
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private static Expense readExpense(String id, String body) {
+		Map<String, Object> json = JsonUtils.parseObject(body);
+		Object amount = json.get("amount");
+		if (!(amount instanceof Double)) {
+			throw new ValidationException("amount must be a number");
+		}
+		String date = stringValue(json, "date");
+		String categoryId = stringValue(json, "categoryId");
+		return new Expense(id, (Double) amount, stringValue(json, "description"),
+				date == null ? null : LocalDate.parse(date),
+				categoryId == null ? null : new Category(categoryId, null, null));
+	}
+
+	private static String stringValue(Map<String, Object> json, String key) {
+		Object value = json.get(key);
+		if (value != null && !(value instanceof String)) {
+			throw new ValidationException(key + " must be a string");
+		}
+		return (String) value;
+	}
+
+	// Returns the id following the context path, or null for the collection itself
+	private static String pathId(HttpExchange exchange, String contextPath) {
+		String path = exchange.getRequestURI().getPath();
+		String rest = path.length() > contextPath.length() ? path.substring(contextPath.length() + 1) : "";
+		return rest.isEmpty() ? null : rest;
+	}
+
+	private static Map<String, String> parseQuery(String rawQuery) throws IOException {
+		Map<String, String> parameters = new HashMap<>();
+		if (rawQuery == null || rawQuery.isEmpty()) {
+			return parameters;
+		}
+		for (String pair : rawQuery.split("&")) {
+			int separator = pair.indexOf('=');
+			if (separator > 0) {
+				parameters.put(URLDecoder.decode(pair.substring(0, separator), "UTF-8"),
+						URLDecoder.decode(pair.substring(separator + 1), "UTF-8"));
+			}
+		}
+		return parameters;
+	}
+
+	private static int intParameter(Map<String, String> parameters, String name, int defaultValue) {
+		String value = parameters.get(name);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			throw new ValidationException(name + " must be an integer");
+		}
+	}
+
+	private static LocalDate dateParameter(Map<String, String> parameters, String name) {
+		String value = parameters.get(name);
+		return value == null ? null : LocalDate.parse(value);
+	}
+
+	private static String readBody(HttpExchange exchange) throws IOException {
+		try (InputStream in = exchange.getRequestBody()) {
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				body.write(buffer, 0, read);
+			}
+			return new String(body.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+
+	@FunctionalInterface
+	private interface RequestHandler {
+		ApiResponse handle(HttpExchange exchange) throws IOException;
+	}
+}
@@ -0,0 +1,52 @@
+package com.tdd.expensetracker.server;
+
+import java.util.Map;
+
+import com.tdd.expensetracker.report.SpendingReport;
+import com.tdd.expensetracker.report.SpendingStats;
+import com.tdd.expensetracker.utils.JsonUtils;
+
+// JSON encoding of the spending statistics served under /reports
+final class ReportJson {
+
+	private ReportJson() {
+	}
+
+	static String toJson(SpendingStats stats) {
+		return appendStats(new StringBuilder(), stats).toString();
+	}
+
+	static String toJson(SpendingReport report) {
+		StringBuilder json = new StringBuilder("{\"overall\":");
+		appendStats(json, report.getOverall());
+		json.append(",\"byYear\":");
+		appendGroups(json, report.getByYear());
+		json.append(",\"byMonth\":");
+		appendGroups(json, report.getByMonth());
+		json.append(",\"byCategory\":");
+		appendGroups(json, report.getByCategory());
+		return json.append('}').toString();
+	}
+
+	// Object keyed by the group, such as a year, a month or a category name
+	private static void appendGroups(StringBuilder json, Map<?, SpendingStats> groups) {
+		json.append('{');
+		boolean first = true;
+		for (Map.Entry<?, SpendingStats> group : groups.entrySet()) {
+			if (!first) {
+				json.append(',');
+			}
+			first = false;
+			JsonUtils.appendString(json, group.getKey().toString());
+			json.append(':');
+			appendStats(json, group.getValue());
+		}
+		json.append('}');
+	}
+
+	private static StringBuilder appendStats(StringBuilder json, SpendingStats stats) {
+		return json.append("{\"count\":").append(stats.getCount()).append(",\"total\":").append(stats.getTotal())
+				.append(",\"average\":").append(stats.getAverage()).append(",\"min\":").append(stats.getMin())
+				.append(",\"max\":").append(stats.getMax()).append('}');
+	}
+}
@@ -0,0 +1,85 @@
+package com.tdd.expensetracker.server;
+
+import java.util.List;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.utils.JsonUtils;
+import com.tdd.expensetracker.view.CategoryView;
+
+// CategoryView that turns the controller's callbacks into the HTTP response of
+// the request being served, kept per thread like ResponseCollectingExpenseView
+class ResponseCollectingCategoryView implements CategoryView {
+
+	private final ThreadLocal<ApiResponse> response = new ThreadLocal<>();
+
+	// Returns and clears the response collected on the current thread
+	ApiResponse takeResponse() {
+		ApiResponse collected = response.get();
+		response.remove();
+		return collected != null ? collected : ApiResponse.error(500, "No response from controller");
+	}
+
+	@Override
+	public void showAllCategory(List<Category> category) {
+		response.set(new ApiResponse(200, toJson(category)));
+	}
+
+	@Override
+	public void categoryAdded(Category category) {
+		response.set(new ApiResponse(201, appendCategory(new StringBuilder(), category).toString()));
+	}
+
+	@Override
+	public void showError(String message, Category category) {
+		response.set(ApiResponse.error(400, message));
+	}
+
+	@Override
+	public void categoryDeleted(Category categoryToDelete) {
+		response.set(new ApiResponse(204, null));
+	}
+
+	@Override
+	public void categoryUpdated(Category categoryToUpdate) {
+		response.set(new ApiResponse(200, appendCategory(new StringBuilder(), categoryToUpdate).toString()));
+	}
+
+	@Override
+	public void getAllExpenses(List<Expense> expenses) {
+		StringBuilder json = new StringBuilder().append('[');
+		for (int i = 0; i < expenses.size(); i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			ResponseCollectingExpenseView.appendExpense(json, expenses.get(i));
+		}
+		response.set(new ApiResponse(200, json.append(']').toString()));
+	}
+
+	@Override
+	public void showErrorCategoryNotFound(String message, Category category) {
+		response.set(ApiResponse.error(404, message));
+	}
+
+	static String toJson(List<Category> categories) {
+		StringBuilder json = new StringBuilder().append('[');
+		for (int i = 0; i < categories.size(); i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			appendCategory(json, categories.get(i));
+		}
+		return json.append(']').toString();
+	}
+
+	private static StringBuilder appendCategory(StringBuilder json, Category category) {
+		json.append("{\"id\":");
+		JsonUtils.appendString(json, category.getId());
+		json.append(",\"name\":");
+		JsonUtils.appendString(json, category.getName());
+		json.append(",\"description\":");
+		JsonUtils.appendString(json, category.getDescription());
+		return json.append('}');
+	}
+}
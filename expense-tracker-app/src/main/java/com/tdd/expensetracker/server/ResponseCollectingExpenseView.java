@@ -0,0 +1,108 @@
+package com.tdd.expensetracker.server;
+
+import java.util.List;
+
+import com.tdd.expensetracker.anomaly.SpendingAnomaly;
+import com.tdd.expensetracker.budget.BudgetAlert;
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.utils.JsonUtils;
+import com.tdd.expensetracker.view.ExpenseView;
+
+// ExpenseView that turns the controller's callbacks into the HTTP response of
+// the request being served. Callbacks arrive on the request thread, so the
+// response is kept per thread and a single controller can serve concurrent
+// requests while keeping its synchronized write methods.
+class ResponseCollectingExpenseView implements ExpenseView {
+
+	private final ThreadLocal<ApiResponse> response = new ThreadLocal<>();
+
+	// Returns and clears the response collected on the current thread
+	ApiResponse takeResponse() {
+		ApiResponse collected = response.get();
+		response.remove();
+		return collected != null ? collected : ApiResponse.error(500, "No response from controller");
+	}
+
+	@Override
+	public void showAllExpense(List<Expense> expense) {
+		StringBuilder json = new StringBuilder(expense.size() * 128 + 2).append('[');
+		for (int i = 0; i < expense.size(); i++) {
+			if (i > 0) {
+				json.append(',');
+			}
+			appendExpense(json, expense.get(i));
+		}
+		response.set(new ApiResponse(200, json.append(']').toString()));
+	}
+
+	@Override
+	public void expenseAdded(Expense expense) {
+		response.set(new ApiResponse(201, appendExpense(new StringBuilder(128), expense).toString()));
+	}
+
+	@Override
+	public void showError(String message, Expense expense) {
+		response.set(ApiResponse.error(400, message));
+	}
+
+	@Override
+	public void expenseDeleted(Expense expense) {
+		response.set(new ApiResponse(204, null));
+	}
+
+	@Override
+	public void expenseUpdated(Expense updatedExpense) {
+		response.set(new ApiResponse(200, appendExpense(new StringBuilder(128), updatedExpense).toString()));
+	}
+
+	@Override
+	public void showAllCategory(List<Category> categories) {
+		response.set(new ApiResponse(200, ResponseCollectingCategoryView.toJson(categories)));
+	}
+
+	@Override
+	public void showErrorExpenseNotFound(String message, Expense expense) {
+		response.set(ApiResponse.error(404, message));
+	}
+
+	// Budget alerts are not part of the response of the request that caused them
+	@Override
+	public void showBudgetAlert(BudgetAlert alert) {
+		// Nothing to collect
+	}
+
+	@Override
+	public void showSpendingAnomaly(SpendingAnomaly anomaly) {
+		// Nothing to collect
+	}
+
+	@Override
+	public void showSearchResults(String query, List<Expense> expenses) {
+		showAllExpense(expenses);
+	}
+
+	// The HTTP API has no description field to complete
+	@Override
+	public void showDescriptionSuggestions(String prefix, List<String> suggestions) {
+		// Nothing to collect
+	}
+
+	// Clients choose the category themselves
+	@Override
+	public void showSuggestedCategory(String description, String categoryId) {
+		// Nothing to collect
+	}
+
+	static StringBuilder appendExpense(StringBuilder json, Expense expense) {
+		json.append("{\"id\":");
+		JsonUtils.appendString(json, expense.getId());
+		json.append(",\"amount\":").append(expense.getAmount()).append(",\"description\":");
+		JsonUtils.appendString(json, expense.getDescription());
+		json.append(",\"date\":");
+		JsonUtils.appendString(json, expense.getDate() == null ? null : expense.getDate().toString());
+		json.append(",\"categoryId\":");
+		JsonUtils.appendString(json, expense.getCategory() == null ? null : expense.getCategory().getId());
+		return json.append('}');
+	}
+}
@@ -0,0 +1,33 @@
+package com.tdd.expensetracker.snapshot;
+
+import java.util.List;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+
+// Categories and most recent expenses as they were when the app last shut down
+public class Snapshot {
+
+	private final long createdAt;
+	private final List<Category> categories;
+	private final List<Expense> expenses;
+
+	public Snapshot(long createdAt, List<Category> categories, List<Expense> expenses) {
+		this.createdAt = createdAt;
+		this.categories = categories;
+		this.expenses = expenses;
+	}
+
+	// Epoch milliseconds at which the snapshot was written
+	public long getCreatedAt() {
+		return createdAt;
+	}
+
+	public List<Category> getCategories() {
+		return categories;
+	}
+
+	public List<Expense> getExpenses() {
+		return expenses;
+	}
+}
@@ -0,0 +1,159 @@
+package com.tdd.expensetracker.snapshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.model.Money;
+
+// Reads and writes a compact local snapshot of categories and recent expenses so
+// the views can render immediately on the next launch, before the database has
+// answered.
+public class SnapshotStore {
+
+	private static final Logger LOGGER = LogManager.getLogger(SnapshotStore.class);
+
+	private static final int MAGIC = 0x45545350; // "ETSP"
+	// Version 2 stores amounts as cents
+	private static final byte FORMAT_VERSION = 2;
+
+	private Path file;
+
+	// Constructor to initialize the store with the snapshot file location
+	public SnapshotStore(Path file) {
+		this.file = file;
+	}
+
+	// Writes the snapshot to a temporary file and moves it into place so a crash
+	// never leaves a half written snapshot behind
+	public void write(List<Category> categories, List<Expense> expenses) {
+		LOGGER.info("Writing snapshot of {} categories and {} expenses to {}", categories.size(), expenses.size(),
+				file);
+		try {
+			Path parent = file.toAbsolutePath().getParent();
+			Files.createDirectories(parent);
+			Path temp = Files.createTempFile(parent, "snapshot", ".tmp");
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				writeSnapshot(out, categories, expenses);
+			}
+			moveIntoPlace(temp);
+		} catch (IOException e) {
+			LOGGER.error("Failed to write snapshot", e);
+		}
+	}
+
+	// Reads the snapshot, returning null when there is none or it cannot be used
+	public Snapshot read() {
+		if (!Files.exists(file)) {
+			LOGGER.info("No snapshot found at {}", file);
+			return null;
+		}
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			return readSnapshot(in);
+		} catch (IOException e) {
+			LOGGER.error("Failed to read snapshot, ignoring it", e);
+			return null;
+		}
+	}
+
+	private void writeSnapshot(DataOutputStream out, List<Category> categories, List<Expense> expenses)
+			throws IOException {
+		out.writeInt(MAGIC);
+		out.writeByte(FORMAT_VERSION);
+		out.writeLong(System.currentTimeMillis());
+
+		// Categories are written once and referenced from expenses by position
+		Map<String, Integer> categoryIndex = new HashMap<>();
+		out.writeInt(categories.size());
+		for (Category category : categories) {
+			categoryIndex.put(category.getId(), categoryIndex.size());
+			out.writeUTF(category.getId());
+			writeNullableString(out, category.getName());
+			writeNullableString(out, category.getDescription());
+		}
+
+		out.writeInt(expenses.size());
+		for (Expense expense : expenses) {
+			out.writeUTF(expense.getId());
+			out.writeLong(expense.getAmountCents());
+			writeNullableString(out, expense.getDescription());
+			out.writeLong(expense.getDate() == null ? Long.MIN_VALUE : expense.getDate().toEpochDay());
+			Integer index = expense.getCategory() == null ? null : categoryIndex.get(expense.getCategory().getId());
+			out.writeInt(index == null ? -1 : index);
+		}
+	}
+
+	private Snapshot readSnapshot(DataInputStream in) throws IOException {
+		if (in.readInt() != MAGIC || in.readByte() != FORMAT_VERSION) {
+			LOGGER.warn("Snapshot {} has an unknown format, ignoring it", file);
+			return null;
+		}
+		long createdAt = in.readLong();
+
+		int categoryCount = readCount(in);
+		List<Category> categories = new ArrayList<>(categoryCount);
+		for (int i = 0; i < categoryCount; i++) {
+			categories.add(new Category(in.readUTF(), readNullableString(in), readNullableString(in)));
+		}
+
+		int expenseCount = readCount(in);
+		List<Expense> expenses = new ArrayList<>(expenseCount);
+		for (int i = 0; i < expenseCount; i++) {
+			String id = in.readUTF();
+			Money amount = Money.ofCents(in.readLong());
+			String description = readNullableString(in);
+			long epochDay = in.readLong();
+			int index = in.readInt();
+			if (index >= categories.size()) {
+				throw new IOException("Expense " + id + " refers to missing category " + index);
+			}
+			expenses.add(new Expense(id, amount, description,
+					epochDay == Long.MIN_VALUE ? null : LocalDate.ofEpochDay(epochDay),
+					index < 0 ? null : categories.get(index)));
+		}
+		return new Snapshot(createdAt, categories, expenses);
+	}
+
+	private void moveIntoPlace(Path temp) throws IOException {
+		try {
+			Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static int readCount(DataInputStream in) throws IOException {
+		int count = in.readInt();
+		if (count < 0) {
+			throw new IOException("Negative count " + count);
+		}
+		return count;
+	}
+
+	private static String readNullableString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+}
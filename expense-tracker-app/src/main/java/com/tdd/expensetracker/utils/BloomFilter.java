@@ -0,0 +1,69 @@
+package com.tdd.expensetracker.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Thread-safe Bloom filter over strings. mightContain never misses a key that
+// was put; it wrongly answers true for an absent key with about the false
+// positive rate it was sized for, as long as no more than the expected number
+// of keys are put.
+public class BloomFilter {
+
+	private static final double LN2 = Math.log(2);
+
+	private final AtomicLongArray words;
+	private final long bitCount;
+	private final int hashCount;
+
+	// Constructor sizing the filter for the expected number of keys and the
+	// wanted false positive rate
+	public BloomFilter(long expectedKeys, double falsePositiveRate) {
+		long keys = Math.max(1, expectedKeys);
+		long bits = (long) Math.ceil(-keys * Math.log(falsePositiveRate) / (LN2 * LN2));
+		int wordCount = (int) Math.max(1, (bits + 63) / 64);
+		this.words = new AtomicLongArray(wordCount);
+		this.bitCount = wordCount * 64L;
+		this.hashCount = (int) Math.max(1, Math.round((double) bitCount / keys * LN2));
+	}
+
+	public void put(String key) {
+		long hash = hash(key);
+		long step = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+		for (int i = 0; i < hashCount; i++) {
+			long bit = Math.floorMod(hash + i * step, bitCount);
+			long mask = 1L << bit;
+			int word = (int) (bit >>> 6);
+			if ((words.get(word) & mask) == 0) {
+				words.accumulateAndGet(word, mask, (current, added) -> current | added);
+			}
+		}
+	}
+
+	// False means the key was definitely never put
+	public boolean mightContain(String key) {
+		long hash = hash(key);
+		long step = mix(hash ^ 0x9E3779B97F4A7C15L) | 1;
+		for (int i = 0; i < hashCount; i++) {
+			long bit = Math.floorMod(hash + i * step, bitCount);
+			if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// 64-bit FNV-1a over the characters, finished with a mixing step so that
+	// the low bits depend on every character
+	private static long hash(String key) {
+		long hash = 0xCBF29CE484222325L;
+		for (int i = 0; i < key.length(); i++) {
+			hash = (hash ^ key.charAt(i)) * 0x100000001B3L;
+		}
+		return mix(hash);
+	}
+
+	private static long mix(long value) {
+		value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+		value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+		return value ^ (value >>> 33);
+	}
+}
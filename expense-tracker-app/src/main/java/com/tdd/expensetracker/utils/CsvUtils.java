@@ -0,0 +1,89 @@
+package com.tdd.expensetracker.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Utility class for reading and writing single CSV lines (RFC 4180 quoting, no
+// embedded line breaks)
+public class CsvUtils {
+
+	private static final char SEPARATOR = ',';
+	private static final char QUOTE = '"';
+
+	// Private constructor to prevent instantiation since this is a utility class
+	private CsvUtils() {
+	}
+
+	// Splits a CSV line into its fields, unescaping quoted fields
+	// Throws a ValidationException if a quoted field is not closed
+	public static List<String> parseLine(String line) {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		int i = 0;
+		while (i < line.length()) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c == QUOTE && i + 1 < line.length() && line.charAt(i + 1) == QUOTE) {
+					field.append(QUOTE);
+					i++;
+				} else if (c == QUOTE) {
+					quoted = false;
+				} else {
+					field.append(c);
+				}
+			} else if (c == QUOTE) {
+				quoted = true;
+			} else if (c == SEPARATOR) {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+			i++;
+		}
+		if (quoted) {
+			throw new ValidationException("Unterminated quoted field");
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+
+	// Appends the fields as one CSV line, quoting only the fields that need it
+	public static void appendLine(StringBuilder line, String... fields) {
+		for (int i = 0; i < fields.length; i++) {
+			if (i > 0) {
+				line.append(SEPARATOR);
+			}
+			appendField(line, fields[i]);
+		}
+	}
+
+	// Formats the fields as one CSV line
+	public static String formatLine(String... fields) {
+		StringBuilder line = new StringBuilder();
+		appendLine(line, fields);
+		return line.toString();
+	}
+
+	private static void appendField(StringBuilder line, String field) {
+		if (field == null) {
+			return;
+		}
+		boolean needsQuotes = field.indexOf(SEPARATOR) >= 0 || field.indexOf(QUOTE) >= 0
+				|| field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0;
+		if (!needsQuotes) {
+			line.append(field);
+			return;
+		}
+		line.append(QUOTE);
+		for (int i = 0; i < field.length(); i++) {
+			char c = field.charAt(i);
+			if (c == QUOTE) {
+				line.append(QUOTE);
+			}
+			line.append(c);
+		}
+		line.append(QUOTE);
+	}
+}
@@ -0,0 +1,101 @@
+package com.tdd.expensetracker.utils;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Hands out time-ordered ids before persistence, so new rows can be referenced
+// and batched before they are saved. Ids use the UUID version 7 layout: 48 bits
+// of Unix milliseconds, a 12-bit sequence and 62 random bits drawn once per
+// allocator. They sort by creation time as strings, which also keeps inserts
+// at the end of the primary key index.
+//
+// Each thread reserves a block of BLOCK_SIZE sequence values with a single
+// compare-and-set and hands them out without further contention; a block is
+// dropped once its millisecond has passed so ids keep following the clock.
+public class IdAllocator {
+
+	static final int BLOCK_SIZE = 64;
+	private static final int SEQUENCE_BITS = 12;
+
+	private static final IdAllocator DEFAULT = new IdAllocator(System::currentTimeMillis,
+			new SecureRandom().nextLong());
+
+	private final LongSupplier clock;
+	private final long randomBits;
+	// Milliseconds and sequence of the next value to reserve
+	private final AtomicLong next = new AtomicLong();
+	// Next and end values of the thread's current block
+	private final ThreadLocal<long[]> blocks = ThreadLocal.withInitial(() -> new long[2]);
+
+	// Constructor taking the clock in milliseconds and the random bits of the ids
+	public IdAllocator(LongSupplier clock, long random) {
+		this.clock = clock;
+		this.randomBits = (random >>> 2) | 0x8000000000000000L;
+	}
+
+	// Next id of the shared allocator
+	public static String nextId() {
+		return DEFAULT.next();
+	}
+
+	// Whether the shared allocator of this process handed out the id, in which
+	// case it cannot belong to a row saved by anyone else
+	public static boolean isAllocatedHere(String id) {
+		return DEFAULT.allocated(id);
+	}
+
+	public boolean allocated(String id) {
+		if (id == null || id.length() != 36) {
+			return false;
+		}
+		try {
+			UUID uuid = UUID.fromString(id);
+			return uuid.getLeastSignificantBits() == randomBits && uuid.version() == 7;
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	public String next() {
+		long[] block = blocks.get();
+		if (block[0] == block[1] || block[0] >>> SEQUENCE_BITS < clock.getAsLong()) {
+			block[0] = reserve(BLOCK_SIZE);
+			block[1] = block[0] + BLOCK_SIZE;
+		}
+		return format(block[0]++);
+	}
+
+	// Allocates consecutive ids with a single reservation, for bulk paths
+	public List<String> next(int count) {
+		long start = reserve(count);
+		List<String> ids = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			ids.add(format(start + i));
+		}
+		return ids;
+	}
+
+	// Reserves count values no older than the current millisecond and returns
+	// the first one. A burst of more than 4096 ids in a millisecond borrows the
+	// following milliseconds, so values never repeat or go backwards.
+	private long reserve(int count) {
+		long now = clock.getAsLong() << SEQUENCE_BITS;
+		while (true) {
+			long current = next.get();
+			long start = Math.max(now, current);
+			if (next.compareAndSet(current, start + count)) {
+				return start;
+			}
+		}
+	}
+
+	private String format(long value) {
+		long millis = value >>> SEQUENCE_BITS;
+		long sequence = value & ((1 << SEQUENCE_BITS) - 1);
+		return new UUID((millis << 16) | 0x7000 | sequence, randomBits).toString();
+	}
+}
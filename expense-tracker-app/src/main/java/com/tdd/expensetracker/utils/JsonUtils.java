@@ -0,0 +1,203 @@
+package com.tdd.expensetracker.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Utility class for the minimal JSON support of the HTTP API and the exporter:
+// string escaping and a parser for flat objects (strings, numbers, booleans and
+// null)
+public class JsonUtils {
+
+	// Private constructor to prevent instantiation since this is a utility class
+	private JsonUtils() {
+	}
+
+	// Appends the value as a quoted JSON string, or null
+	public static StringBuilder appendString(StringBuilder json, String value) {
+		if (value == null) {
+			return json.append("null");
+		}
+		json.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				json.append("\\\"");
+				break;
+			case '\\':
+				json.append("\\\\");
+				break;
+			case '\n':
+				json.append("\\n");
+				break;
+			case '\r':
+				json.append("\\r");
+				break;
+			case '\t':
+				json.append("\\t");
+				break;
+			default:
+				if (c < 0x20) {
+					json.append(String.format("\\u%04x", (int) c));
+				} else {
+					json.append(c);
+				}
+			}
+		}
+		return json.append('"');
+	}
+
+	// Parses a JSON object whose values are strings, numbers, booleans or null
+	// Throws a ValidationException if the text is not such an object
+	public static Map<String, Object> parseObject(String text) {
+		Parser parser = new Parser(text);
+		Map<String, Object> object = parser.readObject();
+		parser.skipWhitespace();
+		if (!parser.atEnd()) {
+			throw new ValidationException("Unexpected content after JSON object");
+		}
+		return object;
+	}
+
+	private static class Parser {
+
+		private final String text;
+		private int position;
+
+		Parser(String text) {
+			this.text = text == null ? "" : text;
+		}
+
+		Map<String, Object> readObject() {
+			Map<String, Object> object = new LinkedHashMap<>();
+			expect('{');
+			skipWhitespace();
+			if (peek() == '}') {
+				position++;
+				return object;
+			}
+			while (true) {
+				skipWhitespace();
+				String key = readString();
+				skipWhitespace();
+				expect(':');
+				skipWhitespace();
+				object.put(key, readValue());
+				skipWhitespace();
+				char c = next();
+				if (c == '}') {
+					return object;
+				}
+				if (c != ',') {
+					throw new ValidationException("Expected ',' or '}' at position " + (position - 1));
+				}
+			}
+		}
+
+		private Object readValue() {
+			char c = peek();
+			if (c == '"') {
+				return readString();
+			}
+			if (text.startsWith("true", position)) {
+				position += 4;
+				return Boolean.TRUE;
+			}
+			if (text.startsWith("false", position)) {
+				position += 5;
+				return Boolean.FALSE;
+			}
+			if (text.startsWith("null", position)) {
+				position += 4;
+				return null;
+			}
+			if (c == '-' || Character.isDigit(c)) {
+				return readNumber();
+			}
+			throw new ValidationException("Unsupported JSON value at position " + position);
+		}
+
+		private Double readNumber() {
+			int start = position;
+			while (!atEnd() && "+-.eE0123456789".indexOf(peek()) >= 0) {
+				position++;
+			}
+			try {
+				return Double.valueOf(text.substring(start, position));
+			} catch (NumberFormatException e) {
+				throw new ValidationException("Invalid number at position " + start);
+			}
+		}
+
+		private String readString() {
+			expect('"');
+			StringBuilder value = new StringBuilder();
+			while (true) {
+				char c = next();
+				if (c == '"') {
+					return value.toString();
+				}
+				if (c != '\\') {
+					value.append(c);
+					continue;
+				}
+				char escaped = next();
+				switch (escaped) {
+				case 'n':
+					value.append('\n');
+					break;
+				case 'r':
+					value.append('\r');
+					break;
+				case 't':
+					value.append('\t');
+					break;
+				case 'b':
+					value.append('\b');
+					break;
+				case 'f':
+					value.append('\f');
+					break;
+				case 'u':
+					if (position + 4 > text.length()) {
+						throw new ValidationException("Invalid unicode escape at position " + position);
+					}
+					value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+					position += 4;
+					break;
+				default:
+					value.append(escaped);
+				}
+			}
+		}
+
+		void skipWhitespace() {
+			while (!atEnd() && Character.isWhitespace(peek())) {
+				position++;
+			}
+		}
+
+		boolean atEnd() {
+			return position >= text.length();
+		}
+
+		private char peek() {
+			if (atEnd()) {
+				throw new ValidationException("Unexpected end of JSON");
+			}
+			return text.charAt(position);
+		}
+
+		private char next() {
+			char c = peek();
+			position++;
+			return c;
+		}
+
+		private void expect(char expected) {
+			if (next() != expected) {
+				throw new ValidationException("Expected '" + expected + "' at position " + (position - 1));
+			}
+		}
+	}
+}
@@ -0,0 +1,50 @@
+package com.tdd.expensetracker.utils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// Utility class for breaking free text such as descriptions into words and
+// comparing names
+public class TextUtils {
+
+	private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+	private static final Pattern NOT_LETTER_OR_DIGIT = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+	// Private constructor to prevent instantiation since this is a utility class
+	private TextUtils() {
+	}
+
+	// Splits text into lower case words of letters and digits
+	public static List<String> tokenize(String text) {
+		List<String> tokens = new ArrayList<>();
+		if (text == null) {
+			return tokens;
+		}
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+			if (wordChar && start < 0) {
+				start = i;
+			} else if (!wordChar && start >= 0) {
+				tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+				start = -1;
+			}
+		}
+		return tokens;
+	}
+
+	// Key under which names that MySQL's default accent and case insensitive
+	// collation finds equal always fall together: accents, case, ligatures and
+	// everything but letters and digits are dropped. Names with the same key may
+	// still differ for the database, so the key only serves as a hint such as a
+	// Bloom filter key or a first filter before an exact comparison.
+	public static String collationKey(String text) {
+		String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD)).replaceAll("")
+				.toLowerCase(Locale.ROOT).replace("ß", "ss").replace("æ", "ae").replace("œ", "oe")
+				.replace("ø", "o").replace("đ", "d").replace("ł", "l");
+		return NOT_LETTER_OR_DIGIT.matcher(folded).replaceAll("");
+	}
+}
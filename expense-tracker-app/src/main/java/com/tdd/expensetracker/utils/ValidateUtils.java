@@ -5,6 +5,8 @@ import java.time.LocalDate;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.tdd.expensetracker.model.Money;
+
 // Utility class for common validation functions (e.g., string validation, amount validation, date validation)
 public class ValidateUtils {
 
@@ -28,12 +30,16 @@ public class ValidateUtils {
 		return true;
 	}
 
-	// Validates that the amount is greater than zero
+	// Validates that the amount is greater than zero once rounded to cents
 	// Throws a ValidationException if the amount is invalid
 	public static boolean validateAmount(Double amount) {
+		return validateAmount(Money.of(amount));
+	}
+
+	public static boolean validateAmount(Money amount) {
 		LOGGER.debug("Validating amount: {}", amount);
 
-		if (amount <= 0) {
+		if (!amount.isPositive()) {
 			LOGGER.error("Validation failed: Amount must be greater than zero, but was {}", amount);
 			throw new ValidationException("Amount must be greater than zero");
 		}
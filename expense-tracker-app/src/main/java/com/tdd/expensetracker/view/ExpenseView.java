@@ -2,6 +2,8 @@ package com.tdd.expensetracker.view;
 
 import java.util.List;
 
+import com.tdd.expensetracker.anomaly.SpendingAnomaly;
+import com.tdd.expensetracker.budget.BudgetAlert;
 import com.tdd.expensetracker.model.Category;
 import com.tdd.expensetracker.model.Expense;
 
@@ -21,4 +23,14 @@ public interface ExpenseView {
 
 	void showErrorExpenseNotFound(String message, Expense expense);
 
+	void showBudgetAlert(BudgetAlert alert);
+
+	void showSearchResults(String query, List<Expense> expenses);
+
+	void showDescriptionSuggestions(String prefix, List<String> suggestions);
+
+	void showSuggestedCategory(String description, String categoryId);
+
+	void showSpendingAnomaly(SpendingAnomaly anomaly);
+
 }
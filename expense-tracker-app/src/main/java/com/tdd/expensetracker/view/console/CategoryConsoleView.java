@@ -0,0 +1,69 @@
+package com.tdd.expensetracker.view.console;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.view.CategoryView;
+
+// CategoryView for headless commands: changes are printed and errors go to the
+// error stream
+public class CategoryConsoleView implements CategoryView {
+
+	private final PrintStream out;
+	private final PrintStream err;
+	private final AtomicLong errorCount = new AtomicLong();
+
+	public CategoryConsoleView(PrintStream out, PrintStream err) {
+		this.out = out;
+		this.err = err;
+	}
+
+	@Override
+	public void showAllCategory(List<Category> category) {
+		category.forEach(c -> out.println(getDisplayString(c)));
+	}
+
+	@Override
+	public void categoryAdded(Category category) {
+		out.println("Added category " + getDisplayString(category));
+	}
+
+	@Override
+	public void showError(String message, Category category) {
+		errorCount.incrementAndGet();
+		err.println(message + ": " + category);
+	}
+
+	@Override
+	public void categoryDeleted(Category categoryToDelete) {
+		out.println("Deleted category " + getDisplayString(categoryToDelete));
+	}
+
+	@Override
+	public void categoryUpdated(Category categoryToUpdate) {
+		out.println("Updated category " + getDisplayString(categoryToUpdate));
+	}
+
+	@Override
+	public void getAllExpenses(List<Expense> expenses) {
+		expenses.forEach(expense -> out.println(expense.getId() + " | " + expense.getDescription() + " | "
+				+ expense.getAmount() + " | " + expense.getDate()));
+	}
+
+	@Override
+	public void showErrorCategoryNotFound(String message, Category category) {
+		showError(message, category);
+	}
+
+	// Number of errors reported
+	public long getErrorCount() {
+		return errorCount.get();
+	}
+
+	private String getDisplayString(Category category) {
+		return category.getId() + " | " + category.getName() + " | " + category.getDescription();
+	}
+}
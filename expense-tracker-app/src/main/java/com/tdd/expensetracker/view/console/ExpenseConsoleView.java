@@ -0,0 +1,103 @@
+package com.tdd.expensetracker.view.console;
+
+import java.io.PrintStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.tdd.expensetracker.anomaly.SpendingAnomaly;
+import com.tdd.expensetracker.budget.BudgetAlert;
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.view.ExpenseView;
+
+// ExpenseView for headless commands: listings and changes are printed, errors go
+// to the error stream, and added expenses are only counted so bulk imports do
+// not print one line per row.
+public class ExpenseConsoleView implements ExpenseView {
+
+	private final PrintStream out;
+	private final PrintStream err;
+	private final AtomicLong addedCount = new AtomicLong();
+	private final AtomicLong errorCount = new AtomicLong();
+
+	public ExpenseConsoleView(PrintStream out, PrintStream err) {
+		this.out = out;
+		this.err = err;
+	}
+
+	@Override
+	public void showAllExpense(List<Expense> expense) {
+		expense.forEach(e -> out.println(getDisplayString(e)));
+	}
+
+	@Override
+	public void expenseAdded(Expense expense) {
+		addedCount.incrementAndGet();
+	}
+
+	@Override
+	public void showError(String message, Expense expense) {
+		errorCount.incrementAndGet();
+		err.println(message + ": " + expense);
+	}
+
+	@Override
+	public void expenseDeleted(Expense expense) {
+		out.println("Deleted " + getDisplayString(expense));
+	}
+
+	@Override
+	public void expenseUpdated(Expense updatedExpense) {
+		out.println("Updated " + getDisplayString(updatedExpense));
+	}
+
+	@Override
+	public void showAllCategory(List<Category> categories) {
+		categories.forEach(category -> out.println(category.getId() + " | " + category.getName()));
+	}
+
+	@Override
+	public void showErrorExpenseNotFound(String message, Expense expense) {
+		showError(message, expense);
+	}
+
+	@Override
+	public void showBudgetAlert(BudgetAlert alert) {
+		err.println(alert.getMessage());
+	}
+
+	@Override
+	public void showSpendingAnomaly(SpendingAnomaly anomaly) {
+		err.println(anomaly.getMessage());
+	}
+
+	@Override
+	public void showSearchResults(String query, List<Expense> expenses) {
+		showAllExpense(expenses);
+	}
+
+	@Override
+	public void showDescriptionSuggestions(String prefix, List<String> suggestions) {
+		suggestions.forEach(out::println);
+	}
+
+	@Override
+	public void showSuggestedCategory(String description, String categoryId) {
+		out.println(description + " | " + categoryId);
+	}
+
+	// Number of expenses reported as added
+	public long getAddedCount() {
+		return addedCount.get();
+	}
+
+	// Number of errors reported
+	public long getErrorCount() {
+		return errorCount.get();
+	}
+
+	private String getDisplayString(Expense expense) {
+		return expense.getId() + " | " + expense.getDescription() + " | " + expense.getAmount() + " | "
+				+ expense.getDate() + " | " + (expense.getCategory() == null ? "" : expense.getCategory().getName());
+	}
+}
@@ -10,6 +10,7 @@ import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.stream.IntStream;
@@ -33,6 +34,7 @@ import javax.swing.table.AbstractTableModel;
 import com.tdd.expensetracker.controller.CategoryController;
 import com.tdd.expensetracker.model.Category;
 import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.model.Money;
 import com.tdd.expensetracker.view.CategoryView;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
@@ -63,6 +65,7 @@ public class CategorySwingView extends JFrame implements CategoryView {
 
 	private JTextField txtID;
 	private transient CategoryController categoryController;
+	private final transient List<Runnable> pendingActions = new ArrayList<>();
 	private ExpenseSwingView expenseView;
 	private JTable expenseTable;
 	private JLabel lblHideTable;
@@ -75,6 +78,18 @@ public class CategorySwingView extends JFrame implements CategoryView {
 
 	public void setCategoryController(CategoryController categoryController) {
 		this.categoryController = categoryController;
+		pendingActions.forEach(Runnable::run);
+		pendingActions.clear();
+	}
+
+	// Runs an action of the controller, or holds it until the controller is linked
+	// while a warm-start snapshot is shown. Both happen on the EventQueue thread.
+	private void whenLinked(Runnable action) {
+		if (categoryController == null) {
+			pendingActions.add(action);
+		} else {
+			action.run();
+		}
 	}
 
 	/**
@@ -84,6 +99,10 @@ public class CategorySwingView extends JFrame implements CategoryView {
 		addWindowListener(new WindowAdapter() {
 			@Override
 			public void windowActivated(WindowEvent e) {
+				// The controller is not linked yet while a warm-start snapshot is shown
+				if (categoryController == null) {
+					return;
+				}
 				listCategoryModel.removeAllElements();
 				categoryController.allCategory();
 
@@ -175,10 +194,10 @@ public class CategorySwingView extends JFrame implements CategoryView {
 		txtDescription.setColumns(10);
 
 		btnAddCategory = new JButton("Add Category");
-		btnAddCategory.addActionListener(e -> new Thread(() -> {
+		btnAddCategory.addActionListener(e -> whenLinked(() -> new Thread(() -> {
 			Category category = new Category(txtName.getText(), txtDescription.getText());
 			categoryController.newCategory(category);
-		}).start());
+		}).start()));
 		btnAddCategory.setEnabled(false);
 		btnAddCategory.setName("categoryButton");
 		GridBagConstraints gbc_btnAddCategory = new GridBagConstraints();
@@ -200,10 +219,10 @@ public class CategorySwingView extends JFrame implements CategoryView {
 		contentPane.add(btnCancel, gbc_btnCancel);
 
 		btnUpdateCategory = new JButton("Update Category");
-		btnUpdateCategory.addActionListener(e -> new Thread(() -> {
+		btnUpdateCategory.addActionListener(e -> whenLinked(() -> new Thread(() -> {
 			Category category = new Category(txtID.getText(), txtName.getText(), txtDescription.getText());
 			categoryController.updateCategory(category);
-		}).start());
+		}).start()));
 		btnUpdateCategory.setEnabled(false);
 		btnUpdateCategory.setVisible(false);
 		btnUpdateCategory.setName("updateCategoryButton");
@@ -254,7 +273,7 @@ public class CategorySwingView extends JFrame implements CategoryView {
 		btnShowExpenses = new JButton("Show Expenses");
 		btnShowExpenses.addActionListener(e -> {
 			Category selectedCategory = listCategoryModel.getElementAt(categoryList.getSelectedIndex());
-			categoryController.getAllExpenses(selectedCategory);
+			whenLinked(() -> categoryController.getAllExpenses(selectedCategory));
 
 		});
 
@@ -307,8 +326,8 @@ public class CategorySwingView extends JFrame implements CategoryView {
 		contentPane.add(btnUpdateSelected, gbc_btnDeleteSelected);
 
 		btnDeleteSelected = new JButton("Delete Selected");
-		btnDeleteSelected.addActionListener(
-				e -> new Thread(() -> categoryController.deleteCategory(categoryList.getSelectedValue())).start());
+		btnDeleteSelected.addActionListener(e -> whenLinked(
+				() -> new Thread(() -> categoryController.deleteCategory(categoryList.getSelectedValue())).start()));
 		btnDeleteSelected.setEnabled(false);
 		btnDeleteSelected.setName("deleteSelectedButton");
 		GridBagConstraints gbc_btnDeleteSelected1 = new GridBagConstraints();
@@ -397,13 +416,13 @@ public class CategorySwingView extends JFrame implements CategoryView {
 	}
 
 	private void setTotalAmountLabel() {
-		double sum = 0.0;
+		long cents = 0;
 		Enumeration<Expense> elements = listExpenseModel.elements();
 		while (elements.hasMoreElements()) {
 			Expense expense = elements.nextElement();
-			sum += expense.getAmount();
+			cents += expense.getAmountCents();
 		}
-		lblTotal.setText("Total: " + Double.toString(sum));
+		lblTotal.setText("Total: " + Double.toString(Money.toDouble(cents)));
 	}
 
 	private void createTableModel() {
@@ -461,9 +480,8 @@ public class CategorySwingView extends JFrame implements CategoryView {
 
 	@Override
 	public void showAllCategory(List<Category> category) {
-
-		category.stream().forEach(listCategoryModel::addElement);
-
+		SwingUtilities.invokeLater(
+				() -> ListModelReconciler.reconcile(listCategoryModel, category, Category::getId));
 	}
 
 	@Override
@@ -14,9 +14,15 @@ import java.awt.event.WindowEvent;
 import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.IntStream;
 
 import javax.swing.DefaultComboBoxModel;
@@ -27,17 +33,25 @@ import javax.swing.JComboBox;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JList;
+import javax.swing.JMenuItem;
 import javax.swing.JPanel;
+import javax.swing.JPopupMenu;
 import javax.swing.JScrollPane;
 import javax.swing.JTextField;
 import javax.swing.ListSelectionModel;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.border.EmptyBorder;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
+import com.tdd.expensetracker.anomaly.SpendingAnomaly;
+import com.tdd.expensetracker.budget.BudgetAlert;
 import com.tdd.expensetracker.controller.ExpenseController;
 import com.tdd.expensetracker.model.Category;
 import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.model.Money;
 import com.tdd.expensetracker.view.ExpenseView;
 import com.toedter.calendar.JDateChooser;
 import com.toedter.calendar.JTextFieldDateEditor;
@@ -45,6 +59,12 @@ import com.toedter.calendar.JTextFieldDateEditor;
 public class ExpenseSwingView extends JFrame implements ExpenseView {
 
 	private static final long serialVersionUID = 1L;
+
+	// Typing pause after which the search runs, and most matches shown
+	static final int SEARCH_DELAY_MILLIS = 250;
+	static final int SEARCH_LIMIT = 500;
+	static final int DESCRIPTION_SUGGESTIONS = 5;
+
 	private JPanel contentPane;
 	private JTextField txtDescription;
 	private JTextField txtAmount;
@@ -57,12 +77,25 @@ public class ExpenseSwingView extends JFrame implements ExpenseView {
 	private JLabel lblError;
 	private JComboBox<Category> cbxCategory;
 	private transient ExpenseController expenseController;
+	private final transient List<Runnable> pendingActions = new ArrayList<>();
 	private String dateFormatString = "yyyy-MM-dd";
 
 	public void setExpenseController(ExpenseController expenseController) {
 		this.expenseController = expenseController;
 		expenseController.allCategory();
 		cbxCategory.setSelectedIndex(-1);
+		pendingActions.forEach(Runnable::run);
+		pendingActions.clear();
+	}
+
+	// Runs an action of the controller, or holds it until the controller is linked
+	// while a warm-start snapshot is shown. Both happen on the EventQueue thread.
+	private void whenLinked(Runnable action) {
+		if (expenseController == null) {
+			pendingActions.add(action);
+		} else {
+			action.run();
+		}
 	}
 
 	private DefaultComboBoxModel<Category> comboBoxCategoriesModel;
@@ -80,6 +113,18 @@ public class ExpenseSwingView extends JFrame implements ExpenseView {
 	private JLabel lblTotal;
 	private JButton btnCategoryForm;
 	private CategorySwingView categoryView;
+	private JTextField txtSearch;
+	private JPopupMenu descriptionSuggestions;
+	// Category last pre-selected from the description; a category picked by the
+	// user is never replaced
+	private Category suggestedCategory;
+	private Timer searchTimer;
+	private transient ExecutorService searchExecutor;
+	private transient Future<?> pendingSearch;
+	// Query whose results the list shows, null when it shows every expense. Like
+	// the list of all expenses it is only used on the event dispatch thread.
+	private String activeQuery;
+	private final Map<String, Expense> allExpenses = new LinkedHashMap<>();
 
 	DefaultListModel<Expense> getListExpenseModel() {
 		return listExpenseModel;
@@ -97,6 +142,10 @@ public class ExpenseSwingView extends JFrame implements ExpenseView {
 		addWindowListener(new WindowAdapter() {
 			@Override
 			public void windowActivated(WindowEvent arg0) {
+				// The controller is not linked yet while a warm-start snapshot is shown
+				if (expenseController == null) {
+					return;
+				}
 				expenseController.allCategory();
 				cbxCategory.setSelectedIndex(-1);
 			}
@@ -127,6 +176,51 @@ public class ExpenseSwingView extends JFrame implements ExpenseView {
 				Double.MIN_VALUE };
 		contentPane.setLayout(gbl_contentPane);
 
+		JLabel lblSearch = new JLabel("Search");
+		GridBagConstraints gbc_lblSearch = new GridBagConstraints();
+		gbc_lblSearch.insets = new Insets(0, 0, 5, 5);
+		gbc_lblSearch.anchor = GridBagConstraints.WEST;
+		gbc_lblSearch.gridx = 0;
+		gbc_lblSearch.gridy = 0;
+		contentPane.add(lblSearch, gbc_lblSearch);
+
+		// Searches once typing pauses; the query runs on a background thread
+		// against the search index and only its latest results are shown
+		searchExecutor = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "expense-search");
+			thread.setDaemon(true);
+			return thread;
+		});
+		searchTimer = new Timer(SEARCH_DELAY_MILLIS, e -> startSearch());
+		searchTimer.setRepeats(false);
+
+		txtSearch = new JTextField();
+		txtSearch.setName("searchTextBox");
+		txtSearch.getDocument().addDocumentListener(new DocumentListener() {
+			@Override
+			public void insertUpdate(DocumentEvent e) {
+				searchTimer.restart();
+			}
+
+			@Override
+			public void removeUpdate(DocumentEvent e) {
+				searchTimer.restart();
+			}
+
+			@Override
+			public void changedUpdate(DocumentEvent e) {
+				searchTimer.restart();
+			}
+		});
+		GridBagConstraints gbc_txtSearch = new GridBagConstraints();
+		gbc_txtSearch.fill = GridBagConstraints.HORIZONTAL;
+		gbc_txtSearch.gridwidth = 3;
+		gbc_txtSearch.insets = new Insets(0, 0, 5, 0);
+		gbc_txtSearch.gridx = 1;
+		gbc_txtSearch.gridy = 0;
+		contentPane.add(txtSearch, gbc_txtSearch);
+		txtSearch.setColumns(10);
+
 		txtID = new JTextField();
 		txtID.setName("idTextBox");
 		txtID.setVisible(false);
@@ -160,6 +254,26 @@ public class ExpenseSwingView extends JFrame implements ExpenseView {
 		contentPane.add(txtDescription, gbc_txtDescription);
 		txtDescription.setColumns(10);
 
+		// Suggests past descriptions below the field while typing; the popup does
+		// not take the focus, so typing simply continues
+		descriptionSuggestions = new JPopupMenu();
+		descriptionSuggestions.setName("descriptionSuggestions");
+		descriptionSuggestions.setFocusable(false);
+		txtDescription.addKeyListener(new KeyAdapter() {
+			@Override
+			public void keyReleased(KeyEvent e) {
+				if (e.getKeyCode() == KeyEvent.VK_ESCAPE || expenseController == null) {
+					descriptionSuggestions.setVisible(false);
+					suggestedCategory = null;
+					return;
+				}
+				expenseController.suggestDescriptions(txtDescription.getText(), DESCRIPTION_SUGGESTIONS);
+				if (btnAddExpense.isVisible()) {
+					expenseController.suggestCategory(txtDescription.getText());
+				}
+			}
+		});
+
 		JLabel lblAmount = new JLabel("Amount");
 		GridBagConstraints gbc_lblAmount = new GridBagConstraints();
 		gbc_lblAmount.anchor = GridBagConstraints.WEST;
@@ -257,14 +371,14 @@ public class ExpenseSwingView extends JFrame implements ExpenseView {
 
 		btnAddExpense = new JButton("Add Expense");
 		btnAddExpense.setName("addButton");
-		btnAddExpense.addActionListener(e -> new Thread(() -> {
+		btnAddExpense.addActionListener(e -> whenLinked(() -> new Thread(() -> {
 			LocalDate date = getSelectedDateAsLocalDate();
 
 			Category selectedCategory = comboBoxCategoriesModel.getElementAt(cbxCategory.getSelectedIndex());
 			Expense expense = new Expense(Double.parseDouble(txtAmount.getText()), txtDescription.getText(), date,
 					selectedCategory);
 			expenseController.newExpense(expense);
-		}).start());
+		}).start()));
 		btnAddExpense.setEnabled(false);
 		dateChooser.addPropertyChangeListener(e -> setEnableAddOrUpdateButton());
 		GridBagConstraints gbc_btnAddExpense = new GridBagConstraints();
@@ -289,12 +403,12 @@ public class ExpenseSwingView extends JFrame implements ExpenseView {
 		btnUpdateExpense.setVisible(false);
 		btnUpdateExpense.setEnabled(false);
 		btnUpdateExpense.setName("updateExpenseButton");
-		btnUpdateExpense.addActionListener(e -> new Thread(() -> {
+		btnUpdateExpense.addActionListener(e -> whenLinked(() -> new Thread(() -> {
 			LocalDate date = getSelectedDateAsLocalDate();
 			Category selectedCategory = comboBoxCategoriesModel.getElementAt(cbxCategory.getSelectedIndex());
 			expenseController.updateExpense(new Expense(txtID.getText(), Double.parseDouble(txtAmount.getText()),
 					txtDescription.getText(), date, selectedCategory));
-		}).start());
+		}).start()));
 		GridBagConstraints gbc_btnUpdateExpense = new GridBagConstraints();
 		gbc_btnUpdateExpense.insets = new Insets(0, 0, 5, 5);
 		gbc_btnUpdateExpense.gridx = 2;
@@ -359,7 +473,8 @@ public class ExpenseSwingView extends JFrame implements ExpenseView {
 
 		btnDelete = new JButton("Delete Selected");
 		btnDelete.addActionListener(
-				e -> new Thread(() -> expenseController.deleteExpense(expenseList.getSelectedValue())).start());
+				e -> whenLinked(() -> new Thread(() -> expenseController.deleteExpense(expenseList.getSelectedValue()))
+						.start()));
 		btnDelete.setEnabled(false);
 		btnDelete.setName("deleteButton");
 		GridBagConstraints gbc_btnDelete = new GridBagConstraints();
@@ -412,14 +527,32 @@ public class ExpenseSwingView extends JFrame implements ExpenseView {
 
 	}
 
+	// Runs the typed query, or shows every expense again once the box is empty.
+	// A query still waiting for the search thread is cancelled, and the results
+	// of one already running are ignored by showSearchResults.
+	private void startSearch() {
+		if (pendingSearch != null) {
+			pendingSearch.cancel(false);
+		}
+		String query = txtSearch.getText().trim();
+		if (query.isEmpty() || expenseController == null) {
+			activeQuery = null;
+			ListModelReconciler.reconcile(listExpenseModel, new ArrayList<>(allExpenses.values()), Expense::getId);
+			setTotalAmountLabel();
+			return;
+		}
+		activeQuery = query;
+		pendingSearch = searchExecutor.submit(() -> expenseController.searchExpenses(query, SEARCH_LIMIT));
+	}
+
 	private void setTotalAmountLabel() {
-		double sum = 0.0;
+		long cents = 0;
 		Enumeration<Expense> elements = listExpenseModel.elements();
 		while (elements.hasMoreElements()) {
 			Expense expense = elements.nextElement();
-			sum += expense.getAmount();
+			cents += expense.getAmountCents();
 		}
-		lblTotal.setText("Total: " + Double.toString(sum));
+		lblTotal.setText("Total: " + Double.toString(Money.toDouble(cents)));
 	}
 
 	private String getDisplayString(Expense expense) {
@@ -438,6 +571,7 @@ public class ExpenseSwingView extends JFrame implements ExpenseView {
 
 	private void resetFormState() {
 		SwingUtilities.invokeLater(() -> {
+			descriptionSuggestions.setVisible(false);
 			txtID.setText("");
 			txtDescription.setText("");
 			txtAmount.setText("");
@@ -464,14 +598,30 @@ public class ExpenseSwingView extends JFrame implements ExpenseView {
 
 	@Override
 	public void showAllExpense(List<Expense> expense) {
-		expense.stream().forEach(listExpenseModel::addElement);
-		setTotalAmountLabel();
+		// Reconciles rather than appends so a warm-started list can be refreshed
+		// from the database without duplicates
+		SwingUtilities.invokeLater(() -> {
+			allExpenses.clear();
+			expense.forEach(e -> allExpenses.put(e.getId(), e));
+			if (activeQuery == null) {
+				ListModelReconciler.reconcile(listExpenseModel, expense, Expense::getId);
+				setTotalAmountLabel();
+			} else {
+				searchTimer.restart();
+			}
+		});
 	}
 
 	@Override
 	public void expenseAdded(Expense expense) {
 		SwingUtilities.invokeLater(() -> {
-			listExpenseModel.addElement(expense);
+			allExpenses.put(expense.getId(), expense);
+			if (activeQuery == null) {
+				listExpenseModel.addElement(expense);
+			} else {
+				// The search decides whether the new expense matches
+				searchTimer.restart();
+			}
 			setTotalAmountLabel();
 			resetErrorLabel();
 		});
@@ -486,6 +636,7 @@ public class ExpenseSwingView extends JFrame implements ExpenseView {
 	@Override
 	public void expenseDeleted(Expense expense) {
 		SwingUtilities.invokeLater(() -> {
+			allExpenses.remove(expense.getId());
 			listExpenseModel.removeElement(expense);
 			setTotalAmountLabel();
 			resetErrorLabel();
@@ -497,9 +648,15 @@ public class ExpenseSwingView extends JFrame implements ExpenseView {
 	@Override
 	public void expenseUpdated(Expense updatedExpense) {
 		SwingUtilities.invokeLater(() -> {
+			allExpenses.put(updatedExpense.getId(), updatedExpense);
 			int index = IntStream.range(0, listExpenseModel.size())
 					.filter(i -> listExpenseModel.get(i).getId().equals(updatedExpense.getId())).findFirst().orElse(-1);
-			listExpenseModel.set(index, updatedExpense);
+			if (index >= 0) {
+				listExpenseModel.set(index, updatedExpense);
+			}
+			if (activeQuery != null) {
+				searchTimer.restart();
+			}
 			setTotalAmountLabel();
 			resetErrorLabel();
 		});
@@ -527,9 +684,86 @@ public class ExpenseSwingView extends JFrame implements ExpenseView {
 	public void showErrorExpenseNotFound(String message, Expense expense) {
 		SwingUtilities.invokeLater(() -> {
 			lblError.setText(message + ": " + expense);
+			allExpenses.remove(expense.getId());
 			listExpenseModel.removeElement(expense);
 		});
 
 	}
 
+	@Override
+	public void showBudgetAlert(BudgetAlert alert) {
+		SwingUtilities.invokeLater(() -> lblError.setText(alert.getMessage()));
+	}
+
+	@Override
+	public void showSpendingAnomaly(SpendingAnomaly anomaly) {
+		SwingUtilities.invokeLater(() -> lblError.setText(anomaly.getMessage()));
+	}
+
+	// Lists the suggestions under the description field, unless the text changed
+	// since they were asked for
+	@Override
+	public void showDescriptionSuggestions(String prefix, List<String> suggestions) {
+		SwingUtilities.invokeLater(() -> {
+			if (!prefix.equals(txtDescription.getText())) {
+				return;
+			}
+			descriptionSuggestions.removeAll();
+			for (String suggestion : suggestions) {
+				if (!suggestion.equalsIgnoreCase(prefix.trim())) {
+					JMenuItem item = new JMenuItem(suggestion);
+					item.addActionListener(e -> {
+						txtDescription.setText(suggestion);
+						descriptionSuggestions.setVisible(false);
+						setEnableAddOrUpdateButton();
+						if (btnAddExpense.isVisible() && expenseController != null) {
+							expenseController.suggestCategory(suggestion);
+						}
+					});
+					descriptionSuggestions.add(item);
+				}
+			}
+			if (descriptionSuggestions.getComponentCount() > 0 && txtDescription.isShowing()) {
+				descriptionSuggestions.show(txtDescription, 0, txtDescription.getHeight());
+				txtDescription.requestFocusInWindow();
+			} else {
+				descriptionSuggestions.setVisible(false);
+			}
+		});
+	}
+
+	// Pre-selects the suggested category of a new expense, unless the description
+	// changed since or the user already picked a category
+	@Override
+	public void showSuggestedCategory(String description, String categoryId) {
+		SwingUtilities.invokeLater(() -> {
+			Object selected = cbxCategory.getSelectedItem();
+			if (!description.equals(txtDescription.getText()) || !btnAddExpense.isVisible()
+					|| (selected != null && selected != suggestedCategory)) {
+				return;
+			}
+			for (int i = 0; i < comboBoxCategoriesModel.getSize(); i++) {
+				Category category = comboBoxCategoriesModel.getElementAt(i);
+				if (category.getId().equals(categoryId)) {
+					suggestedCategory = category;
+					cbxCategory.setSelectedItem(category);
+					return;
+				}
+			}
+		});
+	}
+
+	// Applies the results as a diff of the list, unless the user has typed a
+	// different query since
+	@Override
+	public void showSearchResults(String query, List<Expense> expenses) {
+		SwingUtilities.invokeLater(() -> {
+			if (!query.equals(activeQuery)) {
+				return;
+			}
+			ListModelReconciler.reconcile(listExpenseModel, expenses, Expense::getId);
+			setTotalAmountLabel();
+		});
+	}
+
 }
@@ -0,0 +1,46 @@
+package com.tdd.expensetracker.view.swing;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import javax.swing.DefaultListModel;
+
+// Replaces the contents of a list model with a fresh list by applying only the
+// differences: rows whose id disappeared are removed, rows that are still present
+// are replaced in place and new rows are appended. This keeps the selection and
+// avoids clearing the whole list when a warm-started view is reconciled with the
+// database. Must be called on the event dispatch thread.
+final class ListModelReconciler {
+
+	private ListModelReconciler() {
+	}
+
+	static <T> void reconcile(DefaultListModel<T> model, List<T> freshItems, Function<T, String> idOf) {
+		Map<String, T> freshById = new HashMap<>(freshItems.size() * 2);
+		for (T item : freshItems) {
+			freshById.put(idOf.apply(item), item);
+		}
+
+		// Walk backwards so that removals do not shift the indexes still to visit
+		Set<String> present = new HashSet<>(model.size() * 2);
+		for (int i = model.size() - 1; i >= 0; i--) {
+			String id = idOf.apply(model.get(i));
+			T fresh = freshById.get(id);
+			if (fresh == null || !present.add(id)) {
+				model.remove(i);
+			} else if (model.get(i) != fresh) {
+				model.set(i, fresh);
+			}
+		}
+
+		for (T item : freshItems) {
+			if (present.add(idOf.apply(item))) {
+				model.addElement(item);
+			}
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.tdd.expensetracker.anomaly;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.model.SpendingMoments;
+
+public class SpendingAnomalyDetectorTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2024, 6, 1);
+
+	private final Category food = new Category("1", "food", "meals");
+	private final Category travel = new Category("2", "travel", "trips");
+	private final List<SpendingAnomaly> anomalies = new ArrayList<>();
+
+	// Test that an amount far above the seeded statistics is flagged
+	@Test
+	public void testFlagsAmountFarAboveSeededMean() {
+		SpendingAnomalyDetector detector = new SpendingAnomalyDetector(
+				Arrays.asList(new SpendingMoments("1", 100, 4, 1)), anomalies::add);
+
+		detector.expenseAdded(new Expense("1", 6d, "Coffee and cake", TODAY, food));
+		Expense coffee = new Expense("2", 900d, "Coffee", TODAY, food);
+		detector.expenseAdded(coffee);
+
+		assertThat(anomalies).hasSize(1);
+		SpendingAnomaly anomaly = anomalies.get(0);
+		assertThat(anomaly.getExpense()).isSameAs(coffee);
+		assertThat(anomaly.getMean()).isCloseTo(4.1, within(1e-9));
+		assertThat(anomaly.getScore()).isGreaterThan(SpendingAnomalyDetector.THRESHOLD);
+		assertThat(anomaly.getMessage()).isEqualTo("Unusual expense Coffee for food: 900.00 where 4.10 is usual");
+	}
+
+	// Test that categories are learned from new expenses and only judged once
+	// they have enough of them
+	@Test
+	public void testLearnsCategoriesFromNewExpenses() {
+		SpendingAnomalyDetector detector = new SpendingAnomalyDetector(Collections.emptyList(), anomalies::add);
+
+		detector.expenseAdded(new Expense("1", 20d, "Taxi", TODAY, travel));
+		detector.expenseAdded(new Expense("2", 900d, "Flight", TODAY, travel));
+		assertThat(anomalies).isEmpty();
+
+		for (int i = 0; i < 50; i++) {
+			detector.expenseAdded(new Expense(20d, "Taxi", TODAY, travel));
+		}
+		anomalies.clear();
+		detector.expenseAdded(new Expense("3", 25d, "Taxi", TODAY, travel));
+		detector.expenseAdded(new Expense("4", 900d, "Flight", TODAY, travel));
+
+		assertThat(anomalies).extracting(anomaly -> anomaly.getExpense().getId()).containsExactly("4");
+	}
+
+	// Test that identical amounts do not turn every small change into an anomaly
+	@Test
+	public void testSmallChangesOfConstantAmountsAreNotFlagged() {
+		SpendingAnomalyDetector detector = new SpendingAnomalyDetector(
+				Arrays.asList(new SpendingMoments("1", 10, 10, 0)), anomalies::add);
+
+		detector.expenseAdded(new Expense("1", 12d, "Lunch", TODAY, food));
+
+		assertThat(anomalies).isEmpty();
+	}
+
+	// Test that batches are learned without being flagged
+	@Test
+	public void testBatchesAreLearnedWithoutFlagging() {
+		SpendingAnomalyDetector detector = new SpendingAnomalyDetector(
+				Arrays.asList(new SpendingMoments("1", 10, 10, 1)), anomalies::add);
+		List<Expense> batch = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			batch.add(new Expense(500d, "Catering", TODAY, food));
+		}
+
+		detector.expensesAdded(batch);
+		detector.expenseAdded(new Expense("1", 520d, "Catering", TODAY, food));
+
+		assertThat(anomalies).isEmpty();
+	}
+}
@@ -0,0 +1,138 @@
+package com.tdd.expensetracker.budget;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tdd.expensetracker.model.Budget;
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.model.ExpenseTotal;
+import com.tdd.expensetracker.model.Money;
+
+public class BudgetEvaluatorTest {
+
+	private static final LocalDate DATE = LocalDate.of(2024, 3, 10);
+	private static final YearMonth MONTH = YearMonth.of(2024, 3);
+
+	private final Category food = new Category("food", "food", "groceries");
+	private final Category travel = new Category("travel", "travel", "trips");
+	private final List<BudgetAlert> alerts = new ArrayList<>();
+	// Stands in for the expense_totals table, already including each saved write
+	private final Map<YearMonth, List<ExpenseTotal>> storedTotals = new HashMap<>();
+	private int monthReads;
+
+	private BudgetEvaluator evaluator;
+
+	@Before
+	public void setup() {
+		evaluator = new BudgetEvaluator(Arrays.asList(new Budget("food", 100d)), month -> {
+			monthReads++;
+			return storedTotals.getOrDefault(month, Collections.emptyList());
+		}, alerts::add);
+	}
+
+	// Test that an alert is raised once when crossing 80% and once at 100%
+	@Test
+	public void testAlertsOnlyOnThresholdCrossings() {
+		add(new Expense(50d, "a", DATE, food));
+		assertThat(alerts).isEmpty();
+
+		add(new Expense(30d, "b", DATE, food));
+		assertThat(alerts).extracting(BudgetAlert::getThresholdPercent).containsExactly(80);
+
+		add(new Expense(5d, "c", DATE, food));
+		assertThat(alerts).hasSize(1);
+
+		add(new Expense(15d, "d", DATE, food));
+		assertThat(alerts).extracting(BudgetAlert::getThresholdPercent).containsExactly(80, 100);
+		assertThat(alerts.get(1).isExceeded()).isTrue();
+		assertThat(alerts.get(1).getSpent()).isEqualTo(100d);
+		assertThat(alerts.get(1).getMessage()).isEqualTo("Budget exceeded for food in 2024-03: 100.00 spent of 100.00");
+		assertThat(monthReads).isEqualTo(1);
+	}
+
+	// Test that a single write crossing both thresholds raises only the highest
+	@Test
+	public void testAlertsHighestThresholdOnly() {
+		add(new Expense(120d, "a", DATE, food));
+
+		assertThat(alerts).extracting(BudgetAlert::getThresholdPercent).containsExactly(100);
+	}
+
+	// Test that categories without a budget never raise alerts
+	@Test
+	public void testNoAlertWithoutBudget() {
+		add(new Expense(1000d, "a", DATE, travel));
+
+		assertThat(alerts).isEmpty();
+		assertThat(evaluator.getSpent("travel", MONTH)).isEqualTo(1000d);
+	}
+
+	// Test that the stored totals read lazily do not count the current write twice
+	@Test
+	public void testFirstWriteOfMonthIsNotCountedTwice() {
+		storedTotals.put(MONTH, Arrays.asList(new ExpenseTotal("food", MONTH, Money.of(70d + 15d), 2)));
+
+		evaluator.expenseAdded(new Expense(15d, "a", DATE, food));
+
+		assertThat(evaluator.getSpent("food", MONTH)).isEqualTo(85d);
+		assertThat(alerts).extracting(BudgetAlert::getThresholdPercent).containsExactly(80);
+	}
+
+	// Test that a batch is rewound as a whole when its month is read
+	@Test
+	public void testBatchIsEvaluatedExpenseByExpense() {
+		storedTotals.put(MONTH, Arrays.asList(new ExpenseTotal("food", MONTH, Money.of(90), 3)));
+
+		evaluator.expensesAdded(Arrays.asList(new Expense(30d, "a", DATE, food), new Expense(30d, "b", DATE, food),
+				new Expense(30d, "c", DATE, food)));
+
+		assertThat(evaluator.getSpent("food", MONTH)).isEqualTo(90d);
+		assertThat(alerts).extracting(BudgetAlert::getThresholdPercent).containsExactly(80);
+	}
+
+	// Test that updates apply the difference and deletions lower the total
+	@Test
+	public void testUpdateAndDeleteApplyDeltas() {
+		Expense expense = new Expense("1", 50d, "a", DATE, food);
+		add(expense);
+
+		Expense updated = new Expense("1", 85d, "a", DATE, food);
+		evaluator.expenseUpdated(expense, updated);
+		assertThat(evaluator.getSpent("food", MONTH)).isEqualTo(85d);
+		assertThat(alerts).extracting(BudgetAlert::getThresholdPercent).containsExactly(80);
+
+		Expense moved = new Expense("1", 85d, "a", DATE.plusMonths(1), food);
+		storedTotals.put(MONTH.plusMonths(1),
+				Arrays.asList(new ExpenseTotal("food", MONTH.plusMonths(1), Money.of(85), 1)));
+		evaluator.expenseUpdated(updated, moved);
+		assertThat(evaluator.getSpent("food", MONTH)).isZero();
+		assertThat(evaluator.getSpent("food", MONTH.plusMonths(1))).isEqualTo(85d);
+
+		evaluator.expenseDeleted(moved);
+		assertThat(evaluator.getSpent("food", MONTH.plusMonths(1))).isZero();
+		assertThat(alerts).hasSize(2);
+	}
+
+	// Utility method that saves the expense in the stored totals, then evaluates it
+	private void add(Expense expense) {
+		YearMonth month = YearMonth.from(expense.getDate());
+		Money stored = storedTotals.getOrDefault(month, Collections.emptyList()).stream()
+				.filter(total -> total.getCategoryId().equals(expense.getCategory().getId()))
+				.map(ExpenseTotal::getTotal).reduce(Money.ZERO, Money::plus);
+		storedTotals.put(month, Arrays.asList(
+				new ExpenseTotal(expense.getCategory().getId(), month, stored.plus(expense.getMoney()), 1)));
+		evaluator.expenseAdded(expense);
+	}
+}
@@ -0,0 +1,72 @@
+package com.tdd.expensetracker.classifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+
+public class CategoryClassifierTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2024, 6, 1);
+
+	private final Category food = new Category("1", "food", "meals");
+	private final Category travel = new Category("2", "travel", "trips");
+
+	private CategoryClassifier classifier;
+
+	@Before
+	public void setup() {
+		classifier = new CategoryClassifier();
+		classifier.expensesAdded(Arrays.asList(new Expense("1", 10d, "Lunch at the office", TODAY, food),
+				new Expense("2", 30d, "Dinner with friends", TODAY, food),
+				new Expense("3", 5d, "Coffee and lunch", TODAY, food),
+				new Expense("4", 80d, "Train ticket to Milan", TODAY, travel),
+				new Expense("5", 20d, "Taxi to the station", TODAY, travel)));
+	}
+
+	// Test that descriptions are classified from the words seen in each category
+	@Test
+	public void testClassifiesByDescriptionWords() {
+		assertThat(classifier.classify("Quick LUNCH")).isEqualTo("1");
+		assertThat(classifier.classify("taxi to the airport")).isEqualTo("2");
+		assertThat(classifier.classify("dinner on the train")).isIn("1", "2");
+	}
+
+	// Test that nothing is suggested when no word has been seen
+	@Test
+	public void testUnknownWordsGiveNoCategory() {
+		assertThat(classifier.classify("Gym membership")).isNull();
+		assertThat(classifier.classify("  ")).isNull();
+		assertThat(new CategoryClassifier().classify("lunch")).isNull();
+	}
+
+	// Test that updates and deletes move the words between categories
+	@Test
+	public void testUpdatesAndDeletesAreLearnedIncrementally() {
+		classifier.expenseAdded(new Expense("6", 12d, "Museum tickets", TODAY, travel));
+		assertThat(classifier.classify("museum")).isEqualTo("2");
+
+		classifier.expenseUpdated(new Expense("6", 12d, "Museum tickets", TODAY, travel),
+				new Expense("6", 12d, "Museum cafe", TODAY, food));
+		assertThat(classifier.classify("museum")).isEqualTo("1");
+
+		classifier.expenseDeleted(new Expense("6", 12d, "Museum cafe", TODAY, food));
+		assertThat(classifier.classify("museum")).isNull();
+	}
+
+	// Test that forgetting every expense of a category stops suggesting it
+	@Test
+	public void testEmptiedCategoryIsNoLongerSuggested() {
+		classifier.expenseDeleted(new Expense("4", 80d, "Train ticket to Milan", TODAY, travel));
+		classifier.expenseDeleted(new Expense("5", 20d, "Taxi to the station", TODAY, travel));
+
+		assertThat(classifier.classify("the station")).isEqualTo("1");
+		assertThat(classifier.classify("taxi")).isNull();
+	}
+}
@@ -0,0 +1,79 @@
+package com.tdd.expensetracker.codec;
+
+import static com.tdd.expensetracker.model.DeepEquality.sameCategory;
+import static com.tdd.expensetracker.model.DeepEquality.sameExpense;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.utils.IdAllocator;
+
+public class ExpenseCodecTest {
+
+	private final Category food = new Category("1", "food", "groceries");
+
+	// Test that expenses round trip with every id form, missing fields, negative
+	// amounts, dates before the epoch and non-ASCII text
+	@Test
+	public void testExpensesRoundTrip() {
+		List<Expense> expenses = Arrays.asList(
+				new Expense(IdAllocator.nextId(), 12.34, "café crème ☕", LocalDate.of(2024, 3, 5), food),
+				new Expense("42", -0.05, null, LocalDate.of(1969, 7, 20), null),
+				new Expense("007", 1d, "", null, new Category("FOOD-ID", null, null)),
+				new Expense("3F2504E0-4F89-11D3-9A0C-0305E82C3301", 99_999_999.99, "upper case uuid", null, food),
+				new Expense(null, 0d, "no id", null, new Category(null, "n", "d")));
+
+		for (Expense expense : expenses) {
+			Expense decoded = ExpenseCodec.readExpense(ByteBuffer.wrap(ExpenseCodec.encode(expense)));
+			assertThat(sameExpense(decoded, expense)).as(expense.toString()).isTrue();
+		}
+	}
+
+	// Test that records written one after the other decode in turn, from heap and
+	// direct buffers, leaving the position after each record
+	@Test
+	public void testConsecutiveRecordsFromHeapAndDirectBuffers() {
+		Expense expense = new Expense("1", 10d, "lunch", LocalDate.of(2024, 1, 1), food);
+		for (ByteBuffer buffer : Arrays.asList(ByteBuffer.allocate(256), ByteBuffer.allocateDirect(256))) {
+			ExpenseCodec.write(buffer, expense);
+			ExpenseCodec.write(buffer, food);
+			int end = buffer.position();
+			buffer.flip();
+
+			assertThat(ExpenseCodec.peekId(buffer)).isEqualTo("1");
+			assertThat(buffer.position()).isZero();
+			assertThat(sameExpense(ExpenseCodec.readExpense(buffer), expense)).isTrue();
+			assertThat(sameCategory(ExpenseCodec.readCategory(buffer), food)).isTrue();
+			assertThat(buffer.position()).isEqualTo(end);
+		}
+	}
+
+	// Test that an allocated id and small fields take a few bytes besides the id
+	@Test
+	public void testEncodingIsCompact() {
+		Expense expense = new Expense(IdAllocator.nextId(), 12.5, "bus", LocalDate.of(2024, 6, 1),
+				new Category("7", "travel", null));
+
+		// Header 2, id 17, amount 2, date 3, description 4, category 2 + 2 + 7
+		assertThat(ExpenseCodec.encode(expense)).hasSize(39);
+		assertThat(ExpenseCodec.encode(expense).length).isLessThanOrEqualTo(ExpenseCodec.maxEncodedSize(expense));
+	}
+
+	// Test that a record of another format version is rejected
+	@Test
+	public void testUnknownVersionIsRejected() {
+		byte[] bytes = ExpenseCodec.encode(food);
+		bytes[0] = 99;
+
+		assertThatThrownBy(() -> ExpenseCodec.readCategory(ByteBuffer.wrap(bytes)))
+				.isInstanceOf(IllegalArgumentException.class).hasMessageContaining("99");
+	}
+}
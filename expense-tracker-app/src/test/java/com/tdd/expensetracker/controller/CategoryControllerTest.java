@@ -47,7 +47,7 @@ public class CategoryControllerTest {
 	@Test
 	public void testAllCategory() {
 		List<Category> category = Arrays.asList(new Category());
-		when(categoryRepository.findAll()).thenReturn(category);
+		when(categoryRepository.findAllWithoutExpenses()).thenReturn(category);
 		categoryController.allCategory();
 		verify(categoryView).showAllCategory(category);
 	}
@@ -87,6 +87,49 @@ public class CategoryControllerTest {
 		verifyNoMoreInteractions(ignoreStubs(categoryRepository));
 	}
 
+	// Test that names no stored category has are not looked up
+	@Test
+	public void testNewCategorySkipsLookupOfUnknownName() {
+		categoryController.loadCategoryNames(asList("Food"));
+		Category travel = new Category("2", "Travel", "trips");
+
+		categoryController.newCategory(travel);
+
+		verify(categoryRepository, never()).findByName(anyString());
+		verify(categoryRepository).save(travel);
+		verify(categoryView).categoryAdded(travel);
+	}
+
+	// Test that possibly stored names, including ones saved since the filter was
+	// loaded, are still looked up ignoring case
+	@Test
+	public void testNewCategoryLooksUpPossiblyStoredName() {
+		categoryController.loadCategoryNames(asList("Food"));
+		categoryController.newCategory(new Category("2", "Travel", "trips"));
+		Category existingCategory = new Category("1", "Food", "meals");
+		when(categoryRepository.findByName("FOOD")).thenReturn(existingCategory);
+
+		categoryController.newCategory(new Category("3", "FOOD", "groceries"));
+		categoryController.newCategory(new Category("4", "travel", "journeys"));
+
+		verify(categoryView).showError("Already existing category with name FOOD", existingCategory);
+		verify(categoryRepository).findByName("travel");
+	}
+
+	// Test that a name differing from a stored one only by accents, which the
+	// database considers equal, is still looked up
+	@Test
+	public void testNewCategoryLooksUpNameDifferingByAccents() {
+		categoryController.loadCategoryNames(asList("Cafe"));
+		Category existingCategory = new Category("1", "Cafe", "coffee");
+		when(categoryRepository.findByName("Café")).thenReturn(existingCategory);
+
+		categoryController.newCategory(new Category("2", "Café", "coffee shops"));
+
+		verify(categoryView).showError("Already existing category with name Café", existingCategory);
+		verify(categoryRepository, never()).save(any());
+	}
+
 	// Test case for adding a new category when the name is empty
 	@Test
 	public void testNewCategoryWhenNameIsEmpty() {
@@ -137,6 +180,19 @@ public class CategoryControllerTest {
 		verifyNoMoreInteractions(ignoreStubs(categoryRepository));
 	}
 
+	// Test case for deleting a listed category, read without its expenses, whose
+	// stored category has expenses
+	@Test
+	public void testDeleteListedCategoryWhenStoredCategoryHasExpenses() {
+		Category listed = new Category("1", "name1", "description1");
+		Category stored = new Category("1", "name1", "description1");
+		stored.setExpenses(asList(new Expense("1", 5000d, "espense1", LocalDate.now(), stored)));
+		when(categoryRepository.findById("1")).thenReturn(stored);
+		categoryController.deleteCategory(listed);
+		verify(categoryView).showError("Category cannot be deleted. Expenses are associated with it", listed);
+		verifyNoMoreInteractions(ignoreStubs(categoryRepository));
+	}
+
 	// Test case for updating a category when the description is changed
 	@Test
 	public void testUpdateCategoryDesctriptionWhenExist() {
@@ -210,11 +266,24 @@ public class CategoryControllerTest {
 		Category category = new Category("1", "name1", "description1");
 		Expense expense = new Expense("1", 5000d, "espense1", LocalDate.now(), category);
 		category.setExpenses(asList(expense));
+		when(categoryRepository.findById("1")).thenReturn(category);
 		categoryController.getAllExpenses(category);
 		InOrder inOrder = inOrder(categoryView);
 		inOrder.verify(categoryView).getAllExpenses(category.getExpenses());
 	}
 
+	// Test case for fetching the expenses of a listed category, which is read
+	// without them, from the stored category
+	@Test
+	public void testGetAllExpenseOfListedCategoryReadsStoredCategory() {
+		Category listed = new Category("1", "name1", "description1");
+		Category stored = new Category("1", "name1", "description1");
+		stored.setExpenses(asList(new Expense("1", 5000d, "espense1", LocalDate.now(), stored)));
+		when(categoryRepository.findById("1")).thenReturn(stored);
+		categoryController.getAllExpenses(listed);
+		verify(categoryView).getAllExpenses(stored.getExpenses());
+	}
+
 	// Test case for fetching all expenses when no expenses exist for the category
 	@Test
 	public void testGetAllExpenseWhenExpensesNotExist() {
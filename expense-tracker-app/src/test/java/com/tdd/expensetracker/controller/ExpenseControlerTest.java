@@ -1,13 +1,21 @@
 package com.tdd.expensetracker.controller;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.ignoreStubs;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDate;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 
 import org.junit.After;
@@ -18,10 +26,13 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import com.tdd.expensetracker.classifier.CategoryClassifier;
 import com.tdd.expensetracker.model.Category;
 import com.tdd.expensetracker.model.Expense;
 import com.tdd.expensetracker.repository.CategoryRepository;
 import com.tdd.expensetracker.repository.ExpenseRepository;
+import com.tdd.expensetracker.search.DescriptionSuggester;
+import com.tdd.expensetracker.search.ExpenseSearchIndex;
 import com.tdd.expensetracker.view.ExpenseView;
 
 public class ExpenseControlerTest {
@@ -31,6 +42,8 @@ public class ExpenseControlerTest {
 	private CategoryRepository categoryRepository;
 	@Mock
 	private ExpenseView expenseView;
+	@Mock
+	private ExpenseListener expenseListener;
 
 	@InjectMocks
 	private ExpenseController expenseController;
@@ -58,6 +71,15 @@ public class ExpenseControlerTest {
 		verify(expenseView).showAllExpense(expense);
 	}
 
+	// Test for fetching one page of expenses
+	@Test
+	public void testExpensePage() {
+		List<Expense> expense = Arrays.asList(new Expense());
+		when(expenseRepository.findPage(2, 10)).thenReturn(expense);
+		expenseController.expensePage(2, 10);
+		verify(expenseView).showAllExpense(expense);
+	}
+
 	// Test for adding a new expense when it does not exist
 	@Test
 	public void testNewExpenseWhenExpenseDoesNotExist() {
@@ -155,6 +177,72 @@ public class ExpenseControlerTest {
 		verifyNoMoreInteractions(ignoreStubs(expenseRepository));
 	}
 
+	// Test for adding a batch of new expenses with a single save
+	@Test
+	public void testNewExpensesSavesValidExpensesInOneBatch() {
+		expenseController.setExpenseIdFilter(new ExpenseIdFilter(0));
+		Category existingCategory = new Category("1", "name1", "description1");
+		when(categoryRepository.findByIdsWithoutExpenses(Collections.singleton("1")))
+				.thenReturn(Arrays.asList(existingCategory));
+		Expense expense1 = new Expense(5000d, "testExpense1", LocalDate.now(), existingCategory);
+		Expense expense2 = new Expense(10d, "testExpense2", LocalDate.now(), existingCategory);
+		expenseController.newExpenses(Arrays.asList(expense1, expense2));
+		InOrder inOrder = inOrder(expenseRepository, expenseView);
+		inOrder.verify(expenseRepository).saveAll(Arrays.asList(expense1, expense2));
+		inOrder.verify(expenseView).expenseAdded(expense1);
+		inOrder.verify(expenseView).expenseAdded(expense2);
+		verify(categoryRepository, times(1)).findByIdsWithoutExpenses(Collections.singleton("1"));
+		verify(categoryRepository, never()).findById(anyString());
+		verify(expenseRepository, never()).findById(anyString());
+	}
+
+	// Test that a later batch reuses the categories an earlier batch was saved
+	// into instead of looking them up again
+	@Test
+	public void testNewExpensesResolvesEachCategoryOnceAcrossBatches() {
+		Category existingCategory = new Category("1", "name1", "description1");
+		when(categoryRepository.findByIdsWithoutExpenses(Collections.singleton("1")))
+				.thenReturn(Arrays.asList(existingCategory));
+		Expense expense1 = new Expense(5000d, "testExpense1", LocalDate.now(), new Category("1", null, null));
+		Expense expense2 = new Expense(10d, "testExpense2", LocalDate.now(), new Category("1", null, null));
+		expenseController.newExpenses(Arrays.asList(expense1));
+		expenseController.newExpenses(Arrays.asList(expense2));
+		verify(categoryRepository, times(1)).findByIdsWithoutExpenses(Collections.singleton("1"));
+		assertThat(expense2.getCategory()).isSameAs(existingCategory);
+	}
+
+	// Test for adding a batch where some expenses are invalid, duplicated or have
+	// an unknown category
+	@Test
+	public void testNewExpensesSkipsAndReportsRejectedExpenses() {
+		Category existingCategory = new Category("1", "name1", "description1");
+		Category missingCategory = new Category("2", "name2", "description2");
+		when(categoryRepository.findByIdsWithoutExpenses(new HashSet<>(Arrays.asList("1", "2"))))
+				.thenReturn(Arrays.asList(existingCategory));
+		Expense valid = new Expense(5000d, "valid", LocalDate.now(), existingCategory);
+		Expense invalid = new Expense(0d, "invalid", LocalDate.now(), existingCategory);
+		Expense duplicate = new Expense("9", 10d, "duplicate", LocalDate.now(), existingCategory);
+		Expense existingExpense = new Expense("9", 10d, "existing", LocalDate.now(), existingCategory);
+		Expense orphan = new Expense(10d, "orphan", LocalDate.now(), missingCategory);
+		when(expenseRepository.findById("9")).thenReturn(existingExpense);
+		expenseController.newExpenses(Arrays.asList(valid, invalid, duplicate, orphan));
+		verify(expenseView).showError("Amount must be greater than zero", invalid);
+		verify(expenseView).showError("Already existing expense with id 9", existingExpense);
+		verify(expenseView).showError("Category does not exist with id 2", orphan);
+		verify(expenseRepository).saveAll(Arrays.asList(valid));
+		verify(expenseView).expenseAdded(valid);
+	}
+
+	// Test for adding a batch where no expense is valid
+	@Test
+	public void testNewExpensesWhenNoExpenseIsValidDoesNotSave() {
+		Category existingCategory = new Category("1", "name1", "description1");
+		Expense invalid = new Expense(10d, "", LocalDate.now(), existingCategory);
+		expenseController.newExpenses(Arrays.asList(invalid));
+		verify(expenseView).showError("Description is required and cannot be null or empty", invalid);
+		verifyNoMoreInteractions(ignoreStubs(expenseRepository));
+	}
+
 	// Test for deleting an expense when it exists
 	@Test
 	public void testDeleteExpenseWhenExpenseExist() {
@@ -280,11 +368,225 @@ public class ExpenseControlerTest {
 		verifyNoMoreInteractions(ignoreStubs(expenseRepository));
 	}
 
+	// Test that listeners are notified after a new expense is saved
+	@Test
+	public void testNewExpenseNotifiesListeners() {
+		expenseController.addExpenseListener(expenseListener);
+		Category existingCategory = new Category("1", "name1", "description1");
+		when(categoryRepository.findById("1")).thenReturn(existingCategory);
+		Expense expense = new Expense("1", 5000d, "testExpense", LocalDate.now(), existingCategory);
+		expenseController.newExpense(expense);
+		InOrder inOrder = inOrder(expenseRepository, expenseListener);
+		inOrder.verify(expenseRepository).save(expense);
+		inOrder.verify(expenseListener).expenseAdded(expense);
+	}
+
+	// Test that listeners receive a saved batch at once
+	@Test
+	public void testNewExpensesNotifiesListenersWithTheSavedBatch() {
+		expenseController.addExpenseListener(expenseListener);
+		Category existingCategory = new Category("1", "name1", "description1");
+		when(categoryRepository.findByIdsWithoutExpenses(Collections.singleton("1")))
+				.thenReturn(Arrays.asList(existingCategory));
+		Expense valid = new Expense(5000d, "testExpense1", LocalDate.now(), existingCategory);
+		Expense invalid = new Expense(-1d, "testExpense2", LocalDate.now(), existingCategory);
+		expenseController.newExpenses(Arrays.asList(valid, invalid));
+		verify(expenseListener).expensesAdded(Arrays.asList(valid));
+		verifyNoMoreInteractions(expenseListener);
+	}
+
+	// Test that listeners receive the stored expense along with the update
+	@Test
+	public void testUpdateExpenseNotifiesListenersWithPreviousExpense() {
+		expenseController.addExpenseListener(expenseListener);
+		Category existingCategory = new Category("1", "name1", "description1");
+		when(categoryRepository.findById("1")).thenReturn(existingCategory);
+		Expense updatedExpense = new Expense("1", 10000d, "testExpense", LocalDate.now(), existingCategory);
+		Expense existingExpense = new Expense("1", 5000d, "testExpense", LocalDate.now(), existingCategory);
+		when(expenseRepository.findById("1")).thenReturn(existingExpense);
+		expenseController.updateExpense(updatedExpense);
+		verify(expenseListener).expenseUpdated(existingExpense, updatedExpense);
+	}
+
+	// Test that listeners receive the stored expense on deletion
+	@Test
+	public void testDeleteExpenseNotifiesListenersWithStoredExpense() {
+		expenseController.addExpenseListener(expenseListener);
+		Category existingCategory = new Category("1", "name1", "description1");
+		Expense expenseToDelete = new Expense("1", 5000d, "testExpense", LocalDate.now(), existingCategory);
+		Expense storedExpense = new Expense("1", 4000d, "testExpense", LocalDate.now(), existingCategory);
+		when(expenseRepository.findById("1")).thenReturn(storedExpense);
+		expenseController.deleteExpense(expenseToDelete);
+		verify(expenseListener).expenseDeleted(storedExpense);
+	}
+
+	// Test that listeners are not notified of rejected writes
+	@Test
+	public void testRejectedWritesDoNotNotifyListeners() {
+		expenseController.addExpenseListener(expenseListener);
+		Category existingCategory = new Category("1", "name1", "description1");
+		Expense expense = new Expense("1", 5000d, "testExpense", LocalDate.now(), existingCategory);
+		expenseController.newExpense(expense);
+		expenseController.updateExpense(expense);
+		expenseController.deleteExpense(expense);
+		verifyNoMoreInteractions(expenseListener);
+	}
+
+	// Test that a search shows the matching expenses read by id from the repository
+	@Test
+	public void testSearchExpensesShowsMatchesFromIndex() {
+		ExpenseSearchIndex searchIndex = new ExpenseSearchIndex();
+		expenseController.setSearchIndex(searchIndex);
+		Category existingCategory = new Category("1", "name1", "description1");
+		Expense amazon = new Expense("1", 5000d, "amazon order", LocalDate.now(), existingCategory);
+		searchIndex.expenseAdded(amazon);
+		searchIndex.expenseAdded(new Expense("2", 3000d, "rent", LocalDate.now(), existingCategory));
+		when(expenseRepository.findByIds(Arrays.asList("1"))).thenReturn(Arrays.asList(amazon));
+
+		expenseController.searchExpenses("amaz", 10);
+
+		verify(expenseView).showSearchResults("amaz", Arrays.asList(amazon));
+	}
+
+	// Test that a search without matches does not query the repository
+	@Test
+	public void testSearchExpensesWithoutMatches() {
+		expenseController.setSearchIndex(new ExpenseSearchIndex());
+
+		expenseController.searchExpenses("nothing", 10);
+
+		verify(expenseView).showSearchResults("nothing", Collections.emptyList());
+		verifyNoInteractions(expenseRepository);
+	}
+
+	// Test that the search index follows the expenses saved through the controller
+	@Test
+	public void testSearchIndexFollowsNewExpenses() {
+		ExpenseSearchIndex searchIndex = new ExpenseSearchIndex();
+		expenseController.setSearchIndex(searchIndex);
+		Category existingCategory = new Category("1", "name1", "description1");
+		when(categoryRepository.findById("1")).thenReturn(existingCategory);
+
+		expenseController.newExpense(new Expense("1", 5000d, "train ticket", LocalDate.now(), existingCategory));
+
+		assertThat(searchIndex.search("train", 10)).containsExactly("1");
+	}
+
+	// Test that description suggestions come from the suggester and follow new expenses
+	@Test
+	public void testSuggestDescriptions() {
+		expenseController.setDescriptionSuggester(new DescriptionSuggester());
+		Category existingCategory = new Category("1", "name1", "description1");
+		when(categoryRepository.findById("1")).thenReturn(existingCategory);
+		expenseController.newExpense(new Expense("1", 5000d, "Lunch", LocalDate.now(), existingCategory));
+
+		expenseController.suggestDescriptions("lu", 5);
+
+		verify(expenseView).showDescriptionSuggestions("lu", Arrays.asList("Lunch"));
+	}
+
+	// Test that there are no suggestions without a suggester
+	@Test
+	public void testSuggestDescriptionsWithoutSuggester() {
+		expenseController.suggestDescriptions("lu", 5);
+
+		verify(expenseView).showDescriptionSuggestions("lu", Collections.emptyList());
+	}
+
+	// Test that the suggested category comes from the classifier and follows new expenses
+	@Test
+	public void testSuggestCategory() {
+		expenseController.setCategoryClassifier(new CategoryClassifier());
+		Category existingCategory = new Category("1", "name1", "description1");
+		when(categoryRepository.findById("1")).thenReturn(existingCategory);
+		expenseController.newExpense(new Expense("1", 5000d, "Train ticket", LocalDate.now(), existingCategory));
+
+		expenseController.suggestCategory("train to Rome");
+
+		verify(expenseView).showSuggestedCategory("train to Rome", "1");
+	}
+
+	// Test that nothing is suggested without a classifier or for unknown words
+	@Test
+	public void testSuggestCategoryWithoutPrediction() {
+		expenseController.suggestCategory("train");
+		expenseController.setCategoryClassifier(new CategoryClassifier());
+		expenseController.suggestCategory("train");
+
+		verify(expenseView, never()).showSuggestedCategory(anyString(), anyString());
+	}
+
+	// Test that ids the filter never saw are not looked up and saved ids are
+	// remembered
+	@Test
+	public void testNewExpenseSkipsLookupOfUnknownId() {
+		ExpenseIdFilter expenseIdFilter = new ExpenseIdFilter(0);
+		expenseIdFilter.load(consumer -> consumer.accept("1"));
+		expenseController.setExpenseIdFilter(expenseIdFilter);
+		Category existingCategory = new Category("1", "name1", "description1");
+		when(categoryRepository.findById("1")).thenReturn(existingCategory);
+		Expense expense = new Expense("2", 5000d, "description", LocalDate.now(), existingCategory);
+
+		expenseController.newExpense(expense);
+
+		verify(expenseRepository, never()).findById("2");
+		verify(expenseRepository).save(expense);
+		assertThat(expenseIdFilter.mightExist("2")).isTrue();
+	}
+
+	// Test that every id is looked up while the filter is still being loaded
+	@Test
+	public void testNewExpenseLooksUpIdBeforeFilterIsLoaded() {
+		expenseController.setExpenseIdFilter(new ExpenseIdFilter(0));
+		Category existingCategory = new Category("1", "name1", "description1");
+		when(categoryRepository.findById("1")).thenReturn(existingCategory);
+		Expense expense = new Expense("2", 5000d, "description", LocalDate.now(), existingCategory);
+
+		expenseController.newExpense(expense);
+
+		verify(expenseRepository).findById("2");
+		verify(expenseRepository).save(expense);
+	}
+
+	// Test that an id allocated here skips the lookup only until it is saved, so
+	// resubmitting the expense is reported as a duplicate
+	@Test
+	public void testNewExpenseLooksUpResubmittedAllocatedId() {
+		expenseController.setExpenseIdFilter(new ExpenseIdFilter(0));
+		Category existingCategory = new Category("1", "name1", "description1");
+		when(categoryRepository.findById("1")).thenReturn(existingCategory);
+		Expense expense = new Expense(5000d, "description", LocalDate.now(), existingCategory);
+
+		expenseController.newExpense(expense);
+		verify(expenseRepository, never()).findById(expense.getId());
+		when(expenseRepository.findById(expense.getId())).thenReturn(expense);
+		expenseController.newExpense(expense);
+
+		verify(expenseView).showError("Already existing expense with id " + expense.getId(), expense);
+		verify(expenseRepository, times(1)).save(expense);
+	}
+
+	// Test that possibly stored ids are still looked up
+	@Test
+	public void testNewExpenseLooksUpPossiblyStoredId() {
+		ExpenseIdFilter expenseIdFilter = new ExpenseIdFilter(0);
+		expenseIdFilter.load(consumer -> consumer.accept("1"));
+		expenseController.setExpenseIdFilter(expenseIdFilter);
+		Expense existingExpense = new Expense("1", 5000d, "description", LocalDate.now(),
+				new Category("1", "name1", "description1"));
+		when(expenseRepository.findById("1")).thenReturn(existingExpense);
+
+		expenseController.newExpense(new Expense("1", 20d, "other", LocalDate.now(), existingExpense.getCategory()));
+
+		verify(expenseView).showError("Already existing expense with id 1", existingExpense);
+		verify(expenseRepository, never()).save(any());
+	}
+
 	// Test for fetching all categories
 	@Test
 	public void testAllCategory() {
 		List<Category> categories = Arrays.asList(new Category());
-		when(categoryRepository.findAll()).thenReturn(categories);
+		when(categoryRepository.findAllWithoutExpenses()).thenReturn(categories);
 		expenseController.allCategory();
 		verify(expenseView).showAllCategory(categories);
 	}
@@ -0,0 +1,91 @@
+package com.tdd.expensetracker.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.repository.ExpenseRepository;
+
+public class ExpenseExporterTest {
+
+	private static final LocalDate FROM = LocalDate.of(2024, 1, 1);
+	private static final LocalDate TO = LocalDate.of(2024, 12, 31);
+
+	@Mock
+	private ExpenseRepository expenseRepository;
+
+	private AutoCloseable closeable;
+	private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+	// Setup the repository to stream two expenses for the filters used below
+	@Before
+	public void setup() {
+		closeable = MockitoAnnotations.openMocks(this);
+		Category category = new Category("1", "food", "groceries");
+		doAnswer(invocation -> {
+			Consumer<Expense> consumer = invocation.getArgument(3);
+			consumer.accept(new Expense("e1", 12.5, "bread, fresh", LocalDate.of(2024, 1, 2), category));
+			consumer.accept(new Expense("e2", 3d, "say \"hi\"", LocalDate.of(2024, 2, 3), category));
+			return null;
+		}).when(expenseRepository).streamAll(eq(FROM), eq(TO), eq("food"), any());
+	}
+
+	@After
+	public void releaseMocks() throws Exception {
+		closeable.close();
+	}
+
+	// Test that the CSV export writes a header and one quoted line per expense
+	@Test
+	public void testExportAsCsv() throws IOException {
+		ExpenseExporter exporter = new ExpenseExporter(expenseRepository, ExportFormat.CSV, Arrays.asList(
+				ExportColumn.DATE, ExportColumn.AMOUNT, ExportColumn.DESCRIPTION, ExportColumn.CATEGORY));
+
+		long count = exporter.export(FROM, TO, "food", out);
+
+		assertThat(count).isEqualTo(2);
+		assertThat(out.toString(StandardCharsets.UTF_8.name())).isEqualTo("date,amount,description,category\n"
+				+ "2024-01-02,12.5,\"bread, fresh\",food\n" + "2024-02-03,3.0,\"say \"\"hi\"\"\",food\n");
+	}
+
+	// Test that the JSON export writes an array holding only the chosen columns
+	@Test
+	public void testExportAsJsonWithSelectedColumns() throws IOException {
+		ExpenseExporter exporter = new ExpenseExporter(expenseRepository, ExportFormat.JSON,
+				Arrays.asList(ExportColumn.ID, ExportColumn.AMOUNT, ExportColumn.DESCRIPTION));
+
+		exporter.export(FROM, TO, "food", out);
+
+		assertThat(out.toString(StandardCharsets.UTF_8.name())).isEqualTo("[\n"
+				+ "{\"id\":\"e1\",\"amount\":12.5,\"description\":\"bread, fresh\"},\n"
+				+ "{\"id\":\"e2\",\"amount\":3.0,\"description\":\"say \\\"hi\\\"\"}\n]\n");
+	}
+
+	// Test that an export without matching expenses still writes a valid document
+	@Test
+	public void testExportWithoutExpensesWritesEmptyDocument() throws IOException {
+		ExpenseExporter exporter = new ExpenseExporter(expenseRepository, ExportFormat.JSON,
+				Arrays.asList(ExportColumn.ID));
+
+		long count = exporter.export(null, null, null, out);
+
+		assertThat(count).isZero();
+		assertThat(out.toString(StandardCharsets.UTF_8.name())).isEqualTo("[\n]\n");
+	}
+}
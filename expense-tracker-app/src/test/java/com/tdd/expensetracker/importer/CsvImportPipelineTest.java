@@ -0,0 +1,105 @@
+package com.tdd.expensetracker.importer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+
+public class CsvImportPipelineTest {
+
+	private static final String HEADER = "date,amount,description,category\n";
+
+	private final Category food = new Category("1", "food", "groceries");
+	private final List<List<Expense>> batches = Collections.synchronizedList(new ArrayList<>());
+	private final AtomicInteger lookups = new AtomicInteger();
+
+	// Test that valid rows are parsed and handed over in batches of the given size
+	@Test
+	public void testRunWritesValidRowsInBatches() throws Exception {
+		StringBuilder csv = new StringBuilder(HEADER);
+		for (int i = 1; i <= 1000; i++) {
+			csv.append("2024-01-02,").append(i).append(",item ").append(i).append(",food\n");
+		}
+		CsvImportPipeline pipeline = new CsvImportPipeline(this::resolve, batches::add, 3, 300);
+
+		ImportProgress result = pipeline.run(reader(csv.toString()), new StringWriter());
+
+		assertThat(result.getRowsRead()).isEqualTo(1000);
+		assertThat(result.getRowsWritten()).isEqualTo(1000);
+		assertThat(result.getRowsRejected()).isZero();
+		assertThat(batches).extracting(List::size).containsExactly(300, 300, 300, 100);
+		assertThat(batches.stream().mapToDouble(batch -> batch.stream().mapToDouble(Expense::getAmount).sum()).sum())
+				.isEqualTo(500500d);
+		assertThat(lookups).hasValue(1);
+	}
+
+	// Test that invalid rows are written to the reject output with their line
+	// number and error while the valid rows are still imported
+	@Test
+	public void testRunWritesInvalidRowsToRejects() throws Exception {
+		String csv = HEADER + "2024-01-02,10,bread,food\n" + "not-a-date,10,bread,food\n" + "\n"
+				+ "2024-01-02,-5,bread,food\n" + "2024-01-02,10,bread,travel\n" + "2024-01-02,10\n";
+		StringWriter rejects = new StringWriter();
+
+		ImportProgress result = new CsvImportPipeline(this::resolve, batches::add, 2, 10).run(reader(csv), rejects);
+
+		assertThat(result.getRowsWritten()).isEqualTo(1);
+		assertThat(result.getRowsRejected()).isEqualTo(4);
+		assertThat(batches).hasSize(1);
+		assertThat(batches.get(0).get(0).getDate()).isEqualTo(LocalDate.of(2024, 1, 2));
+		assertThat(batches.get(0).get(0).getCategory()).isSameAs(food);
+		assertThat(rejects.toString()).startsWith("line,error,row").contains("3,", "5,Amount must be greater than zero,",
+				"6,Category does not exist with name travel,", "7,Expected 4 fields but found 2,");
+	}
+
+	// Test that a failing batch write stops the import and is reported
+	@Test
+	public void testRunWhenBatchWriterFailsThrows() {
+		StringBuilder csv = new StringBuilder(HEADER);
+		for (int i = 1; i <= 5000; i++) {
+			csv.append("2024-01-02,1,item,food\n");
+		}
+		CsvImportPipeline pipeline = new CsvImportPipeline(this::resolve, batch -> {
+			throw new IllegalStateException("database down");
+		}, 2, 100);
+
+		assertThatThrownBy(() -> pipeline.run(reader(csv.toString()), new StringWriter()))
+				.isInstanceOf(IllegalStateException.class).hasMessage("database down");
+	}
+
+	// Test that progress is reported while the import runs
+	@Test
+	public void testRunReportsProgress() throws Exception {
+		List<ImportProgress> reports = new ArrayList<>();
+		CsvImportPipeline pipeline = new CsvImportPipeline(this::resolve, batches::add, 1, 10);
+		pipeline.setProgressListener(reports::add, 0);
+
+		pipeline.run(reader(HEADER + "2024-01-02,10,bread,food\n"), new StringWriter());
+
+		assertThat(reports).isNotEmpty();
+		assertThat(reports.get(reports.size() - 1).getRowsRead()).isEqualTo(1);
+	}
+
+	// Utility method standing in for the category repository
+	private Category resolve(String name) {
+		lookups.incrementAndGet();
+		return food.getName().equals(name) ? food : null;
+	}
+
+	private static BufferedReader reader(String csv) throws IOException {
+		return new BufferedReader(new StringReader(csv));
+	}
+}
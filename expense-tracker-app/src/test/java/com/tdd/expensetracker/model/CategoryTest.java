@@ -0,0 +1,32 @@
+package com.tdd.expensetracker.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+
+import org.junit.Test;
+
+public class CategoryTest {
+
+	// Test that categories with the same id are equal whatever their other fields
+	@Test
+	public void testEqualityOnlyComparesIds() {
+		Category category = new Category("1", "food", "groceries");
+		Category renamed = new Category("1", "meals", null);
+
+		assertThat(category).isEqualTo(renamed).hasSameHashCodeAs(renamed);
+		assertThat(category).isNotEqualTo(new Category("2", "food", "groceries"));
+		assertThat(DeepEquality.sameCategory(category, renamed)).isFalse();
+	}
+
+	// Test that the hash does not depend on the expenses of the category
+	@Test
+	public void testHashCodeIgnoresExpenses() {
+		Category category = new Category("1", "food", null);
+		int hash = category.hashCode();
+
+		category.getExpenses().add(new Expense("1", 10d, "bread", LocalDate.of(2024, 1, 1), category));
+
+		assertThat(category.hashCode()).isEqualTo(hash);
+	}
+}
@@ -0,0 +1,41 @@
+package com.tdd.expensetracker.model;
+
+import java.util.Comparator;
+import java.util.Objects;
+
+// Field by field comparison of entities, whose equals only compares ids, for
+// tests that check what was stored or read back. Use the comparators with
+// AssertJ's usingComparator and usingElementComparator.
+public final class DeepEquality {
+
+	public static final Comparator<Expense> EXPENSE_FIELDS = (a, b) -> sameExpense(a, b) ? 0 : 1;
+	public static final Comparator<Category> CATEGORY_FIELDS = (a, b) -> sameCategory(a, b) ? 0 : 1;
+
+	private DeepEquality() {
+	}
+
+	// Compares the expenses and their categories, but not the categories' expenses
+	public static boolean sameExpense(Expense a, Expense b) {
+		if (a == b) {
+			return true;
+		}
+		if (a == null || b == null) {
+			return false;
+		}
+		return Objects.equals(a.getId(), b.getId())
+				&& Double.doubleToLongBits(a.getAmount()) == Double.doubleToLongBits(b.getAmount())
+				&& Objects.equals(a.getDescription(), b.getDescription()) && Objects.equals(a.getDate(), b.getDate())
+				&& sameCategory(a.getCategory(), b.getCategory());
+	}
+
+	public static boolean sameCategory(Category a, Category b) {
+		if (a == b) {
+			return true;
+		}
+		if (a == null || b == null) {
+			return false;
+		}
+		return Objects.equals(a.getId(), b.getId()) && Objects.equals(a.getName(), b.getName())
+				&& Objects.equals(a.getDescription(), b.getDescription());
+	}
+}
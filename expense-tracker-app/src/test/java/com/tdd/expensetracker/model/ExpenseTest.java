@@ -0,0 +1,45 @@
+package com.tdd.expensetracker.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+
+import org.junit.Test;
+
+public class ExpenseTest {
+
+	// Test that expenses with the same id are equal whatever their other fields
+	@Test
+	public void testEqualityOnlyComparesIds() {
+		Category category = new Category("1", "food", null);
+		Expense expense = new Expense("1", 10d, "bread", LocalDate.of(2024, 1, 1), category);
+		Expense changed = new Expense("1", 12d, "milk", LocalDate.of(2024, 1, 2), new Category("2", "other", null));
+
+		assertThat(expense).isEqualTo(changed).hasSameHashCodeAs(changed);
+		assertThat(expense).isNotEqualTo(new Expense("2", 10d, "bread", LocalDate.of(2024, 1, 1), category));
+		assertThat(DeepEquality.sameExpense(expense, changed)).isFalse();
+	}
+
+	// Test that the hash does not change with the fields
+	@Test
+	public void testHashCodeIsStableWhenFieldsChange() {
+		Expense expense = new Expense("1", 10d, "bread", LocalDate.of(2024, 1, 1), new Category("1", "food", null));
+		int hash = expense.hashCode();
+
+		expense.setAmount(20d);
+		expense.setDescription("milk");
+		expense.setCategory(new Category("2", "other", null));
+
+		assertThat(expense.hashCode()).isEqualTo(hash);
+	}
+
+	// Test that an expense without an id is only equal to itself
+	@Test
+	public void testExpenseWithoutIdIsOnlyEqualToItself() {
+		Expense expense = new Expense(null, 10d, "bread", LocalDate.of(2024, 1, 1), null);
+
+		assertThat(expense).isEqualTo(expense);
+		assertThat(expense).isNotEqualTo(new Expense(null, 10d, "bread", LocalDate.of(2024, 1, 1), null));
+		assertThat(expense).isNotEqualTo(new Expense("", 10d, "bread", LocalDate.of(2024, 1, 1), null));
+	}
+}
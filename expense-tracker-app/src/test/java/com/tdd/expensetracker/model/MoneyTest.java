@@ -0,0 +1,45 @@
+package com.tdd.expensetracker.model;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.Test;
+
+public class MoneyTest {
+
+	// Test that amounts are rounded half up to cents from their decimal form
+	@Test
+	public void testOfRoundsHalfUpToCents() {
+		assertThat(Money.of(1.005).getCents()).isEqualTo(101);
+		assertThat(Money.of(1.004).getCents()).isEqualTo(100);
+		assertThat(Money.of(-2.5).getCents()).isEqualTo(-250);
+		assertThat(Money.parse(" 12.345 ")).isEqualTo(Money.ofCents(1235));
+	}
+
+	// Test that sums of cents are exact where sums of doubles are not
+	@Test
+	public void testSumsAreExact() {
+		long cents = Money.toCents(0.1) + Money.toCents(0.2);
+
+		assertThat(0.1 + 0.2).isNotEqualTo(0.3);
+		assertThat(Money.toDouble(cents)).isEqualTo(0.3);
+		assertThat(Money.of(0.1).plus(Money.of(0.2))).isEqualTo(Money.of(0.3));
+	}
+
+	// Test that amounts are formatted with two decimals
+	@Test
+	public void testFormat() {
+		assertThat(Money.ofCents(1205)).hasToString("12.05");
+		assertThat(Money.ofCents(-5)).hasToString("-0.05");
+		assertThat(Money.format(100)).isEqualTo("1.00");
+	}
+
+	// Test that amounts which are not numbers or do not fit are rejected
+	@Test
+	public void testInvalidAmountsAreRejected() {
+		assertThatThrownBy(() -> Money.of(Double.NaN)).isInstanceOf(NumberFormatException.class);
+		assertThatThrownBy(() -> Money.of(1e300)).isInstanceOf(NumberFormatException.class)
+				.hasMessageContaining("out of range");
+		assertThatThrownBy(() -> Money.parse("ten")).isInstanceOf(NumberFormatException.class);
+	}
+}
@@ -0,0 +1,126 @@
+package com.tdd.expensetracker.recurring;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tdd.expensetracker.controller.ExpenseListener;
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.model.Frequency;
+import com.tdd.expensetracker.model.RecurringExpense;
+import com.tdd.expensetracker.repository.RecurringExpenseRepository;
+
+public class RecurringExpenseSchedulerTest {
+
+	private final Category category = new Category("1", "housing", "rent and bills");
+
+	private RecurringExpenseRepository repository;
+	// Copies of the batches handed to saveOccurrences
+	private final List<List<Expense>> savedBatches = new ArrayList<>();
+
+	@Before
+	public void setup() {
+		repository = mock(RecurringExpenseRepository.class);
+		doAnswer(invocation -> {
+			savedBatches.add(new ArrayList<>(invocation.<List<Expense>>getArgument(0)));
+			return null;
+		}).when(repository).saveOccurrences(anyList(), anyList());
+	}
+
+	// Test that all missed monthly occurrences are caught up without drifting off
+	// the end of the month
+	@Test
+	public void testCatchesUpMonthlyOccurrencesFromStartDate() {
+		RecurringExpense rent = new RecurringExpense("r1", 900d, "rent", category, Frequency.MONTHLY,
+				LocalDate.of(2024, 1, 31), null, 0, LocalDate.of(2024, 1, 31));
+		when(repository.findDue(LocalDate.of(2024, 4, 30))).thenReturn(Arrays.asList(rent));
+
+		int generated = new RecurringExpenseScheduler(repository).run(LocalDate.of(2024, 4, 30));
+
+		assertThat(generated).isEqualTo(4);
+		assertThat(savedBatches).hasSize(1);
+		assertThat(savedBatches.get(0)).extracting(Expense::getDate).containsExactly(LocalDate.of(2024, 1, 31),
+				LocalDate.of(2024, 2, 29), LocalDate.of(2024, 3, 31), LocalDate.of(2024, 4, 30));
+		assertThat(savedBatches.get(0)).allMatch(expense -> expense.getAmount() == 900d
+				&& "rent".equals(expense.getDescription()) && expense.getCategory() == category);
+		assertThat(rent.getGeneratedCount()).isEqualTo(4);
+		assertThat(rent.getNextDate()).isEqualTo(LocalDate.of(2024, 5, 31));
+		verify(repository).saveOccurrences(anyList(), eq(Arrays.asList(rent)));
+	}
+
+	// Test that a run continues from the watermark of the previous run
+	@Test
+	public void testContinuesFromWatermark() {
+		RecurringExpense gym = new RecurringExpense("r1", 10d, "gym", category, Frequency.WEEKLY,
+				LocalDate.of(2024, 1, 1), null, 3, LocalDate.of(2024, 1, 22));
+		when(repository.findDue(LocalDate.of(2024, 1, 30))).thenReturn(Arrays.asList(gym));
+
+		new RecurringExpenseScheduler(repository).run(LocalDate.of(2024, 1, 30));
+
+		assertThat(savedBatches.get(0)).extracting(Expense::getDate).containsExactly(LocalDate.of(2024, 1, 22),
+				LocalDate.of(2024, 1, 29));
+		assertThat(gym.getGeneratedCount()).isEqualTo(5);
+		assertThat(gym.getNextDate()).isEqualTo(LocalDate.of(2024, 2, 5));
+	}
+
+	// Test that a definition stops at its end date
+	@Test
+	public void testStopsAtEndDate() {
+		RecurringExpense loan = new RecurringExpense("r1", 100d, "loan", category, Frequency.MONTHLY,
+				LocalDate.of(2024, 1, 15), LocalDate.of(2024, 3, 1), 0, LocalDate.of(2024, 1, 15));
+		when(repository.findDue(LocalDate.of(2024, 6, 1))).thenReturn(Arrays.asList(loan));
+
+		new RecurringExpenseScheduler(repository).run(LocalDate.of(2024, 6, 1));
+
+		assertThat(savedBatches.get(0)).extracting(Expense::getDate).containsExactly(LocalDate.of(2024, 1, 15),
+				LocalDate.of(2024, 2, 15));
+		assertThat(loan.getNextDate()).isNull();
+	}
+
+	// Test that occurrences are saved in batches that keep each definition whole
+	@Test
+	public void testSavesInBatchesAndNotifiesListeners() {
+		List<RecurringExpense> definitions = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			definitions.add(new RecurringExpense("r" + i, 1d, "daily " + i, category, Frequency.DAILY,
+					LocalDate.of(2024, 1, 1), null, 0, LocalDate.of(2024, 1, 1)));
+		}
+		when(repository.findDue(LocalDate.of(2024, 1, 3))).thenReturn(definitions);
+		ExpenseListener listener = mock(ExpenseListener.class);
+		RecurringExpenseScheduler scheduler = new RecurringExpenseScheduler(repository, 4);
+		scheduler.addExpenseListener(listener);
+
+		int generated = scheduler.run(LocalDate.of(2024, 1, 3));
+
+		assertThat(generated).isEqualTo(15);
+		assertThat(savedBatches.stream().map(List::size).collect(Collectors.toList())).containsExactly(6, 6, 3);
+		for (List<Expense> batch : savedBatches) {
+			verify(listener).expensesAdded(batch);
+		}
+	}
+
+	// Test that nothing is written when no definition is due
+	@Test
+	public void testNothingDue() {
+		when(repository.findDue(LocalDate.of(2024, 1, 3))).thenReturn(Collections.emptyList());
+
+		assertThat(new RecurringExpenseScheduler(repository).run(LocalDate.of(2024, 1, 3))).isZero();
+		verify(repository, never()).saveOccurrences(anyList(), anyList());
+	}
+}
@@ -0,0 +1,82 @@
+package com.tdd.expensetracker.report;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+
+public class AmountKernelsTest {
+
+	// Test that the branch-free kernel agrees with a plain filtering loop for
+	// category and date filters, including rows without a date and negative
+	// amounts
+	@Test
+	public void testAggregateMatchesFilteringLoop() {
+		Random random = new Random(42);
+		int size = 10_000;
+		long[] cents = new long[size];
+		int[] epochDays = new int[size];
+		int[] categoryOrdinals = new int[size];
+		for (int row = 0; row < size; row++) {
+			cents[row] = random.nextInt(200_000) - 1000;
+			epochDays[row] = random.nextInt(10) == 0 ? ExpenseColumns.NO_DATE : 18_000 + random.nextInt(1000);
+			categoryOrdinals[row] = random.nextInt(6) - 1;
+		}
+
+		int[][] filters = { { AmountKernels.ANY_CATEGORY, ExpenseColumns.NO_DATE, Integer.MAX_VALUE },
+				{ 2, ExpenseColumns.NO_DATE, Integer.MAX_VALUE }, { ExpenseColumns.NONE, 18_100, 18_400 },
+				{ AmountKernels.ANY_CATEGORY, 18_500, 18_500 }, { 3, 18_200, Integer.MAX_VALUE },
+				{ 4, 20_000, 21_000 } };
+		for (int[] filter : filters) {
+			long count = 0;
+			long total = 0;
+			long min = Long.MAX_VALUE;
+			long max = Long.MIN_VALUE;
+			for (int row = 0; row < size; row++) {
+				if ((filter[0] == AmountKernels.ANY_CATEGORY || categoryOrdinals[row] == filter[0])
+						&& epochDays[row] >= filter[1] && epochDays[row] <= filter[2]) {
+					count++;
+					total += cents[row];
+					min = Math.min(min, cents[row]);
+					max = Math.max(max, cents[row]);
+				}
+			}
+
+			SpendingStats stats = AmountKernels.aggregate(cents, epochDays, categoryOrdinals, 0, size, filter[0],
+					filter[1], filter[2]);
+
+			assertThat(stats.getCount()).isEqualTo(count);
+			assertThat(stats.getTotal()).isEqualTo(total / 100d);
+			assertThat(stats.getMin()).isEqualTo(count == 0 ? 0 : min / 100d);
+			assertThat(stats.getMax()).isEqualTo(count == 0 ? 0 : max / 100d);
+		}
+	}
+
+	// Test the filters of ExpenseColumns.aggregate: by category id, by date range
+	// and open ends, which only include undated expenses when both are open
+	@Test
+	public void testColumnsAggregateByCategoryAndDates() {
+		Category food = new Category("1", "food", "groceries");
+		Category travel = new Category("2", "travel", "trips");
+		ExpenseColumns columns = new ExpenseColumns();
+		columns.expenseAdded(new Expense("a", 10d, null, LocalDate.of(2024, 1, 10), food));
+		columns.expenseAdded(new Expense("b", 20d, null, LocalDate.of(2024, 2, 10), food));
+		columns.expenseAdded(new Expense("c", 40d, null, LocalDate.of(2024, 2, 20), travel));
+		columns.expenseAdded(new Expense("d", 80d, null, null, food));
+
+		assertThat(columns.aggregate(null, null, null).getTotal()).isEqualTo(150d);
+		assertThat(columns.aggregate("1", null, null).getTotal()).isEqualTo(110d);
+		assertThat(columns.aggregate("1", LocalDate.of(2024, 2, 1), null).getTotal()).isEqualTo(20d);
+		assertThat(columns.aggregate("1", null, LocalDate.of(2024, 2, 10)).getTotal()).isEqualTo(30d);
+		SpendingStats february = columns.aggregate(null, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29));
+		assertThat(february.getCount()).isEqualTo(2);
+		assertThat(february.getMin()).isEqualTo(20d);
+		assertThat(february.getMax()).isEqualTo(40d);
+		assertThat(columns.aggregate("unknown", null, null).getCount()).isZero();
+	}
+}
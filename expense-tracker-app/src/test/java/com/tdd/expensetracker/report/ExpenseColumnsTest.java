@@ -0,0 +1,111 @@
+package com.tdd.expensetracker.report;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+
+public class ExpenseColumnsTest {
+
+	private final Category food = new Category("1", "food", "groceries");
+	private final Category travel = new Category("2", "travel", "trips");
+
+	private final ExpenseColumns columns = new ExpenseColumns();
+
+	// Test that each expense becomes one row of cents, epoch day, category ordinal
+	// and description code, with repeated values sharing a dictionary entry
+	@Test
+	public void testAddedExpensesAreEncodedInColumns() {
+		columns.expensesAdded(Arrays.asList(new Expense("a", 12.34, "lunch", LocalDate.of(2024, 3, 5), food),
+				new Expense("b", 5d, "lunch", null, null), new Expense("c", 80d, null, LocalDate.of(2024, 1, 1), travel),
+				new Expense("d", 7d, "lunch", LocalDate.of(2024, 3, 9), food)));
+
+		columns.read(table -> {
+			assertThat(table.size).isEqualTo(4);
+			assertThat(Arrays.copyOf(table.cents, 4)).containsExactly(1234, 500, 8000, 700);
+			assertThat(table.epochDays[0]).isEqualTo(LocalDate.of(2024, 3, 5).toEpochDay());
+			assertThat(table.epochDays[1]).isEqualTo(ExpenseColumns.NO_DATE);
+			assertThat(Arrays.copyOf(table.categoryOrdinals, 4)).containsExactly(0, ExpenseColumns.NONE, 1, 0);
+			assertThat(table.categoryNames).containsExactly("food", "travel");
+			assertThat(table.descriptions).containsExactly("lunch");
+			assertThat(table.description(2)).isNull();
+			assertThat(table.description(3)).isEqualTo("lunch");
+			assertThat(table.minMonth).isEqualTo(2024 * 12);
+			assertThat(table.maxMonth).isEqualTo(2024 * 12 + 2);
+			return null;
+		});
+	}
+
+	// Test that an update overwrites the row in place and a deletion moves the
+	// last row into the hole, so the columns stay dense
+	@Test
+	public void testUpdateAndDelete() {
+		Expense first = new Expense("a", 10d, "taxi", LocalDate.of(2024, 1, 1), food);
+		Expense second = new Expense("b", 20d, "train", LocalDate.of(2024, 1, 2), food);
+		Expense third = new Expense("c", 30d, "bus", LocalDate.of(2024, 1, 3), travel);
+		columns.expensesAdded(Arrays.asList(first, second, third));
+
+		columns.expenseUpdated(second, new Expense("b", 25d, "train", LocalDate.of(2024, 1, 2), travel));
+		columns.expenseDeleted(first);
+		columns.expenseDeleted(new Expense("unknown", 1d, null, null, null));
+
+		assertThat(columns.size()).isEqualTo(2);
+		columns.read(table -> {
+			assertThat(Arrays.copyOf(table.cents, 2)).containsExactly(3000, 2500);
+			assertThat(Arrays.copyOf(table.categoryOrdinals, 2)).containsExactly(1, 1);
+			assertThat(table.description(0)).isEqualTo("bus");
+			return null;
+		});
+
+		// The moved row can still be found by its id
+		columns.expenseDeleted(third);
+		assertThat(columns.size()).isEqualTo(1);
+		columns.read(table -> assertThat(table.cents[0]).isEqualTo(2500));
+	}
+
+	// Test that the columns grow past their initial capacity
+	@Test
+	public void testGrowsBeyondInitialCapacity() {
+		columns.rebuild(consumer -> {
+			for (int i = 0; i < 5000; i++) {
+				consumer.accept(new Expense(Integer.toString(i), 1d, "e" + (i % 10), LocalDate.of(2024, 1, 1), food));
+			}
+		});
+
+		assertThat(columns.size()).isEqualTo(5000);
+		columns.read(table -> assertThat(table.descriptions).hasSize(10));
+	}
+
+	// Test that a rebuild replaces the previous rows and keeps the changes made
+	// while the scan was running
+	@Test
+	public void testRebuildKeepsChangesMadeDuringTheScan() {
+		columns.expenseAdded(new Expense("old", 1d, null, null, null));
+		Expense scanned = new Expense("a", 10d, null, null, food);
+
+		columns.rebuild(consumer -> {
+			consumer.accept(scanned);
+			columns.expenseAdded(new Expense("b", 20d, null, null, food));
+			columns.expenseDeleted(scanned);
+		});
+
+		assertThat(columns.size()).isEqualTo(1);
+		columns.read(table -> assertThat(table.cents[0]).isEqualTo(2000));
+	}
+
+	// Test that the month index matches LocalDate across leap years, centuries and
+	// dates before the epoch
+	@Test
+	public void testMonthIndexMatchesLocalDate() {
+		for (LocalDate date = LocalDate.of(1899, 12, 1); date.isBefore(LocalDate.of(2101, 3, 1)); date = date
+				.plusDays(1)) {
+			assertThat(ExpenseColumns.monthIndex((int) date.toEpochDay()))
+					.isEqualTo(date.getYear() * 12 + date.getMonthValue() - 1);
+		}
+	}
+}
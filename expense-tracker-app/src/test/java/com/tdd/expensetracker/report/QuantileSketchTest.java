@@ -0,0 +1,97 @@
+package com.tdd.expensetracker.report;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class QuantileSketchTest {
+
+	// Test that small sets of amounts give exact quantiles
+	@Test
+	public void testSmallSetIsExact() {
+		QuantileSketch sketch = new QuantileSketch();
+		for (double amount : new double[] { 5, 1, 4, 2, 3 }) {
+			sketch.add(amount);
+		}
+
+		assertThat(sketch.getCount()).isEqualTo(5);
+		assertThat(sketch.median()).isEqualTo(3d);
+		assertThat(sketch.quantile(0)).isEqualTo(1d);
+		assertThat(sketch.quantile(1)).isEqualTo(5d);
+	}
+
+	// Test that quantiles of many amounts are close to the exact ones
+	@Test
+	public void testLargeSetIsAccurate() {
+		QuantileSketch sketch = new QuantileSketch();
+		for (double amount : shuffledAmounts(100_000, 1)) {
+			sketch.add(amount);
+		}
+
+		assertThat(sketch.median()).isCloseTo(50_000, within(500d));
+		assertThat(sketch.quantile(0.9)).isCloseTo(90_000, within(500d));
+		assertThat(sketch.quantile(0.99)).isCloseTo(99_000, within(100d));
+	}
+
+	// Test that merged sketches summarize the union of their amounts
+	@Test
+	public void testMergedSketchesSummarizeUnion() {
+		QuantileSketch low = new QuantileSketch();
+		QuantileSketch high = new QuantileSketch();
+		for (double amount : shuffledAmounts(20_000, 2)) {
+			(amount <= 10_000 ? low : high).add(amount);
+		}
+
+		QuantileSketch merged = new QuantileSketch();
+		merged.merge(low);
+		merged.merge(high);
+
+		assertThat(merged.getCount()).isEqualTo(20_000);
+		assertThat(merged.median()).isCloseTo(10_000, within(100d));
+		assertThat(merged.quantile(0.9)).isCloseTo(18_000, within(100d));
+		assertThat(low.getCount()).isEqualTo(10_000);
+	}
+
+	// Test that the encoded sketch is small and decodes to the same quantiles
+	@Test
+	public void testEncodingIsCompactAndLossless() {
+		QuantileSketch sketch = new QuantileSketch();
+		for (double amount : shuffledAmounts(100_000, 3)) {
+			sketch.add(amount);
+		}
+
+		byte[] bytes = sketch.toBytes();
+		QuantileSketch decoded = QuantileSketch.fromBytes(bytes);
+
+		assertThat(bytes.length).isLessThan(4096);
+		assertThat(decoded.getCount()).isEqualTo(sketch.getCount());
+		assertThat(decoded.median()).isEqualTo(sketch.median());
+		assertThat(decoded.quantile(0.9)).isEqualTo(sketch.quantile(0.9));
+	}
+
+	// Test the empty sketch and invalid quantiles
+	@Test
+	public void testEmptySketchAndInvalidQuantile() {
+		QuantileSketch sketch = QuantileSketch.fromBytes(new QuantileSketch().toBytes());
+
+		assertThat(sketch.getCount()).isZero();
+		assertThat(sketch.median()).isZero();
+		assertThatThrownBy(() -> sketch.quantile(1.5)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static List<Double> shuffledAmounts(int count, long seed) {
+		List<Double> amounts = new ArrayList<>(count);
+		for (int i = 1; i <= count; i++) {
+			amounts.add((double) i);
+		}
+		Collections.shuffle(amounts, new Random(seed));
+		return amounts;
+	}
+}
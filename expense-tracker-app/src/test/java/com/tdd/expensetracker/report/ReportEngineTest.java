@@ -0,0 +1,132 @@
+package com.tdd.expensetracker.report;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+
+public class ReportEngineTest {
+
+	private final ForkJoinPool pool = new ForkJoinPool(4);
+	private final ReportEngine engine = new ReportEngine(pool);
+	private final Category food = new Category("1", "food", "groceries");
+	private final Category travel = new Category("2", "travel", "trips");
+
+	@After
+	public void shutdownPool() {
+		pool.shutdown();
+	}
+
+	// Test that totals, counts, averages and extremes are grouped correctly
+	@Test
+	public void testSummarizeGroupsByYearMonthAndCategory() {
+		List<Expense> expenses = Arrays.asList(new Expense(10d, "a", LocalDate.of(2023, 12, 31), food),
+				new Expense(20d, "b", LocalDate.of(2024, 1, 1), food),
+				new Expense(30d, "c", LocalDate.of(2024, 1, 15), travel));
+
+		SpendingReport report = engine.summarize(expenses);
+
+		assertThat(report.getOverall().getCount()).isEqualTo(3);
+		assertThat(report.getOverall().getTotal()).isEqualTo(60d);
+		assertThat(report.getOverall().getAverage()).isEqualTo(20d);
+		assertThat(report.getOverall().getMin()).isEqualTo(10d);
+		assertThat(report.getOverall().getMax()).isEqualTo(30d);
+		assertThat(report.getByYear().keySet()).containsExactly(2023, 2024);
+		assertThat(report.getByYear().get(2024).getTotal()).isEqualTo(50d);
+		assertThat(report.getByMonth().keySet()).containsExactly(YearMonth.of(2023, 12), YearMonth.of(2024, 1));
+		assertThat(report.getByMonth().get(YearMonth.of(2024, 1)).getCount()).isEqualTo(2);
+		assertThat(report.getByCategory().get("food").getTotal()).isEqualTo(30d);
+		assertThat(report.getByCategory().get("travel").getMax()).isEqualTo(30d);
+	}
+
+	// Test that the parallel summary of a large dataset matches a sequential one,
+	// both from a list and from a stream
+	@Test
+	public void testSummarizeLargeDatasetMatchesSequentialSums() {
+		List<Expense> expenses = new ArrayList<>();
+		LocalDate start = LocalDate.of(2014, 1, 1);
+		double expectedTotal = 0;
+		double expectedFoodTotal = 0;
+		for (int i = 0; i < 100_000; i++) {
+			double amount = 1 + i % 97;
+			Category category = i % 3 == 0 ? travel : food;
+			expenses.add(new Expense(amount, "e" + i, start.plusDays(i % 3650), category));
+			expectedTotal += amount;
+			expectedFoodTotal += category == food ? amount : 0;
+		}
+
+		SpendingReport fromList = engine.summarize(expenses);
+		SpendingReport fromStream = engine.summarize(consumer -> expenses.forEach(consumer));
+
+		for (SpendingReport report : Arrays.asList(fromList, fromStream)) {
+			assertThat(report.getOverall().getCount()).isEqualTo(100_000);
+			assertThat(report.getOverall().getTotal()).isCloseTo(expectedTotal, within(1e-6));
+			assertThat(report.getByCategory().get("food").getTotal()).isCloseTo(expectedFoodTotal, within(1e-6));
+			assertThat(report.getByYear()).hasSize(10);
+			assertThat(report.getByMonth()).hasSize(120);
+			assertThat(report.getByMonth().values().stream().mapToLong(SpendingStats::getCount).sum())
+					.isEqualTo(100_000);
+		}
+	}
+
+	// Test that the summary of the columns matches the summary of the expense
+	// objects, including expenses without a date or a category and distinct
+	// categories sharing a name
+	@Test
+	public void testSummarizeColumnsMatchesExpenses() {
+		Category otherFood = new Category("3", "food", "restaurants");
+		List<Expense> expenses = new ArrayList<>();
+		LocalDate start = LocalDate.of(2019, 6, 1);
+		for (int i = 0; i < 200_000; i++) {
+			Category category = i % 5 == 0 ? null : i % 5 == 1 ? otherFood : i % 2 == 0 ? travel : food;
+			expenses.add(new Expense(Integer.toString(i), 0.01 * (1 + i % 9973), "e" + i % 50,
+					i % 7 == 0 ? null : start.plusDays(i % 1500), category));
+		}
+		ExpenseColumns columns = new ExpenseColumns();
+		columns.rebuild(expenses::forEach);
+
+		SpendingReport fromColumns = engine.summarize(columns);
+		SpendingReport fromExpenses = engine.summarize(expenses);
+
+		assertSameStats(fromColumns.getOverall(), fromExpenses.getOverall());
+		assertSameGroups(fromColumns.getByYear(), fromExpenses.getByYear());
+		assertSameGroups(fromColumns.getByMonth(), fromExpenses.getByMonth());
+		assertSameGroups(fromColumns.getByCategory(), fromExpenses.getByCategory());
+		assertThat(fromColumns.getByCategory().keySet()).containsExactly("", "food", "travel");
+	}
+
+	// Test that an empty dataset yields an empty report
+	@Test
+	public void testSummarizeEmptyDataset() {
+		SpendingReport report = engine.summarize(consumer -> {
+		});
+
+		assertThat(report.getOverall().getCount()).isZero();
+		assertThat(report.getOverall().getMin()).isZero();
+		assertThat(report.getByMonth()).isEmpty();
+	}
+
+	private static <K> void assertSameGroups(Map<K, SpendingStats> actual, Map<K, SpendingStats> expected) {
+		assertThat(actual.keySet()).isEqualTo(expected.keySet());
+		actual.forEach((key, stats) -> assertSameStats(stats, expected.get(key)));
+	}
+
+	private static void assertSameStats(SpendingStats actual, SpendingStats expected) {
+		assertThat(actual.getCount()).isEqualTo(expected.getCount());
+		assertThat(actual.getTotal()).isEqualTo(expected.getTotal());
+		assertThat(actual.getMin()).isEqualTo(expected.getMin());
+		assertThat(actual.getMax()).isEqualTo(expected.getMax());
+	}
+}
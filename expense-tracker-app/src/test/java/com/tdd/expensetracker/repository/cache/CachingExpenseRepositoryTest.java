@@ -0,0 +1,127 @@
+package com.tdd.expensetracker.repository.cache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.repository.CategoryRepository;
+import com.tdd.expensetracker.repository.ExpenseRepository;
+
+@RunWith(MockitoJUnitRunner.class)
+public class CachingExpenseRepositoryTest {
+
+	@Mock
+	private ExpenseRepository delegate;
+
+	@Mock
+	private CategoryRepository categoryDelegate;
+
+	private final Category food = new Category("1", "food", "groceries");
+	private final Expense expense = new Expense("a", 10d, "lunch", LocalDate.of(2024, 3, 5), food);
+
+	private OffHeapExpenseCache cache;
+	private CachingExpenseRepository repository;
+
+	@Before
+	public void setup() {
+		cache = new OffHeapExpenseCache(2, 4096);
+		repository = new CachingExpenseRepository(delegate, cache);
+	}
+
+	// Test that only the first read by id reaches the decorated repository
+	@Test
+	public void testFindByIdIsServedFromCacheAfterFirstRead() {
+		when(delegate.findById("a")).thenReturn(expense);
+
+		assertThat(repository.findById("a").getDescription()).isEqualTo("lunch");
+		assertThat(repository.findById("a").getDescription()).isEqualTo("lunch");
+
+		verify(delegate, times(1)).findById("a");
+		assertThat(cache.getHitCount()).isEqualTo(1);
+	}
+
+	// Test that a missing expense is not cached
+	@Test
+	public void testMissingExpenseIsNotCached() {
+		assertThat(repository.findById("a")).isNull();
+		assertThat(repository.findById("a")).isNull();
+
+		verify(delegate, times(2)).findById("a");
+	}
+
+	// Test that every write drops the cached copy so the next read reloads it
+	@Test
+	public void testWritesDropCachedCopy() {
+		when(delegate.findById("a")).thenReturn(expense);
+		Expense updated = new Expense("a", 20d, "dinner", LocalDate.of(2024, 3, 5), food);
+
+		repository.findById("a");
+		repository.update(updated);
+		verify(delegate).update(updated);
+		assertThat(cache.get("a")).isNull();
+
+		repository.findById("a");
+		repository.delete(expense);
+		verify(delegate).delete(expense);
+		assertThat(cache.get("a")).isNull();
+
+		repository.findById("a");
+		repository.saveAll(Arrays.asList(expense));
+		assertThat(cache.get("a")).isNull();
+	}
+
+	// Test that a copy loaded while another expense is written is still cached,
+	// while one loaded during a write of the same expense is not
+	@Test
+	public void testOnlyWritesOfTheSameIdDropALoadedCopy() {
+		Expense other = new Expense("b", 5d, "coffee", LocalDate.of(2024, 3, 5), food);
+		when(delegate.findById("a")).thenAnswer(invocation -> {
+			repository.update(other);
+			return expense;
+		});
+		repository.findById("a");
+		assertThat(cache.get("a").getDescription()).isEqualTo("lunch");
+
+		cache.clear();
+		when(delegate.findById("a")).thenAnswer(invocation -> {
+			repository.delete(expense);
+			return expense;
+		});
+		repository.findById("a");
+		assertThat(cache.get("a")).isNull();
+	}
+
+	// Test that renaming or deleting a category through the wrapped category
+	// repository drops the cached expenses, which embed the category
+	@Test
+	public void testCategoryWritesClearCache() {
+		CategoryRepository categoryRepository = repository.evictingOnCategoryWrites(categoryDelegate);
+		when(delegate.findById("a")).thenReturn(expense);
+		Category renamed = new Category("1", "groceries", "food");
+
+		repository.findById("a");
+		categoryRepository.update(renamed);
+		verify(categoryDelegate).update(renamed);
+		assertThat(cache.size()).isZero();
+
+		repository.findById("a");
+		categoryRepository.delete(food);
+		verify(categoryDelegate).delete(food);
+		assertThat(cache.size()).isZero();
+
+		categoryRepository.findById("1");
+		verify(categoryDelegate).findById("1");
+	}
+}
@@ -0,0 +1,145 @@
+package com.tdd.expensetracker.repository.cache;
+
+import static com.tdd.expensetracker.model.DeepEquality.sameExpense;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+
+import org.junit.Test;
+
+import com.tdd.expensetracker.codec.ExpenseCodec;
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+
+public class OffHeapExpenseCacheTest {
+
+	private final Category food = new Category("1", "food", "groceries");
+
+	// Test that a cached expense is decoded with all its fields, including
+	// missing ones and non-ASCII text, into a new instance on every read
+	@Test
+	public void testGetDecodesCachedExpense() {
+		OffHeapExpenseCache cache = new OffHeapExpenseCache(4, 1024);
+		Expense expense = new Expense("a", 12.34, "café crème", LocalDate.of(2024, 3, 5), food);
+		Expense bare = new Expense("b", 1d, null, null, null);
+		cache.put(expense);
+		cache.put(bare);
+
+		Expense cached = cache.get("a");
+		assertThat(sameExpense(cached, expense)).isTrue();
+		assertThat(cached).isNotSameAs(expense).isNotSameAs(cache.get("a"));
+		assertThat(sameExpense(cache.get("b"), bare)).isTrue();
+		assertThat(cache.get("c")).isNull();
+		assertThat(cache.getHitCount()).isEqualTo(3);
+		assertThat(cache.getMissCount()).isEqualTo(1);
+	}
+
+	// Test that a put replaces the earlier version and remove forgets it
+	@Test
+	public void testReplaceAndRemove() {
+		OffHeapExpenseCache cache = new OffHeapExpenseCache(4, 1024);
+		cache.put(new Expense("a", 10d, "taxi", null, food));
+		cache.put(new Expense("a", 20d, "train", null, food));
+
+		assertThat(cache.get("a").getDescription()).isEqualTo("train");
+		assertThat(cache.size()).isEqualTo(1);
+
+		cache.remove("a");
+		assertThat(cache.get("a")).isNull();
+		assertThat(cache.size()).isZero();
+	}
+
+	// Test that filling every slab evicts the oldest slab first while the
+	// expenses in the other slabs stay cached
+	@Test
+	public void testFullCacheEvictsOldestSlab() {
+		OffHeapExpenseCache cache = new OffHeapExpenseCache(3, 512);
+		for (int i = 0; i < 100; i++) {
+			cache.put(new Expense(Integer.toString(i), 1d + i, "expense " + i, LocalDate.of(2024, 1, 1), food));
+		}
+
+		assertThat(cache.get("0")).isNull();
+		assertThat(cache.get("99").getAmount()).isEqualTo(100d);
+		assertThat(cache.size()).isLessThan(100).isGreaterThan(0);
+		int cached = 0;
+		for (int i = 0; i < 100; i++) {
+			Expense expense = cache.get(Integer.toString(i));
+			if (expense != null) {
+				assertThat(expense.getDescription()).isEqualTo("expense " + i);
+				cached++;
+			}
+		}
+		assertThat(cached).isEqualTo(cache.size());
+	}
+
+	// Test that an expense replaced in a newer slab survives the eviction of the
+	// slab holding its earlier version
+	@Test
+	public void testEvictionKeepsNewerVersion() {
+		Expense first = new Expense("a", 1d, "old", null, null);
+		// Slabs fit exactly one version of the expense and four fillers
+		int slabSize = 5 * 4 + ExpenseCodec.encode(first).length + 4 * ExpenseCodec.encode(filler(0)).length;
+		OffHeapExpenseCache cache = new OffHeapExpenseCache(2, slabSize);
+		cache.put(first);
+		putFillers(cache, 0, 4);
+		cache.put(new Expense("a", 2d, "new", null, null));
+		putFillers(cache, 4, 9);
+
+		assertThat(cache.get("filler0")).isNull();
+		assertThat(cache.get("a").getDescription()).isEqualTo("new");
+	}
+
+	// Test that a version loaded before a removal is not cached
+	@Test
+	public void testPutSkippedAfterInvalidation() {
+		OffHeapExpenseCache cache = new OffHeapExpenseCache(2, 1024);
+		long invalidations = cache.getInvalidationCount("a");
+		cache.remove("a");
+
+		cache.put(new Expense("a", 1d, "stale", null, null), invalidations);
+
+		assertThat(cache.get("a")).isNull();
+		cache.put(new Expense("a", 2d, "fresh", null, null), cache.getInvalidationCount("a"));
+		assertThat(cache.get("a").getDescription()).isEqualTo("fresh");
+	}
+
+	// Test that removing other expenses does not prevent caching a loaded one,
+	// while clearing the cache does
+	@Test
+	public void testPutKeptAfterInvalidationOfOtherIds() {
+		OffHeapExpenseCache cache = new OffHeapExpenseCache(2, 1024);
+		long invalidations = cache.getInvalidationCount("a");
+		cache.remove("b");
+
+		cache.put(new Expense("a", 1d, "loaded", null, null), invalidations);
+
+		assertThat(cache.get("a").getDescription()).isEqualTo("loaded");
+		invalidations = cache.getInvalidationCount("a");
+		cache.clear();
+		cache.put(new Expense("a", 1d, "loaded", null, null), invalidations);
+		assertThat(cache.get("a")).isNull();
+	}
+
+	// Test that an expense larger than a slab is not cached
+	@Test
+	public void testExpenseLargerThanSlabIsNotCached() {
+		OffHeapExpenseCache cache = new OffHeapExpenseCache(2, 64);
+		StringBuilder description = new StringBuilder();
+		for (int i = 0; i < 100; i++) {
+			description.append('x');
+		}
+		cache.put(new Expense("a", 1d, description.toString(), null, null));
+
+		assertThat(cache.get("a")).isNull();
+	}
+
+	private static void putFillers(OffHeapExpenseCache cache, int from, int to) {
+		for (int i = from; i < to; i++) {
+			cache.put(filler(i));
+		}
+	}
+
+	private static Expense filler(int i) {
+		return new Expense("filler" + i, 1d, "filler", null, null);
+	}
+}
@@ -0,0 +1,223 @@
+package com.tdd.expensetracker.repository.log;
+
+import static com.tdd.expensetracker.model.DeepEquality.EXPENSE_FIELDS;
+import static com.tdd.expensetracker.model.DeepEquality.sameExpense;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.tdd.expensetracker.controller.ExpenseController;
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.model.ExpenseTotal;
+import com.tdd.expensetracker.view.ExpenseView;
+
+public class ExpenseLogRepositoryTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path file;
+	private ExpenseLogStore store;
+	private ExpenseLogRepository expenseRepository;
+	private CategoryLogRepository categoryRepository;
+
+	private final Category food = new Category("1", "food", "groceries");
+	private final Category travel = new Category("2", "travel", null);
+
+	@Before
+	public void setup() {
+		file = folder.getRoot().toPath().resolve("expenses.log");
+		open();
+		categoryRepository.save(food);
+		categoryRepository.save(travel);
+	}
+
+	@After
+	public void tearDown() {
+		store.close();
+	}
+
+	// Test that saves, updates and deletes are found again after the log is
+	// closed and replayed
+	@Test
+	public void testWritesSurviveReopen() {
+		Expense lunch = new Expense("a", 12.5, "lunch", LocalDate.of(2024, 3, 5), food);
+		Expense train = new Expense("b", 30d, "train", LocalDate.of(2024, 3, 6), travel);
+		Expense coffee = new Expense("c", 2d, "coffee", null, food);
+		expenseRepository.saveAll(Arrays.asList(lunch, train));
+		expenseRepository.save(coffee);
+		Expense dinner = new Expense("a", 40d, "dinner", LocalDate.of(2024, 3, 5), food);
+		expenseRepository.update(dinner);
+		expenseRepository.delete(train);
+
+		reopen();
+
+		assertThat(expenseRepository.countAll()).isEqualTo(2);
+		assertThat(sameExpense(expenseRepository.findById("a"), dinner)).isTrue();
+		assertThat(expenseRepository.findById("b")).isNull();
+		assertThat(expenseRepository.findAll()).usingElementComparator(EXPENSE_FIELDS).containsExactly(coffee,
+				dinner);
+		assertThat(categoryRepository.findNames()).containsExactly("food", "travel");
+	}
+
+	// Test that a renamed category shows on its expenses, which are loaded on
+	// first access, and that deleting it deletes them too
+	@Test
+	public void testCategoryRenameAndCascadingDelete() {
+		expenseRepository.saveAll(Arrays.asList(new Expense("a", 10d, "lunch", LocalDate.of(2024, 3, 5), food),
+				new Expense("b", 20d, "dinner", LocalDate.of(2024, 3, 6), food),
+				new Expense("c", 30d, "train", LocalDate.of(2024, 3, 7), travel)));
+		categoryRepository.update(new Category("1", "meals", "groceries"));
+
+		assertThat(expenseRepository.findById("a").getCategory().getName()).isEqualTo("meals");
+		Category meals = categoryRepository.findByName("meals");
+		assertThat(meals.getExpenses()).hasSize(2);
+		assertThat(meals.getExpenses()).extracting(Expense::getId).containsExactlyInAnyOrder("a", "b");
+		assertThat(meals.getExpenses().get(0).getCategory()).isSameAs(meals);
+
+		categoryRepository.delete(meals);
+		reopen();
+
+		assertThat(categoryRepository.findById("1")).isNull();
+		assertThat(expenseRepository.findByIds(Arrays.asList("a", "b", "c"))).extracting(Expense::getId)
+				.containsExactly("c");
+		assertThat(expenseRepository.findTotals(YearMonth.of(2024, 3))).extracting(ExpenseTotal::getCategoryId)
+				.containsExactly("2");
+	}
+
+	// Test that the expenses of a category fetched earlier are loaded as they
+	// are when first accessed, and that names match ignoring case and accents
+	@Test
+	public void testCategoryExpensesAndNamesMatchTheMysqlBackend() {
+		expenseRepository.saveAll(Arrays.asList(new Expense("a", 10d, "lunch", LocalDate.of(2024, 3, 5), food),
+				new Expense("b", 20d, "dinner", LocalDate.of(2024, 3, 6), food)));
+		Category fetched = categoryRepository.findById("1");
+		expenseRepository.delete(new Expense("a", 10d, "lunch", LocalDate.of(2024, 3, 5), food));
+
+		assertThat(fetched.getExpenses().isEmpty()).isFalse();
+		assertThat(fetched.getExpenses()).extracting(Expense::getId).containsExactly("b");
+
+		assertThat(categoryRepository.findAllWithoutExpenses()).extracting(Category::getId).containsExactly("1", "2");
+		categoryRepository.save(new Category("3", "Café", "coffee"));
+		assertThat(categoryRepository.findByName("CAFE").getId()).isEqualTo("3");
+		assertThat(categoryRepository.findByName("Fuel")).isNull();
+	}
+
+	// Test that a new expense saved through the controller costs no read of the
+	// other expenses of its category, and is listed once when they are read
+	@Test
+	public void testNewExpenseDoesNotScanItsCategory() {
+		expenseRepository.saveAll(Arrays.asList(new Expense("a", 10d, "lunch", LocalDate.of(2024, 3, 5), food),
+				new Expense("b", 20d, "dinner", LocalDate.of(2024, 3, 6), food)));
+		List<Category> fetched = new ArrayList<>();
+		CategoryLogRepository fetchingRepository = new CategoryLogRepository(store) {
+			@Override
+			public Category findById(String id) {
+				Category category = super.findById(id);
+				fetched.add(category);
+				return category;
+			}
+		};
+		ExpenseController controller = new ExpenseController(mock(ExpenseView.class), expenseRepository,
+				fetchingRepository);
+
+		controller.newExpense(new Expense("c", 5d, "coffee", LocalDate.of(2024, 3, 7), food));
+
+		LazyExpenseList expenses = (LazyExpenseList) fetched.get(0).getExpenses();
+		assertThat(expenses.isLoaded()).isFalse();
+		assertThat(expenses).extracting(Expense::getId).containsExactlyInAnyOrder("a", "b", "c");
+		assertThat(expenseRepository.findById("c").getDescription()).isEqualTo("coffee");
+	}
+
+	// Test that pages, totals and filtered streams are served from the index in
+	// the order and with the values of the MySQL repository
+	@Test
+	public void testPagesTotalsAndFilteredStream() {
+		expenseRepository.saveAll(Arrays.asList(new Expense("a", 10d, "lunch", LocalDate.of(2024, 3, 5), food),
+				new Expense("b", 20.25, "dinner", LocalDate.of(2024, 3, 31), food),
+				new Expense("c", 30d, "train", LocalDate.of(2024, 4, 1), travel),
+				new Expense("d", 5d, "snack", null, food), new Expense("e", 1d, "gum", LocalDate.of(2024, 3, 5), food)));
+
+		assertThat(expenseRepository.findPage(0, 2)).extracting(Expense::getId).containsExactly("c", "b");
+		assertThat(expenseRepository.findPage(1, 2)).extracting(Expense::getId).containsExactly("a", "e");
+		assertThat(expenseRepository.findRecent(10)).extracting(Expense::getId).containsExactly("c", "b", "a", "e",
+				"d");
+
+		List<ExpenseTotal> march = expenseRepository.findTotals(YearMonth.of(2024, 3));
+		assertThat(march).hasSize(1);
+		assertThat(march.get(0).getTotal().getCents()).isEqualTo(3125);
+		assertThat(march.get(0).getCount()).isEqualTo(3);
+
+		List<String> streamed = new ArrayList<>();
+		expenseRepository.streamAll(LocalDate.of(2024, 3, 6), null, "food", expense -> streamed.add(expense.getId()));
+		assertThat(streamed).containsExactly("b");
+		assertThat(categoryRepository.findById("1").getExpenses()).hasSize(4);
+	}
+
+	// Test that compaction shrinks the log to its live records while another
+	// thread keeps writing, and that the result replays to the same state
+	@Test
+	public void testCompactionKeepsLatestVersionsWhileWriting() throws InterruptedException {
+		for (int round = 0; round < 20; round++) {
+			List<Expense> batch = new ArrayList<>();
+			for (int i = 0; i < 50; i++) {
+				batch.add(new Expense(Integer.toString(i), (double) round, "round " + round, LocalDate.of(2024, 1, 1),
+						food));
+			}
+			expenseRepository.saveAll(batch);
+		}
+		long before = store.logSize();
+
+		AtomicInteger written = new AtomicInteger();
+		Thread writer = new Thread(() -> {
+			for (int i = 0; i < 200; i++) {
+				expenseRepository.update(new Expense(Integer.toString(i % 50), 100d + i, "late " + i,
+						LocalDate.of(2024, 1, 2), travel));
+				written.incrementAndGet();
+			}
+		});
+		writer.start();
+		while (writer.isAlive()) {
+			assertThat(store.compact()).isTrue();
+		}
+		writer.join();
+		store.compact();
+
+		assertThat(written.get()).isEqualTo(200);
+		assertThat(store.logSize()).isLessThan(before / 10);
+		reopen();
+		assertThat(expenseRepository.countAll()).isEqualTo(50);
+		for (int i = 0; i < 50; i++) {
+			Expense expense = expenseRepository.findById(Integer.toString(i));
+			assertThat(expense.getDescription()).isEqualTo("late " + (150 + i));
+			assertThat(expense.getCategory().getName()).isEqualTo("travel");
+		}
+		assertThat(expenseRepository.findTotals(YearMonth.of(2024, 1))).extracting(ExpenseTotal::getCount)
+				.containsExactly(50L);
+	}
+
+	private void open() {
+		store = ExpenseLogStore.open(file);
+		expenseRepository = new ExpenseLogRepository(store);
+		categoryRepository = new CategoryLogRepository(store);
+	}
+
+	private void reopen() {
+		store.close();
+		open();
+	}
+}
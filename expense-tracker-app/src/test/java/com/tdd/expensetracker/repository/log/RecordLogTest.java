@@ -0,0 +1,148 @@
+package com.tdd.expensetracker.repository.log;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RecordLogTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path file;
+	private final List<String> replayed = new ArrayList<>();
+
+	@Before
+	public void setup() {
+		file = folder.getRoot().toPath().resolve("expenses.log");
+	}
+
+	// Test that appended records are read back by offset and replayed in order
+	// when the log is opened again
+	@Test
+	public void testAppendedRecordsAreReadAndReplayed() throws IOException {
+		long second;
+		try (RecordLog log = RecordLog.open(file, this::collect)) {
+			log.append(batch((byte) 1, "first"));
+			RecordLog.Batch batch = batch((byte) 2, "second");
+			int third = batch.add((byte) 3, bytes("third"));
+			second = log.append(batch);
+			log.sync(log.lastSequence());
+
+			assertThat(text(log.read(second, RecordLog.RECORD_HEADER_SIZE + 6))).isEqualTo("second");
+			assertThat(text(log.read(second + third, RecordLog.RECORD_HEADER_SIZE + 5))).isEqualTo("third");
+		}
+
+		try (RecordLog log = RecordLog.open(file, this::collect)) {
+			assertThat(replayed).containsExactly("1:first@5", "2:second@" + second, "3:third@" + (second + 15));
+			assertThat(log.size()).isEqualTo(Files.size(file));
+		}
+	}
+
+	// Test that a record torn by a crash is cut off on open and later appends
+	// follow the last intact record
+	@Test
+	public void testTornTailIsCutOff() throws IOException {
+		try (RecordLog log = RecordLog.open(file, this::collect)) {
+			log.append(batch((byte) 1, "kept"));
+			log.append(batch((byte) 1, "torn"));
+		}
+		long intact = Files.size(file) - RecordLog.RECORD_HEADER_SIZE - 4;
+		try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+			raw.setLength(Files.size(file) - 2);
+		}
+
+		try (RecordLog log = RecordLog.open(file, this::collect)) {
+			assertThat(replayed).containsExactly("1:kept@5");
+			assertThat(Files.size(file)).isEqualTo(intact);
+			assertThat(log.append(batch((byte) 1, "next"))).isEqualTo(intact);
+		}
+	}
+
+	// Test that a last record failing its checksum, as a torn append leaves it,
+	// is rejected when read and cut off by the replay
+	@Test
+	public void testCorruptRecordIsDetected() throws IOException {
+		try (RecordLog log = RecordLog.open(file, this::collect)) {
+			log.append(batch((byte) 1, "kept"));
+			long offset = log.append(batch((byte) 1, "flipped"));
+			try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+				raw.seek(offset + RecordLog.RECORD_HEADER_SIZE);
+				raw.write('F');
+			}
+
+			assertThatThrownBy(() -> log.read(offset, RecordLog.RECORD_HEADER_SIZE + 7))
+					.isInstanceOf(IOException.class).hasMessageContaining("Corrupt record");
+		}
+
+		try (RecordLog log = RecordLog.open(file, this::collect)) {
+			assertThat(replayed).containsExactly("1:kept@5");
+			assertThat(log.size()).isEqualTo(5 + RecordLog.RECORD_HEADER_SIZE + 4);
+		}
+	}
+
+	// Test that a damaged record followed by intact ones fails the open and
+	// leaves the file untouched, whether its payload or its length is damaged
+	@Test
+	public void testCorruptionInTheMiddleIsRefused() throws IOException {
+		long offset;
+		try (RecordLog log = RecordLog.open(file, this::collect)) {
+			log.append(batch((byte) 1, "kept"));
+			offset = log.append(batch((byte) 1, "flipped"));
+			log.append(batch((byte) 1, "after"));
+		}
+		long size = Files.size(file);
+
+		for (long damaged : new long[] { offset + RecordLog.RECORD_HEADER_SIZE, offset }) {
+			try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+				raw.seek(damaged);
+				raw.write(0x7F);
+			}
+
+			assertThatThrownBy(() -> RecordLog.open(file, this::collect)).isInstanceOf(IOException.class)
+					.hasMessageContaining("Corrupt record at offset " + offset);
+			assertThat(Files.size(file)).isEqualTo(size);
+		}
+	}
+
+	// Test that a file that is not a record log is refused rather than truncated
+	@Test
+	public void testForeignFileIsRefused() throws IOException {
+		Files.write(file, bytes("not a log"));
+
+		assertThatThrownBy(() -> RecordLog.open(file, this::collect)).isInstanceOf(IOException.class);
+		assertThat(Files.size(file)).isEqualTo(9);
+	}
+
+	private void collect(byte type, long offset, int size, ByteBuffer payload) {
+		replayed.add(type + ":" + text(payload) + "@" + offset);
+	}
+
+	private static RecordLog.Batch batch(byte type, String payload) {
+		RecordLog.Batch batch = new RecordLog.Batch();
+		batch.add(type, bytes(payload));
+		return batch;
+	}
+
+	private static byte[] bytes(String text) {
+		return text.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static String text(ByteBuffer payload) {
+		return new String(payload.array(), payload.arrayOffset() + payload.position(), payload.remaining(),
+				StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,68 @@
+package com.tdd.expensetracker.repository.mysql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.tdd.expensetracker.model.Budget;
+
+public class BudgetMysqlRepositoryTest {
+
+	private static StandardServiceRegistry registry;
+	private SessionFactory sessionFactory;
+	private BudgetMysqlRepository budgetMysqlRepository;
+
+	// Setup the Hibernate session for testing
+	@BeforeClass
+	public static void setupServer() {
+		registry = new StandardServiceRegistryBuilder().configure("hibernate-test.cfg.xml").build();
+	}
+
+	// Cleanup the session after tests are completed
+	@AfterClass
+	public static void shutdownServer() {
+		StandardServiceRegistryBuilder.destroy(registry);
+	}
+
+	// Setup the session factory before each test
+	@Before
+	public void setup() {
+		sessionFactory = new MetadataSources(registry).buildMetadata().buildSessionFactory();
+		budgetMysqlRepository = new BudgetMysqlRepository(sessionFactory);
+	}
+
+	// Test that saved budgets are found
+	@Test
+	public void testSaveAndFindAll() {
+		budgetMysqlRepository.save(new Budget("1", 100d));
+		budgetMysqlRepository.save(new Budget("2", 200d));
+
+		assertThat(budgetMysqlRepository.findAll()).containsExactlyInAnyOrder(new Budget("1", 100d),
+				new Budget("2", 200d));
+	}
+
+	// Test that saving a budget for the same category replaces it
+	@Test
+	public void testSaveReplacesExistingBudget() {
+		budgetMysqlRepository.save(new Budget("1", 100d));
+		budgetMysqlRepository.save(new Budget("1", 150d));
+
+		assertThat(budgetMysqlRepository.findAll()).containsExactly(new Budget("1", 150d));
+	}
+
+	// Test that a deleted budget is no longer found
+	@Test
+	public void testDelete() {
+		budgetMysqlRepository.save(new Budget("1", 100d));
+		budgetMysqlRepository.delete("1");
+
+		assertThat(budgetMysqlRepository.findAll()).isEmpty();
+	}
+}
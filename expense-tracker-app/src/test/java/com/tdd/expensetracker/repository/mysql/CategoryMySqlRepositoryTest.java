@@ -1,8 +1,11 @@
 package com.tdd.expensetracker.repository.mysql;
 
+import static com.tdd.expensetracker.model.DeepEquality.CATEGORY_FIELDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.List;
 
 import org.assertj.core.api.Assertions;
@@ -19,6 +22,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
 
 public class CategoryMySqlRepositoryTest {
 
@@ -58,10 +62,39 @@ public class CategoryMySqlRepositoryTest {
 		Category category2 = new Category("name2", "description2");
 		String id1 = addTestCategoryToDatabase(category);
 		String id2 = addTestCategoryToDatabase(category2);
-		Assertions.assertThat(categoryMySqlRepository.findAll()).containsExactly(new Category[] {
+		Assertions.assertThat(categoryMySqlRepository.findAll()).usingElementComparator(CATEGORY_FIELDS)
+				.containsExactly(new Category[] {
 				new Category(id1, "name1", "description1"), new Category(id2, "name2", "description2") });
 	}
 
+	// Test for listing the categories without loading their expenses
+	@Test
+	public void testFindAllWithoutExpenses() {
+		Category category = new Category("name1", "description1");
+		String id = addTestCategoryToDatabase(category);
+		addTestExpenseToDatabase(new Expense(100d, "lunch", LocalDate.of(2024, 3, 5), category));
+
+		List<Category> categories = categoryMySqlRepository.findAllWithoutExpenses();
+		Assertions.assertThat(categories).usingElementComparator(CATEGORY_FIELDS)
+				.containsExactly(new Category(id, "name1", "description1"));
+		Assertions.assertThat(categories.get(0).getExpenses()).isEmpty();
+	}
+
+	// Test for finding some categories by id without loading their expenses,
+	// skipping the ids that do not exist
+	@Test
+	public void testFindByIdsWithoutExpenses() {
+		Category category = new Category("name1", "description1");
+		String id = addTestCategoryToDatabase(category);
+		addTestCategoryToDatabase(new Category("name2", "description2"));
+		addTestExpenseToDatabase(new Expense(100d, "lunch", LocalDate.of(2024, 3, 5), category));
+
+		List<Category> categories = categoryMySqlRepository.findByIdsWithoutExpenses(Arrays.asList(id, "missing"));
+		Assertions.assertThat(categories).usingElementComparator(CATEGORY_FIELDS)
+				.containsExactly(new Category(id, "name1", "description1"));
+		Assertions.assertThat(categories.get(0).getExpenses()).isEmpty();
+	}
+
 	// Test for finding a category by ID when it is not found
 	@Test
 	public void testFindByIdNotFound() {
@@ -98,12 +131,22 @@ public class CategoryMySqlRepositoryTest {
 		Assertions.assertThat(actual).isEqualTo(expected);
 	}
 
+	// Test for reading only the category names
+	@Test
+	public void testFindNames() {
+		addTestCategoryToDatabase(new Category("name1", "description1"));
+		addTestCategoryToDatabase(new Category("name2", "description2"));
+
+		Assertions.assertThat(categoryMySqlRepository.findNames()).containsExactlyInAnyOrder("name1", "name2");
+	}
+
 	// Test for saving a new category in the database
 	@Test
 	public void testSave() {
 		Category category = new Category("name2", "description2");
 		categoryMySqlRepository.save(category);
-		Assertions.assertThat(readAllCategoryFromDatabase()).containsExactly(new Category[] { category });
+		Assertions.assertThat(readAllCategoryFromDatabase()).usingElementComparator(CATEGORY_FIELDS)
+				.containsExactly(new Category[] { category });
 	}
 
 	// Test for deleting a category from the database
@@ -123,7 +166,8 @@ public class CategoryMySqlRepositoryTest {
 		String expenseToUpdate = addTestCategoryToDatabase(category);
 		Category updateCategory = new Category(expenseToUpdate, "nameUpdate2", "updated Desc");
 		categoryMySqlRepository.update(updateCategory);
-		Assertions.assertThat(readAllCategoryFromDatabase()).containsExactly(new Category[] { updateCategory });
+		Assertions.assertThat(readAllCategoryFromDatabase()).usingElementComparator(CATEGORY_FIELDS)
+				.containsExactly(new Category[] { updateCategory });
 	}
 
 	// Test for exception handling when saving a null category
@@ -167,4 +211,13 @@ public class CategoryMySqlRepositoryTest {
 		return category.getId();
 	}
 
+	// Utility method to add a test expense to the database
+	private void addTestExpenseToDatabase(Expense expense) {
+		Session session = sessionFactory.openSession();
+		session.beginTransaction();
+		session.save(expense);
+		session.getTransaction().commit();
+		session.close();
+	}
+
 }
\ No newline at end of file
@@ -1,10 +1,16 @@
 package com.tdd.expensetracker.repository.mysql;
 
+import static com.tdd.expensetracker.model.DeepEquality.EXPENSE_FIELDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 import org.assertj.core.api.Assertions;
 import org.hibernate.HibernateException;
@@ -20,7 +26,13 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.DescriptionUsage;
 import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.model.ExpenseTotal;
+import com.tdd.expensetracker.model.Money;
+import com.tdd.expensetracker.model.SpendingMoments;
+import com.tdd.expensetracker.report.QuantileSketch;
+import com.tdd.expensetracker.utils.IdAllocator;
 
 public class ExpenseMysqlRepositoryTest {
 
@@ -62,11 +74,276 @@ public class ExpenseMysqlRepositoryTest {
 		String id1 = addTestExpenseToDatabase(new Expense(50d, "test1", LocalDate.now(), category));
 		String id2 = addTestExpenseToDatabase(new Expense(500d, "test2", LocalDate.now(), category));
 
-		Assertions.assertThat(expenseMysqlRepository.findAll())
+		Assertions.assertThat(expenseMysqlRepository.findAll()).usingElementComparator(EXPENSE_FIELDS)
 				.containsExactly(new Expense[] { new Expense(id1, 50d, "test1", LocalDate.now(), category),
 						new Expense(id2, 500d, "test2", LocalDate.now(), category) });
 	}
 
+	// Test for finding the most recent expenses, newest first and limited, without
+	// loading the expenses of their category
+	@Test
+	public void testFindRecentReturnsNewestExpensesFirst() {
+		String oldId = addTestExpenseToDatabase(new Expense(50d, "old", LocalDate.now().minusDays(2), category));
+		String newId = addTestExpenseToDatabase(new Expense(60d, "new", LocalDate.now(), category));
+		String middleId = addTestExpenseToDatabase(new Expense(70d, "middle", LocalDate.now().minusDays(1), category));
+
+		assertThat(expenseMysqlRepository.findRecent(2)).extracting(Expense::getId).containsExactly(newId, middleId);
+		List<Expense> recent = expenseMysqlRepository.findRecent(5);
+		assertThat(recent).extracting(Expense::getId).containsExactly(newId, middleId, oldId);
+		assertThat(recent.get(0).getCategory().getName()).isEqualTo(category.getName());
+		assertThat(recent.get(0).getCategory().getExpenses()).isEmpty();
+	}
+
+	// Test for saving a batch of expenses larger than the JDBC batch size
+	@Test
+	public void testSaveAllSavesEveryExpense() {
+		List<Expense> expenses = new ArrayList<>();
+		for (int i = 0; i < ExpenseMysqlRepository.BATCH_SIZE + 5; i++) {
+			expenses.add(new Expense(10d + i, "test" + i, LocalDate.now(), category));
+		}
+		expenseMysqlRepository.saveAll(expenses);
+		assertThat(readAllExpenseFromDatabase()).usingElementComparator(EXPENSE_FIELDS)
+				.containsExactlyInAnyOrderElementsOf(expenses);
+	}
+
+	// Test for saving a batch that fails, nothing should be saved
+	@Test
+	public void testSaveAllRollsBackWhenAnExpenseFails() {
+		Expense valid = new Expense(10d, "valid", LocalDate.now(), category);
+		assertThatThrownBy(() -> expenseMysqlRepository.saveAll(Arrays.asList(valid, null)))
+				.isInstanceOf(HibernateException.class).hasMessageContaining("Could not save expenses.");
+		assertThat(readAllExpenseFromDatabase()).isEmpty();
+	}
+
+	// Test for streaming all expenses with their category
+	@Test
+	public void testStreamAllVisitsEveryExpense() {
+		String id1 = addTestExpenseToDatabase(new Expense(50d, "test1", LocalDate.now(), category));
+		String id2 = addTestExpenseToDatabase(new Expense(500d, "test2", LocalDate.now(), category));
+		List<Expense> streamed = new ArrayList<>();
+		expenseMysqlRepository.streamAll(streamed::add);
+		assertThat(streamed).containsExactlyInAnyOrder(new Expense(id1, 50d, "test1", LocalDate.now(), category),
+				new Expense(id2, 500d, "test2", LocalDate.now(), category));
+		assertThat(streamed.get(0).getCategory().getExpenses()).isEmpty();
+	}
+
+	// Test for streaming only the expenses matching the date and category filters
+	@Test
+	public void testStreamAllWithFiltersVisitsMatchingExpenses() {
+		Category otherCategory = new Category("2", "name2", "description2");
+		saveCategory(otherCategory);
+		addTestExpenseToDatabase(new Expense(50d, "too old", LocalDate.now().minusDays(10), category));
+		String matchingId = addTestExpenseToDatabase(new Expense(60d, "match", LocalDate.now().minusDays(5), category));
+		addTestExpenseToDatabase(new Expense(70d, "other category", LocalDate.now().minusDays(5), otherCategory));
+		addTestExpenseToDatabase(new Expense(80d, "too new", LocalDate.now(), category));
+		List<Expense> streamed = new ArrayList<>();
+		expenseMysqlRepository.streamAll(LocalDate.now().minusDays(6), LocalDate.now().minusDays(1), "name1",
+				streamed::add);
+		assertThat(streamed).extracting(Expense::getId).containsExactly(matchingId);
+	}
+
+	// Test that saving expenses maintains the totals of their category and month
+	@Test
+	public void testSaveMaintainsTotals() {
+		LocalDate date = LocalDate.of(2024, 3, 10);
+		expenseMysqlRepository.save(new Expense(50d, "test1", date, category));
+		expenseMysqlRepository.saveAll(Arrays.asList(new Expense(20d, "test2", date.plusDays(1), category),
+				new Expense(30d, "test3", date.plusDays(2), category),
+				new Expense(5d, "test4", date.minusMonths(1), category)));
+
+		List<ExpenseTotal> totals = expenseMysqlRepository.findTotals(YearMonth.of(2024, 3));
+		assertThat(totals).hasSize(1);
+		assertThat(totals.get(0).getCategoryId()).isEqualTo(category.getId());
+		assertThat(totals.get(0).getMonth()).isEqualTo(YearMonth.of(2024, 3));
+		assertThat(totals.get(0).getTotal()).isEqualTo(Money.of(100));
+		assertThat(totals.get(0).getCount()).isEqualTo(3);
+		assertThat(expenseMysqlRepository.findTotals(YearMonth.of(2024, 2))).extracting(ExpenseTotal::getTotal)
+				.containsExactly(Money.of(5));
+	}
+
+	// Test that updates move amounts between months and deletes remove them
+	@Test
+	public void testUpdateAndDeleteMaintainTotals() {
+		Expense expense = new Expense(50d, "test1", LocalDate.of(2024, 3, 10), category);
+		expenseMysqlRepository.save(expense);
+		Expense other = new Expense(10d, "test2", LocalDate.of(2024, 3, 11), category);
+		expenseMysqlRepository.save(other);
+
+		expenseMysqlRepository.update(new Expense(expense.getId(), 70d, "test1", LocalDate.of(2024, 3, 12), category));
+		assertThat(expenseMysqlRepository.findTotals(YearMonth.of(2024, 3))).extracting(ExpenseTotal::getTotal)
+				.containsExactly(Money.of(80));
+
+		Expense moved = new Expense(expense.getId(), 70d, "test1", LocalDate.of(2024, 4, 1), category);
+		expenseMysqlRepository.update(moved);
+		assertThat(expenseMysqlRepository.findTotals(YearMonth.of(2024, 3))).extracting(ExpenseTotal::getTotal)
+				.containsExactly(Money.of(10));
+		assertThat(expenseMysqlRepository.findTotals(YearMonth.of(2024, 4))).extracting(ExpenseTotal::getTotal)
+				.containsExactly(Money.of(70));
+
+		expenseMysqlRepository.delete(moved);
+		assertThat(expenseMysqlRepository.findTotals(YearMonth.of(2024, 4))).isEmpty();
+	}
+
+	// Test that sketches are built on first read and then follow new expenses
+	@Test
+	public void testFindSketchesBuildsAndMaintainsSketches() {
+		expenseMysqlRepository.save(new Expense(10d, "test1", LocalDate.of(2024, 3, 1), category));
+		expenseMysqlRepository.save(new Expense(20d, "test2", LocalDate.of(2024, 3, 2), category));
+		expenseMysqlRepository.save(new Expense(30d, "test3", LocalDate.of(2024, 3, 3), category));
+
+		assertThat(expenseMysqlRepository.findSketches(YearMonth.of(2024, 3), YearMonth.of(2024, 3))
+				.get(category.getId()).median()).isEqualTo(20d);
+		assertThat(countStoredSketches()).isEqualTo(1);
+
+		expenseMysqlRepository.save(new Expense(40d, "test4", LocalDate.of(2024, 3, 4), category));
+		expenseMysqlRepository.saveAll(Arrays.asList(new Expense(50d, "test5", LocalDate.of(2024, 3, 5), category)));
+
+		QuantileSketch sketch = expenseMysqlRepository.findSketches(YearMonth.of(2024, 3), YearMonth.of(2024, 3))
+				.get(category.getId());
+		assertThat(sketch.getCount()).isEqualTo(5);
+		assertThat(sketch.median()).isEqualTo(30d);
+		assertThat(sketch.quantile(1)).isEqualTo(50d);
+	}
+
+	// Test that updates and deletes drop the sketch, which the next read rebuilds
+	@Test
+	public void testUpdateAndDeleteDropSketches() {
+		Expense expense = new Expense(10d, "test1", LocalDate.of(2024, 3, 1), category);
+		expenseMysqlRepository.save(expense);
+		Expense other = new Expense(20d, "test2", LocalDate.of(2024, 3, 2), category);
+		expenseMysqlRepository.save(other);
+		expenseMysqlRepository.findSketches(YearMonth.of(2024, 3), YearMonth.of(2024, 3));
+
+		expenseMysqlRepository.update(new Expense(expense.getId(), 90d, "test1", LocalDate.of(2024, 3, 1), category));
+		assertThat(countStoredSketches()).isZero();
+		assertThat(expenseMysqlRepository.findSketches(YearMonth.of(2024, 3), YearMonth.of(2024, 3))
+				.get(category.getId()).quantile(1)).isEqualTo(90d);
+
+		expenseMysqlRepository.delete(other);
+		assertThat(countStoredSketches()).isZero();
+		QuantileSketch sketch = expenseMysqlRepository.findSketches(YearMonth.of(2024, 3), YearMonth.of(2024, 3))
+				.get(category.getId());
+		assertThat(sketch.getCount()).isEqualTo(1);
+		assertThat(sketch.median()).isEqualTo(90d);
+	}
+
+	// Test that the sketches of a range of months are merged per category
+	@Test
+	public void testFindSketchesMergesMonths() {
+		expenseMysqlRepository.saveAll(Arrays.asList(new Expense(10d, "test1", LocalDate.of(2024, 1, 5), category),
+				new Expense(20d, "test2", LocalDate.of(2024, 2, 5), category),
+				new Expense(30d, "test3", LocalDate.of(2024, 3, 5), category),
+				new Expense(40d, "test4", LocalDate.of(2024, 4, 5), category)));
+
+		Map<String, QuantileSketch> sketches = expenseMysqlRepository.findSketches(YearMonth.of(2024, 2),
+				YearMonth.of(2024, 3));
+
+		assertThat(sketches).containsOnlyKeys(category.getId());
+		assertThat(sketches.get(category.getId()).getCount()).isEqualTo(2);
+		assertThat(sketches.get(category.getId()).quantile(0)).isEqualTo(20d);
+		assertThat(sketches.get(category.getId()).quantile(1)).isEqualTo(30d);
+		assertThat(expenseMysqlRepository.findSketches(YearMonth.of(2025, 1), YearMonth.of(2025, 12))).isEmpty();
+	}
+
+	// Test that rebuilding the totals repairs drift
+	@Test
+	public void testRebuildTotalsRepairsDrift() {
+		expenseMysqlRepository.save(new Expense(50d, "test1", LocalDate.of(2024, 3, 10), category));
+		Session session = sessionFactory.openSession();
+		Transaction transaction = session.beginTransaction();
+		session.createNativeQuery("UPDATE expense_totals SET total = 1, expense_count = 7").executeUpdate();
+		transaction.commit();
+		session.close();
+
+		expenseMysqlRepository.rebuildTotals();
+
+		List<ExpenseTotal> totals = expenseMysqlRepository.findTotals(YearMonth.of(2024, 3));
+		assertThat(totals).extracting(ExpenseTotal::getTotal).containsExactly(Money.of(50));
+		assertThat(totals).extracting(ExpenseTotal::getCount).containsExactly(1L);
+	}
+
+	// Test for finding pages of expenses, newest first
+	@Test
+	public void testFindPageReturnsRequestedPage() {
+		String oldId = addTestExpenseToDatabase(new Expense(50d, "old", LocalDate.now().minusDays(2), category));
+		String newId = addTestExpenseToDatabase(new Expense(60d, "new", LocalDate.now(), category));
+		String middleId = addTestExpenseToDatabase(new Expense(70d, "middle", LocalDate.now().minusDays(1), category));
+
+		assertThat(expenseMysqlRepository.findPage(0, 2)).extracting(Expense::getId).containsExactly(newId, middleId);
+		assertThat(expenseMysqlRepository.findPage(1, 2)).usingElementComparator(EXPENSE_FIELDS).containsExactly(
+				new Expense(oldId, 50d, "old", LocalDate.now().minusDays(2), category));
+		assertThat(expenseMysqlRepository.findPage(2, 2)).isEmpty();
+	}
+
+	// Test for finding expenses by id in the order of the ids, skipping unknown ids
+	@Test
+	public void testFindByIdsKeepsOrderOfIds() {
+		String id1 = addTestExpenseToDatabase(new Expense(50d, "first", LocalDate.now(), category));
+		String id2 = addTestExpenseToDatabase(new Expense(60d, "second", LocalDate.now(), category));
+
+		assertThat(expenseMysqlRepository.findByIds(Arrays.asList(id2, "missing", id1)))
+				.usingElementComparator(EXPENSE_FIELDS).containsExactly(
+				new Expense(id2, 60d, "second", LocalDate.now(), category),
+				new Expense(id1, 50d, "first", LocalDate.now(), category));
+	}
+
+	// Test for counting the uses of every description in one query
+	@Test
+	public void testFindDescriptionUsage() {
+		addTestExpenseToDatabase(new Expense(10d, "Lunch", LocalDate.of(2024, 1, 5), category));
+		addTestExpenseToDatabase(new Expense(12d, "Lunch", LocalDate.of(2024, 2, 5), category));
+		addTestExpenseToDatabase(new Expense(30d, "Fuel", LocalDate.of(2024, 1, 9), category));
+
+		assertThat(expenseMysqlRepository.findDescriptionUsage()).containsExactlyInAnyOrder(
+				new DescriptionUsage("Lunch", 2, LocalDate.of(2024, 2, 5)),
+				new DescriptionUsage("Fuel", 1, LocalDate.of(2024, 1, 9)));
+	}
+
+	// Test for reading the count, mean and variance of every category in one query
+	@Test
+	public void testFindSpendingMoments() {
+		addTestExpenseToDatabase(new Expense(10d, "Lunch", LocalDate.of(2024, 1, 5), category));
+		addTestExpenseToDatabase(new Expense(20d, "Lunch", LocalDate.of(2024, 2, 5), category));
+		addTestExpenseToDatabase(new Expense(30d, "Fuel", LocalDate.of(2024, 1, 9), category));
+
+		List<SpendingMoments> moments = expenseMysqlRepository.findSpendingMoments();
+
+		assertThat(moments).hasSize(1);
+		assertThat(moments.get(0).getCategoryId()).isEqualTo(category.getId());
+		assertThat(moments.get(0).getCount()).isEqualTo(3);
+		assertThat(moments.get(0).getMean()).isCloseTo(20, within(1e-9));
+		assertThat(moments.get(0).getVariance()).isCloseTo(200d / 3, within(1e-9));
+	}
+
+	// Test for counting and streaming only the ids of all expenses
+	@Test
+	public void testCountAllAndStreamIds() {
+		String id1 = addTestExpenseToDatabase(new Expense(10d, "Lunch", LocalDate.of(2024, 1, 5), category));
+		String id2 = addTestExpenseToDatabase(new Expense(30d, "Fuel", LocalDate.of(2024, 1, 9), category));
+
+		List<String> ids = new ArrayList<>();
+		expenseMysqlRepository.streamIds(ids::add);
+
+		assertThat(expenseMysqlRepository.countAll()).isEqualTo(2);
+		assertThat(ids).containsExactlyInAnyOrder(id1, id2);
+	}
+
+	// Test that new expenses are saved under the id allocated when they were
+	// created, and that expenses without an id get one at flush time
+	@Test
+	public void testSaveKeepsAllocatedId() {
+		Expense expense = new Expense(10d, "Lunch", LocalDate.of(2024, 1, 5), category);
+		String allocatedId = expense.getId();
+		Expense withoutId = new Expense("", 20d, "Fuel", LocalDate.of(2024, 1, 6), category);
+
+		expenseMysqlRepository.saveAll(Arrays.asList(expense, withoutId));
+
+		assertThat(expense.getId()).isEqualTo(allocatedId);
+		assertThat(expenseMysqlRepository.findById(allocatedId).getDescription()).isEqualTo("Lunch");
+		assertThat(IdAllocator.isAllocatedHere(withoutId.getId())).isTrue();
+		assertThat(expenseMysqlRepository.findById(withoutId.getId()).getDescription()).isEqualTo("Fuel");
+	}
+
 	// Test for finding an expense by ID when it is not found
 	@Test
 	public void testFindByIdNotFound() {
@@ -89,7 +366,8 @@ public class ExpenseMysqlRepositoryTest {
 		Expense expense = new Expense(50d, "test2", LocalDate.now(), category);
 		expenseMysqlRepository.save(expense);
 
-		Assertions.assertThat(readAllExpenseFromDatabase()).containsExactly(new Expense[] { expense });
+		Assertions.assertThat(readAllExpenseFromDatabase()).usingElementComparator(EXPENSE_FIELDS)
+				.containsExactly(new Expense[] { expense });
 	}
 
 	// Test for deleting an expense from the database
@@ -109,7 +387,8 @@ public class ExpenseMysqlRepositoryTest {
 		Expense updatedExpense = new Expense(expenseToUpdate, 60.0, "updated name", LocalDate.now().plusDays(5),
 				category);
 		expenseMysqlRepository.update(updatedExpense);
-		Assertions.assertThat(readAllExpenseFromDatabase()).containsExactly(new Expense[] { updatedExpense });
+		Assertions.assertThat(readAllExpenseFromDatabase()).usingElementComparator(EXPENSE_FIELDS)
+				.containsExactly(new Expense[] { updatedExpense });
 	}
 
 	// Test for exception handling when saving a null category
@@ -153,6 +432,15 @@ public class ExpenseMysqlRepositoryTest {
 		return expense.getId();
 	}
 
+	private long countStoredSketches() {
+		Session session = sessionFactory.openSession();
+		try {
+			return session.createQuery("select count(s) from ExpenseSketch s", Long.class).uniqueResult();
+		} finally {
+			session.close();
+		}
+	}
+
 	// Utility method to save a category in the database
 	private void saveCategory(Category category) {
 		Session session = sessionFactory.openSession();
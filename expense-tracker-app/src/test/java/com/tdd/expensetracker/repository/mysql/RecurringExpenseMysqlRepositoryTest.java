@@ -0,0 +1,136 @@
+package com.tdd.expensetracker.repository.mysql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+
+import org.hibernate.HibernateException;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.model.Frequency;
+import com.tdd.expensetracker.model.RecurringExpense;
+
+public class RecurringExpenseMysqlRepositoryTest {
+
+	private static StandardServiceRegistry registry;
+	private SessionFactory sessionFactory;
+	private RecurringExpenseMysqlRepository recurringExpenseMysqlRepository;
+	private ExpenseMysqlRepository expenseMysqlRepository;
+	private Category category;
+
+	// Setup the Hibernate session for testing
+	@BeforeClass
+	public static void setupServer() {
+		registry = new StandardServiceRegistryBuilder().configure("hibernate-test.cfg.xml").build();
+	}
+
+	// Cleanup the session after tests are completed
+	@AfterClass
+	public static void shutdownServer() {
+		StandardServiceRegistryBuilder.destroy(registry);
+	}
+
+	// Setup the session factory and save a test category before each test
+	@Before
+	public void setup() {
+		sessionFactory = new MetadataSources(registry).buildMetadata().buildSessionFactory();
+		recurringExpenseMysqlRepository = new RecurringExpenseMysqlRepository(sessionFactory);
+		expenseMysqlRepository = new ExpenseMysqlRepository(sessionFactory);
+		category = new Category("housing", "rent and bills");
+		new CategoryMySqlRepository(sessionFactory).save(category);
+	}
+
+	// Test that only definitions due by the given date are found
+	@Test
+	public void testFindDue() {
+		RecurringExpense rent = new RecurringExpense(900d, "rent", category, Frequency.MONTHLY,
+				LocalDate.of(2024, 1, 1), null);
+		RecurringExpense insurance = new RecurringExpense(300d, "insurance", category, Frequency.YEARLY,
+				LocalDate.of(2024, 6, 1), null);
+		recurringExpenseMysqlRepository.save(rent);
+		recurringExpenseMysqlRepository.save(insurance);
+
+		assertThat(recurringExpenseMysqlRepository.findDue(LocalDate.of(2024, 2, 1)))
+				.extracting(RecurringExpense::getId).containsExactly(rent.getId());
+		assertThat(recurringExpenseMysqlRepository.findAll()).extracting(RecurringExpense::getId)
+				.containsExactly(rent.getId(), insurance.getId());
+		assertThat(recurringExpenseMysqlRepository.findAll().get(0).getCategory().getName()).isEqualTo("housing");
+	}
+
+	// Test that occurrences, their totals and the watermark are saved together
+	@Test
+	public void testSaveOccurrencesAdvancesWatermark() {
+		RecurringExpense rent = new RecurringExpense(900d, "rent", category, Frequency.MONTHLY,
+				LocalDate.of(2024, 1, 1), null);
+		recurringExpenseMysqlRepository.save(rent);
+		rent.advance(2, LocalDate.of(2024, 3, 1));
+
+		recurringExpenseMysqlRepository.saveOccurrences(
+				Arrays.asList(new Expense(900d, "rent", LocalDate.of(2024, 1, 1), category),
+						new Expense(900d, "rent", LocalDate.of(2024, 2, 1), category)),
+				Arrays.asList(rent));
+
+		assertThat(expenseMysqlRepository.findAll()).hasSize(2);
+		assertThat(expenseMysqlRepository.findTotals(YearMonth.of(2024, 2))).hasSize(1);
+		RecurringExpense stored = recurringExpenseMysqlRepository.findAll().get(0);
+		assertThat(stored.getGeneratedCount()).isEqualTo(2);
+		assertThat(stored.getNextDate()).isEqualTo(LocalDate.of(2024, 3, 1));
+		assertThat(recurringExpenseMysqlRepository.findDue(LocalDate.of(2024, 2, 15))).isEmpty();
+	}
+
+	// Test that a definition past its end date is no longer due
+	@Test
+	public void testSaveOccurrencesWhenFinished() {
+		RecurringExpense loan = new RecurringExpense(100d, "loan", category, Frequency.MONTHLY,
+				LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31));
+		recurringExpenseMysqlRepository.save(loan);
+		loan.advance(1, null);
+
+		recurringExpenseMysqlRepository.saveOccurrences(
+				Arrays.asList(new Expense(100d, "loan", LocalDate.of(2024, 1, 1), category)), Arrays.asList(loan));
+
+		assertThat(recurringExpenseMysqlRepository.findAll().get(0).getNextDate()).isNull();
+		assertThat(recurringExpenseMysqlRepository.findDue(LocalDate.of(2030, 1, 1))).isEmpty();
+	}
+
+	// Test that occurrences already generated by another run are rolled back
+	@Test
+	public void testSaveOccurrencesWhenAlreadyGeneratedRollsBack() {
+		RecurringExpense rent = new RecurringExpense(900d, "rent", category, Frequency.MONTHLY,
+				LocalDate.of(2024, 1, 1), null);
+		recurringExpenseMysqlRepository.save(rent);
+		rent.advance(1, LocalDate.of(2024, 2, 1));
+		recurringExpenseMysqlRepository.saveOccurrences(
+				Arrays.asList(new Expense(900d, "rent", LocalDate.of(2024, 1, 1), category)), Arrays.asList(rent));
+
+		assertThatThrownBy(() -> recurringExpenseMysqlRepository.saveOccurrences(
+				Arrays.asList(new Expense(900d, "rent", LocalDate.of(2024, 1, 1), category)), Arrays.asList(rent)))
+				.isInstanceOf(HibernateException.class)
+				.hasMessage("Could not save recurring expense occurrences.");
+		assertThat(expenseMysqlRepository.findAll()).hasSize(1);
+	}
+
+	// Test that a deleted definition is no longer found
+	@Test
+	public void testDelete() {
+		RecurringExpense rent = new RecurringExpense(900d, "rent", category, Frequency.MONTHLY,
+				LocalDate.of(2024, 1, 1), null);
+		recurringExpenseMysqlRepository.save(rent);
+
+		recurringExpenseMysqlRepository.delete(rent.getId());
+
+		assertThat(recurringExpenseMysqlRepository.findAll()).isEmpty();
+	}
+}
@@ -0,0 +1,187 @@
+package com.tdd.expensetracker.repository.mysql;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.List;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.model.ExpenseTotal;
+import com.tdd.expensetracker.model.Money;
+import com.tdd.expensetracker.repository.mysql.SchemaMigrator.Migration;
+
+public class SchemaMigratorTest {
+
+	private StandardServiceRegistry registry;
+	private SessionFactory sessionFactory;
+
+	// Setup a session factory on a fresh in-memory database, in MySQL mode since the
+	// migrations are written for MySQL, with schema generation disabled so that
+	// only the migrator creates tables
+	@Before
+	public void setup() {
+		registry = new StandardServiceRegistryBuilder().configure("hibernate-test.cfg.xml")
+				.applySetting("hibernate.connection.url", "jdbc:h2:mem:migration;MODE=MySQL")
+				.applySetting("hibernate.hbm2ddl.auto", "none").build();
+		sessionFactory = new MetadataSources(registry).buildMetadata().buildSessionFactory();
+	}
+
+	// Closing the session factory drops the in-memory database
+	@After
+	public void tearDown() {
+		sessionFactory.close();
+		StandardServiceRegistryBuilder.destroy(registry);
+	}
+
+	// Test that migrating an empty database creates the tables used by the
+	// repositories
+	@Test
+	public void testMigrateOnEmptyDatabaseCreatesSchema() {
+		int applied = new SchemaMigrator(sessionFactory).migrate();
+
+		assertThat(applied).isPositive();
+		Category category = new Category("1", "name1", "description1");
+		new CategoryMySqlRepository(sessionFactory).save(category);
+		new ExpenseMysqlRepository(sessionFactory).save(new Expense(50d, "test1", LocalDate.now(), category));
+		assertThat(new ExpenseMysqlRepository(sessionFactory).findAll()).hasSize(1);
+	}
+
+	// Test that a second run finds the schema current and applies nothing
+	@Test
+	public void testMigrateWhenSchemaIsCurrentDoesNothing() {
+		int applied = new SchemaMigrator(sessionFactory).migrate();
+
+		assertThat(new SchemaMigrator(sessionFactory).migrate()).isZero();
+		assertThat(readAppliedVersions()).hasSize(applied);
+	}
+
+	// Test that only migrations newer than the recorded version are applied
+	@Test
+	public void testMigrateAppliesOnlyPendingMigrations() {
+		Migration first = new Migration(1, "first", "CREATE TABLE first_table (id INT)");
+		Migration second = new Migration(2, "second", "CREATE TABLE second_table (id INT)");
+		new SchemaMigrator(sessionFactory, Arrays.asList(first)).migrate();
+
+		int applied = new SchemaMigrator(sessionFactory, Arrays.asList(first, second)).migrate();
+
+		assertThat(applied).isEqualTo(1);
+		assertThat(readAppliedVersions()).containsExactly(1, 2);
+	}
+
+	// Test that creating the totals table fills it from the existing expenses
+	@Test
+	public void testMigrateComputesTotalsForExistingExpenses() {
+		Migration first = SchemaMigrator.MIGRATIONS.get(0);
+		new SchemaMigrator(sessionFactory, Arrays.asList(first)).migrate();
+		Category category = new Category("1", "name1", "description1");
+		new CategoryMySqlRepository(sessionFactory).save(category);
+		Session session = sessionFactory.openSession();
+		Transaction transaction = session.beginTransaction();
+		session.createNativeQuery("INSERT INTO Expense (id, amount, date, description, category_id) "
+				+ "VALUES ('e1', 10, DATE '2024-03-01', 'a', :category), ('e2', 15, DATE '2024-03-20', 'b', :category)")
+				.setParameter("category", category.getId()).executeUpdate();
+		transaction.commit();
+		session.close();
+
+		new SchemaMigrator(sessionFactory).migrate();
+
+		List<ExpenseTotal> totals = new ExpenseMysqlRepository(sessionFactory).findTotals(YearMonth.of(2024, 3));
+		assertThat(totals).extracting(ExpenseTotal::getTotal).containsExactly(Money.of(25));
+		assertThat(totals).extracting(ExpenseTotal::getCount).containsExactly(2L);
+	}
+
+	// Test that rerunning the totals and cents conversion migrations, as after a
+	// failure before their version was recorded, neither duplicates totals nor
+	// scales amounts twice
+	@Test
+	public void testRerunningConversionMigrationsIsSafe() {
+		new SchemaMigrator(sessionFactory, SchemaMigrator.MIGRATIONS.subList(0, 2)).migrate();
+		Category category = new Category("1", "name1", "description1");
+		new CategoryMySqlRepository(sessionFactory).save(category);
+		executeNative("INSERT INTO Expense (id, amount, date, description, category_id) "
+				+ "VALUES ('e1', 10.5, DATE '2024-03-01', 'a', '1')");
+		executeNative("DELETE FROM " + SchemaMigrator.VERSION_TABLE + " WHERE version = 2");
+		new SchemaMigrator(sessionFactory, SchemaMigrator.MIGRATIONS.subList(0, 2)).migrate();
+
+		new SchemaMigrator(sessionFactory).migrate();
+		executeNative("DELETE FROM " + SchemaMigrator.VERSION_TABLE + " WHERE version = 7");
+		new SchemaMigrator(sessionFactory).migrate();
+
+		assertThat(new ExpenseMysqlRepository(sessionFactory).findById("e1").getAmountCents()).isEqualTo(1050);
+		List<ExpenseTotal> totals = new ExpenseMysqlRepository(sessionFactory).findTotals(YearMonth.of(2024, 3));
+		assertThat(totals).extracting(ExpenseTotal::getTotal).containsExactly(Money.of(10.5));
+		assertThat(totals).extracting(ExpenseTotal::getCount).containsExactly(1L);
+	}
+
+	// Test that a schema created from the entities, which already stores cents,
+	// is brought current without scaling its amounts again
+	@Test
+	public void testMigrateOnSchemaCreatedFromEntitiesKeepsCents() {
+		StandardServiceRegistry entityRegistry = new StandardServiceRegistryBuilder()
+				.configure("hibernate-test.cfg.xml")
+				.applySetting("hibernate.connection.url", "jdbc:h2:mem:migration;MODE=MySQL").build();
+		SessionFactory entitySessionFactory = new MetadataSources(entityRegistry).buildMetadata()
+				.buildSessionFactory();
+		Category category = new Category("1", "name1", "description1");
+		new CategoryMySqlRepository(entitySessionFactory).save(category);
+		Expense expense = new Expense(10.5, "test1", LocalDate.of(2024, 3, 1), category);
+		new ExpenseMysqlRepository(entitySessionFactory).save(expense);
+		entitySessionFactory.close();
+		StandardServiceRegistryBuilder.destroy(entityRegistry);
+
+		new SchemaMigrator(sessionFactory).migrate();
+
+		assertThat(new ExpenseMysqlRepository(sessionFactory).findById(expense.getId()).getAmountCents())
+				.isEqualTo(1050);
+		assertThat(readAppliedVersions()).hasSize(SchemaMigrator.MIGRATIONS.size());
+	}
+
+	// Test that a failing migration is reported and not recorded as applied
+	@Test
+	public void testMigrateWhenStatementFailsThrowsAndDoesNotRecordVersion() {
+		Migration broken = new Migration(1, "broken", "CREATE TABLE broken_table (id NOT_A_TYPE)");
+		SchemaMigrator migrator = new SchemaMigrator(sessionFactory, Arrays.asList(broken));
+
+		assertThatThrownBy(migrator::migrate).isInstanceOf(HibernateException.class)
+				.hasMessageContaining("Could not migrate schema.");
+		assertThat(readAppliedVersions()).isEmpty();
+	}
+
+	// Utility method to run a native statement in its own transaction
+	private void executeNative(String sql) {
+		Session session = sessionFactory.openSession();
+		Transaction transaction = session.beginTransaction();
+		session.createNativeQuery(sql).executeUpdate();
+		transaction.commit();
+		session.close();
+	}
+
+	// Utility method to read the recorded versions from the version table
+	private List<Integer> readAppliedVersions() {
+		Session session = sessionFactory.openSession();
+		try {
+			@SuppressWarnings("unchecked")
+			List<Integer> versions = session
+					.createNativeQuery("SELECT version FROM " + SchemaMigrator.VERSION_TABLE + " ORDER BY version")
+					.list();
+			return versions;
+		} finally {
+			session.close();
+		}
+	}
+}
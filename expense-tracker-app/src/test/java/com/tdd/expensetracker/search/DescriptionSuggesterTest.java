@@ -0,0 +1,89 @@
+package com.tdd.expensetracker.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.DescriptionUsage;
+import com.tdd.expensetracker.model.Expense;
+
+public class DescriptionSuggesterTest {
+
+	private static final LocalDate TODAY = LocalDate.of(2024, 6, 1);
+
+	private final Category category = new Category("1", "food", "meals");
+
+	private DescriptionSuggester suggester;
+
+	@Before
+	public void setup() {
+		suggester = new DescriptionSuggester();
+	}
+
+	// Test that suggestions match the prefix ignoring case, most used first
+	@Test
+	public void testSuggestsMostUsedDescriptionsFirst() {
+		suggester.load(Arrays.asList(new DescriptionUsage("Lunch", 10, TODAY), new DescriptionUsage("Lunch box", 3, TODAY),
+				new DescriptionUsage("Laundry", 20, TODAY), new DescriptionUsage("Taxi", 50, TODAY)));
+
+		assertThat(suggester.suggest("lu", 5)).containsExactly("Lunch", "Lunch box");
+		assertThat(suggester.suggest("L", 5)).containsExactly("Laundry", "Lunch", "Lunch box");
+		assertThat(suggester.suggest("L", 1)).containsExactly("Laundry");
+		assertThat(suggester.suggest("x", 5)).isEmpty();
+		assertThat(suggester.suggest("  ", 5)).isEmpty();
+	}
+
+	// Test that recent uses outweigh older ones
+	@Test
+	public void testRecentUsesOutweighOldOnes() {
+		suggester.load(Arrays.asList(new DescriptionUsage("Fuel", 4, TODAY.minusYears(1)),
+				new DescriptionUsage("Fitness", 1, TODAY)));
+
+		assertThat(suggester.suggest("f", 5)).containsExactly("Fitness", "Fuel");
+	}
+
+	// Test that added expenses update the ranking and the suggested spelling
+	@Test
+	public void testAddedExpensesUpdateRanking() {
+		suggester.load(Arrays.asList(new DescriptionUsage("coffee", 2, TODAY), new DescriptionUsage("cinema", 3, TODAY)));
+
+		suggester.expenseAdded(new Expense(3d, "Coffee", TODAY, category));
+		suggester.expensesAdded(Arrays.asList(new Expense(3d, "coffee ", TODAY, category),
+				new Expense(3d, "Cake", TODAY, category)));
+
+		assertThat(suggester.suggest("c", 5)).containsExactly("coffee", "cinema", "Cake");
+	}
+
+	// Test that renaming an expense counts as a use of the new description
+	@Test
+	public void testUpdatedDescriptionIsRecorded() {
+		Expense expense = new Expense("1", 3d, "bus", TODAY, category);
+		suggester.expenseAdded(expense);
+		suggester.expenseUpdated(expense, new Expense("1", 3d, "bus pass", TODAY, category));
+		suggester.expenseUpdated(expense, new Expense("1", 4d, "Bus", TODAY, category));
+
+		assertThat(suggester.suggest("bus", 5)).containsExactly("bus", "bus pass");
+	}
+
+	// Test that each prefix keeps only its best entries as more descriptions arrive
+	@Test
+	public void testKeepsBestEntriesPerPrefix() {
+		List<DescriptionUsage> usages = new ArrayList<>();
+		for (int i = 1; i <= 20; i++) {
+			usages.add(new DescriptionUsage("item " + i, i, TODAY));
+		}
+		suggester.load(usages);
+		suggester.expenseAdded(new Expense(1d, "item 1", TODAY, category));
+
+		assertThat(suggester.suggest("item", 20)).hasSize(DescriptionSuggester.MAX_SUGGESTIONS)
+				.containsExactly("item 20", "item 19", "item 18", "item 17", "item 16", "item 15", "item 14", "item 13");
+		assertThat(suggester.suggest("item 1", 3)).containsExactly("item 19", "item 18", "item 17");
+	}
+}
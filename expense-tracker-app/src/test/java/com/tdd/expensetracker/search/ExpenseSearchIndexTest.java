@@ -0,0 +1,134 @@
+package com.tdd.expensetracker.search;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+
+public class ExpenseSearchIndexTest {
+
+	private final Category shopping = new Category("1", "Shopping", "online and stores");
+	private final Category food = new Category("2", "Food", "groceries");
+
+	private ExpenseSearchIndex index;
+
+	@Before
+	public void setup() {
+		index = new ExpenseSearchIndex();
+	}
+
+	// Test that every query term must match as a word prefix, in the description
+	// or the category name
+	@Test
+	public void testMultiTermPrefixQuery() {
+		index.expensesAdded(Arrays.asList(expense("1", "Amazon order headphones", shopping),
+				expense("2", "Amazon fresh groceries", food), expense("3", "Corner shop", shopping)));
+
+		assertThat(index.search("amaz", 10)).containsExactlyInAnyOrder("1", "2");
+		assertThat(index.search("AMAZ shop", 10)).containsExactly("1");
+		assertThat(index.search("amazon food", 10)).containsExactly("2");
+		assertThat(index.search("amazon car", 10)).isEmpty();
+		assertThat(index.search(" ,. ", 10)).isEmpty();
+	}
+
+	// Test that whole-word matches rank above prefix matches and that ties go to
+	// the most recently indexed expense
+	@Test
+	public void testRanking() {
+		index.expenseAdded(expense("1", "bookstore", shopping));
+		index.expenseAdded(expense("2", "book", shopping));
+		index.expenseAdded(expense("3", "books", shopping));
+		index.expenseAdded(expense("4", "book club", shopping));
+
+		assertThat(index.search("book", 10)).containsExactly("4", "2", "3", "1");
+		assertThat(index.search("book", 2)).containsExactly("4", "2");
+	}
+
+	// Test that updates replace the indexed text and deletions remove it
+	@Test
+	public void testUpdateAndDelete() {
+		Expense expense = expense("1", "taxi", shopping);
+		index.expenseAdded(expense);
+		Expense updated = expense("1", "train ticket", food);
+		index.expenseUpdated(expense, updated);
+
+		assertThat(index.search("taxi", 10)).isEmpty();
+		assertThat(index.search("train food", 10)).containsExactly("1");
+		assertThat(index.size()).isEqualTo(1);
+
+		index.expenseDeleted(updated);
+		assertThat(index.search("train", 10)).isEmpty();
+		assertThat(index.size()).isZero();
+	}
+
+	// Test that compacting the tombstones of many deletions keeps results correct
+	@Test
+	public void testManyDeletionsAreCompacted() {
+		List<Expense> expenses = new ArrayList<>();
+		for (int i = 0; i < 4000; i++) {
+			expenses.add(expense(Integer.toString(i), "item " + (i % 2 == 0 ? "even" : "odd"), shopping));
+		}
+		index.expensesAdded(expenses);
+		for (int i = 0; i < 3000; i++) {
+			index.expenseDeleted(expenses.get(i));
+		}
+		index.expenseAdded(expense("new", "even newer", food));
+
+		assertThat(index.size()).isEqualTo(1001);
+		assertThat(index.search("even", 2000)).hasSize(501).startsWith("new", "3998");
+		assertThat(index.search("odd", 1)).containsExactly("3999");
+	}
+
+	// Test that expenses updated over and over reuse the numbers of their dead
+	// documents, and that the dead documents do not count in the rarity of a term
+	@Test
+	public void testRepeatedUpdatesDoNotGrowTheIndex() {
+		index.expenseAdded(expense("rare", "lunch", food));
+		for (int round = 0; round < 10; round++) {
+			for (int i = 0; i < 1000; i++) {
+				index.expenseAdded(expense(Integer.toString(i), "coffee round " + round, food));
+			}
+		}
+
+		assertThat(index.size()).isEqualTo(1001);
+		assertThat(index.documentCount()).isLessThanOrEqualTo(1001 + ExpenseSearchIndex.MIN_TOMBSTONES_TO_COMPACT);
+		assertThat(index.search("coffee round 9", 2000)).hasSize(1000).startsWith("999");
+		assertThat(index.search("round 8", 10)).isEmpty();
+		assertThat(index.search("food lunch", 10)).containsExactly("rare");
+	}
+
+	// Test that a rebuild replaces the index and keeps changes made during the scan
+	@Test
+	public void testRebuildKeepsChangesMadeDuringTheScan() {
+		Expense stale = expense("0", "stale entry", shopping);
+		index.expenseAdded(stale);
+		Expense deletedDuringScan = expense("2", "gym", shopping);
+
+		index.rebuild(consumer -> {
+			consumer.accept(expense("1", "rent", food));
+			consumer.accept(deletedDuringScan);
+			// Changes committed while the scan is running
+			index.expenseAdded(expense("3", "gym membership", shopping));
+			index.expenseDeleted(deletedDuringScan);
+			assertThat(index.search("stale", 10)).containsExactly("0");
+		});
+
+		assertThat(index.search("stale", 10)).isEmpty();
+		assertThat(index.search("rent", 10)).containsExactly("1");
+		assertThat(index.search("gym", 10)).containsExactly("3");
+		assertThat(index.size()).isEqualTo(2);
+	}
+
+	// Utility method to create a test expense
+	private static Expense expense(String id, String description, Category category) {
+		return new Expense(id, 10d, description, LocalDate.of(2024, 3, 1), category);
+	}
+}
@@ -0,0 +1,239 @@
+package com.tdd.expensetracker.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.repository.CategoryRepository;
+import com.tdd.expensetracker.repository.ExpenseRepository;
+
+public class ExpenseHttpServerTest {
+
+	@Mock
+	private ExpenseRepository expenseRepository;
+	@Mock
+	private CategoryRepository categoryRepository;
+
+	private AutoCloseable closeable;
+	private ExpenseHttpServer server;
+
+	// Start the server on a free local port
+	@Before
+	public void setup() throws IOException {
+		closeable = MockitoAnnotations.openMocks(this);
+		server = new ExpenseHttpServer(new InetSocketAddress("localhost", 0), 2, expenseRepository,
+				categoryRepository);
+		server.start();
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		server.stop();
+		closeable.close();
+	}
+
+	// Test that listing expenses returns the requested page as a JSON array
+	@Test
+	public void testGetExpensesReturnsPage() throws IOException {
+		Category category = new Category("c1", "food", "groceries");
+		when(expenseRepository.findPage(1, 2)).thenReturn(
+				Arrays.asList(new Expense("e1", 12.5, "lunch \"out\"", LocalDate.of(2024, 1, 2), category)));
+
+		HttpURLConnection connection = open("GET", "/expenses?page=1&size=2");
+
+		assertThat(connection.getResponseCode()).isEqualTo(200);
+		assertThat(connection.getContentType()).startsWith("application/json");
+		assertThat(readBody(connection)).isEqualTo("[{\"id\":\"e1\",\"amount\":12.5,"
+				+ "\"description\":\"lunch \\\"out\\\"\",\"date\":\"2024-01-02\",\"categoryId\":\"c1\"}]");
+	}
+
+	// Test that the page size is capped
+	@Test
+	public void testGetExpensesCapsPageSize() throws IOException {
+		when(expenseRepository.findPage(0, ExpenseHttpServer.MAX_PAGE_SIZE)).thenReturn(new ArrayList<>());
+
+		HttpURLConnection connection = open("GET", "/expenses?size=1000000");
+
+		assertThat(connection.getResponseCode()).isEqualTo(200);
+		assertThat(readBody(connection)).isEqualTo("[]");
+	}
+
+	// Test that posting a valid expense saves it and answers 201
+	@Test
+	public void testPostExpenseCreatesExpense() throws IOException {
+		when(categoryRepository.findById("c1")).thenReturn(new Category("c1", "food", "groceries"));
+
+		HttpURLConnection connection = open("POST", "/expenses");
+		writeBody(connection, "{\"amount\": 10, \"description\": \"bread\", \"date\": \"2024-03-04\", "
+				+ "\"categoryId\": \"c1\"}");
+
+		assertThat(connection.getResponseCode()).isEqualTo(201);
+		assertThat(readBody(connection)).contains("\"description\":\"bread\"");
+		verify(expenseRepository).save(any(Expense.class));
+	}
+
+	// Test that posting an expense with an unknown category answers 400
+	@Test
+	public void testPostExpenseWithUnknownCategoryReturnsBadRequest() throws IOException {
+		HttpURLConnection connection = open("POST", "/expenses");
+		writeBody(connection, "{\"amount\": 10, \"description\": \"bread\", \"date\": \"2024-03-04\", "
+				+ "\"categoryId\": \"missing\"}");
+
+		assertThat(connection.getResponseCode()).isEqualTo(400);
+		verify(expenseRepository, never()).save(any(Expense.class));
+	}
+
+	// Test that a malformed body answers 400 without reaching the repository
+	@Test
+	public void testPostMalformedJsonReturnsBadRequest() throws IOException {
+		HttpURLConnection connection = open("POST", "/expenses");
+		writeBody(connection, "{\"amount\": ");
+
+		assertThat(connection.getResponseCode()).isEqualTo(400);
+		verify(expenseRepository, never()).save(any(Expense.class));
+	}
+
+	// Test that deleting an existing expense answers 204
+	@Test
+	public void testDeleteExistingExpenseReturnsNoContent() throws IOException {
+		Category category = new Category("c1", "food", "groceries");
+		Expense expense = new Expense("e1", 12.5, "lunch", LocalDate.of(2024, 1, 2), category);
+		category.getExpenses().add(expense);
+		when(expenseRepository.findById("e1")).thenReturn(expense);
+		when(categoryRepository.findById("c1")).thenReturn(category);
+
+		HttpURLConnection connection = open("DELETE", "/expenses/e1");
+
+		assertThat(connection.getResponseCode()).isEqualTo(204);
+		verify(expenseRepository).delete(expense);
+	}
+
+	// Test that deleting an unknown expense answers 404
+	@Test
+	public void testDeleteMissingExpenseReturnsNotFound() throws IOException {
+		HttpURLConnection connection = open("DELETE", "/expenses/missing");
+
+		assertThat(connection.getResponseCode()).isEqualTo(404);
+	}
+
+	// Test that creating a category answers 201 with the category
+	@Test
+	public void testPostCategoryCreatesCategory() throws IOException {
+		HttpURLConnection connection = open("POST", "/categories");
+		writeBody(connection, "{\"name\": \"travel\", \"description\": \"trips\"}");
+
+		assertThat(connection.getResponseCode()).isEqualTo(201);
+		assertThat(readBody(connection)).contains("\"name\":\"travel\"");
+		verify(categoryRepository).save(any(Category.class));
+	}
+
+	// Test that reports are answered from the columns loaded at startup and kept
+	// current by the writes made through the API
+	@Test
+	public void testReportsFollowWritesAfterLoad() throws IOException {
+		Category category = new Category("c1", "food", "groceries");
+		doAnswer(invocation -> {
+			Consumer<Expense> consumer = invocation.getArgument(0);
+			consumer.accept(new Expense("e1", 12.5, "lunch", LocalDate.of(2024, 1, 2), category));
+			consumer.accept(
+					new Expense("e2", 30d, "train", LocalDate.of(2024, 2, 3), new Category("c2", "travel", null)));
+			return null;
+		}).when(expenseRepository).streamAll(ArgumentMatchers.<Consumer<Expense>>any());
+		server.loadReportColumns();
+		when(categoryRepository.findById("c1")).thenReturn(category);
+		HttpURLConnection post = open("POST", "/expenses");
+		writeBody(post, "{\"amount\": 7.5, \"description\": \"bread\", \"date\": \"2024-01-20\", "
+				+ "\"categoryId\": \"c1\"}");
+		assertThat(post.getResponseCode()).isEqualTo(201);
+
+		HttpURLConnection spending = open("GET", "/reports/spending?categoryId=c1&from=2024-01-01&to=2024-01-31");
+		assertThat(spending.getResponseCode()).isEqualTo(200);
+		assertThat(readBody(spending))
+				.isEqualTo("{\"count\":2,\"total\":20.0,\"average\":10.0,\"min\":7.5,\"max\":12.5}");
+
+		HttpURLConnection summary = open("GET", "/reports/summary");
+		assertThat(summary.getResponseCode()).isEqualTo(200);
+		assertThat(readBody(summary)).startsWith("{\"overall\":{\"count\":3,\"total\":50.0,")
+				.contains("\"byMonth\":{\"2024-01\":{\"count\":2,").contains("\"travel\":{\"count\":1,");
+
+		assertThat(open("GET", "/reports/unknown").getResponseCode()).isEqualTo(404);
+	}
+
+	// Test that an expense posted in a category the columns have not seen yet is
+	// summarized under the stored name of its category
+	@Test
+	public void testSummaryAfterPostingExpenseInNewCategory() throws IOException {
+		server.loadReportColumns();
+		when(categoryRepository.findById("c1")).thenReturn(new Category("c1", "food", "groceries"));
+		HttpURLConnection post = open("POST", "/expenses");
+		writeBody(post, "{\"amount\": 7.5, \"description\": \"bread\", \"date\": \"2024-01-20\", "
+				+ "\"categoryId\": \"c1\"}");
+		assertThat(post.getResponseCode()).isEqualTo(201);
+
+		HttpURLConnection summary = open("GET", "/reports/summary");
+
+		assertThat(summary.getResponseCode()).isEqualTo(200);
+		assertThat(readBody(summary)).contains("\"byCategory\":{\"food\":{\"count\":1,");
+	}
+
+	// Test that unsupported methods answer 405
+	@Test
+	public void testUnsupportedMethodReturnsMethodNotAllowed() throws IOException {
+		HttpURLConnection connection = open("PUT", "/expenses");
+		writeBody(connection, "{}");
+
+		assertThat(connection.getResponseCode()).isEqualTo(405);
+	}
+
+	// Utility method to open a connection to the running server
+	private HttpURLConnection open(String method, String path) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(
+				"http://localhost:" + server.getAddress().getPort() + path).openConnection();
+		connection.setRequestMethod(method);
+		return connection;
+	}
+
+	private static void writeBody(HttpURLConnection connection, String body) throws IOException {
+		connection.setDoOutput(true);
+		try (OutputStream out = connection.getOutputStream()) {
+			out.write(body.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	private static String readBody(HttpURLConnection connection) throws IOException {
+		try (InputStream in = connection.getInputStream()) {
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			byte[] buffer = new byte[1024];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				body.write(buffer, 0, read);
+			}
+			return new String(body.toByteArray(), StandardCharsets.UTF_8);
+		}
+	}
+}
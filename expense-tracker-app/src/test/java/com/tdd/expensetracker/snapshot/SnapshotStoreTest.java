@@ -0,0 +1,103 @@
+package com.tdd.expensetracker.snapshot;
+
+import static com.tdd.expensetracker.model.DeepEquality.CATEGORY_FIELDS;
+import static com.tdd.expensetracker.model.DeepEquality.EXPENSE_FIELDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+
+public class SnapshotStoreTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private Path file;
+	private SnapshotStore snapshotStore;
+
+	@Before
+	public void setup() {
+		file = folder.getRoot().toPath().resolve("cache").resolve("snapshot.bin");
+		snapshotStore = new SnapshotStore(file);
+	}
+
+	// Test that a written snapshot is read back with the same categories and
+	// expenses
+	@Test
+	public void testWriteThenReadReturnsSameData() {
+		Category category1 = new Category("1", "name1", "description1");
+		Category category2 = new Category("2", "name2", null);
+		Expense expense1 = new Expense("1", 50.5d, "test1", LocalDate.of(2024, 1, 31), category1);
+		Expense expense2 = new Expense("2", 10d, "test2", LocalDate.of(2024, 2, 1), category2);
+
+		snapshotStore.write(Arrays.asList(category1, category2), Arrays.asList(expense1, expense2));
+		Snapshot snapshot = snapshotStore.read();
+
+		assertThat(snapshot.getCategories()).usingElementComparator(CATEGORY_FIELDS).containsExactly(category1,
+				category2);
+		assertThat(snapshot.getExpenses()).usingElementComparator(EXPENSE_FIELDS).containsExactly(expense1, expense2);
+		assertThat(snapshot.getExpenses().get(0).getCategory()).isSameAs(snapshot.getCategories().get(0));
+		assertThat(snapshot.getCreatedAt()).isPositive();
+	}
+
+	// Test that an expense whose category is not part of the snapshot is kept
+	// without category
+	@Test
+	public void testWriteWhenCategoryIsMissingKeepsExpenseWithoutCategory() {
+		Expense expense = new Expense("1", 50d, "test1", LocalDate.of(2024, 1, 31), new Category("9", "x", "y"));
+
+		snapshotStore.write(Collections.emptyList(), Arrays.asList(expense));
+
+		assertThat(snapshotStore.read().getExpenses().get(0).getCategory()).isNull();
+	}
+
+	// Test that reading without a snapshot file returns null
+	@Test
+	public void testReadWhenFileDoesNotExistReturnsNull() {
+		assertThat(snapshotStore.read()).isNull();
+	}
+
+	// Test that a file with an unknown format is ignored
+	@Test
+	public void testReadWhenFileHasUnknownFormatReturnsNull() throws IOException {
+		Files.createDirectories(file.getParent());
+		Files.write(file, new byte[] { 1, 2, 3, 4, 5 });
+
+		assertThat(snapshotStore.read()).isNull();
+	}
+
+	// Test that a truncated file is ignored
+	@Test
+	public void testReadWhenFileIsTruncatedReturnsNull() throws IOException {
+		snapshotStore.write(Arrays.asList(new Category("1", "name1", "description1")), Collections.emptyList());
+		byte[] content = Files.readAllBytes(file);
+		Files.write(file, Arrays.copyOf(content, content.length - 4));
+
+		assertThat(snapshotStore.read()).isNull();
+	}
+
+	// Test that a file referring to a category it does not hold is ignored
+	@Test
+	public void testReadWhenCategoryIndexIsOutOfRangeReturnsNull() throws IOException {
+		Category category = new Category("1", "name1", "description1");
+		snapshotStore.write(Arrays.asList(category),
+				Arrays.asList(new Expense("1", 50d, "test1", LocalDate.of(2024, 1, 31), category)));
+		byte[] content = Files.readAllBytes(file);
+		content[content.length - 1] = 5;
+		Files.write(file, content);
+
+		assertThat(snapshotStore.read()).isNull();
+	}
+}
@@ -0,0 +1,51 @@
+package com.tdd.expensetracker.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.UUID;
+
+import org.junit.Test;
+
+public class BloomFilterTest {
+
+	// Test that every key put is found
+	@Test
+	public void testNoFalseNegatives() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		String[] keys = new String[10_000];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = UUID.randomUUID().toString();
+			filter.put(keys[i]);
+		}
+
+		for (String key : keys) {
+			assertThat(filter.mightContain(key)).isTrue();
+		}
+	}
+
+	// Test that absent keys are rejected at about the configured rate
+	@Test
+	public void testFalsePositiveRate() {
+		BloomFilter filter = new BloomFilter(10_000, 0.01);
+		for (int i = 0; i < 10_000; i++) {
+			filter.put("expense-" + i);
+		}
+
+		int falsePositives = 0;
+		for (int i = 0; i < 100_000; i++) {
+			if (filter.mightContain("other-" + i)) {
+				falsePositives++;
+			}
+		}
+		assertThat(falsePositives).isLessThan(2_000);
+	}
+
+	// Test that an empty filter rejects everything
+	@Test
+	public void testEmptyFilter() {
+		BloomFilter filter = new BloomFilter(0, 0.01);
+
+		assertThat(filter.mightContain("")).isFalse();
+		assertThat(filter.mightContain("food")).isFalse();
+	}
+}
@@ -0,0 +1,44 @@
+package com.tdd.expensetracker.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.Test;
+
+public class CsvUtilsTest {
+
+	// Test for parsing a line without quotes
+	@Test
+	public void testParseLineSplitsOnSeparator() {
+		assertThat(CsvUtils.parseLine("2024-01-31,12.5,Lunch,Food")).containsExactly("2024-01-31", "12.5", "Lunch",
+				"Food");
+	}
+
+	// Test for parsing quoted fields containing separators and escaped quotes
+	@Test
+	public void testParseLineUnescapesQuotedFields() {
+		assertThat(CsvUtils.parseLine("1,\"Dinner, with \"\"friends\"\"\",")).containsExactly("1",
+				"Dinner, with \"friends\"", "");
+	}
+
+	// Test for parsing a line with an unterminated quoted field
+	@Test
+	public void testParseLineWhenQuoteIsNotClosedThrows() {
+		assertThatThrownBy(() -> CsvUtils.parseLine("1,\"Dinner")).isInstanceOf(ValidationException.class)
+				.hasMessage("Unterminated quoted field");
+	}
+
+	// Test for formatting fields, quoting only when needed
+	@Test
+	public void testFormatLineQuotesOnlyWhenNeeded() {
+		assertThat(CsvUtils.formatLine("1", "Dinner, with \"friends\"", null, "Food"))
+				.isEqualTo("1,\"Dinner, with \"\"friends\"\"\",,Food");
+	}
+
+	// Test that a formatted line parses back to the same fields
+	@Test
+	public void testFormatThenParseRoundTrips() {
+		String[] fields = { "a,b", "\"q\"", "plain", "" };
+		assertThat(CsvUtils.parseLine(CsvUtils.formatLine(fields))).containsExactly(fields);
+	}
+}
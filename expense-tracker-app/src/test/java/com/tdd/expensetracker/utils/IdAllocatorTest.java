@@ -0,0 +1,78 @@
+package com.tdd.expensetracker.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+public class IdAllocatorTest {
+
+	private final AtomicLong clock = new AtomicLong(1_700_000_000_000L);
+	private final IdAllocator allocator = new IdAllocator(clock::get, 42);
+
+	// Test that ids are version 7 UUIDs following the clock
+	@Test
+	public void testIdsAreTimeOrdered() {
+		String first = allocator.next();
+		String second = allocator.next();
+		clock.addAndGet(5);
+		String third = allocator.next();
+
+		assertThat(UUID.fromString(first).version()).isEqualTo(7);
+		assertThat(UUID.fromString(first).getMostSignificantBits() >>> 16).isEqualTo(1_700_000_000_000L);
+		assertThat(UUID.fromString(third).getMostSignificantBits() >>> 16).isEqualTo(1_700_000_000_005L);
+		assertThat(first).isLessThan(second);
+		assertThat(second).isLessThan(third);
+	}
+
+	// Test that bursts beyond the sequence of a millisecond never repeat ids or
+	// go backwards
+	@Test
+	public void testBurstBorrowsFollowingMilliseconds() {
+		List<String> ids = new ArrayList<>(allocator.next(5000));
+		ids.add(allocator.next());
+
+		assertThat(ids).doesNotHaveDuplicates().isSorted();
+		assertThat(UUID.fromString(ids.get(ids.size() - 1)).getMostSignificantBits() >>> 16)
+				.isEqualTo(1_700_000_000_001L);
+	}
+
+	// Test that threads drawing from their own blocks never share an id
+	@Test
+	public void testIdsAreUniqueAcrossThreads() throws InterruptedException {
+		IdAllocator shared = new IdAllocator(System::currentTimeMillis, 7);
+		Set<String> ids = ConcurrentHashMap.newKeySet();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		for (int thread = 0; thread < 4; thread++) {
+			executor.execute(() -> {
+				for (int i = 0; i < 20_000; i++) {
+					ids.add(shared.next());
+				}
+			});
+		}
+		executor.shutdown();
+		assertThat(executor.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(ids).hasSize(80_000);
+	}
+
+	// Test that an allocator recognizes only its own ids
+	@Test
+	public void testRecognizesOwnIds() {
+		assertThat(allocator.allocated(allocator.next())).isTrue();
+		assertThat(allocator.allocated(new IdAllocator(clock::get, 4242).next())).isFalse();
+		assertThat(allocator.allocated(UUID.randomUUID().toString())).isFalse();
+		assertThat(allocator.allocated("")).isFalse();
+		assertThat(allocator.allocated(null)).isFalse();
+		assertThat(IdAllocator.isAllocatedHere(IdAllocator.nextId())).isTrue();
+	}
+}
@@ -0,0 +1,32 @@
+package com.tdd.expensetracker.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class TextUtilsTest {
+
+	// Test that text is split into lower case words of letters and digits
+	@Test
+	public void testTokenize() {
+		assertThat(TextUtils.tokenize("Amazon.com order #42, Café")).containsExactly("amazon", "com", "order", "42",
+				"café");
+	}
+
+	// Test that missing or blank text has no words
+	@Test
+	public void testTokenizeWithoutWords() {
+		assertThat(TextUtils.tokenize(null)).isEmpty();
+		assertThat(TextUtils.tokenize(" ,. ")).isEmpty();
+	}
+
+	// Test that names equal under an accent and case insensitive collation share
+	// a key
+	@Test
+	public void testCollationKeyIgnoresCaseAccentsAndSpacing() {
+		assertThat(TextUtils.collationKey("Café")).isEqualTo(TextUtils.collationKey("cafe"));
+		assertThat(TextUtils.collationKey(" Straße ")).isEqualTo(TextUtils.collationKey("STRASSE"));
+		assertThat(TextUtils.collationKey("Crème Brûlée")).isEqualTo("cremebrulee");
+		assertThat(TextUtils.collationKey("Food")).isNotEqualTo(TextUtils.collationKey("Fuel"));
+	}
+}
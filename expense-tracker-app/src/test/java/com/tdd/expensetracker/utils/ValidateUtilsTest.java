@@ -49,6 +49,14 @@ public class ValidateUtilsTest {
 				.hasMessage("Amount must be greater than zero");
 	}
 
+	// Test for validating an amount that rounds to zero cents (should throw
+	// ValidationException)
+	@Test
+	public void testValidateAmountIfAmountIsBelowOneCent() {
+		assertThatThrownBy(() -> ValidateUtils.validateAmount(0.004)).isInstanceOf(ValidationException.class)
+				.hasMessage("Amount must be greater than zero");
+	}
+
 	// Test for validating today's date (should pass)
 	@Test
 	public void testIsValidDateIfDateIsValid() {
@@ -0,0 +1,57 @@
+package com.tdd.expensetracker.view.console;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tdd.expensetracker.model.Category;
+import com.tdd.expensetracker.model.Expense;
+
+public class ExpenseConsoleViewTest {
+
+	private ByteArrayOutputStream out;
+	private ByteArrayOutputStream err;
+	private ExpenseConsoleView expenseConsoleView;
+	private Category category;
+
+	@Before
+	public void setup() {
+		out = new ByteArrayOutputStream();
+		err = new ByteArrayOutputStream();
+		expenseConsoleView = new ExpenseConsoleView(new PrintStream(out, true), new PrintStream(err, true));
+		category = new Category("1", "name1", "description1");
+	}
+
+	// Test that added expenses are counted without being printed
+	@Test
+	public void testExpenseAddedIsCountedNotPrinted() {
+		expenseConsoleView.expenseAdded(new Expense("1", 10d, "test", LocalDate.of(2024, 1, 1), category));
+		expenseConsoleView.expenseAdded(new Expense("2", 10d, "test", LocalDate.of(2024, 1, 1), category));
+		assertThat(expenseConsoleView.getAddedCount()).isEqualTo(2);
+		assertThat(out.toString()).isEmpty();
+	}
+
+	// Test that errors are printed to the error stream and counted
+	@Test
+	public void testShowErrorPrintsToErrorStreamAndCounts() {
+		Expense expense = new Expense("1", 10d, "test", LocalDate.of(2024, 1, 1), category);
+		expenseConsoleView.showError("error message", expense);
+		expenseConsoleView.showErrorExpenseNotFound("not found", expense);
+		assertThat(err.toString()).contains("error message: " + expense, "not found: " + expense);
+		assertThat(expenseConsoleView.getErrorCount()).isEqualTo(2);
+	}
+
+	// Test that listing expenses prints one line per expense
+	@Test
+	public void testShowAllExpensePrintsEachExpense() {
+		expenseConsoleView.showAllExpense(asList(new Expense("1", 10d, "test1", LocalDate.of(2024, 1, 1), category),
+				new Expense("2", 20d, "test2", LocalDate.of(2024, 1, 2), null)));
+		assertThat(out.toString()).contains("1 | test1 | 10.0 | 2024-01-01 | name1", "2 | test2 | 20.0 | 2024-01-02 | ");
+	}
+}
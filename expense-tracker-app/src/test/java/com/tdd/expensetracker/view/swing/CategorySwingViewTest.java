@@ -1,8 +1,10 @@
 package com.tdd.expensetracker.view.swing;
 
+import static com.tdd.expensetracker.model.DeepEquality.sameCategory;
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.verify;
 
 import java.time.LocalDate;
@@ -28,6 +30,7 @@ import org.mockito.MockitoAnnotations;
 import com.tdd.expensetracker.controller.CategoryController;
 import com.tdd.expensetracker.model.Category;
 import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.utils.IdAllocator;
 
 public class CategorySwingViewTest extends AssertJSwingJUnitTestCase {
 
@@ -347,7 +350,8 @@ public class CategorySwingViewTest extends AssertJSwingJUnitTestCase {
 		setFieldValues("bills", "other");
 		window.button(JButtonMatcher.withText("Add Category")).click();
 		await().atMost(10, TimeUnit.SECONDS)
-				.untilAsserted(() -> verify(categoryController).newCategory(new Category("bills", "other")));
+				.untilAsserted(() -> verify(categoryController).newCategory(argThat(category -> IdAllocator
+						.isAllocatedHere(category.getId()) && sameCategory(category, new Category(category.getId(), "bills", "other")))));
 	}
 
 	// Test deleting a category through the controller
@@ -379,7 +383,8 @@ public class CategorySwingViewTest extends AssertJSwingJUnitTestCase {
 		window.button(JButtonMatcher.withText("Update Category")).click();
 		Category updatedCategory = new Category("1", "new Name", "utilities");
 		await().atMost(10, TimeUnit.SECONDS)
-				.untilAsserted(() -> verify(categoryController).updateCategory(updatedCategory));
+				.untilAsserted(() -> verify(categoryController)
+						.updateCategory(argThat(argument -> sameCategory(argument, updatedCategory))));
 	}
 
 	// Test fetching all expenses for a category through the controller
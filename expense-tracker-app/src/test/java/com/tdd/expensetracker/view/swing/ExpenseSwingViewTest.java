@@ -1,8 +1,10 @@
 package com.tdd.expensetracker.view.swing;
 
+import static com.tdd.expensetracker.model.DeepEquality.sameExpense;
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.verify;
 
 import java.awt.event.KeyEvent;
@@ -28,6 +30,7 @@ import org.mockito.MockitoAnnotations;
 import com.tdd.expensetracker.controller.ExpenseController;
 import com.tdd.expensetracker.model.Category;
 import com.tdd.expensetracker.model.Expense;
+import com.tdd.expensetracker.utils.IdAllocator;
 import com.toedter.calendar.JDateChooser;
 import com.toedter.calendar.JTextFieldDateEditor;
 
@@ -364,8 +367,9 @@ public class ExpenseSwingViewTest extends AssertJSwingJUnitTestCase {
 	public void testAddButtonShouldDelegateToExpenseControllerNewExpense() {
 		setFieldValues("testExpense", "5000", LocalDate.now(), existingCategory);
 		window.button(JButtonMatcher.withText("Add Expense")).click();
-		await().atMost(20, TimeUnit.SECONDS).untilAsserted(() -> verify(expenseController)
-				.newExpense(new Expense(5000d, "testExpense", LocalDate.now(), existingCategory)));
+		await().atMost(20, TimeUnit.SECONDS).untilAsserted(() -> verify(expenseController).newExpense(argThat(
+				expense -> IdAllocator.isAllocatedHere(expense.getId()) && sameExpense(expense, new Expense(expense.getId(),
+						5000d, "testExpense", LocalDate.now(), existingCategory)))));
 	}
 
 	// Test deleting an expense via the controller
@@ -397,7 +401,82 @@ public class ExpenseSwingViewTest extends AssertJSwingJUnitTestCase {
 		window.button(JButtonMatcher.withText("Update Expense")).click();
 		Expense updatedExpense = new Expense("1", 50d, "testExpense", LocalDate.now(), existingCategory);
 		await().atMost(10, TimeUnit.SECONDS)
-				.untilAsserted(() -> verify(expenseController).updateExpense(updatedExpense));
+				.untilAsserted(() -> verify(expenseController)
+						.updateExpense(argThat(argument -> sameExpense(argument, updatedExpense))));
+	}
+
+	// Test that the search runs in the background once typing pauses
+	@Test
+	public void testTypingInSearchBoxSearchesThroughController() {
+		window.textBox("searchTextBox").enterText("amaz");
+
+		await().atMost(10, TimeUnit.SECONDS).untilAsserted(
+				() -> verify(expenseController).searchExpenses("amaz", ExpenseSwingView.SEARCH_LIMIT));
+	}
+
+	// Test that search results replace the list, stale results are ignored and an
+	// empty search box shows every expense again
+	@Test
+	public void testSearchResultsAreShownUntilSearchBoxIsCleared() {
+		Expense expense1 = new Expense("1", 50d, "amazon order", LocalDate.now(), existingCategory);
+		Expense expense2 = new Expense("2", 70d, "rent", LocalDate.now(), existingCategory);
+		expenseSwingView.showAllExpense(asList(expense1, expense2));
+		window.textBox("searchTextBox").enterText("amaz");
+		await().atMost(10, TimeUnit.SECONDS).untilAsserted(
+				() -> verify(expenseController).searchExpenses("amaz", ExpenseSwingView.SEARCH_LIMIT));
+
+		expenseSwingView.showSearchResults("am", asList(expense2));
+		expenseSwingView.showSearchResults("amaz", asList(expense1));
+		await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> {
+			assertThat(window.list("expenseList").contents()).containsExactly(getDisplayString(expense1));
+			window.label("totalLabel").requireText("Total: 50.0");
+		});
+
+		window.textBox("searchTextBox").deleteText();
+		await().atMost(10, TimeUnit.SECONDS).untilAsserted(() -> assertThat(window.list("expenseList").contents())
+				.containsExactly(getDisplayString(expense1), getDisplayString(expense2)));
+	}
+
+	// Test that typing a description asks the controller for suggestions
+	@Test
+	public void testTypingDescriptionAsksForSuggestions() {
+		window.textBox("descriptionTextBox").enterText("Lu");
+
+		verify(expenseController).suggestDescriptions("Lu", ExpenseSwingView.DESCRIPTION_SUGGESTIONS);
+	}
+
+	// Test that choosing a suggestion fills the description
+	@Test
+	public void testChoosingSuggestionFillsDescription() {
+		window.textBox("descriptionTextBox").enterText("Lu");
+		expenseSwingView.showDescriptionSuggestions("Lu", asList("Lunch", "Lunch box"));
+
+		window.menuItemWithPath("Lunch box").click();
+
+		window.textBox("descriptionTextBox").requireText("Lunch box");
+	}
+
+	// Test that typing a description of a new expense asks for its category
+	@Test
+	public void testTypingDescriptionAsksForCategory() {
+		window.textBox("descriptionTextBox").enterText("Taxi");
+
+		verify(expenseController).suggestCategory("Taxi");
+	}
+
+	// Test that the suggested category is pre-selected only while the user has
+	// not picked one
+	@Test
+	public void testSuggestedCategoryIsPreselected() {
+		window.textBox("descriptionTextBox").enterText("Power bill");
+		expenseSwingView.showSuggestedCategory("Power bill", "2");
+		robot().waitForIdle();
+		window.comboBox("categoryComboBox").requireSelection(1);
+
+		window.comboBox("categoryComboBox").selectItem(0);
+		expenseSwingView.showSuggestedCategory("Power bill", "2");
+		robot().waitForIdle();
+		window.comboBox("categoryComboBox").requireSelection(0);
 	}
 
 	// Utility methods to set and reset field values
@@ -0,0 +1,62 @@
+package com.tdd.expensetracker.view.swing;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+
+import javax.swing.DefaultListModel;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.tdd.expensetracker.model.Category;
+
+public class ListModelReconcilerTest {
+
+	private DefaultListModel<Category> model;
+
+	@Before
+	public void setup() {
+		model = new DefaultListModel<>();
+	}
+
+	// Test that reconciling an empty model adds all items in order
+	@Test
+	public void testReconcileWhenModelIsEmptyAddsAllItems() {
+		Category category1 = new Category("1", "name1", "description1");
+		Category category2 = new Category("2", "name2", "description2");
+
+		ListModelReconciler.reconcile(model, asList(category1, category2), Category::getId);
+
+		assertThat(Collections.list(model.elements())).containsExactly(category1, category2);
+	}
+
+	// Test that rows are removed, replaced and appended according to their id
+	@Test
+	public void testReconcileAppliesDifferencesById() {
+		Category kept = new Category("1", "name1", "description1");
+		Category removed = new Category("2", "name2", "description2");
+		model.addElement(kept);
+		model.addElement(removed);
+		Category updated = new Category("1", "updated", "description1");
+		Category added = new Category("3", "name3", "description3");
+
+		ListModelReconciler.reconcile(model, asList(added, updated), Category::getId);
+
+		assertThat(Collections.list(model.elements())).containsExactly(updated, added);
+		assertThat(model.get(0)).isSameAs(updated);
+	}
+
+	// Test that duplicated ids already in the model collapse to a single row
+	@Test
+	public void testReconcileRemovesDuplicatedRows() {
+		Category category = new Category("1", "name1", "description1");
+		model.addElement(category);
+		model.addElement(category);
+
+		ListModelReconciler.reconcile(model, asList(category), Category::getId);
+
+		assertThat(model.size()).isEqualTo(1);
+	}
+}